@@ -3,7 +3,9 @@
 package net.sf.gogui.game;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import net.sf.gogui.go.Board;
+import net.sf.gogui.go.BoardSnapshot;
 import net.sf.gogui.go.ConstPointList;
 import net.sf.gogui.go.GoColor;
 import static net.sf.gogui.go.GoColor.BLACK;
@@ -15,70 +17,287 @@ import net.sf.gogui.go.PointList;
 import net.sf.gogui.gtp.GtpError;
 import net.sf.gogui.gui.MessageDialogs;
 
-/** Updates a go.Board to a node in a GameTree. */
+/** Updates a go.Board to a node in a GameTree.
+    The updater remembers the node that the board was last updated to.
+    If the next update uses the same tree and board and the board was not
+    modified in between, the board is taken back to the last common
+    ancestor of the two nodes with Board.undo() and only the nodes from
+    there to the new node are replayed. A full update from the root is
+    done if the board cannot be taken back to the common ancestor, for
+    example because a node after it contains setup stones.
+    The properties of the new node are always applied again, but changes
+    of the properties of its ancestors since the last update are not
+    detected.
+    Optionally, a PositionCache is used to start from the nearest cached
+    ancestor for random access in large trees.
+    If a game ruler is attached to the board, the moves are replayed
+    with Board.initWithGameRuler(), which does not apply the Go rules and
+    sends only the moves that changed to the ruler; setup stones are
+    ignored, the position is taken from the ruler. */
 public class BoardUpdater
 {
     public BoardUpdater()
     {
+        this(null);
+    }
+
+    /** Constructor with a cache of positions.
+        @param cache The cache or null. If the cache is not null, the
+        updater stores positions at checkpoints and at the nodes it updates
+        to, and starts from the nearest cached ancestor of a node, if
+        the board is far from it. The cache must be cleared after
+        properties of nodes that affect the position are modified. */
+    public BoardUpdater(PositionCache cache)
+    {
+        m_cache = cache;
         m_nodes = new ArrayList<ConstNode>(400);
+        m_path = new ArrayList<ConstNode>(400);
+        m_numberMoves = new int[400];
+        m_toMove = new GoColor[400];
+    }
+
+    /** Get the cache of positions.
+        @return The cache or null, if the updater has no cache. */
+    public PositionCache getCache()
+    {
+        return m_cache;
     }
 
     public void update(ConstGameTree tree, ConstNode currentNode, Board board)
     {
-        board.init(tree.getBoardSize());
-        int handicap = tree.getGameInfoConst(currentNode).getHandicap();
         NodeUtil.getPathToRoot(currentNode, m_nodes);
-        int nuMoves = 0;
-        boolean isFirstPlacement = true;
-        boolean isHandicapSetupDone = false;
-        boolean isInInitialBlackMoveSequence = true;
+        if (board.isGameRulerAttached())
+        {
+            updateWithGameRuler(tree, board);
+            return;
+        }
+        int handicap = tree.getGameInfoConst(currentNode).getHandicap();
+        int size = m_nodes.size();
+        int start = getNumberKeptNodes(tree, board, handicap);
+        boolean useCache = (m_cache != null
+                            && board.getSize() == tree.getBoardSize()
+                            && ! board.isGameRulerAttached());
+        if (useCache)
+        {
+            int cost = size - start;
+            if (start > 0)
+                cost += board.getNumberMoves() - m_numberMoves[start - 1];
+            if (cost > m_cache.getInterval())
+                start = restore(tree, handicap, board, start);
+        }
+        if (start == 0)
+        {
+            board.init(tree.getBoardSize());
+            m_path.clear();
+            m_resetIndex = -1;
+            m_settledIndex = (handicap > 0 ? Integer.MAX_VALUE : -1);
+            m_nuMoves = 0;
+            m_isFirstPlacement = true;
+            m_isHandicapSetupDone = false;
+            m_isInInitialBlackMoveSequence = true;
+        }
+        else
+        {
+            board.undo(board.getNumberMoves() - m_numberMoves[start - 1]);
+            board.setToMove(m_toMove[start - 1]);
+            for (int i = m_path.size() - 1; i >= start; --i)
+                m_path.remove(i);
+        }
+        for (int i = size - 1 - start; i >= 0; --i)
+        {
+            ConstNode node = m_nodes.get(i);
+            play(node, handicap, board);
+            int index = m_path.size();
+            m_path.add(node);
+            ensureCapacity(index + 1);
+            m_numberMoves[index] = board.getNumberMoves();
+            m_toMove[index] = board.getToMove();
+            if (m_settledIndex == Integer.MAX_VALUE
+                && (m_isHandicapSetupDone || ! m_isInInitialBlackMoveSequence))
+                m_settledIndex = index;
+            if (useCache && m_settledIndex <= index
+                && (index % m_cache.getInterval() == 0 || i == 0)
+                && ! m_cache.contains(node))
+                m_cache.put(tree, node, handicap, board.getSnapshot());
+        }
+        if (useCache)
+            // Mark as recently used
+            m_cache.get(tree, currentNode, handicap);
+        m_tree = tree;
+        m_board = board;
+        m_handicap = handicap;
+        m_boardNumberMoves = board.getNumberMoves();
+        m_boardHash = board.getZobristHash();
+    }
+
+    /** Local variable used in update.
+        Member variable for avoiding frequent new memory allocations. */
+    private final ArrayList<ConstNode> m_nodes;
+
+    /** Nodes from the root to the node the board was last updated to. */
+    private final ArrayList<ConstNode> m_path;
+
+    /** Number of moves on the board after playing the node with the
+        same index in m_path. */
+    private int[] m_numberMoves;
+
+    /** Color to move on the board after playing the node with the same
+        index in m_path. */
+    private GoColor[] m_toMove;
+
+    /** Index in m_path of the last node that cleared the move history
+        of the board with a setup, -1 if none. */
+    private int m_resetIndex;
+
+    /** Index in m_path of the node after which handicap stones can no
+        longer be set up, -1 if the game has no handicap. */
+    private int m_settledIndex;
+
+    private int m_nuMoves;
+
+    private boolean m_isFirstPlacement;
+
+    private boolean m_isHandicapSetupDone;
+
+    private boolean m_isInInitialBlackMoveSequence;
+
+    private int m_handicap;
+
+    private int m_boardNumberMoves;
+
+    private long m_boardHash;
+
+    private ConstGameTree m_tree;
+
+    private Board m_board;
+
+    private final PositionCache m_cache;
+
+    private void ensureCapacity(int capacity)
+    {
+        if (capacity > m_numberMoves.length)
+        {
+            int length = Math.max(capacity, 2 * m_numberMoves.length);
+            m_numberMoves = Arrays.copyOf(m_numberMoves, length);
+            m_toMove = Arrays.copyOf(m_toMove, length);
+        }
+    }
+
+    private void updateWithGameRuler(ConstGameTree tree, Board board)
+    {
+        ArrayList<Move> moves = new ArrayList<Move>(m_nodes.size());
         for (int i = m_nodes.size() - 1; i >= 0; --i)
+        {
+            Move move = m_nodes.get(i).getMove();
+            if (move != null)
+                moves.add(move);
+        }
+        board.initWithGameRuler(tree.getBoardSize(), moves);
+        // The next update without ruler starts from the root
+        m_tree = null;
+        m_board = null;
+    }
+
+    /** Get the number of nodes at the beginning of the path to the new
+        node that are already reflected by the board.
+        @return The number of nodes, 0 if the board needs a full update. */
+    private int getNumberKeptNodes(ConstGameTree tree, Board board,
+                                   int handicap)
+    {
+        if (tree != m_tree || board != m_board || handicap != m_handicap
+            || board.getSize() != tree.getBoardSize()
+            || board.isGameRulerAttached()
+            || board.getNumberMoves() != m_boardNumberMoves
+            || board.getZobristHash() != m_boardHash)
+            return 0;
+        int size = m_nodes.size();
+        // Always replay the new node, its properties could have changed
+        int max = Math.min(m_path.size(), size - 1);
+        int n = 0;
+        while (n < max && m_path.get(n) == m_nodes.get(size - 1 - n))
+            ++n;
+        if (n - 1 < m_resetIndex || n - 1 < m_settledIndex)
+            return 0;
+        return n;
+    }
+
+    /** Restore the board from the cached position of the nearest
+        ancestor of the new node that is not already reflected by the
+        board.
+        @return The new number of nodes at the beginning of the path to
+        the new node that are reflected by the board. */
+    private int restore(ConstGameTree tree, int handicap, Board board,
+                        int start)
+    {
+        int size = m_nodes.size();
+        for (int i = 0; i < size - start; ++i)
         {
             ConstNode node = m_nodes.get(i);
-            GoColor player = node.getPlayer();
-            if (node.hasSetup())
+            BoardSnapshot snapshot = m_cache.get(tree, node, handicap);
+            if (snapshot == null)
+                continue;
+            board.restore(snapshot);
+            m_path.clear();
+            for (int j = size - 1; j >= i; --j)
+                m_path.add(m_nodes.get(j));
+            int index = m_path.size() - 1;
+            ensureCapacity(index + 1);
+            m_numberMoves[index] = board.getNumberMoves();
+            m_toMove[index] = board.getToMove();
+            // Positions are only cached after the handicap is settled and
+            // the restored moves cannot be undone efficiently
+            m_resetIndex = index;
+            m_settledIndex = -1;
+            m_isFirstPlacement = false;
+            m_isInInitialBlackMoveSequence = false;
+            return index + 1;
+        }
+        return start;
+    }
+
+    private void play(ConstNode node, int handicap, Board board)
+    {
+        GoColor player = node.getPlayer();
+        if (node.hasSetup())
+        {
+            ConstPointList setupBlack = node.getSetup(BLACK);
+            ConstPointList setupWhite = node.getSetup(WHITE);
+            ConstPointList setupEmpty = node.getSetup(EMPTY);
+            if (handicap > 0 && m_isFirstPlacement
+                && setupBlack.size() == handicap && setupWhite.isEmpty()
+                && setupEmpty.isEmpty())
             {
-                ConstPointList setupBlack = node.getSetup(BLACK);
-                ConstPointList setupWhite = node.getSetup(WHITE);
-                ConstPointList setupEmpty = node.getSetup(EMPTY);
-                if (handicap > 0 && isFirstPlacement
-                    && setupBlack.size() == handicap && setupWhite.isEmpty()
-                    && setupEmpty.isEmpty())
-                {
-                    board.setupHandicap(setupBlack);
-                    isHandicapSetupDone = true;
-                }
-                else
-                    newSetup(board, setupBlack, setupWhite, setupEmpty, player);
-                isFirstPlacement = false;
-                isInInitialBlackMoveSequence = false;
+                board.setupHandicap(setupBlack);
+                m_isHandicapSetupDone = true;
             }
-            else if (player != null)
-                board.setToMove(player);
-            Move move = node.getMove();
-            if (move != null)
+            else
+                newSetup(board, setupBlack, setupWhite, setupEmpty, player);
+            m_resetIndex = m_path.size();
+            m_isFirstPlacement = false;
+            m_isInInitialBlackMoveSequence = false;
+        }
+        else if (player != null)
+            board.setToMove(player);
+        Move move = node.getMove();
+        if (move != null)
+        {
+            board.play(move);
+            ++m_nuMoves;
+            m_isFirstPlacement = false;
+            if (move.getColor() != BLACK)
+                m_isInInitialBlackMoveSequence = false;
+            // Files from the KGS Go server with Chines rules store
+            // handicap stones as moves, not as setup as specified by SGF
+            if (handicap > 0 && ! m_isHandicapSetupDone &&
+                m_isInInitialBlackMoveSequence && m_nuMoves == handicap)
             {
-                board.play(move);
-                ++nuMoves;
-                isFirstPlacement = false;
-                if (move.getColor() != BLACK)
-                    isInInitialBlackMoveSequence = false;
-                // Files from the KGS Go server with Chines rules store
-                // handicap stones as moves, not as setup as specified by SGF
-                if (handicap > 0 && ! isHandicapSetupDone &&
-                    isInInitialBlackMoveSequence && nuMoves == handicap)
-                {
-                    setupMovesAsHandicap(board);
-                    isHandicapSetupDone = true;
-                }
+                setupMovesAsHandicap(board);
+                m_resetIndex = m_path.size();
+                m_isHandicapSetupDone = true;
             }
         }
     }
 
-    /** Local variable used in update.
-        Member variable for avoiding frequent new memory allocations. */
-    private final ArrayList<ConstNode> m_nodes;
-
     /** Initialize board with new setup from merging the current position
         with the setup properties from a node. */
     private void newSetup(Board board, ConstPointList setupBlack,
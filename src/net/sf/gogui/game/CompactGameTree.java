@@ -0,0 +1,822 @@
+// CompactGameTree.java
+
+package net.sf.gogui.game;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import net.sf.gogui.go.ConstPointList;
+import net.sf.gogui.go.GoColor;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.BLACK_WHITE;
+import static net.sf.gogui.go.GoColor.BLACK_WHITE_EMPTY;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+
+/** Read-only game tree with a compact storage for very large trees.
+    The structure of the tree is stored in arrays of primitive types indexed
+    by node (father, first child, next sibling, move) and all other
+    properties of the nodes are encoded in a shared byte array, so that a
+    node containing only a move needs 20 bytes instead of a Node object
+    with a Move reference and its child list.
+    The depth, move number and subtree size of the nodes are computed for
+    all nodes when first needed.
+    <p>
+    The nodes returned by the tree are small views, which are created when
+    first needed and reused afterwards, so that they can be compared by
+    reference like the nodes of a GameTree. The properties of a node are
+    decoded into a temporary Node when requested; the last decoded node is
+    remembered, because callers usually query several properties of the
+    same node in a row. Because of these lazily created objects, the tree
+    is not thread-safe.
+    <p>
+    The tree is meant for browsing, analyzing and exporting large trees,
+    for example with BoardUpdater, NodeUtil or SgfWriter. Use GameTree for
+    editing.
+    @see Builder */
+public final class CompactGameTree
+    implements ConstGameTree
+{
+    /** Builder for compact game trees.
+        Nodes must be added in an order, in which each father is added
+        before its children (e.g. in the order of an SGF file). The
+        children of a node keep the order in which they were added. */
+    public static final class Builder
+    {
+        public Builder()
+        {
+            int capacity = 1024;
+            m_father = new int[capacity];
+            m_firstChild = new int[capacity];
+            m_nextSibling = new int[capacity];
+            m_lastChild = new int[capacity];
+            m_move = new int[capacity];
+            m_properties = new int[capacity];
+            m_data = new byte[4 * capacity];
+        }
+
+        /** Add a node.
+            The move and properties of the node are copied, the node is not
+            referenced by the builder. Its father and children are ignored.
+            @param father The index of the father node as returned by a
+            previous call, -1 for the root node.
+            @param node The node.
+            @return The index of the new node. */
+        public int add(int father, ConstNode node)
+        {
+            assert (father == -1) == (m_numberNodes == 0);
+            assert father < m_numberNodes;
+            if (m_numberNodes == m_father.length)
+                grow();
+            int index = m_numberNodes++;
+            m_father[index] = father;
+            m_firstChild[index] = -1;
+            m_nextSibling[index] = -1;
+            m_lastChild[index] = -1;
+            if (father >= 0)
+            {
+                int lastChild = m_lastChild[father];
+                if (lastChild < 0)
+                    m_firstChild[father] = index;
+                else
+                    m_nextSibling[lastChild] = index;
+                m_lastChild[father] = index;
+            }
+            set(index, node);
+            return index;
+        }
+
+        /** Create the tree.
+            The tree contains copies of the arrays; the builder can be used
+            for creating another tree with more nodes afterwards.
+            @param boardSize The board size.
+            @return The new tree. */
+        public CompactGameTree create(int boardSize)
+        {
+            assert m_numberNodes > 0;
+            if (! m_gameInfo.containsKey(0))
+                m_gameInfo.put(0, new GameInfo());
+            return new CompactGameTree(this, boardSize);
+        }
+
+        /** Get the first child of a node.
+            @return The index of the first child or -1, if the node has no
+            children. */
+        public int getFirstChild(int index)
+        {
+            assert index < m_numberNodes;
+            return m_firstChild[index];
+        }
+
+        /** Get the move of a node.
+            @return The move or null, if the node contains no move. */
+        public Move getMove(int index)
+        {
+            assert index < m_numberNodes;
+            return unpackMove(m_move[index]);
+        }
+
+        /** Get the next sibling of a node.
+            @return The index of the next child of the father of the node or
+            -1, if the node is the last child. */
+        public int getNextSibling(int index)
+        {
+            assert index < m_numberNodes;
+            return m_nextSibling[index];
+        }
+
+        public int getNumberNodes()
+        {
+            return m_numberNodes;
+        }
+
+        /** Replace the move and properties of a node.
+            The old properties are not removed from the encoded data, so
+            this should only be used for a few nodes, e.g. for applying
+            fixes to the root node after reading a file.
+            @param index The index of the node.
+            @param node The node with the new move and properties. */
+        public void set(int index, ConstNode node)
+        {
+            assert index < m_numberNodes;
+            m_move[index] = packMove(node.getMove());
+            m_properties[index] = encode(node);
+            ConstGameInfo info = node.getGameInfoConst();
+            if (info == null)
+                m_gameInfo.remove(index);
+            else
+                m_gameInfo.put(index, new GameInfo(info));
+        }
+
+        private int m_numberNodes;
+
+        private int m_dataSize;
+
+        private int[] m_father;
+
+        private int[] m_firstChild;
+
+        private int[] m_nextSibling;
+
+        /** Last child of each node for appending in constant time.
+            Only needed while building. */
+        private int[] m_lastChild;
+
+        private int[] m_move;
+
+        private int[] m_properties;
+
+        private byte[] m_data;
+
+        private final Map<Integer,GameInfo> m_gameInfo =
+            new HashMap<Integer,GameInfo>();
+
+        /** Encode the properties of a node.
+            @return The offset of the properties in m_data or -1, if the node
+            has no properties apart from the move and game info. */
+        private int encode(ConstNode node)
+        {
+            int offset = m_dataSize;
+            String comment = node.getComment();
+            if (comment != null)
+            {
+                writeByte(TAG_COMMENT);
+                writeString(comment);
+            }
+            for (GoColor c : BLACK_WHITE_EMPTY)
+            {
+                ConstPointList setup = node.getSetup(c);
+                if (setup.isEmpty())
+                    continue;
+                writeByte(TAG_SETUP);
+                writeByte(c.ordinal());
+                writePointList(setup);
+            }
+            GoColor player = node.getPlayer();
+            if (player != null)
+            {
+                writeByte(TAG_PLAYER);
+                writeByte(player.ordinal());
+            }
+            for (MarkType type : MarkType.values())
+            {
+                ConstPointList marked = node.getMarkedConst(type);
+                if (marked == null || marked.isEmpty())
+                    continue;
+                writeByte(TAG_MARKED);
+                writeByte(type.ordinal());
+                writePointList(marked);
+            }
+            Map<GoPoint,String> labels = node.getLabelsUnmodifiable();
+            if (labels != null)
+                for (Map.Entry<GoPoint,String> entry : labels.entrySet())
+                {
+                    writeByte(TAG_LABEL);
+                    writePoint(entry.getKey());
+                    writeString(entry.getValue());
+                }
+            for (GoColor c : BLACK_WHITE)
+            {
+                double timeLeft = node.getTimeLeft(c);
+                if (! Double.isNaN(timeLeft))
+                {
+                    writeByte(TAG_TIME_LEFT);
+                    writeByte(c.ordinal());
+                    long bits = Double.doubleToLongBits(timeLeft);
+                    writeInt((int)(bits >>> 32));
+                    writeInt((int)bits);
+                }
+                int movesLeft = node.getMovesLeft(c);
+                if (movesLeft != -1)
+                {
+                    writeByte(TAG_MOVES_LEFT);
+                    writeByte(c.ordinal());
+                    writeInt(movesLeft);
+                }
+            }
+            float value = node.getValue();
+            if (! Float.isNaN(value))
+            {
+                writeByte(TAG_VALUE);
+                writeInt(Float.floatToIntBits(value));
+            }
+            ConstSgfProperties sgfProperties = node.getSgfPropertiesConst();
+            if (sgfProperties != null)
+                for (String key : sgfProperties.getKeys())
+                {
+                    int numberValues = sgfProperties.getNumberValues(key);
+                    writeByte(TAG_SGF_PROPERTY);
+                    writeString(key);
+                    writeInt(numberValues);
+                    for (int i = 0; i < numberValues; ++i)
+                        writeString(sgfProperties.getValue(key, i));
+                }
+            if (m_dataSize == offset)
+                return -1;
+            writeByte(TAG_END);
+            return offset;
+        }
+
+        private void ensureDataCapacity(int n)
+        {
+            if (m_dataSize + n > m_data.length)
+                m_data = Arrays.copyOf(m_data,
+                                       Math.max(m_dataSize + n,
+                                                2 * m_data.length));
+        }
+
+        private void grow()
+        {
+            int capacity = 2 * m_father.length;
+            m_father = Arrays.copyOf(m_father, capacity);
+            m_firstChild = Arrays.copyOf(m_firstChild, capacity);
+            m_nextSibling = Arrays.copyOf(m_nextSibling, capacity);
+            m_lastChild = Arrays.copyOf(m_lastChild, capacity);
+            m_move = Arrays.copyOf(m_move, capacity);
+            m_properties = Arrays.copyOf(m_properties, capacity);
+        }
+
+        private void writeByte(int b)
+        {
+            ensureDataCapacity(1);
+            m_data[m_dataSize++] = (byte)b;
+        }
+
+        private void writeInt(int i)
+        {
+            ensureDataCapacity(4);
+            m_data[m_dataSize++] = (byte)(i >>> 24);
+            m_data[m_dataSize++] = (byte)(i >>> 16);
+            m_data[m_dataSize++] = (byte)(i >>> 8);
+            m_data[m_dataSize++] = (byte)i;
+        }
+
+        private void writePoint(GoPoint p)
+        {
+            writeByte(p.getX());
+            writeByte(p.getY());
+        }
+
+        private void writePointList(ConstPointList list)
+        {
+            writeInt(list.size());
+            for (GoPoint p : list)
+                writePoint(p);
+        }
+
+        private void writeString(String s)
+        {
+            byte[] bytes = s.getBytes(UTF8);
+            writeInt(bytes.length);
+            ensureDataCapacity(bytes.length);
+            System.arraycopy(bytes, 0, m_data, m_dataSize, bytes.length);
+            m_dataSize += bytes.length;
+        }
+    }
+
+    public int getBoardSize()
+    {
+        return m_boardSize;
+    }
+
+    public ConstGameInfo getGameInfoConst(ConstNode node)
+    {
+        int index = getIndex(node);
+        ConstGameInfo info;
+        while ((info = m_gameInfo.get(index)) == null)
+            index = m_father[index];
+        return info;
+    }
+
+    /** Get the memory used by the arrays of the tree.
+        Does not include the game information, the node views and the
+        lazily computed depths, move numbers and subtree sizes.
+        @return The memory in bytes. */
+    public long getMemory()
+    {
+        return 5L * 4 * m_father.length + m_data.length;
+    }
+
+    public int getNumberNodes()
+    {
+        return m_father.length;
+    }
+
+    public ConstNode getRootConst()
+    {
+        return getNode(0);
+    }
+
+    public boolean hasVariations()
+    {
+        int index = 0;
+        while (index >= 0)
+        {
+            int child = m_firstChild[index];
+            if (child >= 0 && m_nextSibling[child] >= 0)
+                return true;
+            index = child;
+        }
+        return false;
+    }
+
+    private static final int TAG_END = 0;
+
+    private static final int TAG_COMMENT = 1;
+
+    private static final int TAG_SETUP = 2;
+
+    private static final int TAG_PLAYER = 3;
+
+    private static final int TAG_MARKED = 4;
+
+    private static final int TAG_LABEL = 5;
+
+    private static final int TAG_TIME_LEFT = 6;
+
+    private static final int TAG_MOVES_LEFT = 7;
+
+    private static final int TAG_VALUE = 8;
+
+    private static final int TAG_SGF_PROPERTY = 9;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final GoColor[] COLORS = GoColor.values();
+
+    private static final MarkType[] MARK_TYPES = MarkType.values();
+
+    private final int m_boardSize;
+
+    private final int[] m_father;
+
+    private final int[] m_firstChild;
+
+    private final int[] m_nextSibling;
+
+    /** Moves encoded with packMove(). */
+    private final int[] m_move;
+
+    /** Offsets of the properties of the nodes in m_data, -1 for none. */
+    private final int[] m_properties;
+
+    /** Encoded properties.
+        Each node has a sequence of records starting with a tag, terminated
+        by TAG_END. */
+    private final byte[] m_data;
+
+    private final Map<Integer,GameInfo> m_gameInfo;
+
+    private int[] m_depth;
+
+    private int[] m_moveNumber;
+
+    private int[] m_subtreeSize;
+
+    private CompactNode[] m_nodes;
+
+    private int m_decodedIndex = -1;
+
+    private Node m_decoded;
+
+    /** Position in m_data while decoding. */
+    private int m_position;
+
+    private final class CompactNode
+        implements ConstNode
+    {
+        public CompactNode(int index)
+        {
+            m_index = index;
+        }
+
+        public String getComment()
+        {
+            return decode(m_index).getComment();
+        }
+
+        public int getDepth()
+        {
+            if (m_depth == null)
+                computeNumbers();
+            return m_depth[m_index];
+        }
+
+        public ConstNode getFatherConst()
+        {
+            return getNode(m_father[m_index]);
+        }
+
+        public ConstNode getChildConst()
+        {
+            return getNode(m_firstChild[m_index]);
+        }
+
+        public ConstNode getChildConst(int i)
+        {
+            int child = m_firstChild[m_index];
+            for ( ; i > 0 && child >= 0; --i)
+                child = m_nextSibling[child];
+            assert child >= 0;
+            return getNode(child);
+        }
+
+        public int getChildIndex(ConstNode child)
+        {
+            int index = getIndex(child);
+            if (m_father[index] != m_index)
+                return -1;
+            int i = 0;
+            for (int c = m_firstChild[m_index]; c != index;
+                 c = m_nextSibling[c])
+                ++i;
+            return i;
+        }
+
+        public ConstGameInfo getGameInfoConst()
+        {
+            return m_gameInfo.get(m_index);
+        }
+
+        public String getLabel(GoPoint point)
+        {
+            return decode(m_index).getLabel(point);
+        }
+
+        public Map<GoPoint,String> getLabelsUnmodifiable()
+        {
+            return decode(m_index).getLabelsUnmodifiable();
+        }
+
+        public ConstPointList getMarkedConst(MarkType type)
+        {
+            return decode(m_index).getMarkedConst(type);
+        }
+
+        public Move getMove()
+        {
+            return unpackMove(m_move[m_index]);
+        }
+
+        public int getMoveNumber()
+        {
+            if (m_moveNumber == null)
+                computeNumbers();
+            return m_moveNumber[m_index];
+        }
+
+        public int getMovesLeft(GoColor color)
+        {
+            return decode(m_index).getMovesLeft(color);
+        }
+
+        public int getNumberChildren()
+        {
+            int n = 0;
+            for (int c = m_firstChild[m_index]; c >= 0; c = m_nextSibling[c])
+                ++n;
+            return n;
+        }
+
+        public GoColor getPlayer()
+        {
+            return decode(m_index).getPlayer();
+        }
+
+        public ConstPointList getSetup(GoColor c)
+        {
+            return decode(m_index).getSetup(c);
+        }
+
+        public ConstSgfProperties getSgfPropertiesConst()
+        {
+            return decode(m_index).getSgfPropertiesConst();
+        }
+
+        public int getSubtreeSize()
+        {
+            if (m_subtreeSize == null)
+                computeSubtreeSizes();
+            return m_subtreeSize[m_index];
+        }
+
+        public double getTimeLeft(GoColor color)
+        {
+            return decode(m_index).getTimeLeft(color);
+        }
+
+        public GoColor getToMove()
+        {
+            return decode(m_index).getToMove();
+        }
+
+        public float getValue()
+        {
+            return decode(m_index).getValue();
+        }
+
+        public boolean hasChildren()
+        {
+            return (m_firstChild[m_index] >= 0);
+        }
+
+        public boolean hasComment()
+        {
+            return (m_properties[m_index] >= 0
+                    && decode(m_index).hasComment());
+        }
+
+        public boolean hasFather()
+        {
+            return (m_father[m_index] >= 0);
+        }
+
+        public boolean hasSetup()
+        {
+            return (m_properties[m_index] >= 0 && decode(m_index).hasSetup());
+        }
+
+        public boolean isEmpty()
+        {
+            return (m_move[m_index] == -1 && m_properties[m_index] == -1
+                    && ! m_gameInfo.containsKey(m_index));
+        }
+
+        public ConstNode variationAfter(ConstNode child)
+        {
+            int index = getIndex(child);
+            assert m_father[index] == m_index;
+            return getNode(m_nextSibling[index]);
+        }
+
+        public ConstNode variationBefore(ConstNode child)
+        {
+            int index = getIndex(child);
+            assert m_father[index] == m_index;
+            int previous = -1;
+            for (int c = m_firstChild[m_index]; c != index;
+                 c = m_nextSibling[c])
+                previous = c;
+            return getNode(previous);
+        }
+
+        private final int m_index;
+
+        private CompactGameTree getTree()
+        {
+            return CompactGameTree.this;
+        }
+    }
+
+    private CompactGameTree(Builder builder, int boardSize)
+    {
+        int n = builder.m_numberNodes;
+        m_boardSize = boardSize;
+        m_father = Arrays.copyOf(builder.m_father, n);
+        m_firstChild = Arrays.copyOf(builder.m_firstChild, n);
+        m_nextSibling = Arrays.copyOf(builder.m_nextSibling, n);
+        m_move = Arrays.copyOf(builder.m_move, n);
+        m_properties = Arrays.copyOf(builder.m_properties, n);
+        m_data = Arrays.copyOf(builder.m_data, builder.m_dataSize);
+        m_gameInfo = new HashMap<Integer,GameInfo>(builder.m_gameInfo);
+    }
+
+    /** Compute depths and move numbers of all nodes.
+        Fathers have smaller indices than their children, so a single pass
+        in index order is sufficient. */
+    private void computeNumbers()
+    {
+        int n = m_father.length;
+        int[] depth = new int[n];
+        int[] moveNumber = new int[n];
+        for (int i = 0; i < n; ++i)
+        {
+            int father = m_father[i];
+            int hasMove = (m_move[i] == -1 ? 0 : 1);
+            if (father < 0)
+                moveNumber[i] = hasMove;
+            else
+            {
+                depth[i] = depth[father] + 1;
+                moveNumber[i] = moveNumber[father] + hasMove;
+            }
+        }
+        m_depth = depth;
+        m_moveNumber = moveNumber;
+    }
+
+    private void computeSubtreeSizes()
+    {
+        int n = m_father.length;
+        int[] subtreeSize = new int[n];
+        for (int i = n - 1; i >= 0; --i)
+        {
+            ++subtreeSize[i];
+            if (m_father[i] >= 0)
+                subtreeSize[m_father[i]] += subtreeSize[i];
+        }
+        m_subtreeSize = subtreeSize;
+    }
+
+    private Node decode(int index)
+    {
+        if (index == m_decodedIndex)
+            return m_decoded;
+        Node node = new Node(unpackMove(m_move[index]));
+        int offset = m_properties[index];
+        if (offset >= 0)
+        {
+            m_position = offset;
+            int tag;
+            while ((tag = readByte()) != TAG_END)
+                decodeProperty(node, tag);
+        }
+        m_decodedIndex = index;
+        m_decoded = node;
+        return node;
+    }
+
+    private void decodeProperty(Node node, int tag)
+    {
+        switch (tag)
+        {
+        case TAG_COMMENT:
+            node.setComment(readString());
+            break;
+        case TAG_SETUP:
+            {
+                GoColor c = COLORS[readByte()];
+                int n = readInt();
+                for (int i = 0; i < n; ++i)
+                    node.addStone(c, readPoint());
+            }
+            break;
+        case TAG_PLAYER:
+            node.setPlayer(COLORS[readByte()]);
+            break;
+        case TAG_MARKED:
+            {
+                MarkType type = MARK_TYPES[readByte()];
+                int n = readInt();
+                for (int i = 0; i < n; ++i)
+                    node.addMarked(readPoint(), type);
+            }
+            break;
+        case TAG_LABEL:
+            {
+                GoPoint p = readPoint();
+                node.setLabel(p, readString());
+            }
+            break;
+        case TAG_TIME_LEFT:
+            {
+                GoColor c = COLORS[readByte()];
+                long bits = (long)readInt() << 32;
+                bits |= readInt() & 0xffffffffL;
+                node.setTimeLeft(c, Double.longBitsToDouble(bits));
+            }
+            break;
+        case TAG_MOVES_LEFT:
+            {
+                GoColor c = COLORS[readByte()];
+                node.setMovesLeft(c, readInt());
+            }
+            break;
+        case TAG_VALUE:
+            node.setValue(Float.intBitsToFloat(readInt()));
+            break;
+        case TAG_SGF_PROPERTY:
+            {
+                String key = readString();
+                int n = readInt();
+                ArrayList<String> values = new ArrayList<String>(n);
+                for (int i = 0; i < n; ++i)
+                    values.add(readString());
+                node.addSgfProperty(key, values);
+            }
+            break;
+        default:
+            assert false;
+        }
+    }
+
+    private int getIndex(ConstNode node)
+    {
+        assert ((CompactNode)node).getTree() == this;
+        return ((CompactNode)node).m_index;
+    }
+
+    /** Get the view of a node.
+        @param index The index of the node or -1.
+        @return The view or null, if the index is -1. */
+    private ConstNode getNode(int index)
+    {
+        if (index < 0)
+            return null;
+        if (m_nodes == null)
+            m_nodes = new CompactNode[m_father.length];
+        CompactNode node = m_nodes[index];
+        if (node == null)
+        {
+            node = new CompactNode(index);
+            m_nodes[index] = node;
+        }
+        return node;
+    }
+
+    private static int packMove(Move move)
+    {
+        if (move == null)
+            return -1;
+        assert move.getColor().isBlackWhite();
+        GoPoint p = move.getPoint();
+        int point = 0;
+        if (p != null)
+            point = 1 + p.getX() * GoPoint.MAX_SIZE + p.getY();
+        return (point << 1) | (move.getColor() == BLACK ? 0 : 1);
+    }
+
+    private int readByte()
+    {
+        return m_data[m_position++] & 0xff;
+    }
+
+    private int readInt()
+    {
+        int i = (m_data[m_position] & 0xff) << 24
+            | (m_data[m_position + 1] & 0xff) << 16
+            | (m_data[m_position + 2] & 0xff) << 8
+            | (m_data[m_position + 3] & 0xff);
+        m_position += 4;
+        return i;
+    }
+
+    private GoPoint readPoint()
+    {
+        int x = readByte();
+        return GoPoint.get(x, readByte());
+    }
+
+    private String readString()
+    {
+        int length = readInt();
+        String s = new String(m_data, m_position, length, UTF8);
+        m_position += length;
+        return s;
+    }
+
+    private static Move unpackMove(int move)
+    {
+        if (move == -1)
+            return null;
+        GoColor c = ((move & 1) == 0 ? BLACK : WHITE);
+        int point = move >> 1;
+        if (point == 0)
+            return Move.getPass(c);
+        --point;
+        return Move.get(c, point / GoPoint.MAX_SIZE, point % GoPoint.MAX_SIZE);
+    }
+}
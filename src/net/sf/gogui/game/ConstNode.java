@@ -14,6 +14,8 @@ public interface ConstNode
 {
     String getComment();
 
+    int getDepth();
+
     ConstNode getFatherConst();
 
     ConstNode getChildConst();
@@ -32,6 +34,8 @@ public interface ConstNode
 
     Move getMove();
 
+    int getMoveNumber();
+
     int getMovesLeft(GoColor color);
 
     int getNumberChildren();
@@ -42,6 +46,8 @@ public interface ConstNode
 
     ConstSgfProperties getSgfPropertiesConst();
 
+    int getSubtreeSize();
+
     double getTimeLeft(GoColor color);
 
     GoColor getToMove();
@@ -4,7 +4,6 @@ package net.sf.gogui.game;
 
 import net.sf.gogui.go.ConstBoard;
 import net.sf.gogui.go.ConstPointList;
-import net.sf.gogui.go.GenericBoard;
 import net.sf.gogui.go.Board;
 import net.sf.gogui.go.GoColor;
 import static net.sf.gogui.go.GoColor.EMPTY;
@@ -96,6 +95,14 @@ public class Game
         return m_tree.getGameInfoNode(node);
     }
 
+    /** Get the cache of positions used for updating the board.
+        Can be used to change the memory limit or report the memory
+        usage. */
+    public PositionCache getPositionCache()
+    {
+        return m_positionCache;
+    }
+
     public int getMoveNumber()
     {
         return NodeUtil.getMoveNumber(getCurrentNode());
@@ -153,6 +160,7 @@ public class Game
     {
         m_tree = tree;
         m_current = m_tree.getRoot();
+        m_positionCache.clear();
         updateBoard();
         updateClock();
         m_clock.reset();
@@ -172,6 +180,7 @@ public class Game
     public void keepOnlyMainVariation()
     {
         m_tree.keepOnlyMainVariation();
+        m_positionCache.clear();
         setModified();
     }
 
@@ -179,6 +188,7 @@ public class Game
     {
         ConstGameInfo info = getGameInfo(m_current);
         m_tree = NodeUtil.makeTreeFromPosition(info, m_board);
+        m_positionCache.clear();
         m_board.init(m_board.getSize());
         m_current = m_tree.getRoot();
         updateBoard();
@@ -314,6 +324,7 @@ public class Game
             || color.equals(m_board.getToMove()))
             setModified();
         m_current.setPlayer(color);
+        m_positionCache.clear();
         updateBoard();
     }
 
@@ -357,6 +368,7 @@ public class Game
     {
         assert p != null;
         m_current.removeSetup(p);
+        m_positionCache.clear();
         Node father = m_current.getFather();
         if (father != null)
         {
@@ -389,6 +401,7 @@ public class Game
         Node oldCurrentNode = m_current;
         m_current = father;
         m_current.removeChild(oldCurrentNode);
+        m_positionCache.clear();
         setModified();
     }
 
@@ -396,6 +409,7 @@ public class Game
     public void truncateChildren()
     {
         NodeUtil.truncateChildren(m_current);
+        m_positionCache.clear();
         setModified();
     }
 
@@ -404,7 +418,12 @@ public class Game
 
     private final Board m_board;
 
-    private final BoardUpdater m_boardUpdater = new BoardUpdater();
+    /** Positions for random access in large trees.
+        Cleared when nodes are removed or their positions change. */
+    private final PositionCache m_positionCache = new PositionCache();
+
+    private final BoardUpdater m_boardUpdater =
+        new BoardUpdater(m_positionCache);
 
     private GameTree m_tree;
 
@@ -423,8 +442,6 @@ public class Game
     private void updateBoard()
     {
         m_boardUpdater.update(m_tree, m_current, m_board);
-        if (m_board.isGameRulerAttached())
-            GenericBoard.copyBoardState(m_board.getGameRuler(), m_current, m_board);
         m_board.setToMove(getToMove());
     }
 
@@ -102,7 +102,15 @@ final class TimeInfo
 /** Node in a game tree.
     The memory requirement is optimized for nodes containing only a move and
     comment property (e.g. for GNU Go's large SGF traces).
-    The optimization also expects that most nodes have only one child. */
+    The optimization also expects that most nodes have only one child.
+    The depth and move number of each node are stored in the node and
+    updated for the subtree of a node, if the node is appended, removed or
+    gets a new father or move.
+    The subtree size is also stored in the node. Adding or removing
+    children marks it as unknown for the father and its ancestors up to the
+    first ancestor for which it is already unknown; getSubtreeSize()
+    computes the unknown sizes again. This keeps both building a tree from
+    the root and repeated queries cheap. */
 public final class Node
     implements ConstNode
 {
@@ -116,6 +124,7 @@ public final class Node
     public Node(Move move)
     {
         m_move = move;
+        m_moveNumber = (move == null ? 0 : 1);
     }
 
     /** Append a node as a child to this node.
@@ -143,6 +152,8 @@ public final class Node
             }
         }
         node.m_father = this;
+        node.updateNumbers();
+        invalidateSubtreeSize();
     }
 
     /** Add a markup.
@@ -284,6 +295,14 @@ public final class Node
         return m_father;
     }
 
+    /** Get the depth of this node.
+        @return The number of nodes in the sequence from the root node
+        to this node, excluding this node (the root node has depth 0). */
+    public int getDepth()
+    {
+        return m_depth;
+    }
+
     /** Get father node (const).
         @return Father node of this node or null, if no father. */
     public ConstNode getFatherConst()
@@ -357,6 +376,14 @@ public final class Node
         return m_move;
     }
 
+    /** Get the move number of this node.
+        @return The total number of moves in the sequence of nodes from
+        the root node to this node, including this node. */
+    public int getMoveNumber()
+    {
+        return m_moveNumber;
+    }
+
     /** Moves left in byoyomi.
         @param c The color.
         @return Moves left in byoyomi for that color or -1 if not in byoyomi or
@@ -423,6 +450,17 @@ public final class Node
         return getSgfProperties();
     }
 
+    /** Get the number of nodes in the subtree of this node.
+        Computes the sizes of subtrees that changed since the last call
+        without recursion.
+        @return The number of nodes in the subtree including this node. */
+    public int getSubtreeSize()
+    {
+        if (m_subtreeSize == 0)
+            computeSubtreeSize();
+        return m_subtreeSize;
+    }
+
     /** Time left for color after move was made.
         @param c The color
         @return Time left in seconds for this color or Double.NaN if unknown */
@@ -535,6 +573,8 @@ public final class Node
         else
             assert false;
         child.m_father = null;
+        child.updateNumbers();
+        invalidateSubtreeSize();
     }
 
     /** Remove markup.
@@ -569,6 +609,7 @@ public final class Node
             return;
         Node child = getChild(0);
         m_children = child;
+        invalidateSubtreeSize();
     }
 
     /** Store comment in this node.
@@ -597,6 +638,7 @@ public final class Node
     public void setFather(Node father)
     {
         m_father = father;
+        updateNumbers();
     }
 
     /** Add label at a location on the board.
@@ -621,7 +663,10 @@ public final class Node
         @param move The move or null, if no move. */
     public void setMove(Move move)
     {
+        boolean changed = ((move == null) != (m_move == null));
         m_move = move;
+        if (changed)
+            updateNumbers();
     }
 
     /** Set byoyomi moves left.
@@ -717,6 +762,101 @@ public final class Node
     /** Node if one child only, ArrayList otherwise. */
     private Object m_children;
 
+    /** See getDepth() */
+    private int m_depth;
+
+    /** See getMoveNumber() */
+    private int m_moveNumber;
+
+    /** See getSubtreeSize().
+        Zero if unknown. If the size is unknown, it is also unknown for
+        all ancestors. */
+    private int m_subtreeSize = 1;
+
+    private void computeSubtreeSize()
+    {
+        ArrayList<Node> stack = new ArrayList<Node>();
+        stack.add(this);
+        while (! stack.isEmpty())
+        {
+            Node node = stack.get(stack.size() - 1);
+            int size = 1;
+            boolean isKnown = true;
+            int numberChildren = node.getNumberChildren();
+            for (int i = 0; i < numberChildren; ++i)
+            {
+                Node child = node.getChild(i);
+                if (child.m_subtreeSize == 0)
+                {
+                    stack.add(child);
+                    isKnown = false;
+                }
+                else
+                    size += child.m_subtreeSize;
+            }
+            if (isKnown)
+            {
+                node.m_subtreeSize = size;
+                stack.remove(stack.size() - 1);
+            }
+        }
+    }
+
+    private void invalidateSubtreeSize()
+    {
+        for (Node node = this; node != null && node.m_subtreeSize != 0;
+             node = node.m_father)
+            node.m_subtreeSize = 0;
+    }
+
+    /** Update the depth and move number of this node and its subtree
+        from the father of this node.
+        Nodes in the subtree whose numbers did not change are skipped with
+        their subtrees. Does not use recursion, because trees can be very
+        deep. */
+    private void updateNumbers()
+    {
+        ArrayList<Node> stack = null;
+        Node node = this;
+        while (true)
+        {
+            Node father = node.m_father;
+            int depth = 0;
+            int moveNumber = 0;
+            if (father != null)
+            {
+                depth = father.m_depth + 1;
+                moveNumber = father.m_moveNumber;
+            }
+            if (node.m_move != null)
+                ++moveNumber;
+            Node next = null;
+            if (node == this || depth != node.m_depth
+                || moveNumber != node.m_moveNumber)
+            {
+                node.m_depth = depth;
+                node.m_moveNumber = moveNumber;
+                int numberChildren = node.getNumberChildren();
+                if (numberChildren > 0)
+                    next = node.getChild(0);
+                if (numberChildren > 1)
+                {
+                    if (stack == null)
+                        stack = new ArrayList<Node>();
+                    for (int i = 1; i < numberChildren; ++i)
+                        stack.add(node.getChild(i));
+                }
+            }
+            if (next == null)
+            {
+                if (stack == null || stack.isEmpty())
+                    break;
+                next = stack.remove(stack.size() - 1);
+            }
+            node = next;
+        }
+    }
+
     private void createExtraInfo()
     {
         if (m_extraInfo == null)
@@ -287,13 +287,7 @@ public final class NodeUtil
         root node has depth 0). */
     public static int getDepth(ConstNode node)
     {
-        int depth = 0;
-        while (node.getFatherConst() != null)
-        {
-            node = node.getFatherConst();
-            ++depth;
-        }
-        return depth;
+        return node.getDepth();
     }
 
     /** Get last node in main variation. */
@@ -310,14 +304,7 @@ public final class NodeUtil
         the root node to the given node, including the given node. */
     public static int getMoveNumber(ConstNode node)
     {
-        int moveNumber = 0;
-        while (node != null)
-        {
-            if (node.getMove() != null)
-                ++moveNumber;
-            node = node.getFatherConst();
-        }
-        return moveNumber;
+        return node.getMoveNumber();
     }
 
     /** Moves left in main variation. */
@@ -756,16 +743,7 @@ public final class NodeUtil
         than a given limit. */
     public static boolean subtreeGreaterThan(ConstNode node, int size)
     {
-        int n = 0;
-        int depth = NodeUtil.getDepth(node);
-        while (node != null)
-        {
-            ++n;
-            if (n > size)
-                return true;
-            node = nextNode(node, depth);
-        }
-        return false;
+        return node.getSubtreeSize() > size;
     }
 
     /** Count number of nodes in subtree.
@@ -774,21 +752,14 @@ public final class NodeUtil
         node). */
     public static int subtreeSize(ConstNode node)
     {
-        int n = 0;
-        int depth = NodeUtil.getDepth(node);
-        while (node != null)
-        {
-            ++n;
-            node = nextNode(node, depth);
-        }
-        return n;
+        return node.getSubtreeSize();
     }
 
     /** Return a string containing information and statistics of the subtree
         of a node. */
     public static String treeInfo(ConstNode node)
     {
-        int numberNodes = 0;
+        int numberNodes = node.getSubtreeSize();
         int numberTerminal = 0;
         int moreThanOneChild = 0;
         int maxDepth = 0;
@@ -799,7 +770,6 @@ public final class NodeUtil
         int rootDepth = getDepth(node);
         while (node != null)
         {
-            ++numberNodes;
             int numberChildren = node.getNumberChildren();
             int depth = getDepth(node) - rootDepth;
             assert depth >= 0;
@@ -0,0 +1,185 @@
+// PositionCache.java
+
+package net.sf.gogui.game;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import net.sf.gogui.go.BoardSnapshot;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import net.sf.gogui.go.GoPoint;
+
+/** Bounded cache of board positions at nodes of game trees.
+    Used by BoardUpdater to start from the nearest cached ancestor of a
+    node instead of the root. The cache contains positions at checkpoints
+    every getInterval() nodes along each path and at recently visited
+    nodes. If the estimated memory of the positions exceeds the limit,
+    the least recently used positions are removed.
+    <p>
+    The cache does not detect changes of the nodes; it must be cleared
+    after properties of nodes that affect the position are modified.
+    It is not thread-safe. */
+public final class PositionCache
+{
+    /** Default number of nodes between checkpoints. */
+    public static final int DEFAULT_INTERVAL = 50;
+
+    /** Default memory limit in bytes. */
+    public static final long DEFAULT_MAX_MEMORY = 16000000L;
+
+    /** Create a cache with the default interval and memory limit. */
+    public PositionCache()
+    {
+        this(DEFAULT_MAX_MEMORY, DEFAULT_INTERVAL);
+    }
+
+    /** Constructor.
+        @param maxMemory The memory limit in bytes.
+        @param interval The number of nodes between checkpoints along a
+        path (at least 1). */
+    public PositionCache(long maxMemory, int interval)
+    {
+        assert interval > 0;
+        m_maxMemory = maxMemory;
+        m_interval = interval;
+    }
+
+    /** Remove all positions. */
+    public void clear()
+    {
+        m_entries.clear();
+        m_memory = 0;
+    }
+
+    /** Get the number of nodes between checkpoints along a path. */
+    public int getInterval()
+    {
+        return m_interval;
+    }
+
+    /** Get the memory limit.
+        @return The memory limit in bytes. */
+    public long getMaxMemory()
+    {
+        return m_maxMemory;
+    }
+
+    /** Get the estimated memory used by the cached positions.
+        @return The memory in bytes. */
+    public long getMemory()
+    {
+        return m_memory;
+    }
+
+    /** Get the number of cached positions. */
+    public int getNumberPositions()
+    {
+        return m_entries.size();
+    }
+
+    /** Set the memory limit.
+        Removes the least recently used positions, if the new limit is
+        exceeded.
+        @param maxMemory The memory limit in bytes. */
+    public void setMaxMemory(long maxMemory)
+    {
+        m_maxMemory = maxMemory;
+        evict();
+    }
+
+    private static final class Entry
+    {
+        public Entry(ConstGameTree tree, int handicap,
+                     BoardSnapshot snapshot)
+        {
+            m_tree = tree;
+            m_handicap = handicap;
+            m_snapshot = snapshot;
+            m_memory = estimateMemory(snapshot);
+        }
+
+        public final ConstGameTree m_tree;
+
+        public final int m_handicap;
+
+        public final BoardSnapshot m_snapshot;
+
+        public final long m_memory;
+    }
+
+    /** Estimated memory of a cache entry without the variable parts. */
+    private static final long ENTRY_MEMORY = 256;
+
+    /** Estimated memory of a reference or a move in an array. */
+    private static final long REFERENCE_MEMORY = 4;
+
+    private final int m_interval;
+
+    private long m_maxMemory;
+
+    private long m_memory;
+
+    /** Entries in access order, least recently used first. */
+    private final LinkedHashMap<ConstNode,Entry> m_entries
+        = new LinkedHashMap<ConstNode,Entry>(16, 0.75f, true);
+
+    /** Check if a node has a cached position.
+        Does not count as a use of the position. */
+    boolean contains(ConstNode node)
+    {
+        return m_entries.containsKey(node);
+    }
+
+    /** Get the cached position of a node.
+        @param tree The tree of the node.
+        @param node The node.
+        @param handicap The handicap used for updating the board.
+        @return The position or null, if the cache has no position for
+        this node, tree and handicap. */
+    BoardSnapshot get(ConstGameTree tree, ConstNode node, int handicap)
+    {
+        Entry entry = m_entries.get(node);
+        if (entry == null || entry.m_tree != tree
+            || entry.m_handicap != handicap)
+            return null;
+        return entry.m_snapshot;
+    }
+
+    /** Add the position of a node.
+        Replaces an existing position of the node. */
+    void put(ConstGameTree tree, ConstNode node, int handicap,
+             BoardSnapshot snapshot)
+    {
+        Entry entry = new Entry(tree, handicap, snapshot);
+        Entry old = m_entries.put(node, entry);
+        if (old != null)
+            m_memory -= old.m_memory;
+        m_memory += entry.m_memory;
+        evict();
+    }
+
+    private void evict()
+    {
+        Iterator<Entry> it = m_entries.values().iterator();
+        while (m_memory > m_maxMemory && it.hasNext())
+        {
+            m_memory -= it.next().m_memory;
+            it.remove();
+        }
+    }
+
+    /** Estimate the memory of a position.
+        Assumes that the point colors are not shared with other
+        positions, which is true for positions that differ by at least one
+        move. */
+    private static long estimateMemory(BoardSnapshot snapshot)
+    {
+        long n = GoPoint.getNumberIndexes(snapshot.getSize())
+            + snapshot.getNumberMoves()
+            + snapshot.getSetup(BLACK).size()
+            + snapshot.getSetup(WHITE).size();
+        if (snapshot.getNumberMoves() > 0)
+            n += snapshot.getKilled().size() + snapshot.getSuicide().size();
+        return ENTRY_MEMORY + REFERENCE_MEMORY * n;
+    }
+}
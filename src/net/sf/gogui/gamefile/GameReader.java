@@ -9,6 +9,8 @@ import java.io.FileReader;
 import java.io.InputStream;
 import java.io.IOException;
 import java.util.Locale;
+import net.sf.gogui.game.CompactGameTree;
+import net.sf.gogui.game.ConstGameTree;
 import net.sf.gogui.game.GameTree;
 import net.sf.gogui.util.ErrorMessage;
 import net.sf.gogui.util.FileUtil;
@@ -22,6 +24,18 @@ public class GameReader
     /** Construct reader and read a game.
         @param progressShow Callback to show progress, can be null */
     public GameReader(File file, ProgressShow progressShow) throws ErrorMessage
+    {
+        this(file, progressShow, false);
+    }
+
+    /** Construct reader and read a game, optionally into a compact tree.
+        @param progressShow Callback to show progress, can be null
+        @param compact Read SGF files into a read-only CompactGameTree,
+        which needs much less memory for large files. XML files are always
+        read into a GameTree.
+        @see #getConstTree */
+    public GameReader(File file, ProgressShow progressShow, boolean compact)
+        throws ErrorMessage
     {
         m_gameFile = new GameFile();
         GameFile.Format format = detectFormat(file);
@@ -48,9 +62,10 @@ public class GameReader
             break;
         case SGF:
             {
-                SgfReader reader =
-                    new SgfReader(in, file, progressShow, file.length());
+                SgfReader reader = new SgfReader(in, file, progressShow,
+                                                 file.length(), compact);
                 m_tree = reader.getTree();
+                m_compactTree = reader.getCompactTree();
                 m_warnings = reader.getWarnings();
             }
             break;
@@ -67,6 +82,19 @@ public class GameReader
         return m_gameFile;
     }
 
+    /** Get the game tree.
+        @return The compact tree, if the game was read into a compact tree,
+        the game tree otherwise. */
+    public ConstGameTree getConstTree()
+    {
+        if (m_compactTree != null)
+            return m_compactTree;
+        return m_tree;
+    }
+
+    /** Get the game tree.
+        @return The game tree or null, if the game was read into a compact
+        tree. */
     public GameTree getTree()
     {
         return m_tree;
@@ -83,6 +111,8 @@ public class GameReader
 
     private GameTree m_tree;
 
+    private CompactGameTree m_compactTree;
+
     private static GameFile.Format detectFormat(File file)
     {
         String extension = FileUtil.getExtension(file);
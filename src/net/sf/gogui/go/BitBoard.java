@@ -0,0 +1,384 @@
+// BitBoard.java
+
+package net.sf.gogui.go;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import net.sf.gogui.gtp.GtpClientBase;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+/** Compact board position stored as bit planes.
+    Stores the stones of each color as a bit plane in an array of longs with
+    one bit per point of the real board size, together with the color to
+    move, the number of captured stones and the ko point. Copying, comparing
+    and counting stones only touch a few words of memory, which makes this
+    class suitable for storing large numbers of positions.
+    <p>
+    A bit board has no move history. The stones on the board are reported
+    as setup stones and the color to move as setup player, so that
+    BoardUtil.copy() can convert a bit board into a Board. Queries about
+    blocks and liberties use a flood fill and are slower than in Board.
+    Instances can only be modified with BoardUtil.copy(). */
+public final class BitBoard
+    implements ConstBoard
+{
+    /** Construct an empty board.
+        @param size The board size. */
+    public BitBoard(int size)
+    {
+        init(size);
+        m_toMove = BLACK;
+    }
+
+    /** Construct a bit board with the position of another board.
+        @param board The board to copy the position from. */
+    public BitBoard(ConstBoard board)
+    {
+        set(board);
+    }
+
+    public boolean bothPassed()
+    {
+        return false;
+    }
+
+    public boolean contains(GoPoint point)
+    {
+        return point.isOnBoard(m_size);
+    }
+
+    /** Create a copy of this board.
+        @return A new bit board with the same position. */
+    public BitBoard copy()
+    {
+        BitBoard board = new BitBoard(m_size);
+        board.set(this);
+        return board;
+    }
+
+    /** Compare the position with another bit board.
+        @return true, if the other object is a bit board with the same
+        size, stones, color to move, ko point and captured stones. */
+    public boolean equals(Object object)
+    {
+        if (object == this)
+            return true;
+        if (object == null || object.getClass() != getClass())
+            return false;
+        BitBoard board = (BitBoard)object;
+        return (board.m_hash == m_hash
+                && board.m_size == m_size
+                && board.m_toMove == m_toMove
+                && board.m_koPoint == m_koPoint
+                && board.m_capturedBlack == m_capturedBlack
+                && board.m_capturedWhite == m_capturedWhite
+                && Arrays.equals(board.m_black, m_black)
+                && Arrays.equals(board.m_white, m_white));
+    }
+
+    /** Check if two boards have the same stones.
+        Ignores the color to move, captured stones and ko point.
+        @param board The other board.
+        @return true, if the boards have the same size and the same
+        stones. */
+    public boolean equalsStones(BitBoard board)
+    {
+        return (board.m_hash == m_hash
+                && board.m_size == m_size
+                && Arrays.equals(board.m_black, m_black)
+                && Arrays.equals(board.m_white, m_white));
+    }
+
+    public ConstPointList getAdjacent(GoPoint point)
+    {
+        return m_constants.getAdjacent(point);
+    }
+
+    public GoPoint getAnchor(GoPoint p)
+    {
+        return BoardUtil.findAnchor(this, p);
+    }
+
+    public int getBlockSize(GoPoint p)
+    {
+        return BoardUtil.countStones(this, p);
+    }
+
+    /** Get a hash code that does not change if the position is rotated or
+        mirrored.
+        Computed from the stones on each call.
+        @see Board#getCanonicalHash */
+    public long getCanonicalHash()
+    {
+        CanonicalKey key = new CanonicalKey(m_size);
+        for (GoColor c : GoColor.BLACK_WHITE)
+            for (GoPoint p : getSetup(c))
+                key.toggle(c, p);
+        return key.get();
+    }
+
+    public int getCaptured(GoColor c)
+    {
+        if (c == BLACK)
+            return m_capturedBlack;
+        assert c == WHITE;
+        return m_capturedWhite;
+    }
+
+    public GoColor getColor(GoPoint p)
+    {
+        int i = getBit(p);
+        if (isSet(m_black, i))
+            return BLACK;
+        if (isSet(m_white, i))
+            return WHITE;
+        return EMPTY;
+    }
+
+    /** Always returns an empty list, a bit board has no move history. */
+    public ConstPointList getKilled()
+    {
+        return PointList.getEmptyList();
+    }
+
+    /** Always returns null, a bit board has no move history. */
+    public Move getLastMove()
+    {
+        return null;
+    }
+
+    public GoPoint getKoPoint()
+    {
+        return m_koPoint;
+    }
+
+    public int getLiberties(GoPoint p)
+    {
+        return BoardUtil.countLiberties(this, p);
+    }
+
+    /** Not supported, a bit board has no move history.
+        @throws IndexOutOfBoundsException Always. */
+    public Move getMove(int i)
+    {
+        throw new IndexOutOfBoundsException();
+    }
+
+    /** Always returns zero, a bit board has no move history. */
+    public int getNumberMoves()
+    {
+        return 0;
+    }
+
+    /** Get the number of stones of a color.
+        @param c The color (<code>BLACK</code> or <code>WHITE</code>).
+        @return The number of stones of this color on the board. */
+    public int getNumberStones(GoColor c)
+    {
+        long[] plane = (c == BLACK ? m_black : m_white);
+        assert c.isBlackWhite();
+        int n = 0;
+        for (int i = 0; i < plane.length; ++i)
+            n += Long.bitCount(plane[i]);
+        return n;
+    }
+
+    /** Get the stones of a color.
+        @return All stones of this color on the board. */
+    public ConstPointList getSetup(GoColor c)
+    {
+        long[] plane = (c == BLACK ? m_black : m_white);
+        assert c.isBlackWhite();
+        PointList result = new PointList(getNumberStones(c));
+        for (int i = 0; i < plane.length; ++i)
+        {
+            long word = plane[i];
+            while (word != 0)
+            {
+                int bit = Long.numberOfTrailingZeros(word);
+                int index = i * 64 + bit;
+                result.add(GoPoint.get(index % m_size, index / m_size));
+                word &= word - 1;
+            }
+        }
+        return result;
+    }
+
+    /** Get the color to move.
+        @return The color to move. */
+    public GoColor getSetupPlayer()
+    {
+        return m_toMove;
+    }
+
+    public int getSize()
+    {
+        return m_size;
+    }
+
+    public void getStones(GoPoint p, GoColor color, PointList stones)
+    {
+        BoardUtil.findStones(this, p, color, stones);
+    }
+
+    /** Always returns an empty list, a bit board has no move history. */
+    public ConstPointList getSuicide()
+    {
+        return PointList.getEmptyList();
+    }
+
+    public GoColor getToMove()
+    {
+        return m_toMove;
+    }
+
+    public long getZobristHash()
+    {
+        return m_hash;
+    }
+
+    public int hashCode()
+    {
+        return (int)(m_hash ^ (m_hash >>> 32));
+    }
+
+    public boolean isCaptureOrSuicide(GoColor c, GoPoint p)
+    {
+        return BoardUtil.isCaptureOrSuicide(this, c, p);
+    }
+
+    public boolean isHandicap(GoPoint point)
+    {
+        return m_constants.isHandicap(point);
+    }
+
+    public boolean isKo(GoPoint point)
+    {
+        return point == m_koPoint;
+    }
+
+    public boolean isModified()
+    {
+        return (m_toMove != BLACK || getNumberStones(BLACK) > 0
+                || getNumberStones(WHITE) > 0);
+    }
+
+    /** Always returns false, a bit board has no move history. */
+    public boolean isRepetition(boolean situational)
+    {
+        return false;
+    }
+
+    /** Always returns false, a bit board has no move history. */
+    public boolean isSetupHandicap()
+    {
+        return false;
+    }
+
+    public boolean isSuicide(GoColor c, GoPoint p)
+    {
+        return BoardUtil.isSuicide(this, c, p);
+    }
+
+    /** Always returns false, a bit board has no move history. */
+    public boolean isSuperko(GoColor c, GoPoint p, boolean situational)
+    {
+        return false;
+    }
+
+    public Iterator<GoPoint> iterator()
+    {
+        return m_constants.getPoints().iterator();
+    }
+
+    /** Not supported.
+        @throws UnsupportedOperationException Always. */
+    public void attachGameRuler(GtpClientBase gameRuler)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /** Does nothing, a bit board never has a game ruler attached. */
+    public void detachGameRuler()
+    {
+    }
+
+    /** Set the position to the position of another board.
+        Only used by BoardUtil.copy(). */
+    void set(ConstBoard board)
+    {
+        int size = board.getSize();
+        if (size != m_size || m_black == null)
+            init(size);
+        if (board instanceof BitBoard)
+        {
+            BitBoard bitBoard = (BitBoard)board;
+            System.arraycopy(bitBoard.m_black, 0, m_black, 0, m_black.length);
+            System.arraycopy(bitBoard.m_white, 0, m_white, 0, m_white.length);
+        }
+        else
+        {
+            Arrays.fill(m_black, 0L);
+            Arrays.fill(m_white, 0L);
+            for (GoPoint p : m_constants.getPoints())
+            {
+                GoColor c = board.getColor(p);
+                if (c == BLACK)
+                    setBit(m_black, getBit(p));
+                else if (c == WHITE)
+                    setBit(m_white, getBit(p));
+            }
+        }
+        m_hash = board.getZobristHash();
+        m_toMove = board.getToMove();
+        m_capturedBlack = board.getCaptured(BLACK);
+        m_capturedWhite = board.getCaptured(WHITE);
+        m_koPoint = board.getKoPoint();
+    }
+
+    private int m_size;
+
+    private int m_capturedBlack;
+
+    private int m_capturedWhite;
+
+    private long m_hash;
+
+    private long[] m_black;
+
+    private long[] m_white;
+
+    private GoColor m_toMove;
+
+    private GoPoint m_koPoint;
+
+    private BoardConstants m_constants;
+
+    private int getBit(GoPoint p)
+    {
+        return p.getY() * m_size + p.getX();
+    }
+
+    private void init(int size)
+    {
+        m_size = size;
+        int length = (size * size + 63) / 64;
+        m_black = new long[length];
+        m_white = new long[length];
+        m_constants = BoardConstants.get(size);
+    }
+
+    private static boolean isSet(long[] plane, int i)
+    {
+        return (plane[i >> 6] & (1L << (i & 63))) != 0;
+    }
+
+    private static void setBit(long[] plane, int i)
+    {
+        plane[i >> 6] |= 1L << (i & 63);
+    }
+}
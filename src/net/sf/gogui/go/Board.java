@@ -3,6 +3,8 @@
 package net.sf.gogui.go;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
 
 import net.sf.gogui.gtp.GtpClientBase;
@@ -73,12 +75,67 @@ implements ConstBoard
         return m_constants.getAdjacent(point);
     }
 
+    /** Get the block a stone belongs to.
+        Blocks are tracked incrementally while moves are played and undone,
+        so this query does not need a flood fill.
+        @param p The point.
+        @return A stone of the block, which is the same for all stones of
+        the block and can be used as a block identifier; null if the point
+        is empty. */
+    public GoPoint getAnchor(GoPoint p)
+    {
+        if (getColor(p) == EMPTY)
+            return null;
+        updateBlocks();
+        return GoPoint.fromIndex(m_blockAnchor[p.getIndex()]);
+    }
+
+    /** Get the number of stones in the block a stone belongs to.
+        @param p The point.
+        @return The number of stones in the block; zero if the point is
+        empty. */
+    public int getBlockSize(GoPoint p)
+    {
+        if (getColor(p) == EMPTY)
+            return 0;
+        updateBlocks();
+        return m_blockStones[m_blockAnchor[p.getIndex()]];
+    }
+
+    /** Get a hash code of the current position that does not change if
+        the position is rotated or mirrored.
+        Computed from the stones on the board at the first call and
+        updated incrementally like getZobristHash() afterwards, so that
+        boards that never use it do not pay for the updates of all
+        rotations.
+        @return The smallest Zobrist hash code of all rotated and mirrored
+        versions of the position.
+        @see CanonicalKey */
+    public long getCanonicalHash()
+    {
+        if (m_canonicalKey == null)
+        {
+            CanonicalKey canonicalKey = new CanonicalKey(m_size);
+            ConstPointList points = m_constants.getPoints();
+            int nuPoints = points.size();
+            for (int i = 0; i < nuPoints; ++i)
+            {
+                GoPoint p = points.get(i);
+                GoColor c = m_color[p.getIndex()];
+                if (c != EMPTY)
+                    canonicalKey.toggle(c, p);
+            }
+            m_canonicalKey = canonicalKey;
+        }
+        return m_canonicalKey.get();
+    }
+
     /** Get number of captured stones.
         @return The total number of stones of the given color captured by
         opponent moves or by suicide. */
     public int getCaptured(GoColor c)
     {
-        return m_captured.get(c);
+        return m_captured[c.ordinal()];
     }
 
     /** Get state of a point on the board.
@@ -102,6 +159,8 @@ implements ConstBoard
     /** Opponent stones captured in last move.
         Does not include player stones killed by suicide.
         Requires that there is a last move (or setup stone).
+        The list is reused for later moves after the last move is undone,
+        so it should not be stored.
         @return List of opponent stones (go.Point) captured in last move;
         empty if none were killed or there is no last move.
         @see #getSuicide() */
@@ -122,6 +181,70 @@ implements ConstBoard
         return m_stack.get(n - 1).m_move;
     }
 
+    /** Get the point that is illegal because of the simple ko rule.
+        @return The point of the stone captured by the last move, if the
+        last move captured a single stone and could be recaptured
+        immediately; null otherwise.
+        @see #isKo */
+    public GoPoint getKoPoint()
+    {
+        return m_koPoint;
+    }
+
+    /** Get the number of liberties of the block a stone belongs to.
+        @param p The point.
+        @return The number of distinct empty points adjacent to the block;
+        zero if the point is empty. */
+    public int getLiberties(GoPoint p)
+    {
+        if (getColor(p) == EMPTY)
+            return 0;
+        updateBlocks();
+        return m_blockLiberties[m_blockAnchor[p.getIndex()]];
+    }
+
+    /** Get all legal moves of the color to move.
+        A move is legal, if the point is empty, is not a suicide and does
+        not violate the simple ko rule (superko is not checked). All points
+        are checked in a single pass using the liberty counts of the
+        adjacent blocks. If a game ruler is attached, only the occupied
+        points are excluded, the game ruler decides about legality.
+        @param legal The set of legal moves; the bit with the index
+        GoPoint.getIndex() is set for each legal point, all other bits are
+        cleared. Pass moves are not included. */
+    public void getLegalMoves(BitSet legal)
+    {
+        legal.clear();
+        ConstPointList points = m_constants.getPoints();
+        int nuPoints = points.size();
+        boolean checkRules = ! isGameRulerAttached();
+        if (checkRules)
+            updateBlocks();
+        int koPoint = (m_koPoint == null ? -1 : m_koPoint.getIndex());
+        // Don't use an iterator for efficiency
+        for (int i = 0; i < nuPoints; ++i)
+        {
+            int index = points.get(i).getIndex();
+            if (m_color[index] != EMPTY)
+                continue;
+            if (checkRules
+                && (index == koPoint || isSuicide(m_toMove, index)))
+                continue;
+            legal.set(index);
+        }
+    }
+
+    /** Get all legal moves of the color to move.
+        Convenience function that allocates a new bit set.
+        @return The set of legal moves.
+        @see #getLegalMoves(BitSet) */
+    public BitSet getLegalMoves()
+    {
+        BitSet legal = new BitSet(GoPoint.getNumberIndexes(m_size));
+        getLegalMoves(legal);
+        return legal;
+    }
+
     /** Get the number of moves played so far.
         @return The number of moves.
         @see #getMove */
@@ -165,9 +288,51 @@ implements ConstBoard
         return m_size;
     }
 
+    /** Get an immutable snapshot of the current state.
+        Taking a snapshot does not copy the stones on the board; the board
+        copies its internal color array the next time a point changes.
+        Repeated calls without changes in between return the same snapshot.
+        The snapshot can be read from any thread.
+        @return The snapshot. */
+    public BoardSnapshot getSnapshot()
+    {
+        if (m_snapshot == null)
+        {
+            int n = getNumberMoves();
+            if (n > m_numberSharedMoves)
+                m_numberSharedMoves = n;
+            if (m_sharedSetupBlack == null)
+            {
+                m_sharedSetupBlack = copySetup(BLACK);
+                m_sharedSetupWhite = copySetup(WHITE);
+            }
+            m_snapshot = new BoardSnapshot(this, m_color, m_moves,
+                                           m_oldToMove, m_oldHash,
+                                           m_sharedSetupBlack,
+                                           m_sharedSetupWhite);
+            m_isColorShared = true;
+        }
+        return m_snapshot;
+    }
+
     /** Get stones of a block. */
     public void getStones(GoPoint p, GoColor color, PointList stones)
     {
+        if (color != EMPTY)
+        {
+            if (getColor(p) != color)
+                return;
+            updateBlocks();
+            int anchor = m_blockAnchor[p.getIndex()];
+            int i = anchor;
+            do
+            {
+                stones.add(GoPoint.fromIndex(i));
+                i = m_blockNext[i];
+            }
+            while (i != anchor);
+            return;
+        }
         assert m_mark.isCleared();
         findStones(p, color, stones);
         m_mark.clear(stones);
@@ -178,7 +343,8 @@ implements ConstBoard
         Requires that there is a last move (or setup stone).
         @return List of stones (go.Point) killed by suicide in last move,
         including the stone played; empty if no stones were killed by suicide
-        or if there is no last move.
+        or if there is no last move. The list is reused for later moves after
+        the last move is undone, so it should not be stored.
         @see #getKilled() */
     public ConstPointList getSuicide()
     {
@@ -194,6 +360,16 @@ implements ConstBoard
         return m_toMove;
     }
 
+    /** Get Zobrist hash code of the current position.
+        The hash code is updated incrementally when stones are added to or
+        removed from the board and does not depend on the color to move.
+        @return The XOR of the keys of all stones on the board.
+        @see Zobrist */
+    public long getZobristHash()
+    {
+        return m_hash;
+    }
+
     /** Initialize the board for a given board size.
         For changing the board size.
         Also calls clear().
@@ -201,17 +377,54 @@ implements ConstBoard
         row / column) in the range from one to GoPoint.MAX_SIZE */
     public void init(int size)
     {
+        if (m_mark == null || size != m_size)
+        {
+            m_mark = new Marker(size);
+            m_canonicalKey = null;
+            int numberIndexes = GoPoint.getNumberIndexes(size);
+            m_color = new GoColor[numberIndexes];
+            m_isColorShared = false;
+            m_blockAnchor = new int[numberIndexes];
+            m_blockNext = new int[numberIndexes];
+            m_blockStones = new int[numberIndexes];
+            m_blockLiberties = new int[numberIndexes];
+            m_trailSize = 0;
+        }
         m_size = size;
-        m_mark = new Marker(m_size);
         m_constants = BoardConstants.get(size);
         clear();
     }
 
+    /** Attach a game ruler program.
+        The ruler is used with a GtpGameRuler.
+        @see #attachGameRuler(GameRuler) */
     public void attachGameRuler(GtpClientBase gameRuler)
     {
+        attachGameRuler(new GtpGameRuler(gameRuler));
+    }
+
+    /** Attach a game ruler.
+        The board uses the ruler instead of the Go rules for moves, the
+        color to move and the position until detachGameRuler() is called.
+        The moves of the board are sent to the ruler and the position of
+        the ruler is copied to the board. If the same ruler was attached
+        before, only the moves that differ from the moves the ruler has
+        already played are sent (see synchronizeGameRuler()), so a ruler
+        can be detached while the board is updated and attached again
+        cheaply. */
+    public void attachGameRuler(GameRuler gameRuler)
+    {
+        if (gameRuler != m_syncedGameRuler)
+        {
+            m_syncedGameRuler = gameRuler;
+            m_gameRulerMoves = null;
+        }
         m_gameRuler = gameRuler;
+        ArrayList<Move> moves = new ArrayList<Move>(m_stack.size());
+        for (int i = m_stack.size() - 1; i >= 0; --i)
+            moves.add(getMove(i));
         try {
-            GenericBoard.playFromBeginning(m_gameRuler, new ArrayList<>(), this);
+            GenericBoard.playFromBeginning(m_gameRuler, moves, this);
         } catch (GtpError e) {
         }
     }
@@ -221,6 +434,36 @@ implements ConstBoard
         m_gameRuler = null;
     }
 
+    /** Initialize the board to the position after a sequence of moves with
+        the attached game ruler.
+        Like init() followed by play() for each move, but the moves are
+        only sent to the ruler if they differ from the moves the ruler has
+        already played (see synchronizeGameRuler()) and the position and
+        the color to move are taken from the ruler. The Go rules are not
+        applied, so no stones are captured.
+        @param size The board size.
+        @param moves The moves from the beginning of the game. */
+    public void initWithGameRuler(int size, ArrayList<Move> moves)
+    {
+        assert isGameRulerAttached();
+        GameRuler gameRuler = m_gameRuler;
+        // Don't clear the ruler in clear()
+        m_gameRuler = null;
+        init(size);
+        m_gameRuler = gameRuler;
+        for (int i = 0; i < moves.size(); ++i)
+            play(moves.get(i));
+        try {
+            synchronizeGameRuler(moves);
+            GenericBoard.copyRulerBoardState(m_gameRuler, this);
+            Move last = getLastMove();
+            if (last == null)
+                last = Move.get(BLACK, null);
+            m_toMove = GenericBoard.getSideToMove(m_gameRuler, last);
+        } catch (GtpError e) {
+        }
+    }
+
     public boolean isGameRulerAttached() {
         return (m_gameRuler != null);
     }
@@ -232,12 +475,11 @@ implements ConstBoard
         capture any opponent stones, or be a suicide move. */
     public boolean isCaptureOrSuicide(GoColor c, GoPoint p)
     {
-        if (getColor(p) != EMPTY)
+        if (getColor(p) != EMPTY || isGameRulerAttached())
             return false;
-        play(c, p);
-        boolean result = (getKilled().size() > 0 || getSuicide().size() > 0);
-        undo();
-        return result;
+        updateBlocks();
+        int index = p.getIndex();
+        return (isCapture(c, index) || isSuicide(c, index));
     }
 
     /** Check if a point is a handicap point.
@@ -259,6 +501,26 @@ implements ConstBoard
         return point == m_koPoint;
     }
 
+    /** Check if the current position occurred before.
+        Compares the hash code of the current position with the hash codes
+        of all positions before the moves played since the last setup.
+        @param situational If true, a position is only considered equal to
+        an earlier position if also the color to move is the same
+        (situational superko); otherwise only the stones are compared
+        (positional superko).
+        @return true, if the current position repeats an earlier position. */
+    public boolean isRepetition(boolean situational)
+    {
+        for (int i = m_stack.size() - 1; i >= 0; --i)
+        {
+            StackEntry entry = m_stack.get(i);
+            if (entry.m_oldHash == m_hash
+                && (! situational || entry.m_oldToMove == m_toMove))
+                return true;
+        }
+        return false;
+    }
+
     /** Check if any moves were played or setup stones placed on the board. */
     public boolean isModified()
     {
@@ -284,12 +546,41 @@ implements ConstBoard
         would be a suicide move. */
     public boolean isSuicide(GoColor c, GoPoint p)
     {
-        if (getColor(p) != EMPTY)
+        if (getColor(p) != EMPTY || isGameRulerAttached())
+            return false;
+        updateBlocks();
+        return isSuicide(c, p.getIndex());
+    }
+
+    /** Check if a move would violate the superko rule.
+        The move is not played; the hash code of the resulting position is
+        computed from the current hash code and the blocks adjacent to the
+        point that would be captured. Pass moves and moves on occupied
+        points are never considered a superko violation. If a game ruler is
+        attached, the result is always false.
+        @param c The player color.
+        @param p The point to check.
+        @param situational Use situational instead of positional superko.
+        @return true, if a move at the given point by the given player
+        would repeat an earlier position.
+        @see #isRepetition */
+    public boolean isSuperko(GoColor c, GoPoint p, boolean situational)
+    {
+        if (p == null || getColor(p) != EMPTY || isGameRulerAttached())
             return false;
-        play(c, p);
-        boolean result = (getSuicide().size() > 0);
-        undo();
-        return result;
+        updateBlocks();
+        long hash = getHashAfterMove(c, p.getIndex());
+        GoColor toMove = c.otherColor();
+        if (hash == m_hash && (! situational || m_toMove == toMove))
+            return true;
+        for (int i = m_stack.size() - 1; i >= 0; --i)
+        {
+            StackEntry entry = m_stack.get(i);
+            if (entry.m_oldHash == hash
+                && (! situational || entry.m_oldToMove == toMove))
+                return true;
+        }
+        return false;
     }
 
     public Iterator<GoPoint> iterator()
@@ -301,14 +592,25 @@ implements ConstBoard
         Takes back the effects of any moves or setup stones on the board. */
     public void clear()
     {
-        for (GoPoint p : this)
-            setColor(p, EMPTY);
-        m_stack.clear();
-        for (GoColor c : BLACK_WHITE)
-        {
-            m_setup.get(c).clear();
-            m_captured.set(c, 0);
-        }
+        ConstPointList points = m_constants.getPoints();
+        int nuPoints = points.size();
+        // Don't use an iterator for efficiency
+        for (int i = 0; i < nuPoints; ++i)
+            setColor(points.get(i), EMPTY);
+        m_hash = 0;
+        if (m_canonicalKey != null)
+            m_canonicalKey.clear();
+        m_snapshot = null;
+        // Don't use addAll(), which allocates a temporary array
+        for (int i = m_stack.size() - 1; i >= 0; --i)
+            m_freeEntries.add(m_stack.remove(i));
+        m_blocksValid = false;
+        m_setup.get(BLACK).clear();
+        m_setup.get(WHITE).clear();
+        m_sharedSetupBlack = null;
+        m_sharedSetupWhite = null;
+        m_captured[BLACK.ordinal()] = 0;
+        m_captured[WHITE.ordinal()] = 0;
         if (isGameRulerAttached())
             try {
                 GenericBoard.playFromBeginning(m_gameRuler, new ArrayList<>(),this);
@@ -320,6 +622,8 @@ implements ConstBoard
         m_koPoint = null;
         m_isSetupHandicap = false;
         m_setupPlayer = null;
+        m_restored = null;
+        m_numberRestoredMoves = 0;
     }
 
     /** Play a move.
@@ -341,22 +645,23 @@ implements ConstBoard
         @param move The move (location and player) */
     public void play(Move move)
     {
-        StackEntry entry = new StackEntry(move);
+        StackEntry entry = getFreeEntry(move);
         entry.execute(this);
+        setHistory(m_stack.size(), entry);
         m_stack.add(entry);
+        m_snapshot = null;
     }
     
     public void playGameMove(Move move)
     {
-        StackEntry entry = new StackEntry(move);
-        entry.execute(this);
-        m_stack.add(entry);
+        play(move);
     }
 
     /** Change the color to move.
         @param toMove The new color to move. */
     public void setToMove(GoColor toMove)
     {
+        m_snapshot = null;
         if (isGameRulerAttached())
             try {
                 m_toMove = GenericBoard.getSideToMove(m_gameRuler, getLastMove());
@@ -366,6 +671,64 @@ implements ConstBoard
         m_toMove = toMove;
     }
 
+    /** Restore the state of a snapshot.
+        The moves of the snapshot become the move history of the board.
+        The moves are not replayed, so restoring is fast even for long
+        games; the stones captured by the restored moves are only
+        determined by replaying them from the setup of the snapshot if one
+        of them is undone. The colors to move and hash codes before the
+        moves are taken from the snapshot, so undo() restores the color to
+        move exactly and isRepetition() and isSuperko() need no replay.
+        @param snapshot A snapshot of a board of the same size taken
+        without an attached game ruler. */
+    public void restore(BoardSnapshot snapshot)
+    {
+        assert snapshot.getSize() == m_size;
+        assert ! isGameRulerAttached();
+        clear();
+        m_color = snapshot.getColorArray();
+        m_isColorShared = true;
+        m_hash = snapshot.getZobristHash();
+        m_canonicalKey = null;
+        m_setup.get(BLACK).addAllFromConst(snapshot.getSetup(BLACK));
+        m_setup.get(WHITE).addAllFromConst(snapshot.getSetup(WHITE));
+        m_sharedSetupBlack = snapshot.getSetup(BLACK);
+        m_sharedSetupWhite = snapshot.getSetup(WHITE);
+        m_setupPlayer = snapshot.getSetupPlayer();
+        m_isSetupHandicap = snapshot.isSetupHandicap();
+        m_captured[BLACK.ordinal()] = snapshot.getCaptured(BLACK);
+        m_captured[WHITE.ordinal()] = snapshot.getCaptured(WHITE);
+        m_toMove = snapshot.getToMove();
+        m_koPoint = snapshot.getKoPoint();
+        int n = snapshot.getNumberMoves();
+        GoColor[] oldToMove = snapshot.getOldToMoveArray();
+        long[] oldHash = snapshot.getOldHashArray();
+        for (int i = 0; i < n; ++i)
+        {
+            StackEntry entry = getFreeEntry(snapshot.getMove(i));
+            entry.m_killed.clear();
+            entry.m_suicide.clear();
+            entry.m_oldToMove = oldToMove[i];
+            entry.m_oldHash = oldHash[i];
+            m_stack.add(entry);
+        }
+        if (n > 0)
+        {
+            StackEntry last = m_stack.get(n - 1);
+            last.m_killed.addAllFromConst(snapshot.getKilled());
+            last.m_suicide.addAllFromConst(snapshot.getSuicide());
+        }
+        // The arrays of the history belong to the snapshot
+        m_moves = snapshot.getMoveArray();
+        m_oldToMove = oldToMove;
+        m_oldHash = oldHash;
+        m_numberSharedMoves = Integer.MAX_VALUE;
+        m_restored = snapshot;
+        m_numberRestoredMoves = n;
+        m_blocksValid = false;
+        m_snapshot = snapshot;
+    }
+
     /** Setup position.
         Clears the board and move history and sets up a position.
         @param black Black stones to add on the board.
@@ -382,15 +745,15 @@ implements ConstBoard
         for (GoColor c : BLACK_WHITE)
         {
             ConstPointList stones = (c == BLACK ? black : white);
-            if (stones == null)
-                m_setup.set(c, new PointList());
-            else
+            if (stones != null)
             {
                 for (GoPoint p : stones)
                     setColor(p, c);
-                m_setup.set(c, new PointList(stones));
+                m_setup.get(c).addAllFromConst(stones);
             }
         }
+        m_blocksValid = false;
+        m_snapshot = null;
     }
     
     /**
@@ -402,6 +765,8 @@ implements ConstBoard
         {
             setColor(p, c);
         }
+        m_blocksValid = false;
+        m_snapshot = null;
     }
 
     /** Setup initial handicap stones.
@@ -413,6 +778,7 @@ implements ConstBoard
     {
         setup(points, null, WHITE);
         m_isSetupHandicap = true;
+        m_snapshot = null;
     }
 
     /** Undo the last move.
@@ -422,9 +788,19 @@ implements ConstBoard
     {
         int index = getNumberMoves() - 1;
         assert index >= 0;
-        m_stack.get(index).undo(this);
-        m_stack.remove(index);
+        if (index < m_numberRestoredMoves)
+        {
+            GoColor toMove = m_stack.get(index).m_oldToMove;
+            replayRestored(index);
+            m_toMove = toMove;
+            m_lastMoveIndex = index;
+            return;
+        }
+        StackEntry entry = m_stack.remove(index);
+        entry.undo(this);
+        m_freeEntries.add(entry);
         m_lastMoveIndex = index;
+        m_snapshot = null;
     }
 
     /** Undo a number of moves.
@@ -439,9 +815,13 @@ implements ConstBoard
             undo();
     }
 
+    /** Entry in the move stack.
+        Entries are reused after a move was undone, so that playing and
+        undoing moves does not allocate memory once the pool of entries is
+        large enough. */
     private static class StackEntry
     {
-        public final Move m_move;
+        public Move m_move;
 
         public GoPoint m_oldKoPoint;
 
@@ -449,22 +829,34 @@ implements ConstBoard
 
         public GoColor m_oldToMove;
 
-        public PointList m_killed;
+        public long m_oldHash;
+
+        /** Block epoch at the time of the move.
+            Negative if the move did not update the block information. */
+        public int m_blockEpoch;
+
+        /** Size of the block trail before the move. */
+        public int m_trailSize;
 
-        public PointList m_suicide;
+        public final PointList m_killed = new PointList();
 
-        public int m_moveIndex = 0;
+        public final PointList m_suicide = new PointList();
 
-        public StackEntry(Move move)
+        public int m_moveIndex;
+
+        public void init(Move move)
         {
             m_move = move;
+            m_moveIndex = 0;
         }
 
         public void execute(Board board)
         {
-            m_killed = new PointList();
-            m_suicide = new PointList();
+            m_killed.clear();
+            m_suicide.clear();
             m_oldKoPoint = board.m_koPoint;
+            m_oldHash = board.m_hash;
+            m_blockEpoch = -1;
             board.m_koPoint = null;
             if (m_moveIndex < board.m_stack.size())
                 m_moveIndex = board.m_stack.size();
@@ -504,26 +896,55 @@ implements ConstBoard
             if (p != null)
             {
                 m_oldColor = board.getColor(p);
-                board.setColor(p, c);
                 assert c != EMPTY;
-                for (GoPoint adj : board.getAdjacent(p))
+                if (m_oldColor == EMPTY)
+                {
+                    board.updateBlocks();
+                    m_blockEpoch = board.m_blockEpoch;
+                    m_trailSize = board.m_trailSize;
+                    board.setColor(p, c);
+                    board.addStone(p);
+                    ConstPointList adjacent = board.getAdjacent(p);
+                    int nuAdjacent = adjacent.size();
+                    // Don't use an iterator for efficiency
+                    for (int i = 0; i < nuAdjacent; ++i)
+                    {
+                        GoPoint adj = adjacent.get(i);
+                        int killedSize = m_killed.size();
+                        if (board.getColor(adj) == otherColor
+                            && board.getLiberties(adj) == 0)
+                            board.removeBlock(adj, m_killed);
+                        if (m_killed.size() == killedSize + 1)
+                            board.m_koPoint = m_killed.get(killedSize);
+                    }
+                    if (board.getLiberties(p) == 0)
+                        board.removeBlock(p, m_suicide);
+                }
+                else
                 {
-                    int killedSize = m_killed.size();
-                    if (board.getColor(adj) == otherColor)
-                        board.checkKill(adj, m_killed);
-                    if (m_killed.size() == killedSize + 1)
-                        board.m_koPoint = m_killed.get(killedSize);
+                    // Play on occupied point, block information is rebuilt
+                    // on demand
+                    board.m_blocksValid = false;
+                    board.setColor(p, c);
+                    ConstPointList adjacent = board.getAdjacent(p);
+                    int nuAdjacent = adjacent.size();
+                    // Don't use an iterator for efficiency
+                    for (int i = 0; i < nuAdjacent; ++i)
+                    {
+                        GoPoint adj = adjacent.get(i);
+                        int killedSize = m_killed.size();
+                        if (board.getColor(adj) == otherColor)
+                            board.checkKill(adj, m_killed);
+                        if (m_killed.size() == killedSize + 1)
+                            board.m_koPoint = m_killed.get(killedSize);
+                    }
+                    board.checkKill(p, m_suicide);
                 }
-                board.checkKill(p, m_suicide);
                 if (board.m_koPoint != null
                     && ! board.isSingleStoneSingleLib(p, c))
                     board.m_koPoint = null;
-                board.m_captured.set(c,
-                                     board.m_captured.get(c)
-                                     + m_suicide.size());
-                board.m_captured.set(otherColor,
-                                     board.m_captured.get(otherColor)
-                                     + m_killed.size());
+                board.m_captured[c.ordinal()] += m_suicide.size();
+                board.m_captured[otherColor.ordinal()] += m_killed.size();
             }
             m_oldToMove = board.m_toMove;
             board.m_toMove = otherColor;
@@ -536,17 +957,21 @@ implements ConstBoard
             {
                 GoColor c = m_move.getColor();
                 GoColor otherColor = c.otherColor();
-                for (GoPoint stone : m_suicide)
-                    board.setColor(stone, c);
+                int nuSuicide = m_suicide.size();
+                // Don't use an iterator for efficiency
+                for (int i = 0; i < nuSuicide; ++i)
+                    board.setColor(m_suicide.get(i), c);
                 board.setColor(p, m_oldColor);
-                for (GoPoint stone : m_killed)
-                    board.setColor(stone, otherColor);
-                board.m_captured.set(c,
-                                     board.m_captured.get(c)
-                                     - m_suicide.size());
-                board.m_captured.set(otherColor,
-                                     board.m_captured.get(otherColor)
-                                     - m_killed.size());
+                int nuKilled = m_killed.size();
+                for (int i = 0; i < nuKilled; ++i)
+                    board.setColor(m_killed.get(i), otherColor);
+                if (board.m_blocksValid
+                    && m_blockEpoch == board.m_blockEpoch)
+                    board.undoBlocks(m_trailSize);
+                else
+                    board.m_blocksValid = false;
+                board.m_captured[c.ordinal()] -= nuSuicide;
+                board.m_captured[otherColor.ordinal()] -= nuKilled;
             }
             board.m_toMove = m_oldToMove;
             board.m_koPoint = m_oldKoPoint;
@@ -557,19 +982,24 @@ implements ConstBoard
 
     private int m_size;
 
-    private final BlackWhiteSet<Integer> m_captured
-        = new BlackWhiteSet<Integer>(0, 0);
+    /** Number of captured stones indexed by GoColor.ordinal(). */
+    private final int[] m_captured = new int[2];
 
     private final ArrayList<StackEntry> m_stack
         = new ArrayList<StackEntry>(361);
 
+    /** Pool of stack entries that can be reused by play(). */
+    private final ArrayList<StackEntry> m_freeEntries
+        = new ArrayList<StackEntry>(361);
+
     /** Temporary variable reused for efficiency. */
-    private final PointList m_checkKillStones = new PointList();
+    private final IntPointList m_checkKillStones = new IntPointList();
 
     /** Temporary variable reused for efficiency. */
-    private final PointList m_checkKillStack = new PointList();
+    private final IntPointList m_checkKillStack = new IntPointList();
 
-    private GoColor[] m_color = new GoColor[GoPoint.NUMBER_INDEXES];
+    /** Colors indexed by point index, sized for the current board size. */
+    private GoColor[] m_color;
 
     private GoColor m_toMove;
 
@@ -578,14 +1008,432 @@ implements ConstBoard
     private BoardConstants m_constants;
 
     private GoPoint m_koPoint;
+
+    /** Snapshot of the current state; null if the board changed since the
+        last call of getSnapshot(). */
+    private BoardSnapshot m_snapshot;
+
+    /** Snapshot of the last call of restore(); null if the board was
+        cleared since then or the restored moves were replayed. */
+    private BoardSnapshot m_restored;
+
+    /** Number of moves at the beginning of the move history that were
+        restored from m_restored and have no undo information. */
+    private int m_numberRestoredMoves;
+
+    /** Whether m_color is shared with a snapshot and must be copied before
+        it is modified. */
+    private boolean m_isColorShared;
+
+    /** Zobrist hash code of the stones on the board. */
+    private long m_hash;
+
+    /** Hash codes of the stones on the board in all rotations.
+        Null until getCanonicalHash() is called for the current size. */
+    private CanonicalKey m_canonicalKey;
+
+    /** Index of the anchor stone of the block a stone belongs to. */
+    private int[] m_blockAnchor;
+
+    /** Next stone in the circular list of stones of a block. */
+    private int[] m_blockNext;
+
+    /** Number of stones of a block, indexed by the anchor stone. */
+    private int[] m_blockStones;
+
+    /** Number of liberties of a block, indexed by the anchor stone. */
+    private int[] m_blockLiberties;
+
+    /** Whether the block information matches the stones on the board.
+        Set to false by operations that change stones without going
+        through the block updates (setup, clear, plays on occupied points,
+        moves synchronized from a game ruler). */
+    private boolean m_blocksValid;
+
+    /** Incremented each time the block information is rebuilt.
+        Moves played before a rebuild cannot undo their block changes
+        using the trail. */
+    private int m_blockEpoch;
+
+    /** Trail of changes to the block arrays for undoing moves.
+        Contains pairs of encoded array location and old value. */
+    private int[] m_trail = new int[1024];
+
+    private int m_trailSize;
+
+    private static final int TRAIL_ANCHOR = 0;
+
+    private static final int TRAIL_NEXT = 1;
+
+    private static final int TRAIL_STONES = 2;
+
+    private static final int TRAIL_LIBERTIES = 3;
+
+    /** Temporary variable reused for efficiency. */
+    private final int[] m_adjacentAnchors = new int[4];
+
+    /** Add a new stone to the block information.
+        Creates a block for the stone, merges it with adjacent blocks of
+        the same color and removes the point from the liberties of adjacent
+        opponent blocks. The stone must already be on the board. */
+    private void addStone(GoPoint p)
+    {
+        int index = p.getIndex();
+        GoColor color = getColor(p);
+        setBlock(TRAIL_ANCHOR, index, index);
+        setBlock(TRAIL_NEXT, index, index);
+        setBlock(TRAIL_STONES, index, 1);
+        ConstPointList adjacent = getAdjacent(p);
+        int nuAdjacent = adjacent.size();
+        int liberties = 0;
+        int nuAnchors = 0;
+        boolean merged = false;
+        // Don't use an iterator for efficiency
+        for (int i = 0; i < nuAdjacent; ++i)
+        {
+            GoPoint adj = adjacent.get(i);
+            GoColor c = getColor(adj);
+            if (c == EMPTY)
+            {
+                ++liberties;
+                continue;
+            }
+            int anchor = m_blockAnchor[adj.getIndex()];
+            if (containsAnchor(nuAnchors, anchor))
+                continue;
+            m_adjacentAnchors[nuAnchors++] = anchor;
+            if (c == color)
+            {
+                mergeBlocks(m_blockAnchor[index], anchor);
+                merged = true;
+            }
+            else
+                setBlock(TRAIL_LIBERTIES, anchor,
+                         m_blockLiberties[anchor] - 1);
+        }
+        if (merged)
+        {
+            int anchor = m_blockAnchor[index];
+            setBlock(TRAIL_LIBERTIES, anchor, countLiberties(anchor));
+        }
+        else
+            setBlock(TRAIL_LIBERTIES, index, liberties);
+    }
+
+    private boolean containsAnchor(int nuAnchors, int anchor)
+    {
+        for (int i = 0; i < nuAnchors; ++i)
+            if (m_adjacentAnchors[i] == anchor)
+                return true;
+        return false;
+    }
+
+    /** Check if a move on an empty point captures opponent stones.
+        Requires valid block information. */
+    private boolean isCapture(GoColor c, int index)
+    {
+        GoColor otherColor = c.otherColor();
+        int[] adjacent = m_constants.getAdjacentIndex(index);
+        for (int i = 0; i < adjacent.length; ++i)
+        {
+            int adj = adjacent[i];
+            if (m_color[adj] == otherColor
+                && m_blockLiberties[m_blockAnchor[adj]] == 1)
+                return true;
+        }
+        return false;
+    }
+
+    /** Check if a move on an empty point is a suicide.
+        The move is not a suicide if an adjacent point is empty, if it
+        connects to an own block with more than one liberty or if it
+        captures an opponent block. Requires valid block information. */
+    private boolean isSuicide(GoColor c, int index)
+    {
+        int[] adjacent = m_constants.getAdjacentIndex(index);
+        for (int i = 0; i < adjacent.length; ++i)
+        {
+            int adj = adjacent[i];
+            GoColor color = m_color[adj];
+            if (color == EMPTY)
+                return false;
+            int liberties = m_blockLiberties[m_blockAnchor[adj]];
+            if (color == c ? liberties > 1 : liberties == 1)
+                return false;
+        }
+        return true;
+    }
+
+    /** Get the hash code of the position after a move.
+        Requires valid block information. The move must be on an empty
+        point.
+        @param c The player color.
+        @param index The point index of the move.
+        @return The Zobrist hash code of the stones after the move. */
+    private long getHashAfterMove(GoColor c, int index)
+    {
+        GoColor otherColor = c.otherColor();
+        // Captures take precedence over suicide
+        GoColor removedColor = otherColor;
+        long hash = m_hash ^ Zobrist.get(c, GoPoint.fromIndex(index));
+        if (isSuicide(c, index))
+        {
+            // The new stone is removed with all adjacent own blocks
+            removedColor = c;
+            hash = m_hash;
+        }
+        int[] adjacent = m_constants.getAdjacentIndex(index);
+        int nuAnchors = 0;
+        for (int i = 0; i < adjacent.length; ++i)
+        {
+            int adj = adjacent[i];
+            if (m_color[adj] != removedColor)
+                continue;
+            int anchor = m_blockAnchor[adj];
+            if (m_blockLiberties[anchor] != 1)
+                continue;
+            boolean isNew = true;
+            for (int j = 0; j < nuAnchors; ++j)
+                if (m_adjacentAnchors[j] == anchor)
+                    isNew = false;
+            if (! isNew)
+                continue;
+            m_adjacentAnchors[nuAnchors++] = anchor;
+            int k = anchor;
+            do
+            {
+                hash ^= Zobrist.get(removedColor, GoPoint.fromIndex(k));
+                k = m_blockNext[k];
+            }
+            while (k != anchor);
+        }
+        return hash;
+    }
+
+    /** Count the liberties of a block by iterating over its stones. */
+    private int countLiberties(int anchor)
+    {
+        assert m_mark.isCleared();
+        m_checkKillStack.clear();
+        int i = anchor;
+        do
+        {
+            int[] adjacent = m_constants.getAdjacentIndex(i);
+            for (int j = 0; j < adjacent.length; ++j)
+            {
+                int adj = adjacent[j];
+                if (m_color[adj] == EMPTY && ! m_mark.getIndex(adj))
+                {
+                    m_mark.setIndex(adj);
+                    m_checkKillStack.addIndex(adj);
+                }
+            }
+            i = m_blockNext[i];
+        }
+        while (i != anchor);
+        m_mark.clear(m_checkKillStack);
+        return m_checkKillStack.size();
+    }
+
+    /** Merge two blocks.
+        The stones of the smaller block are relabeled with the anchor of the
+        larger block. Does not update the liberties. */
+    private void mergeBlocks(int anchor1, int anchor2)
+    {
+        if (anchor1 == anchor2)
+            return;
+        int large = anchor1;
+        int small = anchor2;
+        if (m_blockStones[small] > m_blockStones[large])
+        {
+            large = anchor2;
+            small = anchor1;
+        }
+        int i = small;
+        do
+        {
+            setBlock(TRAIL_ANCHOR, i, large);
+            i = m_blockNext[i];
+        }
+        while (i != small);
+        int nextLarge = m_blockNext[large];
+        setBlock(TRAIL_NEXT, large, m_blockNext[small]);
+        setBlock(TRAIL_NEXT, small, nextLarge);
+        setBlock(TRAIL_STONES, large,
+                 m_blockStones[large] + m_blockStones[small]);
+    }
+
+    /** Rebuild the block information if it is not valid. */
+    private void updateBlocks()
+    {
+        if (m_blocksValid)
+            return;
+        ConstPointList points = m_constants.getPoints();
+        int nuPoints = points.size();
+        for (int i = 0; i < nuPoints; ++i)
+            m_blockAnchor[points.get(i).getIndex()] = -1;
+        for (int i = 0; i < nuPoints; ++i)
+        {
+            GoPoint p = points.get(i);
+            int index = p.getIndex();
+            GoColor color = getColor(p);
+            if (color == EMPTY || m_blockAnchor[index] >= 0)
+                continue;
+            // Flood fill, linking the stones into a circular list
+            m_checkKillStack.clear();
+            m_checkKillStack.addIndex(index);
+            m_blockAnchor[index] = index;
+            int last = index;
+            int nuStones = 0;
+            while (! m_checkKillStack.isEmpty())
+            {
+                int stone = m_checkKillStack.popIndex();
+                m_blockNext[last] = stone;
+                last = stone;
+                ++nuStones;
+                int[] adjacent = m_constants.getAdjacentIndex(stone);
+                for (int j = 0; j < adjacent.length; ++j)
+                {
+                    int adj = adjacent[j];
+                    if (m_color[adj] == color && m_blockAnchor[adj] < 0)
+                    {
+                        m_blockAnchor[adj] = index;
+                        m_checkKillStack.addIndex(adj);
+                    }
+                }
+            }
+            m_blockNext[last] = index;
+            m_blockStones[index] = nuStones;
+            m_blockLiberties[index] = countLiberties(index);
+        }
+        m_blocksValid = true;
+        ++m_blockEpoch;
+        m_trailSize = 0;
+    }
+
+    /** Remove a block from the board.
+        Adds the removed stones to a list and adds the freed points to the
+        liberties of adjacent blocks. */
+    private void removeBlock(GoPoint p, PointList removed)
+    {
+        int anchor = m_blockAnchor[p.getIndex()];
+        GoColor otherColor = getColor(p).otherColor();
+        int i = anchor;
+        do
+        {
+            GoPoint stone = GoPoint.fromIndex(i);
+            removed.add(stone);
+            setColor(stone, EMPTY);
+            i = m_blockNext[i];
+        }
+        while (i != anchor);
+        do
+        {
+            GoPoint stone = GoPoint.fromIndex(i);
+            ConstPointList adjacent = getAdjacent(stone);
+            int nuAdjacent = adjacent.size();
+            int nuAnchors = 0;
+            for (int j = 0; j < nuAdjacent; ++j)
+            {
+                GoPoint adj = adjacent.get(j);
+                if (getColor(adj) != otherColor)
+                    continue;
+                int adjAnchor = m_blockAnchor[adj.getIndex()];
+                if (containsAnchor(nuAnchors, adjAnchor))
+                    continue;
+                m_adjacentAnchors[nuAnchors++] = adjAnchor;
+                setBlock(TRAIL_LIBERTIES, adjAnchor,
+                         m_blockLiberties[adjAnchor] + 1);
+            }
+            i = m_blockNext[i];
+        }
+        while (i != anchor);
+    }
+
+    /** Change an entry of the block arrays and record the old value on
+        the trail. */
+    private void setBlock(int array, int index, int value)
+    {
+        int[] values = getBlockArray(array);
+        if (m_trailSize + 2 > m_trail.length)
+        {
+            int[] trail = new int[2 * m_trail.length];
+            System.arraycopy(m_trail, 0, trail, 0, m_trailSize);
+            m_trail = trail;
+        }
+        m_trail[m_trailSize++] = array * GoPoint.NUMBER_INDEXES + index;
+        m_trail[m_trailSize++] = values[index];
+        values[index] = value;
+    }
+
+    private int[] getBlockArray(int array)
+    {
+        switch (array)
+        {
+        case TRAIL_ANCHOR:
+            return m_blockAnchor;
+        case TRAIL_NEXT:
+            return m_blockNext;
+        case TRAIL_STONES:
+            return m_blockStones;
+        default:
+            assert array == TRAIL_LIBERTIES;
+            return m_blockLiberties;
+        }
+    }
+
+    /** Restore the block arrays to an earlier size of the trail. */
+    private void undoBlocks(int trailSize)
+    {
+        while (m_trailSize > trailSize)
+        {
+            int value = m_trail[--m_trailSize];
+            int location = m_trail[--m_trailSize];
+            getBlockArray(location / GoPoint.NUMBER_INDEXES)
+                [location % GoPoint.NUMBER_INDEXES] = value;
+        }
+    }
     
-    private GtpClientBase m_gameRuler;
+    private GameRuler m_gameRuler;
+
+    /** Ruler that m_gameRulerMoves belongs to.
+        Kept when the ruler is detached. */
+    private GameRuler m_syncedGameRuler;
+
+    /** Moves played in m_syncedGameRuler since its last clearBoard().
+        Null, if unknown. */
+    private ArrayList<Move> m_gameRulerMoves;
+
+    /** Board size of the last clearBoard() sent to m_syncedGameRuler. */
+    private int m_gameRulerSize;
 
     private int m_lastMoveIndex = 0;
 
     private final BlackWhiteSet<PointList> m_setup
         = new BlackWhiteSet<PointList>(new PointList(), new PointList());
 
+    /** Copies of the setup stones shared by the snapshots.
+        Null if not created since the setup changed. */
+    private ConstPointList m_sharedSetupBlack;
+
+    private ConstPointList m_sharedSetupWhite;
+
+    /** Moves of the move history indexed by move number.
+        Shared with the snapshots, which read only the entries below their
+        number of moves; see setHistory(). */
+    private Move[] m_moves = new Move[361];
+
+    /** Colors to move before the moves in m_moves. */
+    private GoColor[] m_oldToMove = new GoColor[361];
+
+    /** Hash codes before the moves in m_moves. */
+    private long[] m_oldHash = new long[361];
+
+    /** Number of entries at the beginning of m_moves, m_oldToMove and
+        m_oldHash that are read by snapshots and must not be overwritten.
+        Integer.MAX_VALUE, if the arrays belong to a restored snapshot. */
+    private int m_numberSharedMoves;
+
     private boolean m_isSetupHandicap;
 
     private boolean isSingleStoneSingleLib(GoPoint point, GoColor color)
@@ -593,8 +1441,12 @@ implements ConstBoard
         if (getColor(point) != color)
             return false;
         int lib = 0;
-        for (GoPoint adj : getAdjacent(point))
+        ConstPointList adjacent = getAdjacent(point);
+        int nuAdjacent = adjacent.size();
+        // Don't use an iterator for efficiency
+        for (int i = 0; i < nuAdjacent; ++i)
         {
+            GoPoint adj = adjacent.get(i);
             GoColor adjColor = getColor(adj);
             if (adjColor == EMPTY)
             {
@@ -614,47 +1466,109 @@ implements ConstBoard
         GoColor color = getColor(point);
         assert color != EMPTY;
         m_checkKillStack.clear();
-        m_checkKillStack.add(point);
+        m_checkKillStack.addIndex(point.getIndex());
         m_mark.set(point);
         m_checkKillStones.clear();
         boolean isDead = true;
         // Recursion is unrolled using a stack for efficiency
         while (isDead && ! m_checkKillStack.isEmpty())
         {
-            GoPoint p = m_checkKillStack.pop();
-            assert getColor(p) == color;
-            m_checkKillStones.add(p);
-            ConstPointList adjacent = getAdjacent(p);
-            int nuAdjacent = adjacent.size();
-            // Don't use an iterator for efficiency
-            for (int i = 0; i < nuAdjacent; ++i)
+            int p = m_checkKillStack.popIndex();
+            assert m_color[p] == color;
+            m_checkKillStones.addIndex(p);
+            int[] adjacent = m_constants.getAdjacentIndex(p);
+            for (int i = 0; i < adjacent.length; ++i)
             {
-                GoPoint adj = adjacent.get(i);
-                GoColor c = getColor(adj);
+                int adj = adjacent[i];
+                GoColor c = m_color[adj];
                 if (c == EMPTY)
                 {
                     isDead = false;
                     break;
                 }
-                if (m_mark.get(adj) || ! c.equals(color))
+                if (m_mark.getIndex(adj) || c != color)
                     continue;
-                m_checkKillStack.add(adj);
-                m_mark.set(adj);
+                m_checkKillStack.addIndex(adj);
+                m_mark.setIndex(adj);
             }
         }
         if (isDead)
         {
-            killed.addAll(m_checkKillStones);
             int nuKillStones = m_checkKillStones.size();
-            // Don't use an iterator for efficiency
             for (int i = 0; i < nuKillStones; ++i)
-                setColor(m_checkKillStones.get(i), EMPTY);
+            {
+                GoPoint stone =
+                    GoPoint.fromIndex(m_checkKillStones.getIndex(i));
+                killed.add(stone);
+                setColor(stone, EMPTY);
+            }
         }
         m_mark.clear(m_checkKillStack);
         m_mark.clear(m_checkKillStones);
         //assert m_mark.isCleared();
     }
 
+    /** Replay the moves of a restored snapshot from its setup.
+        The color to move before each move is set as in the snapshot.
+        @param n The number of restored moves to replay. */
+    private void replayRestored(int n)
+    {
+        BoardSnapshot snapshot = m_restored;
+        assert n <= m_numberRestoredMoves;
+        // The arrays of the snapshot are never modified
+        Move[] moves = snapshot.getMoveArray();
+        GoColor[] oldToMove = snapshot.getOldToMoveArray();
+        if (snapshot.isSetupHandicap())
+            setupHandicap(snapshot.getSetup(BLACK));
+        else
+            setup(snapshot.getSetup(BLACK), snapshot.getSetup(WHITE),
+                  snapshot.getSetupPlayer());
+        for (int i = 0; i < n; ++i)
+        {
+            m_toMove = oldToMove[i];
+            play(moves[i]);
+        }
+    }
+
+    private ConstPointList copySetup(GoColor c)
+    {
+        PointList setup = m_setup.get(c);
+        if (setup.isEmpty())
+            return PointList.getEmptyList();
+        return new PointList(setup);
+    }
+
+    /** Store a played move in the arrays of the history.
+        The arrays are copied first, if the entry could be read by a
+        snapshot (copy on write) or the arrays are too small. */
+    private void setHistory(int i, StackEntry entry)
+    {
+        if (i < m_numberSharedMoves || i >= m_moves.length)
+        {
+            int length = Math.max(2 * i, 361);
+            m_moves = Arrays.copyOf(m_moves, length);
+            m_oldToMove = Arrays.copyOf(m_oldToMove, length);
+            m_oldHash = Arrays.copyOf(m_oldHash, length);
+            m_numberSharedMoves = 0;
+        }
+        m_moves[i] = entry.m_move;
+        m_oldToMove[i] = entry.m_oldToMove;
+        m_oldHash[i] = entry.m_oldHash;
+    }
+
+    /** Get a stack entry from the pool or create a new one. */
+    private StackEntry getFreeEntry(Move move)
+    {
+        int n = m_freeEntries.size();
+        StackEntry entry;
+        if (n > 0)
+            entry = m_freeEntries.remove(n - 1);
+        else
+            entry = new StackEntry();
+        entry.init(move);
+        return entry;
+    }
+
     private void findStones(GoPoint p, GoColor color, PointList stones)
     {
         if (getColor(p) != color)
@@ -670,10 +1584,92 @@ implements ConstBoard
     private void setColor(GoPoint p, GoColor c)
     {
         assert p != null;
-        m_color[p.getIndex()] = c;
+        int index = p.getIndex();
+        GoColor oldColor = m_color[index];
+        if (oldColor == c)
+            return;
+        if (oldColor != null && oldColor != EMPTY)
+        {
+            m_hash ^= Zobrist.get(oldColor, p);
+            if (m_canonicalKey != null)
+                m_canonicalKey.toggle(oldColor, p);
+        }
+        if (c != EMPTY)
+        {
+            m_hash ^= Zobrist.get(c, p);
+            if (m_canonicalKey != null)
+                m_canonicalKey.toggle(c, p);
+        }
+        if (m_isColorShared)
+        {
+            m_color = m_color.clone();
+            m_isColorShared = false;
+        }
+        m_color[index] = c;
     }
 
-    public GtpClientBase getGameRuler() {
+    public GameRuler getGameRuler() {
         return m_gameRuler;
     }
+
+    /** Notify the board that a move was sent to the attached ruler.
+        Used by GenericBoard.sendPlay() to keep track of the moves played
+        in the ruler. */
+    void gameRulerPlayed(Move move)
+    {
+        if (m_gameRulerMoves != null)
+            m_gameRulerMoves.add(move);
+    }
+
+    /** Bring the attached ruler to the position after a sequence of moves.
+        Like GtpSynchronizer, the moves are compared with the moves the
+        ruler has played since its last clearBoard() and only the
+        necessary undo and play commands are sent. The ruler is cleared
+        and all moves are played again, if the moves played in the ruler
+        are unknown, the board size has changed, clearing needs less
+        commands than undoing or the ruler fails to undo a move.
+        @param moves The moves from the beginning of the game. */
+    void synchronizeGameRuler(ArrayList<Move> moves) throws GtpError
+    {
+        ArrayList<Move> history = m_gameRulerMoves;
+        // Unknown, if a command fails
+        m_gameRulerMoves = null;
+        int numberCommon = 0;
+        if (history != null && m_gameRulerSize == m_size)
+            while (numberCommon < history.size()
+                   && numberCommon < moves.size()
+                   && history.get(numberCommon).equals(moves.get(numberCommon)))
+                ++numberCommon;
+        boolean isIncremental
+            = (history != null && m_gameRulerSize == m_size
+               && history.size() - numberCommon <= numberCommon);
+        if (isIncremental)
+        {
+            try
+            {
+                while (history.size() > numberCommon)
+                {
+                    m_gameRuler.undo();
+                    history.remove(history.size() - 1);
+                }
+            }
+            catch (GtpError e)
+            {
+                isIncremental = false;
+            }
+        }
+        if (! isIncremental)
+        {
+            m_gameRuler.clearBoard(m_size);
+            history = new ArrayList<Move>(moves.size());
+            numberCommon = 0;
+        }
+        m_gameRulerSize = m_size;
+        m_gameRulerMoves = history;
+        for (int i = numberCommon; i < moves.size(); ++i)
+        {
+            m_gameRuler.play(moves.get(i));
+            history.add(moves.get(i));
+        }
+    }
 }
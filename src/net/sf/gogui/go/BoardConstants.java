@@ -3,24 +3,27 @@
 package net.sf.gogui.go;
 
 /** Some values that are constant for a given board size.
-    Instances of this class are immutable. */
+    Instances of this class are immutable.
+    The constants are only created for the board sizes that are used and
+    the rotation tables only when rotate() is first called, so that
+    programs that use a single board size do not pay for the others at
+    startup. */
 public final class BoardConstants
 {
     /** Get board constants for a given board size.
         The instance is created if it did not exist before, otherwise a
         reference to the existing one is returned.
-        The creation is done in a thread-safe way.
+        The creation is done in a thread-safe way; existing instances are
+        returned without locking.
         @param boardSize The new board size (number of points per
         row / column) in the range from one to GoPoint.MAX_SIZE
         @return The board constants. */
     public static BoardConstants get(int boardSize)
     {
-        synchronized (s_boardConstants)
-        {
-            if (s_boardConstants[boardSize] == null)
-                s_boardConstants[boardSize] = new BoardConstants(boardSize);
-        }
-        return s_boardConstants[boardSize];
+        BoardConstants constants = s_boardConstants[boardSize];
+        if (constants == null)
+            constants = create(boardSize);
+        return constants;
     }
 
     public ConstPointList getAdjacent(GoPoint p)
@@ -28,6 +31,16 @@ public final class BoardConstants
         return m_adjacent[p.getIndex()];
     }
 
+    /** Get the indices of the adjacent points.
+        Used by the internals of the go package in loops that work with
+        point indices. The returned array must not be modified.
+        @param index The point index as returned by GoPoint.getIndex().
+        @return The indices of the adjacent points on the board. */
+    int[] getAdjacentIndex(int index)
+    {
+        return m_adjacentIndex[index];
+    }
+
     /** Get location of handicap stones.
         The handicap stone locations are defined as in the GTP version 2
         specification (section 4.1.1 Fixed Handicap Placement).
@@ -119,8 +132,29 @@ public final class BoardConstants
         return (isHandicapLine(x) && isHandicapLine(y));
     }
 
-    private static BoardConstants[] s_boardConstants
-        = new BoardConstants[GoPoint.MAX_SIZE + 1];
+    /** Rotate/mirror a point on the board using a precomputed table.
+        @param rotationMode The rotation mode in
+        [0..BoardUtil.NUMBER_ROTATIONS - 1]
+        @param p The point to be rotated, must be on the board
+        @return The rotated/mirrored point
+        @see BoardUtil#rotate */
+    public GoPoint rotate(int rotationMode, GoPoint p)
+    {
+        GoPoint[][] rotated = m_rotated;
+        if (rotated == null)
+            rotated = createRotated();
+        GoPoint result = rotated[rotationMode][p.getIndex()];
+        assert result != null;
+        return result;
+    }
+
+    /** Instances indexed by board size.
+        Replaced by a copy with the new element by create(), so that the
+        volatile write publishes the new instance safely. Not an
+        AtomicReferenceArray, which would initialize the VarHandle
+        infrastructure of the JVM at startup. */
+    private static volatile BoardConstants[] s_boardConstants =
+        new BoardConstants[GoPoint.MAX_SIZE + 1];
 
     private final int m_size;
 
@@ -134,6 +168,15 @@ public final class BoardConstants
 
     private final ConstPointList[] m_adjacent;
 
+    private final int[][] m_adjacentIndex;
+
+    /** Rotated points indexed by rotation mode and point index.
+        Null until first needed. The table is only written after it is
+        complete, and tables computed by several threads at the same time
+        are equal, so the volatile field is enough for a safe
+        publication. */
+    private volatile GoPoint[][] m_rotated;
+
     private BoardConstants(int size)
     {
         m_size = size;
@@ -156,8 +199,12 @@ public final class BoardConstants
             m_handicapLine2 = size / 2;
         else
             m_handicapLine2 = -1;
-        m_allPoints = new PointList();
-        m_adjacent = new ConstPointList[GoPoint.NUMBER_INDEXES];
+        // Create all points of the board at once
+        GoPoint.get(size - 1, size - 1);
+        m_allPoints = new PointList(size * size);
+        int numberIndexes = GoPoint.getNumberIndexes(size);
+        m_adjacent = new ConstPointList[numberIndexes];
+        m_adjacentIndex = new int[numberIndexes][];
         for (int x = 0; x < m_size; ++x)
             for (int y = 0; y < m_size; ++y)
             {
@@ -173,6 +220,37 @@ public final class BoardConstants
                 if (y < m_size - 1)
                     adjacent.add(GoPoint.get(x, y + 1));
                 m_adjacent[p.getIndex()] = adjacent;
+                int[] adjacentIndex = new int[adjacent.size()];
+                for (int i = 0; i < adjacentIndex.length; ++i)
+                    adjacentIndex[i] = adjacent.get(i).getIndex();
+                m_adjacentIndex[p.getIndex()] = adjacentIndex;
             }
     }
+
+    private static synchronized BoardConstants create(int boardSize)
+    {
+        BoardConstants[] boardConstants = s_boardConstants;
+        if (boardConstants[boardSize] != null)
+            return boardConstants[boardSize];
+        BoardConstants constants = new BoardConstants(boardSize);
+        boardConstants = boardConstants.clone();
+        boardConstants[boardSize] = constants;
+        s_boardConstants = boardConstants;
+        return constants;
+    }
+
+    private GoPoint[][] createRotated()
+    {
+        int numberIndexes = GoPoint.getNumberIndexes(m_size);
+        GoPoint[][] rotated = new GoPoint[BoardUtil.NUMBER_ROTATIONS][];
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+        {
+            rotated[rot] = new GoPoint[numberIndexes];
+            for (GoPoint p : m_allPoints)
+                rotated[rot][p.getIndex()] =
+                    BoardUtil.computeRotation(rot, p, m_size);
+        }
+        m_rotated = rotated;
+        return rotated;
+    }
 }
@@ -0,0 +1,361 @@
+// BoardSnapshot.java
+
+package net.sf.gogui.go;
+
+import java.util.Iterator;
+
+import net.sf.gogui.gtp.GtpClientBase;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+/** Immutable copy of the state of a Board.
+    Created with Board.getSnapshot(). The snapshot shares the array of point
+    colors with the board it was taken from; the board copies the array
+    before it changes the next point (copy on write). The same holds for
+    the arrays of the moves and of the colors to move and hash codes before
+    the moves, of which the snapshot reads only the first entries, and for
+    the copies of the setup stones, which are made once after each setup.
+    Only the stones captured by the last move are copied, so taking a
+    snapshot does not depend on the number of moves.
+    <p>
+    All fields are final and never modified (except for the canonical hash
+    code, which is computed on demand from the final fields), so a
+    snapshot can be passed to and read from any thread without
+    synchronization, while the original board continues to be modified in
+    its own thread.
+    Queries about blocks and liberties use a flood fill and are slower than
+    in Board; isRepetition() and isSuperko() restore the snapshot on a
+    temporary board. */
+public final class BoardSnapshot
+    implements ConstBoard
+{
+    public boolean bothPassed()
+    {
+        int n = m_numberMoves;
+        return (n >= 2
+                && m_moves[n - 1].getPoint() == null
+                && m_moves[n - 2].getPoint() == null);
+    }
+
+    public boolean contains(GoPoint point)
+    {
+        return point.isOnBoard(m_size);
+    }
+
+    public ConstPointList getAdjacent(GoPoint point)
+    {
+        return m_constants.getAdjacent(point);
+    }
+
+    public GoPoint getAnchor(GoPoint p)
+    {
+        return BoardUtil.findAnchor(this, p);
+    }
+
+    public int getBlockSize(GoPoint p)
+    {
+        return BoardUtil.countStones(this, p);
+    }
+
+    public long getCanonicalHash()
+    {
+        if (! m_isCanonicalHashValid)
+        {
+            CanonicalKey canonicalKey = new CanonicalKey(m_size);
+            ConstPointList points = m_constants.getPoints();
+            for (int i = 0; i < points.size(); ++i)
+            {
+                GoPoint p = points.get(i);
+                GoColor c = m_color[p.getIndex()];
+                if (c != EMPTY)
+                    canonicalKey.toggle(c, p);
+            }
+            // Threads computing it at the same time write the same value
+            m_canonicalHash = canonicalKey.get();
+            m_isCanonicalHashValid = true;
+        }
+        return m_canonicalHash;
+    }
+
+    public int getCaptured(GoColor c)
+    {
+        if (c == BLACK)
+            return m_capturedBlack;
+        assert c == WHITE;
+        return m_capturedWhite;
+    }
+
+    public GoColor getColor(GoPoint p)
+    {
+        return m_color[p.getIndex()];
+    }
+
+    public ConstPointList getKilled()
+    {
+        assert m_numberMoves > 0;
+        return m_killed;
+    }
+
+    public GoPoint getKoPoint()
+    {
+        return m_koPoint;
+    }
+
+    public Move getLastMove()
+    {
+        int n = m_numberMoves;
+        if (n == 0)
+            return null;
+        return m_moves[n - 1];
+    }
+
+    public int getLiberties(GoPoint p)
+    {
+        return BoardUtil.countLiberties(this, p);
+    }
+
+    public Move getMove(int i)
+    {
+        assert i < m_numberMoves;
+        return m_moves[i];
+    }
+
+    public int getNumberMoves()
+    {
+        return m_numberMoves;
+    }
+
+    public ConstPointList getSetup(GoColor c)
+    {
+        if (c == BLACK)
+            return m_setupBlack;
+        assert c == WHITE;
+        return m_setupWhite;
+    }
+
+    public GoColor getSetupPlayer()
+    {
+        return m_setupPlayer;
+    }
+
+    public int getSize()
+    {
+        return m_size;
+    }
+
+    public void getStones(GoPoint p, GoColor color, PointList stones)
+    {
+        BoardUtil.findStones(this, p, color, stones);
+    }
+
+    public ConstPointList getSuicide()
+    {
+        assert m_numberMoves > 0;
+        return m_suicide;
+    }
+
+    public GoColor getToMove()
+    {
+        return m_toMove;
+    }
+
+    public long getZobristHash()
+    {
+        return m_hash;
+    }
+
+    public boolean isCaptureOrSuicide(GoColor c, GoPoint p)
+    {
+        return BoardUtil.isCaptureOrSuicide(this, c, p);
+    }
+
+    public boolean isHandicap(GoPoint point)
+    {
+        return m_constants.isHandicap(point);
+    }
+
+    public boolean isKo(GoPoint point)
+    {
+        return point == m_koPoint;
+    }
+
+    public boolean isModified()
+    {
+        return (m_numberMoves > 0
+                || m_setupBlack.size() > 0
+                || m_setupWhite.size() > 0
+                || m_toMove != BLACK);
+    }
+
+    public boolean isRepetition(boolean situational)
+    {
+        return toBoard().isRepetition(situational);
+    }
+
+    public boolean isSetupHandicap()
+    {
+        return m_isSetupHandicap;
+    }
+
+    public boolean isSuicide(GoColor c, GoPoint p)
+    {
+        return BoardUtil.isSuicide(this, c, p);
+    }
+
+    public boolean isSuperko(GoColor c, GoPoint p, boolean situational)
+    {
+        if (p == null || getColor(p) != EMPTY)
+            return false;
+        return toBoard().isSuperko(c, p, situational);
+    }
+
+    public Iterator<GoPoint> iterator()
+    {
+        return m_constants.getPoints().iterator();
+    }
+
+    /** Not supported, a snapshot cannot be modified.
+        @throws UnsupportedOperationException Always. */
+    public void attachGameRuler(GtpClientBase gameRuler)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /** Does nothing, a snapshot never has a game ruler attached. */
+    public void detachGameRuler()
+    {
+    }
+
+    /** Get the array of point colors.
+        Only used by Board.restore(). The array must not be modified. */
+    GoColor[] getColorArray()
+    {
+        return m_color;
+    }
+
+    /** Get the array of moves.
+        Only used by Board.restore(). Only the first getNumberMoves()
+        entries belong to the snapshot; the array must not be modified. */
+    Move[] getMoveArray()
+    {
+        return m_moves;
+    }
+
+    /** Get the array of the colors to move before the moves.
+        Only used by Board. The array must not be modified. */
+    GoColor[] getOldToMoveArray()
+    {
+        return m_oldToMove;
+    }
+
+    /** Get the array of the hash codes before the moves.
+        Only used by Board.restore(). The array must not be modified. */
+    long[] getOldHashArray()
+    {
+        return m_oldHash;
+    }
+
+    /** Constructor.
+        Only used by Board.getSnapshot().
+        @param board The board.
+        @param color The color array of the board, which the board will not
+        modify anymore.
+        @param moves The array of moves of the board, which the board will
+        not modify below the current number of moves anymore.
+        @param oldToMove The array of the colors to move before the moves,
+        with the same restriction.
+        @param oldHash The array of the hash codes before the moves, with
+        the same restriction.
+        @param setupBlack Unmodifiable copy of the black setup stones.
+        @param setupWhite Unmodifiable copy of the white setup stones. */
+    BoardSnapshot(ConstBoard board, GoColor[] color, Move[] moves,
+                  GoColor[] oldToMove, long[] oldHash,
+                  ConstPointList setupBlack, ConstPointList setupWhite)
+    {
+        m_size = board.getSize();
+        m_constants = BoardConstants.get(m_size);
+        m_color = color;
+        m_toMove = board.getToMove();
+        m_koPoint = board.getKoPoint();
+        m_hash = board.getZobristHash();
+        m_capturedBlack = board.getCaptured(BLACK);
+        m_capturedWhite = board.getCaptured(WHITE);
+        m_setupBlack = setupBlack;
+        m_setupWhite = setupWhite;
+        m_setupPlayer = board.getSetupPlayer();
+        m_isSetupHandicap = board.isSetupHandicap();
+        m_numberMoves = board.getNumberMoves();
+        m_moves = moves;
+        m_oldToMove = oldToMove;
+        m_oldHash = oldHash;
+        if (m_numberMoves > 0)
+        {
+            m_killed = copy(board.getKilled());
+            m_suicide = copy(board.getSuicide());
+        }
+        else
+        {
+            m_killed = PointList.getEmptyList();
+            m_suicide = PointList.getEmptyList();
+        }
+    }
+
+    private final int m_size;
+
+    private final int m_capturedBlack;
+
+    private final int m_capturedWhite;
+
+    private final long m_hash;
+
+    /** Computed by the first call of getCanonicalHash(). */
+    private volatile long m_canonicalHash;
+
+    private volatile boolean m_isCanonicalHashValid;
+
+    private final boolean m_isSetupHandicap;
+
+    private final GoColor[] m_color;
+
+    private final GoColor m_toMove;
+
+    private final GoColor m_setupPlayer;
+
+    private final GoPoint m_koPoint;
+
+    private final int m_numberMoves;
+
+    /** Moves of the board; only the first m_numberMoves entries belong to
+        the snapshot. */
+    private final Move[] m_moves;
+
+    private final GoColor[] m_oldToMove;
+
+    private final long[] m_oldHash;
+
+    private final ConstPointList m_killed;
+
+    private final ConstPointList m_suicide;
+
+    private final ConstPointList m_setupBlack;
+
+    private final ConstPointList m_setupWhite;
+
+    private final BoardConstants m_constants;
+
+    private static ConstPointList copy(ConstPointList list)
+    {
+        if (list.isEmpty())
+            return PointList.getEmptyList();
+        return new PointList(list);
+    }
+
+    private Board toBoard()
+    {
+        Board board = new Board(m_size);
+        board.restore(this);
+        return board;
+    }
+}
@@ -4,6 +4,7 @@ package net.sf.gogui.go;
 
 import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
 
 /** Static utility functions related to class Board. */
 public final class BoardUtil
@@ -33,6 +34,18 @@ public final class BoardUtil
             target.play(source.getMove(i));
     }
 
+    /** Copy the position of a board to a bit board.
+        Copies the stones, the color to move, the number of captured stones
+        and the ko point, but not the move history. The arrays of the target
+        board are reused if it has the same size as the source board.
+        A bit board can be copied back to a Board with
+        {@link #copy(Board, ConstBoard)}, which sets up its stones as setup
+        stones. */
+    public static void copy(BitBoard target, ConstBoard source)
+    {
+        target.set(source);
+    }
+
     /** Get board position as text diagram (without additional game
         information).
         Calls <code>toString()</code> with <code>withGameInfo == false</code>.
@@ -127,7 +140,9 @@ public final class BoardUtil
 
     /** Rotate/mirror point.
         Rotates and/or mirrors a point on a given board according to a given
-        rotation mode.
+        rotation mode. Uses the lookup tables of BoardConstants; code that
+        rotates many points should get the BoardConstants once and use
+        BoardConstants.rotate() directly.
         <table border="1">
         <tr><th>Mode</th><th>x</th><th>y</th></tr>
         <tr><td>0</td><td>x</td><td>y</td></tr>
@@ -148,6 +163,108 @@ public final class BoardUtil
         assert rotationMode < NUMBER_ROTATIONS;
         if (point == null)
             return null;
+        return BoardConstants.get(size).rotate(rotationMode, point);
+    }
+
+    /** Make constructor unavailable; class is for namespace only. */
+    private BoardUtil()
+    {
+    }
+
+    /** Count the liberties of the block a stone belongs to with a flood
+        fill.
+        For ConstBoard implementations without incremental block
+        information. */
+    static int countLiberties(ConstBoard board, GoPoint p)
+    {
+        GoColor c = board.getColor(p);
+        if (c == EMPTY)
+            return 0;
+        PointList stones = new PointList();
+        findStones(board, p, c, stones);
+        return countLiberties(board, stones, null);
+    }
+
+    /** Count the stones of the block a stone belongs to with a flood
+        fill. */
+    static int countStones(ConstBoard board, GoPoint p)
+    {
+        GoColor c = board.getColor(p);
+        if (c == EMPTY)
+            return 0;
+        PointList stones = new PointList();
+        findStones(board, p, c, stones);
+        return stones.size();
+    }
+
+    /** Find the stone with the smallest index in a block with a flood
+        fill.
+        @return The anchor stone or null if the point is empty. */
+    static GoPoint findAnchor(ConstBoard board, GoPoint p)
+    {
+        GoColor c = board.getColor(p);
+        if (c == EMPTY)
+            return null;
+        PointList stones = new PointList();
+        findStones(board, p, c, stones);
+        GoPoint anchor = p;
+        for (GoPoint stone : stones)
+            if (stone.getIndex() < anchor.getIndex())
+                anchor = stone;
+        return anchor;
+    }
+
+    /** Find the points connected to a point with the same color with a
+        flood fill. */
+    static void findStones(ConstBoard board, GoPoint p, GoColor color,
+                           PointList stones)
+    {
+        if (board.getColor(p) != color)
+            return;
+        int start = stones.size();
+        stones.add(p);
+        Marker mark = new Marker(board.getSize());
+        mark.set(p);
+        for (int i = start; i < stones.size(); ++i)
+            for (GoPoint adj : board.getAdjacent(stones.get(i)))
+                if (! mark.get(adj) && board.getColor(adj) == color)
+                {
+                    mark.set(adj);
+                    stones.add(adj);
+                }
+    }
+
+    /** Check if a move would capture anything (including suicide) without
+        playing it. */
+    static boolean isCaptureOrSuicide(ConstBoard board, GoColor c,
+                                      GoPoint p)
+    {
+        if (board.getColor(p) != EMPTY)
+            return false;
+        return (isCapture(board, c, p) || isSuicide(board, c, p));
+    }
+
+    /** Check if a move would be a suicide move without playing it. */
+    static boolean isSuicide(ConstBoard board, GoColor c, GoPoint p)
+    {
+        if (board.getColor(p) != EMPTY)
+            return false;
+        for (GoPoint adj : board.getAdjacent(p))
+        {
+            GoColor adjColor = board.getColor(adj);
+            if (adjColor == EMPTY)
+                return false;
+            if (adjColor == c && countLiberties(board, adj) > 1)
+                return false;
+        }
+        return ! isCapture(board, c, p);
+    }
+
+    /** Compute a rotated/mirrored point without using the lookup tables.
+        Used for initializing the lookup tables in BoardConstants.
+        @see #rotate */
+    static GoPoint computeRotation(int rotationMode, GoPoint point, int size)
+    {
         int x = point.getX();
         int y = point.getY();
         switch (rotationMode)
@@ -173,9 +290,35 @@ public final class BoardUtil
         }
     }
 
-    /** Make constructor unavailable; class is for namespace only. */
-    private BoardUtil()
+    private static int countLiberties(ConstBoard board, ConstPointList stones,
+                                      GoPoint exclude)
     {
+        Marker mark = new Marker(board.getSize());
+        int n = 0;
+        for (GoPoint stone : stones)
+            for (GoPoint adj : board.getAdjacent(stone))
+                if (adj != exclude && board.getColor(adj) == EMPTY
+                    && ! mark.get(adj))
+                {
+                    mark.set(adj);
+                    ++n;
+                }
+        return n;
+    }
+
+    /** Check if a move at an empty point would capture opponent stones. */
+    private static boolean isCapture(ConstBoard board, GoColor c, GoPoint p)
+    {
+        GoColor otherColor = c.otherColor();
+        for (GoPoint adj : board.getAdjacent(p))
+            if (board.getColor(adj) == otherColor)
+            {
+                PointList stones = new PointList();
+                findStones(board, adj, otherColor, stones);
+                if (countLiberties(board, stones, p) == 0)
+                    return true;
+            }
+        return false;
     }
 
     private static void printGameInfo(ConstBoard board, StringBuilder s,
@@ -213,17 +356,28 @@ public final class BoardUtil
         buffer.append(" to play");
     }
 
+    /** Print the column labels.
+        The labels with two letters of large boards are printed on two
+        lines. */
     private static void printXCoords(int size, StringBuilder s,
                                      String separator)
     {
+        if (GoPoint.getColumnLabel(size - 1).length() > 1)
+        {
+            s.append("   ");
+            for (int x = 0; x < size; ++x)
+            {
+                String label = GoPoint.getColumnLabel(x);
+                s.append(label.length() > 1 ? label.charAt(0) : ' ');
+                s.append(' ');
+            }
+            s.append(separator);
+        }
         s.append("   ");
-        int x;
-        char c;
-        for (x = 0, c = 'A'; x < size; ++x, ++c)
+        for (int x = 0; x < size; ++x)
         {
-            if (c == 'I')
-                ++c;
-            s.append(c);
+            String label = GoPoint.getColumnLabel(x);
+            s.append(label.charAt(label.length() - 1));
             s.append(' ');
         }
         s.append(separator);
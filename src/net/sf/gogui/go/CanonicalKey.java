@@ -0,0 +1,121 @@
+// CanonicalKey.java
+
+package net.sf.gogui.go;
+
+import java.util.Random;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+/** Hash key that is invariant under the symmetries of the board.
+    Keeps one hash code for each of the BoardUtil.NUMBER_ROTATIONS rotations
+    and mirrorings of the board, and updates all of them when a stone or
+    move is added. The canonical key is the smallest of these hash codes,
+    so two positions or move sequences that are rotated or mirrored
+    versions of each other have the same canonical key.
+    <p>
+    A key can be used in two ways. Position keys are built with toggle(),
+    which adds or removes a stone and only depends on the set of stones
+    (using Zobrist hashing, so hash code for rotation mode zero is the same
+    as Board.getZobristHash()). Sequence keys are built with append(), which
+    also depends on the order of the moves. The two methods should not be
+    mixed on the same key. */
+public final class CanonicalKey
+{
+    /** Constructor.
+        @param size The board size. */
+    public CanonicalKey(int size)
+    {
+        m_constants = BoardConstants.get(size);
+    }
+
+    /** Append a move or setup stone to a sequence key.
+        @param c The color (EMPTY is allowed for setup stones that remove
+        a stone)
+        @param p The point; null for a pass move
+        @param isSetup true, if the point is a setup stone instead of a
+        move */
+    public void append(GoColor c, GoPoint p, boolean isSetup)
+    {
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+        {
+            long key;
+            if (p == null)
+                key = (c == WHITE ? PASS_WHITE : PASS_BLACK);
+            else
+            {
+                GoPoint rotated = m_constants.rotate(rot, p);
+                if (c == EMPTY)
+                    key = Zobrist.get(BLACK, rotated)
+                        ^ Zobrist.get(WHITE, rotated);
+                else
+                    key = Zobrist.get(c, rotated);
+            }
+            if (isSetup)
+                key ^= SETUP;
+            m_hash[rot] = m_hash[rot] * MULTIPLIER + key;
+        }
+    }
+
+    /** Reset the key to the empty position or empty sequence. */
+    public void clear()
+    {
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+            m_hash[rot] = 0;
+    }
+
+    /** Get the canonical key.
+        @return The smallest hash code over all rotation modes. */
+    public long get()
+    {
+        long result = m_hash[0];
+        for (int rot = 1; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+            if (m_hash[rot] < result)
+                result = m_hash[rot];
+        return result;
+    }
+
+    /** Get the hash code for one rotation mode.
+        @param rotationMode The rotation mode as in BoardUtil.rotate()
+        @return The hash code of the rotated position or sequence. */
+    public long get(int rotationMode)
+    {
+        return m_hash[rotationMode];
+    }
+
+    /** Get the board size. */
+    public int getSize()
+    {
+        return m_constants.getSize();
+    }
+
+    /** Add or remove a stone from a position key.
+        @param c The color of the stone (BLACK or WHITE)
+        @param p The location of the stone */
+    public void toggle(GoColor c, GoPoint p)
+    {
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+            m_hash[rot] ^= Zobrist.get(c, m_constants.rotate(rot, p));
+    }
+
+    private static final long MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+    private static final long PASS_BLACK;
+
+    private static final long PASS_WHITE;
+
+    private static final long SETUP;
+
+    static
+    {
+        Random random = new Random(0xca40L);
+        PASS_BLACK = random.nextLong();
+        PASS_WHITE = random.nextLong();
+        SETUP = random.nextLong();
+    }
+
+    private final long[] m_hash = new long[BoardUtil.NUMBER_ROTATIONS];
+
+    private final BoardConstants m_constants;
+}
@@ -17,14 +17,24 @@ public interface ConstBoard
 
     ConstPointList getAdjacent(GoPoint point);
 
+    GoPoint getAnchor(GoPoint p);
+
+    int getBlockSize(GoPoint p);
+
+    long getCanonicalHash();
+
     int getCaptured(GoColor c);
 
     GoColor getColor(GoPoint p);
 
     ConstPointList getKilled();
 
+    GoPoint getKoPoint();
+
     Move getLastMove();
 
+    int getLiberties(GoPoint p);
+
     Move getMove(int i);
 
     int getNumberMoves();
@@ -41,6 +51,8 @@ public interface ConstBoard
 
     GoColor getToMove();
 
+    long getZobristHash();
+
     boolean isCaptureOrSuicide(GoColor c, GoPoint p);
 
     boolean isHandicap(GoPoint point);
@@ -49,10 +61,14 @@ public interface ConstBoard
 
     boolean isModified();
 
+    boolean isRepetition(boolean situational);
+
     boolean isSetupHandicap();
 
     boolean isSuicide(GoColor c, GoPoint p);
 
+    boolean isSuperko(GoColor c, GoPoint p, boolean situational);
+
     Iterator<GoPoint> iterator();
 
     void attachGameRuler(GtpClientBase gameRuler);
@@ -16,7 +16,13 @@ import static net.sf.gogui.go.Score.ScoringMethod.TERRITORY;
     Go engines return a list of dead stones on the final_status GTP command.
     It could happen that the program returns nonsense (e.g. a contiguous block
     of stones with only some stones dead) and this class should not crash
-    if that happens (even if the score will be no longer meaningful). */
+    if that happens (even if the score will be no longer meaningful).
+    <p>
+    changeStatus() updates the score incrementally by re-evaluating only
+    the regions of empty points and dead stones that touch the changed
+    stones, and remembers the points whose owner changed (see
+    getChangedPoints()), so that a user interface only needs to update
+    these points. */
 public class CountScore
 {
     /** Begin counting a score.
@@ -27,6 +33,7 @@ public class CountScore
         m_board = board;
         int size = board.getSize();
         m_dead = new Marker(size);
+        m_mark = new Marker(size);
         m_score = new GoColor[size][size];
         for (GoPoint p : m_board)
             m_dead.clear(p);
@@ -41,8 +48,11 @@ public class CountScore
         in the connected region surrounded by opponent stones, if all
         surrounding opponent stones are alive. Otherwise it only changes the
         life death status of all stones in the block the stone belongs to.
+        The score is updated incrementally, calling compute() is not
+        necessary.
         @param p Location of a stone.
-        @return List of all points that changed their life and death status. */
+        @return List of all points that changed their life and death status.
+        @see #getChangedPoints */
     public PointList changeStatus(GoPoint p)
     {
         GoColor c = m_board.getColor(p);
@@ -58,13 +68,18 @@ public class CountScore
         boolean isDead = ! isDead(p);
         for (GoPoint stone : stones)
             setDead(stone, isDead);
+        update(stones);
         return stones;
     }
 
-    /** Update score after changing the life-death status of stones. */
+    /** Update score after changing the life-death status of stones.
+        Recomputes the owner of all points on the board. */
     public void compute()
     {
-        Marker mark = new Marker(m_board.getSize());
+        m_changed.clear();
+        for (GoPoint p : m_board)
+            m_changed.add(p);
+        Marker mark = m_mark;
         boolean allEmpty = true;
         for (GoPoint p : m_board)
         {
@@ -79,7 +94,8 @@ public class CountScore
         }
         if (allEmpty)
             return;
-        PointList territory = new PointList();
+        IntPointList territory = new IntPointList(m_board.getSize()
+                                                  * m_board.getSize());
         for (GoPoint p : m_board)
         {
             if (! mark.get(p))
@@ -97,6 +113,7 @@ public class CountScore
                 }
             }
         }
+        mark.clear();
     }
 
     /** Get the owner of a point.
@@ -108,6 +125,16 @@ public class CountScore
         return m_score[p.getX()][p.getY()];
     }
 
+    /** Get the points that changed their owner.
+        @return The points, for which getColor() changed in the last call
+        to changeStatus(); all points of the board after compute(). The
+        list is only valid until the next call of changeStatus() or
+        compute(). */
+    public ConstPointList getChangedPoints()
+    {
+        return m_changed;
+    }
+
     /** Get the life-death status of a stone.
         @param p The stone.
         @return true, if stone is dead, false if stone is alive. */
@@ -201,6 +228,17 @@ public class CountScore
 
     private Marker m_dead;
 
+    /** Temporary variable reused for efficiency. */
+    private Marker m_mark;
+
+    private final PointList m_changed = new PointList();
+
+    /** Temporary variable reused for efficiency. */
+    private final IntPointList m_stack = new IntPointList();
+
+    /** Temporary variable reused for efficiency. */
+    private final IntPointList m_region = new IntPointList();
+
     private GoColor m_score[][];
 
     private ConstBoard m_board;
@@ -223,7 +261,7 @@ public class CountScore
     }
 
     private boolean isTerritory(Marker mark, GoPoint p,
-                                PointList territory, GoColor color)
+                                IntPointList territory, GoColor color)
     {
         GoColor c = getColor(p);
         if (c == color.otherColor() && ! m_dead.get(p))
@@ -233,7 +271,7 @@ public class CountScore
         if (mark.get(p))
             return true;
         mark.set(p);
-        territory.add(p);
+        territory.addIndex(p.getIndex());
         for (GoPoint adj : m_board.getAdjacent(p))
             if (! isTerritory(mark, adj, territory, color))
                 return false;
@@ -251,4 +289,91 @@ public class CountScore
         for (GoPoint p : points)
             setScore(p, c);
     }
+
+    /** Set the owner of a point and remember the point if it changed. */
+    private void updateScore(GoPoint p, GoColor c)
+    {
+        if (getColor(p) != c)
+        {
+            setScore(p, c);
+            m_changed.add(p);
+        }
+    }
+
+    /** Update the score after the status of some stones changed.
+        Only the regions of empty points and dead stones that contain or
+        touch the changed stones can change their owner. They are found by
+        a flood fill starting at the stones and their neighbors and get
+        the same owner as in compute(): the color of the surrounding alive
+        stones, Black if there are no alive stones around the region, and
+        no owner if it touches alive stones of both colors. */
+    private void update(ConstPointList stones)
+    {
+        m_changed.clear();
+        assert m_mark.isCleared();
+        m_region.clear();
+        for (int i = 0; i < stones.size(); ++i)
+        {
+            GoPoint stone = stones.get(i);
+            if (! isDead(stone))
+                updateScore(stone, m_board.getColor(stone));
+            updateRegion(stone);
+            ConstPointList adjacent = m_board.getAdjacent(stone);
+            for (int j = 0; j < adjacent.size(); ++j)
+                updateRegion(adjacent.get(j));
+        }
+        m_mark.clear(m_region);
+    }
+
+    /** Find the region containing a point and update its owner.
+        Does nothing if the point is an alive stone or already belongs to
+        a region found in this update. The points of the region are added to
+        m_region and marked in m_mark. */
+    private void updateRegion(GoPoint p)
+    {
+        if (m_mark.get(p) || isAlive(p))
+            return;
+        int start = m_region.size();
+        boolean touchesBlack = false;
+        boolean touchesWhite = false;
+        m_stack.clear();
+        m_stack.addIndex(p.getIndex());
+        m_mark.set(p);
+        while (! m_stack.isEmpty())
+        {
+            GoPoint point = m_stack.pop();
+            m_region.addIndex(point.getIndex());
+            ConstPointList adjacent = m_board.getAdjacent(point);
+            for (int i = 0; i < adjacent.size(); ++i)
+            {
+                GoPoint adj = adjacent.get(i);
+                if (isAlive(adj))
+                {
+                    if (m_board.getColor(adj) == BLACK)
+                        touchesBlack = true;
+                    else
+                        touchesWhite = true;
+                }
+                else if (! m_mark.get(adj))
+                {
+                    m_mark.set(adj);
+                    m_stack.addIndex(adj.getIndex());
+                }
+            }
+        }
+        GoColor owner;
+        if (touchesBlack && touchesWhite)
+            owner = EMPTY;
+        else if (touchesWhite)
+            owner = WHITE;
+        else
+            owner = BLACK;
+        for (int i = start; i < m_region.size(); ++i)
+            updateScore(m_region.get(i), owner);
+    }
+
+    private boolean isAlive(GoPoint p)
+    {
+        return (m_board.getColor(p) != EMPTY && ! m_dead.get(p));
+    }
 }
@@ -0,0 +1,68 @@
+// GameRuler.java
+
+package net.sf.gogui.go;
+
+import net.sf.gogui.gtp.GtpError;
+
+/** Rule engine for games other than Go.
+    A game ruler keeps its own position and decides about legal moves, the
+    side to move and the end of the game. Board and GenericBoard use it
+    instead of the Go rules, if a ruler is attached with
+    Board.attachGameRuler().
+    <p>
+    Rule engines written in Java can implement this interface directly and
+    run in the same process. They are found with
+    GenericBoard.loadGameRuler(), if they are registered as a service
+    provider in a file
+    <code>META-INF/services/net.sf.gogui.go.GameRuler</code> on the class
+    path (see java.util.ServiceLoader). Rule engines that run as a separate
+    program are used with the GtpGameRuler adapter.
+    <p>
+    Functions that query information not supported by a ruler return null
+    (or -1, false or an empty string), the caller falls back to a default
+    behavior in this case. */
+public interface GameRuler
+{
+    /** Clear the board and start a new game.
+        @param size The board size. */
+    void clearBoard(int size) throws GtpError;
+
+    /** Get the board size used by the ruler.
+        @return The board size or -1, if unknown. */
+    int getBoardSize() throws GtpError;
+
+    /** Get the color of a point in the current position of the ruler.
+        @return The color or null, if the ruler does not report the
+        board. */
+    GoColor getColor(GoPoint p) throws GtpError;
+
+    /** Get the result of the game.
+        @return A text that describes the result or an empty string, if
+        unknown. */
+    String getFinalResult() throws GtpError;
+
+    /** Get the name of the game.
+        @return The name or an empty string, if unknown. */
+    String getGameId() throws GtpError;
+
+    /** Get the legal moves in the current position.
+        @return The legal moves without pass or null, if the ruler does not
+        report legal moves. */
+    ConstPointList getLegalMoves() throws GtpError;
+
+    /** Get the color to move in the current position.
+        @return The color to move or null, if unknown. */
+    GoColor getSideToMove() throws GtpError;
+
+    /** Check if the game is over in the current position. */
+    boolean isGameOver() throws GtpError;
+
+    /** Check if a pass move is legal in the current position. */
+    boolean isPassLegal() throws GtpError;
+
+    /** Play a move. */
+    void play(Move move) throws GtpError;
+
+    /** Take back the last move. */
+    void undo() throws GtpError;
+}
@@ -6,6 +6,7 @@ import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
 
 import java.util.ArrayList;
+import java.util.ServiceLoader;
 
 import net.sf.gogui.game.ConstNode;
 
@@ -17,25 +18,54 @@ import net.sf.gogui.gtp.GtpError;
 /**
  * final class containing the methods used if a gtp gameRuler is attached
  * used by Board.java
+ * The responses of the gogui-rules query commands are cached in the game
+ * ruler with GtpClientBase.sendCached(), so that each position costs at most
+ * one round trip per query command. The cache is cleared when any other
+ * command, like play, undo or clear_board, is sent to the ruler.
+ * If the ruler supports the optional command gogui-rules_state, the side to
+ * move, legal moves, game over status and board are taken from its response,
+ * so that a position costs only one round trip.
+ * Each method taking a GtpClientBase has an overload taking a GameRuler,
+ * which can also be an in-process ruler written in Java; the GtpClientBase
+ * versions wrap the client in a GtpGameRuler.
  * @author fretel
  *
  */
 public final class GenericBoard {
 
+    /**
+     * Optional ruler command returning the side to move, legal moves, game
+     * over status and board in one response.
+     * The response has one line per field: "side_to_move", "legal_moves"
+     * and "game_over" followed by the value as in the single commands
+     * ("true" or "false" for game_over), then a line "board" followed by the
+     * board as in gogui-rules_board.
+     */
+    public static final String STATE_COMMAND = "gogui-rules_state";
+
     public static GoColor getSideToMove(GtpClientBase gameRuler, Move move) throws GtpError {
-        if (! gameRuler.isSupported("gogui-rules_side_to_move"))
+        return getSideToMove(new GtpGameRuler(gameRuler), move);
+    }
+
+    /**
+     * Get the side to move from the game ruler.
+     * If the ruler does not know the side to move, the opponent of the
+     * player of the move is returned.
+     */
+    public static GoColor getSideToMove(GameRuler gameRuler, Move move) throws GtpError {
+        GoColor sideToMove = gameRuler.getSideToMove();
+        if (sideToMove == null)
             return move.getColor().otherColor();
-        String color = gameRuler.send("gogui-rules_side_to_move");
-        char c = color.charAt(0);
-        GoColor sideToMove;
-        if (c == 'b' || c == 'B')
-            sideToMove = GoColor.BLACK;
-        else
-            sideToMove = GoColor.WHITE;
         return sideToMove;
     }
 
     public static boolean isGameOver(GtpClientBase gameRuler) throws GtpError {
+        if (isStateSupported(gameRuler))
+        {
+            String gameOver = getStateField(getState(gameRuler), "game_over");
+            if (gameOver != null)
+                return gameOver.equals("true");
+        }
         if (! gameRuler.isSupported("gogui-rules_legal_moves"))
             return false;
         return getLegalMoves(gameRuler).equals("");
@@ -46,16 +76,24 @@ public final class GenericBoard {
      */
     public static boolean isLegalMove(GtpClientBase gameRuler, Move move) throws GtpError
     {
-        if (! gameRuler.isSupported("gogui-rules_legal_moves"))
+        return isLegalMove(new GtpGameRuler(gameRuler), move);
+    }
+
+    public static boolean isLegalMove(GameRuler gameRuler, Move move) throws GtpError
+    {
+        ConstPointList legalMoves = gameRuler.getLegalMoves();
+        if (legalMoves == null)
             return false;
-        String legalMoves = getLegalMoves(gameRuler);
-        return (move.getColor().equals(GenericBoard.getSideToMove(gameRuler, move)) && (legalMoves.contains(move.getPoint().toString())
-                || legalMoves.contains("pass") && move.getPoint() == null));
+        if (! move.getColor().equals(getSideToMove(gameRuler, move)))
+            return false;
+        if (move.getPoint() == null)
+            return gameRuler.isPassLegal();
+        return legalMoves.contains(move.getPoint());
     }
 
     public static String getLegalMoves(GtpClientBase gameRuler) throws GtpError
     {
-        return gameRuler.send("gogui-rules_legal_moves");
+        return query(gameRuler, "gogui-rules_legal_moves", "legal_moves");
     }
 
     /**
@@ -66,19 +104,34 @@ public final class GenericBoard {
     {
         if (gameRuler == null)
             return true;
-        if (! gameRuler.isSupported("gogui-rules_legal_moves"))
+        if (! gameRuler.isSupported("gogui-rules_legal_moves")
+            && ! isStateSupported(gameRuler))
             return false;
         String legalMoves = getLegalMoves(gameRuler);
         return legalMoves.contains("pass") || legalMoves.contains("PASS");
     }
 
+    public static boolean isPassLegal(GameRuler gameRuler) throws GtpError
+    {
+        if (gameRuler == null)
+            return true;
+        return gameRuler.isPassLegal();
+    }
+
     /**
      * Send a move to play in the game ruler and synchronizes the board
      */
     public static void sendPlay(GtpClientBase gameRuler, Board board, Move move)
+    {
+        sendPlay(getGameRuler(gameRuler, board), board, move);
+    }
+
+    public static void sendPlay(GameRuler gameRuler, Board board, Move move)
     {
         try {
-            gameRuler.sendPlay(move);
+            gameRuler.play(move);
+            if (gameRuler == board.getGameRuler())
+                board.gameRulerPlayed(move);
             GenericBoard.copyRulerBoardState(gameRuler, board);
             GenericBoard.setToMove(gameRuler, board, move);
         } catch (GtpError e) {
@@ -89,6 +142,11 @@ public final class GenericBoard {
      * Forces the side to move from the game ruler to the board for a better synchronization.
      */
     public static void setToMove(GtpClientBase gameRuler, Board board, Move move)
+    {
+        setToMove(new GtpGameRuler(gameRuler), board, move);
+    }
+
+    public static void setToMove(GameRuler gameRuler, Board board, Move move)
     {
         try {
             Move rightColor = Move.get(GenericBoard.getSideToMove(gameRuler, move), move.getPoint());
@@ -103,86 +161,87 @@ public final class GenericBoard {
     {
         if (!gameRuler.isSupported("gogui-rules_board_size"))
             return -1;
-        return Integer.parseInt(gameRuler.send("gogui-rules_board_size"));
+        return Integer.parseInt(gameRuler.sendCached("gogui-rules_board_size",
+                                                     true));
     }
     
     public static String getGameId(GtpClientBase gameRuler) throws GtpError
     {
         if (!gameRuler.isSupported("gogui-rules_game_id"))
             return "";
-        return gameRuler.send("gogui-rules_game_id");
+        return gameRuler.sendCached("gogui-rules_game_id", true);
     }
 
     /**
      * Forces the position from the game ruler to the board for a better synchronization.
      */
     public static void copyRulerBoardState(GtpClientBase gameRuler, Board board) {
-        if (!gameRuler.isSupported("gogui-rules_board"))
-            return;
-        String rulerBoardState = "";
-        try {
-            rulerBoardState = gameRuler.send("gogui-rules_board");;
-        } catch (GtpError e) {
-            return;
-        }
-        if (rulerBoardState.equals("")) return;
-        int size = 0;
-        try {
-            size = GenericBoard.getBoardSize(gameRuler);
-        } catch (GtpError e) {
-            return;
-        }
-        GenericBoard.setup(rulerBoardState, board, size);
+        copyRulerBoardState(getGameRuler(gameRuler, board), board);
     }
 
-    private static void setup(String position, Board board, int size)
-    {
-        int nbChar = 0;
+    public static void copyRulerBoardState(GameRuler gameRuler, Board board) {
         PointList blacksSetup = new PointList();
         PointList whitesSetup = new PointList();
         PointList emptySetup = new PointList();
-        for (int i = 0; i < size; i++) {
-            int j = -1;
-            char c = ' ';
-            do {
-                do {
-                    c = position.charAt(nbChar);
-                    nbChar++;
-                }while (c != 'X'&& c != 'O' && c != '.' && c != '\n');
-                if (c != '\n')
-                {
-                    j++;
-                }
-                if ( c == 'X')
-                {
-                    GoPoint black = GoPoint.get(j, size-i-1);
-                    if (board.getColor(black) != BLACK)
-                    {
-                        blacksSetup.add(black);
-                    }
-                }
-                else if (c == 'O')
-                {
-                    GoPoint white = GoPoint.get(j, size-i-1);
-                    if (board.getColor(white) != WHITE)
-                    {
-                        whitesSetup.add(white);
-                    }
-                }
-                else if (c == '.')
-                {
-                    GoPoint empty = GoPoint.get(j, size-i-1);
-                    if (board.getColor(empty) != EMPTY) {
-                        emptySetup.add(empty);
-                    }
-                }
-            } while (j < size-1);
+        try {
+            for (GoPoint p : board)
+            {
+                GoColor c = gameRuler.getColor(p);
+                if (c == null)
+                    return;
+                if (c == board.getColor(p))
+                    continue;
+                if (c == BLACK)
+                    blacksSetup.add(p);
+                else if (c == WHITE)
+                    whitesSetup.add(p);
+                else
+                    emptySetup.add(p);
+            }
+        } catch (GtpError e) {
+            return;
         }
         board.setPoints(blacksSetup, BLACK);
         board.setPoints(whitesSetup, WHITE);
         board.setPoints(emptySetup, EMPTY);
     }
 
+    /**
+     * Check if the ruler supports the combined command STATE_COMMAND.
+     */
+    public static boolean isStateSupported(GtpClientBase gameRuler)
+    {
+        return gameRuler.isSupported(STATE_COMMAND);
+    }
+
+    /**
+     * Get a field from the response to STATE_COMMAND.
+     * @param state The response.
+     * @param key The field name.
+     * @return The value of the field (for "board" all following lines);
+     * null, if the response does not contain the field.
+     */
+    public static String getStateField(String state, String key)
+    {
+        int start = 0;
+        while (start < state.length())
+        {
+            int end = state.indexOf('\n', start);
+            if (end < 0)
+                end = state.length();
+            String line = state.substring(start, end).trim();
+            if (line.equals(key) || line.startsWith(key + " "))
+            {
+                if (key.equals("board"))
+                    return (end < state.length() ?
+                            state.substring(end + 1) : "");
+                return line.substring(key.length()).trim();
+            }
+            start = end + 1;
+        }
+        return null;
+    }
+
     public static boolean isSetupPossible(GtpClientBase gameRuler)
     {
         return gameRuler != null && gameRuler.isSupported("gogui-rules_setup");
@@ -193,6 +252,11 @@ public final class GenericBoard {
      * Then copy the ruler board changes to the board.
      */
     public static void copyBoardState(GtpClientBase gameRuler, ConstNode node, Board board)
+    {
+        copyBoardState(getGameRuler(gameRuler, board), node, board);
+    }
+
+    public static void copyBoardState(GameRuler gameRuler, ConstNode node, Board board)
     {
         ArrayList<Move> moves = new ArrayList<Move>();
         while (node.hasFather())
@@ -207,15 +271,88 @@ public final class GenericBoard {
     }
 
     public static void playFromBeginning(GtpClientBase gameRuler, ArrayList<Move> moves, Board board) throws GtpError {
-        gameRuler.sendClearBoard(board.getSize());
-        for (int i = moves.size() - 1; i >= 0; i--)
+        playFromBeginning(getGameRuler(gameRuler, board), moves, board);
+    }
+
+    /**
+     * If the ruler is attached to the board, only the moves that differ
+     * from the moves already played in the ruler are sent (see
+     * Board.synchronizeGameRuler()).
+     * @param moves The moves in reverse order.
+     */
+    public static void playFromBeginning(GameRuler gameRuler, ArrayList<Move> moves, Board board) throws GtpError {
+        if (gameRuler == board.getGameRuler())
+        {
+            ArrayList<Move> sequence = new ArrayList<Move>(moves.size());
+            for (int i = moves.size() - 1; i >= 0; i--)
+                sequence.add(moves.get(i));
+            board.synchronizeGameRuler(sequence);
+        }
+        else
         {
-            gameRuler.sendPlay(moves.get(i));
+            gameRuler.clearBoard(board.getSize());
+            for (int i = moves.size() - 1; i >= 0; i--)
+            {
+                gameRuler.play(moves.get(i));
+            }
         }
         GenericBoard.copyRulerBoardState(gameRuler, board);
     }
 
+    /**
+     * Create an in-process game ruler registered as a service provider for
+     * GameRuler.
+     * @param gameId The game as returned by GameRuler.getGameId(); null
+     * for the first provider found.
+     * @return A new instance of the ruler or null, if no provider for this
+     * game is found on the class path.
+     */
+    public static GameRuler loadGameRuler(String gameId) throws GtpError
+    {
+        for (GameRuler gameRuler : ServiceLoader.load(GameRuler.class))
+            if (gameId == null || gameId.equals(gameRuler.getGameId()))
+                return gameRuler;
+        return null;
+    }
+
     
+    private static String getState(GtpClientBase gameRuler) throws GtpError
+    {
+        return gameRuler.sendCached(STATE_COMMAND, false);
+    }
+
+    /**
+     * Get the ruler attached to the board, if it uses the given
+     * connection, so that the board keeps track of the moves sent to the
+     * ruler; a new adapter for the connection otherwise.
+     */
+    private static GameRuler getGameRuler(GtpClientBase gameRuler, Board board)
+    {
+        GameRuler attached = board.getGameRuler();
+        if (attached instanceof GtpGameRuler
+            && ((GtpGameRuler)attached).getGtp() == gameRuler)
+            return attached;
+        return new GtpGameRuler(gameRuler);
+    }
+
+    /**
+     * Query a position-dependent value.
+     * Uses the field of the combined state command, if supported, the
+     * single command otherwise. Both responses are cached until the next
+     * move.
+     */
+    static String query(GtpClientBase gameRuler, String command,
+                                String stateKey) throws GtpError
+    {
+        if (isStateSupported(gameRuler))
+        {
+            String value = getStateField(getState(gameRuler), stateKey);
+            if (value != null)
+                return value;
+        }
+        return gameRuler.sendCached(command, false);
+    }
+
     //Makes the constructor unavailable.
     private GenericBoard()
     {
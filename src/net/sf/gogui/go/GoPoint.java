@@ -10,19 +10,26 @@ import net.sf.gogui.util.StringUtil;
     Instances can be created with GoPoint.get().
     Point coordinates start with 0, the point (0,0) corresponds to "A1"
     and is on the lower left corner of the board, if the board is drawn on
-    the screen. */
+    the screen.
+    The instances are created when they are first needed, for all points
+    of the smallest board that contains the requested point, so that
+    programs using small boards do not create the points of the largest
+    board. */
 public final class GoPoint
     implements Comparable<GoPoint>
 {
     /** Maximum board size.
-        Set such that all points can be converted to strings with one letter
-        and a number, i.e. the largest point is Z25. */
-    public static final int MAX_SIZE = 25;
+        The largest board size that can be stored in SGF files. Columns
+        after Z are named with two letters (AA, AB, ...). */
+    public static final int MAX_SIZE = 52;
 
     /** Default board size. */
     public static final int DEFAULT_SIZE = 19;
 
-    /** Upper limit (exclusive) for one-dimensional point index.
+    /** Upper limit (exclusive) for one-dimensional point index for all
+        board sizes.
+        Arrays for a given board size should be allocated with
+        getNumberIndexes(int) instead.
         @see #getIndex */
     public static final int NUMBER_INDEXES = MAX_SIZE * MAX_SIZE;
 
@@ -30,12 +37,11 @@ public final class GoPoint
         The order of the points is: A1, B1, ..., A2, B2, ... */
     public int compareTo(GoPoint p)
     {
-        if (m_index < p.m_index)
-            return -1;
-        else if (m_index > p.m_index)
-            return 1;
-        else
-            return 0;
+        if (m_y != p.m_y)
+            return (m_y < p.m_y ? -1 : 1);
+        if (m_x != p.m_x)
+            return (m_x < p.m_x ? -1 : 1);
+        return 0;
     }
 
     /** Indicate if this object is equal to another object.
@@ -63,15 +69,48 @@ public final class GoPoint
         assert y >= 0;
         assert x < MAX_SIZE;
         assert y < MAX_SIZE;
-        GoPoint point = s_points[x][y];
-        assert point != null;
-        return point;
+        int index = getIndex(x, y);
+        GoPoint[] points = s_points;
+        if (index >= points.length)
+            points = createPoints(Math.max(x, y) + 1);
+        return points[index];
+    }
+
+    /** Get a point from its index.
+        @param index The index as returned by getIndex()
+        @return Unique reference to the point with this index.
+        @see #getIndex */
+    public static GoPoint fromIndex(int index)
+    {
+        assert index >= 0;
+        assert index < NUMBER_INDEXES;
+        GoPoint[] points = s_points;
+        if (index >= points.length)
+            points = createPoints((int)Math.sqrt(index) + 1);
+        return points[index];
+    }
+
+    /** Get the name of a column as used in the point strings.
+        @param x The column.
+        @return The letter of the column (the letter I is not used) or two
+        letters (AA, AB, ...), if x is larger than 24. */
+    public static String getColumnLabel(int x)
+    {
+        if (x < NUMBER_LETTERS)
+            return Character.toString(getLetter(x));
+        char[] label = new char[2];
+        label[0] = getLetter(x / NUMBER_LETTERS - 1);
+        label[1] = getLetter(x % NUMBER_LETTERS);
+        return new String(label);
     }
 
     /** Integer for using points as indices in an array.
-        The index of A1 is zero and the indices count upwards from left
-        to right and bottom to top over a board with the maximum size
-        GoPoint.MAX_SIZE. */
+        The index does not depend on the board size. The points are
+        numbered in square shells around A1: the index of A1 is zero and
+        the points of a board of size n have the indices from 0 to
+        n * n - 1, so that arrays indexed by points only need
+        getNumberIndexes(n) elements.
+        The order of the indices is not the order of compareTo(). */
     public int getIndex()
     {
         return m_index;
@@ -80,7 +119,20 @@ public final class GoPoint
     /** See getIndex(). */
     public static int getIndex(int x, int y)
     {
-        return y * MAX_SIZE + x;
+        int shell = Math.max(x, y);
+        if (y == shell)
+            return shell * shell + x;
+        return shell * shell + shell + 1 + y;
+    }
+
+    /** Upper limit (exclusive) for the indices of the points on a board.
+        @param size The board size.
+        @return The size of arrays indexed by point index for this board
+        size.
+        @see #getIndex */
+    public static int getNumberIndexes(int size)
+    {
+        return size * size;
     }
 
     public int hashCode()
@@ -137,16 +189,27 @@ public final class GoPoint
         string = string.trim().toUpperCase(Locale.ENGLISH);
         if (string.equals("PASS"))
             return null;
-        if (string.length() < 2)
+        int numberLetters = 0;
+        while (numberLetters < string.length()
+               && Character.isLetter(string.charAt(numberLetters)))
+            ++numberLetters;
+        if (numberLetters == 0 || numberLetters > 2
+            || numberLetters == string.length())
             throw new InvalidPointException(string);
-        char xChar = string.charAt(0);
-        if (xChar >= 'J')
-            --xChar;
-        int x = xChar - 'A';
+        int x = -1;
+        for (int i = 0; i < numberLetters; ++i)
+        {
+            char xChar = string.charAt(i);
+            if (xChar < 'A' || xChar > 'Z' || xChar == 'I')
+                throw new InvalidPointException(string);
+            if (xChar >= 'J')
+                --xChar;
+            x = (x + 1) * NUMBER_LETTERS + xChar - 'A';
+        }
         int y;
         try
         {
-            y = Integer.parseInt(string.substring(1)) - 1;
+            y = Integer.parseInt(string.substring(numberLetters)) - 1;
         }
         catch (NumberFormatException e)
         {
@@ -226,7 +289,15 @@ public final class GoPoint
             return this;
     }
 
-    private static GoPoint[][] s_points;
+    /** Number of letters used for columns (I is not used). */
+    private static final int NUMBER_LETTERS = 25;
+
+    /** Points of the largest board created so far, indexed by point index.
+        The array is replaced by a larger one with the same points at the
+        same indices by createPoints(), which publishes the complete array
+        with the volatile write, so that get() can read it without
+        synchronization. */
+    private static volatile GoPoint[] s_points = new GoPoint[0];
 
     private final int m_x;
 
@@ -236,22 +307,37 @@ public final class GoPoint
 
     private final String m_string;
 
-    static
-    {
-        s_points = new GoPoint[MAX_SIZE][MAX_SIZE];
-        for (int x = 0; x < MAX_SIZE; ++x)
-            for (int y = 0; y < MAX_SIZE; ++y)
-                s_points[x][y] = new GoPoint(x, y);
-    }
-
     private GoPoint(int x, int y)
     {
         m_x = x;
         m_y = y;
-        char xChar = (char)('A' + x);
-        if (xChar >= 'I')
-            ++xChar;
-        m_string = xChar + Integer.toString(m_y + 1);
+        m_string = getColumnLabel(x) + Integer.toString(m_y + 1);
         m_index = getIndex(x, y);
     }
+
+    /** Create the points of all boards up to a given size.
+        @return The new array of points. */
+    private static synchronized GoPoint[] createPoints(int size)
+    {
+        GoPoint[] points = s_points;
+        if (getNumberIndexes(size) <= points.length)
+            return points;
+        int oldSize = (int)Math.sqrt(points.length);
+        GoPoint[] newPoints = new GoPoint[getNumberIndexes(size)];
+        System.arraycopy(points, 0, newPoints, 0, points.length);
+        for (int x = 0; x < size; ++x)
+            for (int y = 0; y < size; ++y)
+                if (x >= oldSize || y >= oldSize)
+                    newPoints[getIndex(x, y)] = new GoPoint(x, y);
+        s_points = newPoints;
+        return newPoints;
+    }
+
+    private static char getLetter(int i)
+    {
+        char c = (char)('A' + i);
+        if (c >= 'I')
+            ++c;
+        return c;
+    }
 }
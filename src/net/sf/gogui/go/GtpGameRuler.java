@@ -0,0 +1,187 @@
+// GtpGameRuler.java
+
+package net.sf.gogui.go;
+
+import net.sf.gogui.gtp.GtpClientBase;
+import net.sf.gogui.gtp.GtpError;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+/** Game ruler that runs as a separate program and is used with GTP.
+    Translates the functions of GameRuler into the gogui-rules commands
+    (see the chapter about game rulers in the GoGui documentation). The
+    responses are cached in the GtpClientBase, and the parsed legal moves
+    and board are kept until the response changes, so each query costs at
+    most one round trip per position. */
+public final class GtpGameRuler
+    implements GameRuler
+{
+    /** Constructor.
+        @param gtp The connection to the ruler program. */
+    public GtpGameRuler(GtpClientBase gtp)
+    {
+        m_gtp = gtp;
+    }
+
+    /** Clear the board.
+        Sends boardsize before clear_board, if the ruler reports a different
+        board size, because clear_board keeps the size in GTP. */
+    public void clearBoard(int size) throws GtpError
+    {
+        if (size != getBoardSize())
+            m_gtp.sendBoardsize(size);
+        m_gtp.sendClearBoard(size);
+    }
+
+    public int getBoardSize() throws GtpError
+    {
+        return GenericBoard.getBoardSize(m_gtp);
+    }
+
+    public GoColor getColor(GoPoint p) throws GtpError
+    {
+        if (! m_gtp.isSupported("gogui-rules_board")
+            && ! GenericBoard.isStateSupported(m_gtp))
+            return null;
+        String response = GenericBoard.query(m_gtp, "gogui-rules_board",
+                                             "board");
+        int size = getBoardSize();
+        if (size != m_boardSize || ! response.equals(m_boardResponse))
+        {
+            m_board = parseBoard(response, size);
+            m_boardSize = size;
+            m_boardResponse = response;
+        }
+        if (m_board == null)
+            return null;
+        if (p.getX() >= size || p.getY() >= size)
+            return null;
+        return m_board[(size - p.getY() - 1) * size + p.getX()];
+    }
+
+    public String getFinalResult() throws GtpError
+    {
+        if (! m_gtp.isSupported("gogui-rules_final_result"))
+            return "";
+        return m_gtp.sendCached("gogui-rules_final_result", false);
+    }
+
+    public String getGameId() throws GtpError
+    {
+        return GenericBoard.getGameId(m_gtp);
+    }
+
+    /** Get the connection to the ruler program. */
+    public GtpClientBase getGtp()
+    {
+        return m_gtp;
+    }
+
+    /** Get the legal moves in the current position.
+        Points in the response of gogui-rules_legal_moves that cannot be
+        parsed (like "pass") are ignored. */
+    public ConstPointList getLegalMoves() throws GtpError
+    {
+        if (! m_gtp.isSupported("gogui-rules_legal_moves")
+            && ! GenericBoard.isStateSupported(m_gtp))
+            return null;
+        String response = GenericBoard.getLegalMoves(m_gtp);
+        if (! response.equals(m_legalMovesResponse))
+        {
+            PointList legalMoves = new PointList();
+            for (String s : response.trim().split("\\s+"))
+            {
+                try
+                {
+                    GoPoint p = GoPoint.parsePoint(s, GoPoint.MAX_SIZE);
+                    if (p != null)
+                        legalMoves.add(p);
+                }
+                catch (InvalidPointException e)
+                {
+                }
+            }
+            m_legalMoves = legalMoves;
+            m_legalMovesResponse = response;
+        }
+        return m_legalMoves;
+    }
+
+    public GoColor getSideToMove() throws GtpError
+    {
+        if (! m_gtp.isSupported("gogui-rules_side_to_move")
+            && ! GenericBoard.isStateSupported(m_gtp))
+            return null;
+        String color = GenericBoard.query(m_gtp, "gogui-rules_side_to_move",
+                                          "side_to_move");
+        char c = color.charAt(0);
+        if (c == 'b' || c == 'B')
+            return BLACK;
+        return WHITE;
+    }
+
+    public boolean isGameOver() throws GtpError
+    {
+        return GenericBoard.isGameOver(m_gtp);
+    }
+
+    public boolean isPassLegal() throws GtpError
+    {
+        return GenericBoard.isPassLegal(m_gtp);
+    }
+
+    public void play(Move move) throws GtpError
+    {
+        m_gtp.sendPlay(move);
+    }
+
+    /** Take back the last move.
+        @throws GtpError If the ruler does not support the undo command. */
+    public void undo() throws GtpError
+    {
+        if (! m_gtp.isSupported("undo"))
+            throw new GtpError("ruler does not support undo");
+        m_gtp.send("undo");
+    }
+
+    private final GtpClientBase m_gtp;
+
+    private int m_boardSize;
+
+    private String m_boardResponse;
+
+    private String m_legalMovesResponse;
+
+    private GoColor[] m_board;
+
+    private ConstPointList m_legalMoves;
+
+    /** Parse the response of gogui-rules_board.
+        The response contains the rows from top to bottom with 'X' for
+        black, 'O' for white and '.' for empty points; all other characters
+        are ignored.
+        @return The colors indexed by row from the top and column, null if
+        the response contains less points than the board size requires. */
+    private static GoColor[] parseBoard(String response, int size)
+    {
+        if (size <= 0)
+            return null;
+        GoColor[] board = new GoColor[size * size];
+        int n = 0;
+        for (int i = 0; i < response.length() && n < board.length; ++i)
+        {
+            char c = response.charAt(i);
+            if (c == 'X')
+                board[n++] = BLACK;
+            else if (c == 'O')
+                board[n++] = WHITE;
+            else if (c == '.')
+                board[n++] = EMPTY;
+        }
+        if (n < board.length)
+            return null;
+        return board;
+    }
+}
@@ -0,0 +1,180 @@
+// IntPointList.java
+
+package net.sf.gogui.go;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/** List containing points stored as point indices.
+    Stores the values of GoPoint.getIndex() in an array of ints instead of
+    references to GoPoint objects. The index-based functions
+    (addIndex(), getIndex(), popIndex(), containsIndex()) do not allocate
+    memory unless the capacity is exceeded and avoid dereferencing point
+    objects, which makes the list suitable for temporary lists in hot loops.
+    <p>
+    The class also implements ConstPointList and java.util.List, so the list
+    can be passed to all functions that expect a point list. The GoPoint
+    objects are looked up with GoPoint.fromIndex() when they are needed.
+    Two lists are equal, if they contain the same points in the same order,
+    also if one of them is a PointList. */
+public final class IntPointList
+    extends AbstractList<GoPoint>
+    implements ConstPointList
+{
+    /** Construct empty point list. */
+    public IntPointList()
+    {
+        this(8);
+    }
+
+    /** Construct empty point list with initial capacity.
+        @param initialCapacity The number of points to reserve memory for. */
+    public IntPointList(int initialCapacity)
+    {
+        m_index = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /** Construct point list as a copy of another point list.
+        @param list The list to copy the points from. */
+    public IntPointList(ConstPointList list)
+    {
+        this(list.size());
+        addAllFromConst(list);
+    }
+
+    public boolean add(GoPoint p)
+    {
+        addIndex(p.getIndex());
+        return true;
+    }
+
+    /** Add points of another list at the end of this list. */
+    public void addAllFromConst(ConstPointList list)
+    {
+        int size = list.size();
+        ensureCapacity(m_size + size);
+        if (list instanceof IntPointList)
+        {
+            IntPointList intList = (IntPointList)list;
+            System.arraycopy(intList.m_index, 0, m_index, m_size, size);
+            m_size += size;
+        }
+        else
+            // Don't use an iterator for efficiency
+            for (int i = 0; i < size; ++i)
+                m_index[m_size++] = list.get(i).getIndex();
+        ++modCount;
+    }
+
+    /** Add a point given by its index at the end of the list.
+        @param index The point index as returned by GoPoint.getIndex(). */
+    public void addIndex(int index)
+    {
+        if (m_size == m_index.length)
+            ensureCapacity(m_size + 1);
+        m_index[m_size++] = index;
+        ++modCount;
+    }
+
+    public void clear()
+    {
+        m_size = 0;
+        ++modCount;
+    }
+
+    public boolean contains(Object elem)
+    {
+        if (! (elem instanceof GoPoint))
+            return false;
+        return containsIndex(((GoPoint)elem).getIndex());
+    }
+
+    /** Check if the list contains a point given by its index.
+        @param index The point index as returned by GoPoint.getIndex(). */
+    public boolean containsIndex(int index)
+    {
+        for (int i = 0; i < m_size; ++i)
+            if (m_index[i] == index)
+                return true;
+        return false;
+    }
+
+    /** Increase the capacity, if necessary.
+        @param minCapacity The number of points to reserve memory for. */
+    public void ensureCapacity(int minCapacity)
+    {
+        if (minCapacity > m_index.length)
+            m_index = Arrays.copyOf(m_index,
+                                    Math.max(minCapacity,
+                                             2 * m_index.length));
+    }
+
+    public GoPoint get(int i)
+    {
+        return GoPoint.fromIndex(getIndex(i));
+    }
+
+    /** Get the index of a point in the list.
+        @param i The position in the list.
+        @return The point index as returned by GoPoint.getIndex(). */
+    public int getIndex(int i)
+    {
+        if (i >= m_size)
+            throw new IndexOutOfBoundsException();
+        return m_index[i];
+    }
+
+    /** Remove and return last element.
+        Requires that list is not empty. */
+    public GoPoint pop()
+    {
+        return GoPoint.fromIndex(popIndex());
+    }
+
+    /** Remove and return the index of the last element.
+        Requires that list is not empty.
+        @return The point index as returned by GoPoint.getIndex(). */
+    public int popIndex()
+    {
+        assert m_size > 0;
+        ++modCount;
+        return m_index[--m_size];
+    }
+
+    public GoPoint remove(int i)
+    {
+        GoPoint p = get(i);
+        System.arraycopy(m_index, i + 1, m_index, i, m_size - i - 1);
+        --m_size;
+        ++modCount;
+        return p;
+    }
+
+    public GoPoint set(int i, GoPoint p)
+    {
+        GoPoint old = get(i);
+        m_index[i] = p.getIndex();
+        return old;
+    }
+
+    public int size()
+    {
+        return m_size;
+    }
+
+    public String toString()
+    {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < m_size; ++i)
+        {
+            if (i > 0)
+                buffer.append(' ');
+            buffer.append(GoPoint.fromIndex(m_index[i]));
+        }
+        return buffer.toString();
+    }
+
+    private int m_size;
+
+    private int[] m_index;
+}
@@ -2,6 +2,8 @@
 
 package net.sf.gogui.go;
 
+import java.util.Arrays;
+
 /** Mark points on a Go board. */
 public class Marker
 {
@@ -9,16 +11,13 @@ public class Marker
         @param size Size of the board. */
     public Marker(int size)
     {
-        m_size = size;
-        m_mark = new boolean[GoPoint.NUMBER_INDEXES];
+        m_mark = new boolean[GoPoint.getNumberIndexes(size)];
     }
 
     /** Clear all marked points. */
     public void clear()
     {
-        for (int x = 0; x < m_size; ++x)
-            for (int y = 0; y < m_size; ++y)
-                m_mark[GoPoint.getIndex(x, y)] = false;
+        Arrays.fill(m_mark, false);
     }
 
     /** Clear a marked point.
@@ -38,6 +37,22 @@ public class Marker
             m_mark[points.get(i).getIndex()] = false;
     }
 
+    /** Clear all points from a list of point indices.
+        @param points List of points. */
+    public void clear(IntPointList points)
+    {
+        int nuPoints = points.size();
+        for (int i = 0; i < nuPoints; ++i)
+            m_mark[points.getIndex(i)] = false;
+    }
+
+    /** Clear a marked point given by its index.
+        @param index The point index as returned by GoPoint.getIndex(). */
+    public void clearIndex(int index)
+    {
+        m_mark[index] = false;
+    }
+
     /** Check if a point is marked.
         @param p The point to check.
         @return true, if point is marked, false otherwise. */
@@ -46,14 +61,21 @@ public class Marker
         return m_mark[p.getIndex()];
     }
 
+    /** Check if a point given by its index is marked.
+        @param index The point index as returned by GoPoint.getIndex().
+        @return true, if point is marked, false otherwise. */
+    public boolean getIndex(int index)
+    {
+        return m_mark[index];
+    }
+
     /** Check if no point is marked.
         @return true, if no point is marked, false otherwise. */
     public boolean isCleared()
     {
-        for (int x = 0; x < m_size; ++x)
-            for (int y = 0; y < m_size; ++y)
-                if (m_mark[GoPoint.getIndex(x, y)])
-                    return false;
+        for (boolean mark : m_mark)
+            if (mark)
+                return false;
         return true;
     }
 
@@ -64,6 +86,13 @@ public class Marker
         m_mark[p.getIndex()] = true;
     }
 
+    /** Mark a point given by its index.
+        @param index The point index as returned by GoPoint.getIndex(). */
+    public void setIndex(int index)
+    {
+        m_mark[index] = true;
+    }
+
     /** Mark or clear a point.
         @param p The point to mark or clear.
         @param value true, if point should be marked; false, if point should
@@ -83,7 +112,6 @@ public class Marker
             m_mark[points.get(i).getIndex()] = true;
     }
 
-    private final int m_size;
-
-    private boolean m_mark[];
+    /** Marks indexed by point index; all indices are on the board. */
+    private final boolean m_mark[];
 }
@@ -37,12 +37,11 @@ public final class Move
             else
                 return s_passWhite;
         }
-        int x = point.getX();
-        int y = point.getY();
-        if (color == BLACK)
-            return s_movesBlack[x][y];
-        else
-            return s_movesWhite[x][y];
+        int index = point.getIndex();
+        Move[][] moves = s_moves;
+        if (index >= moves[0].length)
+            moves = createMoves(point);
+        return moves[color == BLACK ? 0 : 1][index];
     }
 
     /** Factory method for constructing a pass move.
@@ -82,9 +81,10 @@ public final class Move
 
     private static Move s_passWhite;
 
-    private static Move[][] s_movesBlack;
-
-    private static Move[][] s_movesWhite;
+    /** Moves of Black and White indexed by point index.
+        Created for all points of the largest board used so far and
+        replaced by larger arrays like the points in GoPoint. */
+    private static volatile Move[][] s_moves = new Move[2][0];
 
     private final GoColor m_color;
 
@@ -96,26 +96,38 @@ public final class Move
     {
         s_passBlack = new Move(BLACK, null, "B PASS");
         s_passWhite = new Move(WHITE, null, "W PASS");
-        s_movesBlack = init(BLACK);
-        s_movesWhite = init(WHITE);
     }
 
-    private static Move[][] init(GoColor color)
+    /** Create the moves for all points of the smallest board containing a
+        point.
+        @return The new arrays of moves. */
+    private static synchronized Move[][] createMoves(GoPoint point)
     {
-        Move[][] result = new Move[GoPoint.MAX_SIZE][GoPoint.MAX_SIZE];
-        StringBuilder buffer = new StringBuilder(8);
-        String colorString = color.getUppercaseLetter();
-        for (int x = 0; x < GoPoint.MAX_SIZE; ++x)
-            for (int y = 0; y < GoPoint.MAX_SIZE; ++y)
+        Move[][] moves = s_moves;
+        int size = Math.max(point.getX(), point.getY()) + 1;
+        int numberIndexes = GoPoint.getNumberIndexes(size);
+        if (numberIndexes <= moves[0].length)
+            return moves;
+        Move[][] newMoves = new Move[2][];
+        for (int i = 0; i < 2; ++i)
+        {
+            GoColor color = (i == 0 ? BLACK : WHITE);
+            newMoves[i] = new Move[numberIndexes];
+            System.arraycopy(moves[i], 0, newMoves[i], 0, moves[i].length);
+            StringBuilder buffer = new StringBuilder(8);
+            String colorString = color.getUppercaseLetter();
+            for (int index = moves[i].length; index < numberIndexes; ++index)
             {
-                GoPoint p = GoPoint.get(x, y);
+                GoPoint p = GoPoint.fromIndex(index);
                 buffer.setLength(0);
                 buffer.append(colorString);
                 buffer.append(' ');
                 buffer.append(p);
-                result[x][y] = new Move(color, p, buffer.toString());
+                newMoves[i][index] = new Move(color, p, buffer.toString());
             }
-        return result;
+        }
+        s_moves = newMoves;
+        return newMoves;
     }
 
     private Move(GoColor color, GoPoint point, String string)
@@ -0,0 +1,93 @@
+// Zobrist.java
+
+package net.sf.gogui.go;
+
+import java.util.Random;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+
+/** Random keys for Zobrist hashing of Go positions.
+    The hash code of a position is the XOR of the keys of all stones on the
+    board. The keys are generated with a fixed seed, so that hash codes are
+    the same in every run of a program and can be stored or compared between
+    different programs using this class. */
+public final class Zobrist
+{
+    /** Get the key for a stone.
+        @param c The color of the stone (<code>BLACK</code> or
+        <code>WHITE</code>)
+        @param p The location of the stone
+        @return The key of the stone. */
+    public static long get(GoColor c, GoPoint p)
+    {
+        if (c == BLACK)
+            return s_black[p.getIndex()];
+        assert c == WHITE;
+        return s_white[p.getIndex()];
+    }
+
+    /** Get the key for the color to move.
+        Can be combined with a position hash code to get a situational hash
+        code. The key for Black is zero.
+        @param c The color to move
+        @return The key for the color to move. */
+    public static long getToMove(GoColor c)
+    {
+        return (c == WHITE ? s_whiteToMove : 0L);
+    }
+
+    /** Compute the hash code of a position from scratch.
+        @param board The board
+        @return The XOR of the keys of all stones on the board. */
+    public static long compute(ConstBoard board)
+    {
+        long hash = 0;
+        for (GoPoint p : board)
+        {
+            GoColor c = board.getColor(p);
+            if (c.isBlackWhite())
+                hash ^= get(c, p);
+        }
+        return hash;
+    }
+
+    private static final long[] s_black = new long[GoPoint.NUMBER_INDEXES];
+
+    private static final long[] s_white = new long[GoPoint.NUMBER_INDEXES];
+
+    private static final long s_whiteToMove;
+
+    /** Maximum board size of GoGui versions with row by row point
+        indices. */
+    private static final int OLD_MAX_SIZE = 25;
+
+    static
+    {
+        Random random = new Random(0x5eed5eedL);
+        // Generate the keys for boards up to OLD_MAX_SIZE row by row as in
+        // GoGui versions with this maximum size, so that hash codes stored
+        // by other programs stay valid
+        for (int y = 0; y < OLD_MAX_SIZE; ++y)
+            for (int x = 0; x < OLD_MAX_SIZE; ++x)
+            {
+                int i = GoPoint.getIndex(x, y);
+                s_black[i] = random.nextLong();
+                s_white[i] = random.nextLong();
+            }
+        s_whiteToMove = random.nextLong();
+        for (int y = 0; y < GoPoint.MAX_SIZE; ++y)
+            for (int x = 0; x < GoPoint.MAX_SIZE; ++x)
+                if (x >= OLD_MAX_SIZE || y >= OLD_MAX_SIZE)
+                {
+                    int i = GoPoint.getIndex(x, y);
+                    s_black[i] = random.nextLong();
+                    s_white[i] = random.nextLong();
+                }
+    }
+
+    /** Make constructor unavailable; class is for namespace only. */
+    private Zobrist()
+    {
+    }
+}
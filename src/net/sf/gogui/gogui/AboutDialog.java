@@ -18,6 +18,7 @@ import javax.swing.UIManager;
 import javax.swing.event.HyperlinkEvent;
 import javax.swing.event.HyperlinkListener;
 import javax.swing.text.EditorKit;
+import net.sf.gogui.game.PositionCache;
 import static net.sf.gogui.gogui.I18n.i18n;
 import net.sf.gogui.gui.GuiUtil;
 import net.sf.gogui.gui.MessageDialogs;
@@ -30,9 +31,11 @@ public final class AboutDialog
     extends JOptionPane
 {
     public static void show(Component parent, String name, String version,
-                            String command, MessageDialogs messageDialogs)
+                            String command, PositionCache positionCache,
+                            MessageDialogs messageDialogs)
     {
         AboutDialog aboutDialog = new AboutDialog(name, version, command,
+                                                  positionCache,
                                                   messageDialogs);
         JDialog dialog = aboutDialog.createDialog(parent, i18n("TIT_ABOUT"));
         // Workaround for Sun Bug ID 4545951 (still in Linux JDK 1.5.0_04-b05)
@@ -46,10 +49,14 @@ public final class AboutDialog
 
     private final MessageDialogs m_messageDialogs;
 
+    private final PositionCache m_positionCache;
+
     private AboutDialog(String name, String version, String command,
+                        PositionCache positionCache,
                         MessageDialogs messageDialogs)
     {
         m_messageDialogs = messageDialogs;
+        m_positionCache = positionCache;
         m_tabbedPane = new JTabbedPane();
         boolean isProgramAvailable = (name != null && ! name.equals(""));
         int tabIndex = 0;
@@ -203,6 +210,14 @@ public final class AboutDialog
         buffer.append(XmlUtil.escapeText(format(i18n("LB_ABOUT_JAVA_MEMLIMIT_1"),
                                                 getMemorySizeString(runtime.totalMemory()),
                                                 getMemorySizeString(runtime.freeMemory()))));
+        if (m_positionCache != null)
+        {
+            buffer.append("<br>");
+            buffer.append(XmlUtil.escapeText(format(i18n("LB_ABOUT_POSITION_CACHE"),
+                                                    getMemorySizeString(m_positionCache.getMemory()),
+                                                    getMemorySizeString(m_positionCache.getMaxMemory()),
+                                                    m_positionCache.getNumberPositions())));
+        }
         String lafName = i18n("LB_ABOUT_LAF_UNKNOWN");
         LookAndFeel laf = UIManager.getLookAndFeel();
         if (laf != null)
@@ -50,6 +50,7 @@ import net.sf.gogui.game.GameTree;
 import net.sf.gogui.game.GameInfo;
 import net.sf.gogui.game.MarkType;
 import net.sf.gogui.game.NodeUtil;
+import net.sf.gogui.game.PositionCache;
 import net.sf.gogui.game.StringInfo;
 import net.sf.gogui.game.StringInfoColor;
 import net.sf.gogui.game.TimeSettings;
@@ -203,6 +204,9 @@ implements AnalyzeDialog.Listener, GuiBoard.Listener,
         contentPane.add(m_innerPanel, BorderLayout.CENTER);
         m_infoPanel = new JPanel(new BorderLayout());
         m_game = new Game(boardSize);
+        m_game.getPositionCache().setMaxMemory(
+                   1000000L * m_prefs.getInt("position-cache-size",
+                   (int)(PositionCache.DEFAULT_MAX_MEMORY / 1000000L)));
         m_gameInfoPanel = new GameInfoPanel(m_game);
         m_gameInfoPanel.setBorder(GuiUtil.createSmallEmptyBorder());
         m_infoPanel.add(m_gameInfoPanel, BorderLayout.NORTH);
@@ -331,7 +335,7 @@ implements AnalyzeDialog.Listener, GuiBoard.Listener,
         if (m_gtp != null)
             command = m_gtp.getProgramCommand();
         AboutDialog.show(this, getProgramLabel(), m_version, command,
-                m_messageDialogs);
+                m_game.getPositionCache(), m_messageDialogs);
     }
 
     public void actionAddBookmark()
@@ -4555,7 +4559,8 @@ implements AnalyzeDialog.Listener, GuiBoard.Listener,
             m_messageDialogs.showInfo(disableKey, this,
                     i18n("MSG_GAME_FINISHED"),
                    m_gameRuler.isSupported("gogui-rules_final_result") ?
-                   m_gameRuler.send("gogui-rules_final_result") : "", false);
+                   m_gameRuler.sendCached("gogui-rules_final_result", false)
+                   : "", false);
         } catch (GtpError e) {
         }
     }
@@ -70,6 +70,7 @@ public final class GoGuiSettings
             "komi:",
             "laf:",
             "move:",
+            "position-cache-size:",
             "program:",
             "rules:",
             "register",
@@ -131,6 +132,9 @@ public final class GoGuiSettings
             m_prefs.putDouble("komi", opt.getDouble("komi"));
         m_lookAndFeel = opt.get("laf", null);
         m_move = opt.getInteger("move", -1);
+        if (opt.contains("position-cache-size"))
+            m_prefs.putInt("position-cache-size",
+                           opt.getInteger("position-cache-size", 0, 0));
         if (opt.contains("size"))
             m_prefs.putInt("boardsize", opt.getInteger("size"));
         m_time = opt.get("time", null);
@@ -168,6 +172,7 @@ public final class GoGuiSettings
             "-komi             Set komi\n" +
             "-laf              Set Swing look and feel\n" +
             "-move             Load SGF file until move number\n" +
+            "-position-cache-size Memory for cached positions in MB\n" +
             "-program          Go program to attach\n" +
             "-rules            Game ruler program to attach\n" +
             "-size             Set board size\n" +
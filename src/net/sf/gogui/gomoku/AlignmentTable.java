@@ -0,0 +1,230 @@
+package net.sf.gogui.gomoku;
+
+import java.util.Arrays;
+
+import net.sf.gogui.go.ConstBoard;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+
+/**
+ * Gomoku position with incrementally maintained run lengths.
+ * For each color, each point and each of the 8 directions of Direction,
+ * the table stores the number of consecutive stones of this color that
+ * start at the neighbor of the point in this direction. The run lengths
+ * are updated when a stone is played or taken back, which only touches the
+ * stones of the runs ending next to the stone.
+ * Then the number of stones aligned with a point in a direction (the stone
+ * at the point included), and therefore five in a row, overlines and open
+ * fours, are found with a few array lookups instead of the scan of
+ * CheckAlignment.
+ * The point of a query can be empty; the result is the same as if a stone
+ * of the given color was played there.
+ */
+public class AlignmentTable {
+
+	/**
+	 * @param size The board size.
+	 */
+	public AlignmentTable(int size) {
+		m_size = size;
+		m_color = new GoColor[size * size];
+		m_run = new int[2][8][size * size];
+		m_moves = new int[size * size];
+		clear();
+	}
+
+	/**
+	 * Remove all stones.
+	 */
+	public void clear() {
+		Arrays.fill(m_color, GoColor.EMPTY);
+		for (int c = 0; c < 2; c++)
+			for (int d = 0; d < 8; d++)
+				Arrays.fill(m_run[c][d], 0);
+		m_numberMoves = 0;
+	}
+
+	/**
+	 * Number of stones aligned on an axis.
+	 * @param c The color.
+	 * @param p The point.
+	 * @param axis The axis (0 to 3, index of the first half of the
+	 * directions of Direction).
+	 * @return The length of the run of stones of color c through p if a
+	 * stone of color c is at p.
+	 */
+	public int getAligned(GoColor c, GoPoint p, int axis) {
+		int[][] run = m_run[c.ordinal()];
+		int i = getIndex(p);
+		return 1 + run[axis][i] + run[axis + 4][i];
+	}
+
+	public GoColor getColor(GoPoint p) {
+		return m_color[getIndex(p)];
+	}
+
+	/**
+	 * Longest run of stones through a point in any direction.
+	 */
+	public int getMaxAligned(GoColor c, GoPoint p) {
+		int max = 0;
+		for (int axis = 0; axis < 4; axis++)
+			max = Math.max(max, getAligned(c, p, axis));
+		return max;
+	}
+
+	public int getNumberMoves() {
+		return m_numberMoves;
+	}
+
+	public int getSize() {
+		return m_size;
+	}
+
+	/**
+	 * Same as CheckAlignment.areNAligned().
+	 */
+	public boolean isAligned(GoColor c, GoPoint p, int n) {
+		for (int axis = 0; axis < 4; axis++)
+			if (getAligned(c, p, axis) == n)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Same as CheckAlignment.areNAtLeastAligned().
+	 */
+	public boolean isAtLeastAligned(GoColor c, GoPoint p, int n) {
+		return getMaxAligned(c, p) >= n;
+	}
+
+	/**
+	 * Check for exactly five stones in a row.
+	 */
+	public boolean isFive(GoColor c, GoPoint p) {
+		return isAligned(c, p, 5);
+	}
+
+	/**
+	 * Check for a run of exactly four stones with empty points at both
+	 * ends on any axis.
+	 */
+	public boolean isOpenFour(GoColor c, GoPoint p) {
+		int[][] run = m_run[c.ordinal()];
+		int i = getIndex(p);
+		int x = p.getX();
+		int y = p.getY();
+		for (int axis = 0; axis < 4; axis++) {
+			int forward = run[axis][i];
+			int backward = run[axis + 4][i];
+			if (forward + backward + 1 != 4)
+				continue;
+			int[] d = Direction.getDirection(axis);
+			if (isEmpty(x + (forward + 1) * d[0], y + (forward + 1) * d[1])
+					&& isEmpty(x - (backward + 1) * d[0],
+							y - (backward + 1) * d[1]))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Check for more than five stones in a row.
+	 */
+	public boolean isOverline(GoColor c, GoPoint p) {
+		return getMaxAligned(c, p) > 5;
+	}
+
+	/**
+	 * Play a stone.
+	 * @param move The move; the point must be empty. Passes are ignored.
+	 */
+	public void play(Move move) {
+		GoPoint p = move.getPoint();
+		if (p == null)
+			return;
+		int i = getIndex(p);
+		assert m_color[i] == GoColor.EMPTY;
+		GoColor c = move.getColor();
+		m_color[i] = c;
+		m_moves[m_numberMoves++] = i;
+		updateRuns(c, p.getX(), p.getY(), true);
+	}
+
+	/**
+	 * Set the position to the stones of a board.
+	 */
+	public void set(ConstBoard board) {
+		assert board.getSize() == m_size;
+		clear();
+		for (GoPoint p : board) {
+			GoColor c = board.getColor(p);
+			if (c != GoColor.EMPTY)
+				play(Move.get(c, p));
+		}
+	}
+
+	/**
+	 * Take back the last stone played.
+	 */
+	public void undo() {
+		assert m_numberMoves > 0;
+		int i = m_moves[--m_numberMoves];
+		GoColor c = m_color[i];
+		m_color[i] = GoColor.EMPTY;
+		updateRuns(c, i % m_size, i / m_size, false);
+	}
+
+	private final int m_size;
+
+	private int m_numberMoves;
+
+	/**
+	 * Indices of the stones in the order they were played.
+	 */
+	private final int[] m_moves;
+
+	private final GoColor[] m_color;
+
+	/**
+	 * Run lengths indexed by color, direction and point.
+	 */
+	private final int[][][] m_run;
+
+	private int getIndex(GoPoint p) {
+		return p.getY() * m_size + p.getX();
+	}
+
+	private boolean isEmpty(int x, int y) {
+		return x >= 0 && x < m_size && y >= 0 && y < m_size
+				&& m_color[y * m_size + x] == GoColor.EMPTY;
+	}
+
+	/**
+	 * Update the run lengths after a stone was added or removed at (x, y).
+	 * For each direction, the run starting at the neighbor of each point
+	 * behind (x, y) changes, as long as these points contain stones of the
+	 * same color; the first point that does not gets the new length too.
+	 */
+	private void updateRuns(GoColor c, int x, int y, boolean isAdded) {
+		int[][] run = m_run[c.ordinal()];
+		int i = y * m_size + x;
+		for (int d = 0; d < 8; d++) {
+			int[] dir = Direction.getDirection(d);
+			int[] runDir = run[d];
+			int length = (isAdded ? 1 + runDir[i] : 0);
+			int px = x - dir[0];
+			int py = y - dir[1];
+			while (px >= 0 && px < m_size && py >= 0 && py < m_size) {
+				int j = py * m_size + px;
+				runDir[j] = length;
+				if (m_color[j] != c)
+					break;
+				length++;
+				px -= dir[0];
+				py -= dir[1];
+			}
+		}
+	}
+}
@@ -3,8 +3,8 @@ package net.sf.gogui.gomoku;
 import net.sf.gogui.go.Board;
 import net.sf.gogui.go.GoColor;
 import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.IntPointList;
 import net.sf.gogui.go.Move;
-import net.sf.gogui.go.PointList;
 
 public class CheckAlignment{
 	
@@ -61,10 +61,10 @@ public class CheckAlignment{
 	 * @param occurrence
 	 * @return
 	 */
-	private static PointList getAligned(Board b, Move firstPoint, int[] direction) {
+	private static IntPointList getAligned(Board b, Move firstPoint, int[] direction) {
 		int[] opposite = Direction.getOpposite(direction);
-		PointList aligned = new PointList();
-		aligned.add(firstPoint.getPoint());
+		IntPointList aligned = new IntPointList();
+		aligned.addIndex(firstPoint.getPoint().getIndex());
 		aligned = getAlignedToDirection(b, firstPoint.getPoint(), firstPoint.getColor(), direction, aligned);
 		aligned = getAlignedToDirection(b, firstPoint.getPoint(), firstPoint.getColor(), opposite, aligned);
 		return aligned;
@@ -78,7 +78,7 @@ public class CheckAlignment{
 	 * @param aligned
 	 * @return
 	 */
-	private static PointList getAlignedToDirection( Board b, GoPoint previousPoint, GoColor previousColor, int[] direction, PointList aligned) {
+	private static IntPointList getAlignedToDirection( Board b, GoPoint previousPoint, GoColor previousColor, int[] direction, IntPointList aligned) {
 		if (previousColor.equals(GoColor.EMPTY)) {
 			return aligned;
 		}
@@ -95,7 +95,7 @@ public class CheckAlignment{
 		if (! actualColor.equals(previousColor)) {
 			return aligned;
 		}
-		aligned.add(actualPoint);
+		aligned.addIndex(actualPoint.getIndex());
 		return getAlignedToDirection(b,actualPoint,actualColor, direction,aligned);
 	}
 }
\ No newline at end of file
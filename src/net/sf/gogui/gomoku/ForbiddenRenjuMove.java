@@ -1,9 +1,355 @@
 package net.sf.gogui.gomoku;
 
+import java.util.Arrays;
+
+import net.sf.gogui.go.ConstBoard;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+
+/**
+ * Detector for the moves forbidden to black in Renju.
+ * A black move is forbidden if it makes an overline (six or more stones in
+ * a row), two fours (also on the same line) or two threes, unless it makes
+ * exactly five in a row. A three only counts if it can become a straight
+ * four with a move that is not forbidden itself, which is checked
+ * recursively.
+ * <p>
+ * The position is kept in a padded array that is updated with play() and
+ * undo(). The state of the line of 11 points centered at a move in each
+ * direction is encoded as a number in base 3 (empty, black, white or
+ * border) and the fives, overlines, fours and straight four completions of
+ * all line states are looked up in tables computed once when the class is
+ * loaded, so checking a move needs no allocations and only a few array
+ * accesses per direction.
+ */
 public class ForbiddenRenjuMove {
 
-	
-	public static boolean isFork() {
-		return true;
+	/**
+	 * @param size The board size.
+	 */
+	public ForbiddenRenjuMove(int size) {
+		m_size = size;
+		m_width = size + 2 * MARGIN;
+		m_cell = new byte[m_width * m_width];
+		m_moves = new int[size * size];
+		m_step = new int[] { 1, m_width + 1, m_width, m_width - 1 };
+		clear();
+	}
+
+	/**
+	 * Check a move on a board.
+	 * Convenience function that copies the board; use an instance and
+	 * play() to check many moves.
+	 */
+	public static boolean isForbidden(ConstBoard board, GoPoint p) {
+		ForbiddenRenjuMove forbidden = new ForbiddenRenjuMove(board.getSize());
+		forbidden.set(board);
+		return forbidden.isForbidden(p);
+	}
+
+	/**
+	 * Remove all stones.
+	 */
+	public void clear() {
+		Arrays.fill(m_cell, BLOCKED);
+		for (int y = 0; y < m_size; y++)
+			for (int x = 0; x < m_size; x++)
+				m_cell[getIndex(x, y)] = EMPTY;
+		m_numberMoves = 0;
+	}
+
+	public int getSize() {
+		return m_size;
+	}
+
+	/**
+	 * Check if a black move makes exactly five in a row.
+	 */
+	public boolean isFive(GoPoint p) {
+		int i = getIndex(p.getX(), p.getY());
+		for (int axis = 0; axis < 4; axis++)
+			if ((s_info[getLine(i, axis)] & FIVE) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Check if a black move is forbidden.
+	 * @param p An empty point.
+	 * @return true, if the move makes an overline, double four or double
+	 * three and no five.
+	 */
+	public boolean isForbidden(GoPoint p) {
+		int i = getIndex(p.getX(), p.getY());
+		assert m_cell[i] == EMPTY;
+		return isForbidden(i);
+	}
+
+	/**
+	 * Check if a black move makes two fours or two threes.
+	 * Overlines and fives are not taken into account.
+	 */
+	public boolean isFork(GoPoint p) {
+		int i = getIndex(p.getX(), p.getY());
+		assert m_cell[i] == EMPTY;
+		int numberFours = 0;
+		for (int axis = 0; axis < 4; axis++)
+			numberFours += s_info[getLine(i, axis)] & FOURS;
+		return numberFours >= 2 || isDoubleThree(i);
+	}
+
+	/**
+	 * Play a stone.
+	 * @param move The move; the point must be empty. Passes are ignored.
+	 */
+	public void play(Move move) {
+		GoPoint p = move.getPoint();
+		if (p == null)
+			return;
+		int i = getIndex(p.getX(), p.getY());
+		assert m_cell[i] == EMPTY;
+		m_cell[i] = (move.getColor() == GoColor.BLACK ? BLACK : BLOCKED);
+		m_moves[m_numberMoves++] = i;
+	}
+
+	/**
+	 * Set the position to the stones of a board.
+	 */
+	public void set(ConstBoard board) {
+		assert board.getSize() == m_size;
+		clear();
+		for (GoPoint p : board) {
+			GoColor c = board.getColor(p);
+			if (c != GoColor.EMPTY)
+				play(Move.get(c, p));
+		}
+	}
+
+	/**
+	 * Take back the last stone played.
+	 */
+	public void undo() {
+		assert m_numberMoves > 0;
+		m_cell[m_moves[--m_numberMoves]] = EMPTY;
+	}
+
+	/**
+	 * Number of points on each side of a move in a line state.
+	 */
+	private static final int HALF = 5;
+
+	private static final int MARGIN = HALF;
+
+	private static final byte EMPTY = 0;
+
+	private static final byte BLACK = 1;
+
+	/**
+	 * White stone or border.
+	 */
+	private static final byte BLOCKED = 2;
+
+	/**
+	 * Mask for the number of fours (0 to 2) in the line information.
+	 */
+	private static final int FOURS = 3;
+
+	private static final int FIVE = 4;
+
+	private static final int OVERLINE = 8;
+
+	/**
+	 * Powers of 3 for the points of a line.
+	 */
+	private static final int[] s_weight = new int[2 * HALF + 1];
+
+	/**
+	 * Information (FOURS, FIVE, OVERLINE) for each line state.
+	 */
+	private static final byte[] s_info;
+
+	/**
+	 * Points that make a straight four for each line state.
+	 * Bit HALF + k is set for the point at offset k. Zero, if the line
+	 * contains a four already.
+	 */
+	private static final short[] s_straightFour;
+
+	static {
+		int number = 1;
+		for (int k = -HALF; k <= HALF; k++) {
+			if (k == 0)
+				continue;
+			s_weight[k + HALF] = number;
+			number *= 3;
+		}
+		s_info = new byte[number];
+		s_straightFour = new short[number];
+		byte[] line = new byte[2 * HALF + 1];
+		for (int code = 0; code < number; code++) {
+			int rest = code;
+			for (int j = 0; j < line.length; j++) {
+				if (j == HALF)
+					continue;
+				line[j] = (byte)(rest % 3);
+				rest /= 3;
+			}
+			line[HALF] = BLACK;
+			computeLine(line, code);
+		}
+	}
+
+	private final int m_size;
+
+	private final int m_width;
+
+	private int m_numberMoves;
+
+	/**
+	 * Indices of the stones in the order they were played.
+	 */
+	private final int[] m_moves;
+
+	/**
+	 * Index offsets for the directions of Direction 0 to 3.
+	 */
+	private final int[] m_step;
+
+	/**
+	 * Points with a margin of blocked points.
+	 */
+	private final byte[] m_cell;
+
+	private static void computeLine(byte[] line, int code) {
+		int run = getRun(line, HALF);
+		int info = 0;
+		if (run == 5)
+			info |= FIVE;
+		else if (run > 5)
+			info |= OVERLINE;
+		// Points that make exactly five with the center stone
+		int numberFives = 0;
+		int firstFive = 0;
+		int secondFive = 0;
+		for (int j = 1; j < line.length - 1; j++) {
+			if (line[j] != EMPTY)
+				continue;
+			line[j] = BLACK;
+			if (getRun(line, HALF) == 5) {
+				if (numberFives == 0)
+					firstFive = j;
+				else
+					secondFive = j;
+				numberFives++;
+			}
+			line[j] = EMPTY;
+		}
+		int numberFours = Math.min(numberFives, 2);
+		// Both ends of a straight four are a single four
+		if (numberFives == 2 && secondFive - firstFive == 5)
+			numberFours = 1;
+		info |= numberFours;
+		s_info[code] = (byte)info;
+		if (numberFours > 0 || run >= 5)
+			return;
+		int straightFour = 0;
+		for (int j = 1; j < line.length - 1; j++) {
+			if (line[j] != EMPTY)
+				continue;
+			line[j] = BLACK;
+			if (isStraightFour(line))
+				straightFour |= 1 << j;
+			line[j] = EMPTY;
+		}
+		s_straightFour[code] = (short)straightFour;
+	}
+
+	/**
+	 * Length of the run of black stones through a point of a line.
+	 */
+	private static int getRun(byte[] line, int j) {
+		int start = j;
+		while (start > 0 && line[start - 1] == BLACK)
+			start--;
+		int end = j;
+		while (end < line.length - 1 && line[end + 1] == BLACK)
+			end++;
+		return end - start + 1;
+	}
+
+	/**
+	 * Check if the run through the center is four stones with empty
+	 * points at both ends that each make exactly five.
+	 */
+	private static boolean isStraightFour(byte[] line) {
+		if (getRun(line, HALF) != 4)
+			return false;
+		int start = HALF;
+		while (line[start - 1] == BLACK)
+			start--;
+		int end = start + 3;
+		return start >= 2 && end <= line.length - 3
+				&& line[start - 1] == EMPTY && line[start - 2] != BLACK
+				&& line[end + 1] == EMPTY && line[end + 2] != BLACK;
+	}
+
+	private int getIndex(int x, int y) {
+		return (y + MARGIN) * m_width + x + MARGIN;
+	}
+
+	/**
+	 * Encode the line state around a point.
+	 */
+	private int getLine(int i, int axis) {
+		int step = m_step[axis];
+		int code = 0;
+		int j = i - HALF * step;
+		for (int k = 0; k <= 2 * HALF; k++, j += step)
+			if (k != HALF)
+				code += m_cell[j] * s_weight[k];
+		return code;
+	}
+
+	private boolean isDoubleThree(int i) {
+		int numberThrees = 0;
+		m_cell[i] = BLACK;
+		for (int axis = 0; axis < 4 && numberThrees < 2; axis++) {
+			int straightFour = s_straightFour[getLine(i, axis)];
+			if (straightFour != 0 && isTrueThree(i, axis, straightFour))
+				numberThrees++;
+		}
+		m_cell[i] = EMPTY;
+		return numberThrees >= 2;
+	}
+
+	private boolean isForbidden(int i) {
+		int numberFours = 0;
+		boolean isOverline = false;
+		for (int axis = 0; axis < 4; axis++) {
+			int info = s_info[getLine(i, axis)];
+			if ((info & FIVE) != 0)
+				return false;
+			if ((info & OVERLINE) != 0)
+				isOverline = true;
+			numberFours += info & FOURS;
+		}
+		if (isOverline || numberFours >= 2)
+			return true;
+		return isDoubleThree(i);
+	}
+
+	/**
+	 * Check if one of the points that make a straight four is not
+	 * forbidden.
+	 * The stone at i must be on the board.
+	 */
+	private boolean isTrueThree(int i, int axis, int straightFour) {
+		int step = m_step[axis];
+		for (int k = -HALF; k <= HALF; k++)
+			if ((straightFour & (1 << (k + HALF))) != 0
+					&& ! isForbidden(i + k * step))
+				return true;
+		return false;
 	}
 }
@@ -0,0 +1,223 @@
+package net.sf.gogui.gomoku;
+
+import net.sf.gogui.go.ConstPointList;
+import net.sf.gogui.go.GameRuler;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import net.sf.gogui.gtp.GtpError;
+
+/**
+ * Game ruler for Gomoku and Renju.
+ * In Gomoku (free style), the first player with five or more stones in a
+ * row wins. In Renju, black wins only with exactly five in a row and must
+ * not play the moves detected by ForbiddenRenjuMove; white wins with five
+ * or more. Black moves first, passes are not allowed and the game is a draw
+ * if the board is full.
+ * <p>
+ * The position is kept in an AlignmentTable and, for Renju, in a
+ * ForbiddenRenjuMove instance, which are both updated incrementally with
+ * each move and undo, so that the ruler can run in the same process as
+ * GoGui (see GameRuler) or behind the GTP interface of gogui-referee
+ * without replaying the game for each query.
+ */
+public class GomokuRuler implements GameRuler {
+
+	public static final int DEFAULT_SIZE = 15;
+
+	/**
+	 * Construct a ruler for Gomoku with the default board size.
+	 */
+	public GomokuRuler() {
+		this(false);
+	}
+
+	/**
+	 * @param isRenju true for Renju, false for free style Gomoku.
+	 */
+	public GomokuRuler(boolean isRenju) {
+		m_isRenju = isRenju;
+		clearBoard(DEFAULT_SIZE);
+	}
+
+	public final void clearBoard(int size) {
+		if (m_alignment == null || m_alignment.getSize() != size) {
+			m_alignment = new AlignmentTable(size);
+			if (m_isRenju)
+				m_forbidden = new ForbiddenRenjuMove(size);
+			m_moves = new Move[size * size];
+		} else {
+			m_alignment.clear();
+			if (m_isRenju)
+				m_forbidden.clear();
+		}
+		m_numberMoves = 0;
+		m_winner = null;
+		m_legalMoves = null;
+	}
+
+	public int getBoardSize() {
+		return m_alignment.getSize();
+	}
+
+	public GoColor getColor(GoPoint p) {
+		return m_alignment.getColor(p);
+	}
+
+	/**
+	 * @return "B+" or "W+", if a player has won, "0" for a draw, an empty
+	 * string if the game is not over.
+	 */
+	public String getFinalResult() {
+		if (m_winner != null)
+			return m_winner == GoColor.BLACK ? "B+" : "W+";
+		if (isGameOver())
+			return "0";
+		return "";
+	}
+
+	public String getGameId() {
+		return m_isRenju ? "Renju" : "Gomoku";
+	}
+
+	/**
+	 * Get the legal moves.
+	 * The list is computed once per position and must not be modified.
+	 * @return The empty points that are not forbidden for the side to
+	 * move; an empty list if the game is over.
+	 */
+	public ConstPointList getLegalMoves() {
+		if (m_legalMoves != null)
+			return m_legalMoves;
+		PointList legalMoves = new PointList();
+		if (! isGameOver()) {
+			GoColor toMove = getSideToMove();
+			int size = getBoardSize();
+			for (int y = 0; y < size; y++)
+				for (int x = 0; x < size; x++) {
+					GoPoint p = GoPoint.get(x, y);
+					if (m_alignment.getColor(p) == GoColor.EMPTY
+							&& ! isForbidden(toMove, p))
+						legalMoves.add(p);
+				}
+		}
+		m_legalMoves = legalMoves;
+		return legalMoves;
+	}
+
+	public int getNumberMoves() {
+		return m_numberMoves;
+	}
+
+	public GoColor getSideToMove() {
+		if (m_numberMoves == 0)
+			return GoColor.BLACK;
+		return m_moves[m_numberMoves - 1].getColor().otherColor();
+	}
+
+	/**
+	 * @return The color of the player with five in a row or null.
+	 */
+	public GoColor getWinner() {
+		return m_winner;
+	}
+
+	public boolean isGameOver() {
+		int size = getBoardSize();
+		return m_winner != null || m_numberMoves == size * size;
+	}
+
+	/**
+	 * Check if a move is legal.
+	 * Does the same checks as play() without the need to catch an
+	 * exception.
+	 */
+	public boolean isLegal(Move move) {
+		return getIllegalReason(move) == null;
+	}
+
+	/**
+	 * @return Always false.
+	 */
+	public boolean isPassLegal() {
+		return false;
+	}
+
+	public boolean isRenju() {
+		return m_isRenju;
+	}
+
+	/**
+	 * Play a move.
+	 * @throws GtpError If the game is over, the color is not the side to
+	 * move, the move is a pass, the point is occupied or the move is
+	 * forbidden for black in Renju.
+	 */
+	public void play(Move move) throws GtpError {
+		String reason = getIllegalReason(move);
+		if (reason != null)
+			throw new GtpError(reason);
+		GoColor c = move.getColor();
+		GoPoint p = move.getPoint();
+		if ((m_isRenju && c == GoColor.BLACK) ? m_alignment.isFive(c, p)
+				: m_alignment.isAtLeastAligned(c, p, 5))
+			m_winner = c;
+		m_alignment.play(move);
+		if (m_isRenju)
+			m_forbidden.play(move);
+		m_moves[m_numberMoves++] = move;
+		m_legalMoves = null;
+	}
+
+	public void undo() throws GtpError {
+		if (m_numberMoves == 0)
+			throw new GtpError("no move to undo");
+		m_moves[--m_numberMoves] = null;
+		m_alignment.undo();
+		if (m_isRenju)
+			m_forbidden.undo();
+		// A game ends with the move that makes the row
+		m_winner = null;
+		m_legalMoves = null;
+	}
+
+	private final boolean m_isRenju;
+
+	private int m_numberMoves;
+
+	private GoColor m_winner;
+
+	private AlignmentTable m_alignment;
+
+	private ForbiddenRenjuMove m_forbidden;
+
+	private Move[] m_moves;
+
+	/**
+	 * Cached legal moves of the current position or null.
+	 */
+	private ConstPointList m_legalMoves;
+
+	private String getIllegalReason(Move move) {
+		if (isGameOver())
+			return "game is over";
+		GoPoint p = move.getPoint();
+		if (p == null)
+			return "pass is not allowed";
+		if (! p.isOnBoard(getBoardSize()))
+			return "point outside board";
+		if (move.getColor() != getSideToMove())
+			return "not " + move.getColor().getUppercaseLetter()
+					+ " to move";
+		if (m_alignment.getColor(p) != GoColor.EMPTY)
+			return "point is occupied";
+		if (isForbidden(move.getColor(), p))
+			return "forbidden move";
+		return null;
+	}
+
+	private boolean isForbidden(GoColor c, GoPoint p) {
+		return m_isRenju && c == GoColor.BLACK && m_forbidden.isForbidden(p);
+	}
+}
@@ -0,0 +1,13 @@
+package net.sf.gogui.gomoku;
+
+/**
+ * Game ruler for Renju.
+ * Same as GomokuRuler(true); exists for the service provider registration
+ * of GameRuler, which needs a constructor without arguments.
+ */
+public class RenjuRuler extends GomokuRuler {
+
+	public RenjuRuler() {
+		super(true);
+	}
+}
@@ -0,0 +1,712 @@
+package net.sf.gogui.gomoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.gogui.go.ConstBoard;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import net.sf.gogui.go.Zobrist;
+
+/**
+ * Threat space search for Gomoku and Renju.
+ * Searches a sequence of threats that wins for the attacker whatever the
+ * defender replies: VCF (victory by continuous fours) only uses fours, which
+ * leave the defender a single reply; VCT (victory by continuous threats)
+ * also uses threes, against which the defender can block at the points on
+ * the line of the three that stop the straight four or play a four himself.
+ * The position is kept in an AlignmentTable and a ForbiddenRenjuMove, so
+ * that threats and forbidden moves are found with table lookups.
+ * <p>
+ * The moves of the attacker at the root are searched in parallel in a
+ * ForkJoinPool; each task has its own copy of the position and all tasks
+ * share a transposition table with the proven wins and the depths of the
+ * failed searches, so that the transpositions that are frequent in threat
+ * sequences are searched only once.
+ */
+public class ThreatSolver {
+
+	public static final int DEFAULT_MAX_DEPTH_VCF = 30;
+
+	public static final int DEFAULT_MAX_DEPTH_VCT = 4;
+
+	/**
+	 * @param isRenju true for Renju rules, false for free style Gomoku.
+	 */
+	public ThreatSolver(boolean isRenju) {
+		m_isRenju = isRenju;
+		m_threads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Number of positions searched in the last call of solve() or
+	 * getWinningMoves().
+	 */
+	public long getNumberNodes() {
+		return m_nodes.get();
+	}
+
+	/**
+	 * Find all first moves of a winning threat sequence.
+	 * @param board The position.
+	 * @param attacker The color to move.
+	 * @param vct true for VCT, false for VCF only.
+	 * @return The moves of the attacker that win by a threat sequence.
+	 */
+	public PointList getWinningMoves(ConstBoard board, GoColor attacker,
+			boolean vct) {
+		m_interrupted = false;
+		m_nodes.set(0);
+		PointList result = new PointList();
+		for (int i = 0; i < (vct ? 2 : 1); i++) {
+			Search search = new Search(board, attacker, i > 0, false);
+			for (RootTask task : search.run(getMaxDepth(i > 0)))
+				if (task.m_result && ! result.contains(task.m_point))
+					result.add(task.m_point);
+		}
+		return result;
+	}
+
+	/**
+	 * Shut down the threads of the fork-join pool.
+	 * Should be called when the solver is no longer needed. The solver can
+	 * still be used, a later search creates a new pool.
+	 */
+	public synchronized void close() {
+		if (m_pool != null) {
+			m_pool.shutdown();
+			m_pool = null;
+		}
+	}
+
+	/**
+	 * Interrupt a search running in another thread.
+	 * The search returns the wins found so far, or null if none was
+	 * found.
+	 */
+	public void interrupt() {
+		m_interrupted = true;
+	}
+
+	public boolean isRenju() {
+		return m_isRenju;
+	}
+
+	/**
+	 * @param maxDepth The maximum number of fours of the attacker in VCF.
+	 */
+	public void setMaxDepthVcf(int maxDepth) {
+		m_maxDepthVcf = maxDepth;
+	}
+
+	/**
+	 * @param maxDepth The maximum number of threats of the attacker in
+	 * VCT.
+	 */
+	public void setMaxDepthVct(int maxDepth) {
+		m_maxDepthVct = maxDepth;
+	}
+
+	/**
+	 * @param threads The parallelism of the fork-join pool.
+	 */
+	public synchronized void setThreads(int threads) {
+		if (threads == m_threads)
+			return;
+		m_threads = threads;
+		close();
+	}
+
+	/**
+	 * Search a winning threat sequence.
+	 * With vct, a VCF is searched first, because it is found much faster
+	 * and is the shortest way to win in most positions.
+	 * @param board The position.
+	 * @param attacker The color to move.
+	 * @param vct true for VCT, false for VCF only.
+	 * @return The winning variation, starting with a move of the attacker
+	 * and ending with five in a row, or null if none was found. If the
+	 * defender has several replies to a three, the variation contains
+	 * the first one. If the search was interrupted after a win was found,
+	 * the variation can end before the five in a row.
+	 */
+	public ArrayList<Move> solve(ConstBoard board, GoColor attacker,
+			boolean vct) {
+		m_interrupted = false;
+		m_nodes.set(0);
+		ArrayList<Move> variation = search(board, attacker, false);
+		if (variation != null || ! vct || m_interrupted)
+			return variation;
+		return search(board, attacker, true);
+	}
+
+	private final boolean m_isRenju;
+
+	private volatile boolean m_interrupted;
+
+	private int m_threads;
+
+	/**
+	 * Pool for the root tasks, created on first use and kept for all
+	 * searches of this solver until close() is called, because iterative
+	 * deepening runs a search for every depth.
+	 */
+	private ForkJoinPool m_pool;
+
+	private int m_maxDepthVcf = DEFAULT_MAX_DEPTH_VCF;
+
+	private int m_maxDepthVct = DEFAULT_MAX_DEPTH_VCT;
+
+	private final AtomicLong m_nodes = new AtomicLong();
+
+	/**
+	 * Search with iterative deepening, which finds short variations first
+	 * and reuses the failed searches of the previous depth from the
+	 * transposition table.
+	 */
+	private ArrayList<Move> search(ConstBoard board, GoColor attacker,
+			boolean vct) {
+		Search search = new Search(board, attacker, vct, true);
+		for (int depth = 1; depth <= getMaxDepth(vct); depth++) {
+			for (RootTask task : search.run(depth))
+				if (task.m_result)
+					return search.getVariation(task.m_point);
+			if (m_interrupted)
+				break;
+		}
+		return null;
+	}
+
+	private int getMaxDepth(boolean vct) {
+		return vct ? m_maxDepthVct : m_maxDepthVcf;
+	}
+
+	private synchronized ForkJoinPool getPool() {
+		if (m_pool == null)
+			m_pool = new ForkJoinPool(Math.max(m_threads, 1));
+		return m_pool;
+	}
+
+	/**
+	 * Position with incrementally updated tables.
+	 */
+	private static final class Position {
+
+		public Position(ConstBoard board, boolean isRenju) {
+			m_board = board;
+			m_size = board.getSize();
+			m_isRenju = isRenju;
+			m_alignment = new AlignmentTable(m_size);
+			m_alignment.set(board);
+			if (isRenju) {
+				m_forbidden = new ForbiddenRenjuMove(m_size);
+				m_forbidden.set(board);
+			} else
+				m_forbidden = null;
+			m_hash = Zobrist.compute(board);
+			m_moves = new Move[m_size * m_size];
+		}
+
+		public Position copy() {
+			Position position = new Position(m_board, m_isRenju);
+			for (int i = 0; i < m_numberMoves; i++)
+				position.play(m_moves[i]);
+			return position;
+		}
+
+		public GoColor getColor(int x, int y) {
+			return m_alignment.getColor(GoPoint.get(x, y));
+		}
+
+		public boolean isEmpty(int x, int y) {
+			return x >= 0 && x < m_size && y >= 0 && y < m_size
+					&& getColor(x, y) == GoColor.EMPTY;
+		}
+
+		public boolean isLegal(GoColor c, GoPoint p) {
+			return ! (m_isRenju && c == GoColor.BLACK
+					&& m_forbidden.isForbidden(p));
+		}
+
+		/**
+		 * Check if a stone at an empty point makes a winning row on an
+		 * axis.
+		 */
+		public boolean isWin(GoColor c, GoPoint p, int axis) {
+			int n = m_alignment.getAligned(c, p, axis);
+			if (m_isRenju && c == GoColor.BLACK)
+				return n == 5;
+			return n >= 5;
+		}
+
+		public boolean isWin(GoColor c, GoPoint p) {
+			for (int axis = 0; axis < 4; axis++)
+				if (isWin(c, p, axis))
+					return true;
+			return false;
+		}
+
+		public void play(Move move) {
+			m_alignment.play(move);
+			if (m_isRenju)
+				m_forbidden.play(move);
+			m_hash ^= Zobrist.get(move.getColor(), move.getPoint());
+			m_moves[m_numberMoves++] = move;
+		}
+
+		public void undo() {
+			Move move = m_moves[--m_numberMoves];
+			m_alignment.undo();
+			if (m_isRenju)
+				m_forbidden.undo();
+			m_hash ^= Zobrist.get(move.getColor(), move.getPoint());
+		}
+
+		private final boolean m_isRenju;
+
+		private final int m_size;
+
+		private int m_numberMoves;
+
+		private long m_hash;
+
+		private final ConstBoard m_board;
+
+		private final AlignmentTable m_alignment;
+
+		private final ForbiddenRenjuMove m_forbidden;
+
+		/**
+		 * Moves played since the position was created from m_board.
+		 */
+		private final Move[] m_moves;
+	}
+
+	private final class RootTask extends RecursiveTask<Boolean> {
+
+		public RootTask(Search search, GoPoint point) {
+			m_search = search;
+			m_point = point;
+		}
+
+		protected Boolean compute() {
+			Position position = m_search.m_root.copy();
+			m_result = m_search.isWinningMove(position, m_point,
+					m_search.m_depth, null);
+			if (m_result && m_search.m_stopOnWin)
+				m_search.m_stopped = true;
+			return Boolean.valueOf(m_result);
+		}
+
+		private final Search m_search;
+
+		private final GoPoint m_point;
+
+		private boolean m_result;
+
+		private static final long serialVersionUID = 0L;
+	}
+
+	/**
+	 * State of a search shared by the tasks.
+	 */
+	private final class Search {
+
+		public Search(ConstBoard board, GoColor attacker, boolean vct,
+				boolean stopOnWin) {
+			m_root = new Position(board, m_isRenju);
+			m_attacker = attacker;
+			m_defender = attacker.otherColor();
+			m_vct = vct;
+			m_stopOnWin = stopOnWin;
+			m_size = board.getSize();
+		}
+
+		/**
+		 * Get the winning variation after a winning first move.
+		 * Replays the search sequentially, the proven attacker moves are
+		 * found in the transposition table.
+		 */
+		public ArrayList<Move> getVariation(GoPoint first) {
+			ArrayList<Move> variation = new ArrayList<Move>();
+			Position position = m_root.copy();
+			Move move = Move.get(m_attacker, first);
+			m_stopped = false;
+			GoPoint anchor = null;
+			while (true) {
+				variation.add(move);
+				if (move.getColor() == m_attacker
+						&& position.isWin(m_attacker, move.getPoint()))
+					break;
+				if (move.getColor() == m_attacker && isThree(position,
+						m_attacker, move.getPoint()))
+					anchor = move.getPoint();
+				position.play(move);
+				if (move.getColor() == m_attacker) {
+					move = getDefense(position, anchor);
+					if (move == null)
+						break;
+				} else {
+					GoPoint p = getWin(position, m_attacker);
+					if (p == null) {
+						attack(position, m_depth, anchor);
+						Integer entry = m_table.get(getKey(position,
+								anchor));
+						// No proven move, if the search was interrupted
+						if (entry == null || entry.intValue() < 0)
+							break;
+						p = GoPoint.fromIndex(entry.intValue());
+					}
+					move = Move.get(m_attacker, p);
+				}
+			}
+			return variation;
+		}
+
+		public boolean isWinningMove(Position position, GoPoint p,
+				int depth, GoPoint anchor) {
+			if (isThree(position, m_attacker, p))
+				anchor = p;
+			position.play(Move.get(m_attacker, p));
+			boolean result = defend(position, depth - 1, anchor);
+			position.undo();
+			return result;
+		}
+
+		/**
+		 * Search the root moves in parallel.
+		 * @param depth The maximum number of threats of the attacker.
+		 * @return The tasks for the root moves; their result is true for
+		 * the winning moves. Tasks not run because a win was already
+		 * found have the result false.
+		 */
+		public List<RootTask> run(int depth) {
+			m_depth = depth;
+			m_stopped = false;
+			ArrayList<RootTask> tasks = new ArrayList<RootTask>();
+			GoPoint win = getWin(m_root, m_attacker);
+			if (win != null) {
+				RootTask task = new RootTask(this, win);
+				task.m_result = true;
+				tasks.add(task);
+				return tasks;
+			}
+			for (GoPoint p : getAttacks(m_root))
+				tasks.add(new RootTask(this, p));
+			ForkJoinPool pool = getPool();
+			for (RootTask task : tasks)
+				pool.execute(task);
+			for (RootTask task : tasks)
+				task.join();
+			return tasks;
+		}
+
+		private final boolean m_vct;
+
+		private final boolean m_stopOnWin;
+
+		private volatile boolean m_stopped;
+
+		private int m_depth;
+
+		private final int m_size;
+
+		private final GoColor m_attacker;
+
+		private final GoColor m_defender;
+
+		private final Position m_root;
+
+		/**
+		 * Transposition table for attacker positions.
+		 * A value v &gt;= 0 is a proven win with the point index v as
+		 * best move, a value v &lt; 0 a failed search with depth -v - 1.
+		 */
+		private final ConcurrentHashMap<Long, Integer> m_table =
+				new ConcurrentHashMap<Long, Integer>();
+
+		/**
+		 * Attacker to move.
+		 * @param anchor The last three of the attacker, which the defender
+		 * has not blocked yet, or null.
+		 */
+		private boolean attack(Position position, int depth, GoPoint anchor) {
+			m_nodes.incrementAndGet();
+			if (getWin(position, m_attacker) != null)
+				return true;
+			if (depth <= 0 || isAborted())
+				return false;
+			Long key = Long.valueOf(getKey(position, anchor));
+			Integer entry = m_table.get(key);
+			if (entry != null && (entry.intValue() >= 0
+					|| -entry.intValue() - 1 >= depth))
+				return entry.intValue() >= 0;
+			for (GoPoint p : getAttacks(position)) {
+				if (isWinningMove(position, p, depth, anchor)) {
+					m_table.put(key, Integer.valueOf(p.getIndex()));
+					return true;
+				}
+				if (isAborted())
+					return false;
+			}
+			m_table.put(key, Integer.valueOf(-depth - 1));
+			return false;
+		}
+
+		/**
+		 * Defender to move after a threat of the attacker.
+		 */
+		private boolean defend(Position position, int depth,
+				GoPoint anchor) {
+			if (getWin(position, m_defender) != null)
+				return false;
+			PointList wins = getWins(position, m_attacker, 2);
+			if (wins.size() >= 2)
+				return true;
+			if (wins.size() == 1) {
+				GoPoint p = wins.get(0);
+				if (! position.isLegal(m_defender, p))
+					return true;
+				position.play(Move.get(m_defender, p));
+				boolean result = attack(position, depth, anchor);
+				position.undo();
+				return result;
+			}
+			if (! m_vct || anchor == null || depth <= 0
+					|| getStraightFour(position, anchor) == null)
+				return false;
+			for (GoPoint p : getDefenses(position, anchor)) {
+				position.play(Move.get(m_defender, p));
+				boolean result = attack(position, depth, anchor);
+				position.undo();
+				if (! result)
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Count the points that win on the axes through a stone.
+		 */
+		private int countWins(Position position, GoColor c, GoPoint p,
+				int axis) {
+			int[] d = Direction.getDirection(axis);
+			int n = 0;
+			for (int k = -4; k <= 4; k++) {
+				int x = p.getX() + k * d[0];
+				int y = p.getY() + k * d[1];
+				if (k != 0 && position.isEmpty(x, y)
+						&& position.isWin(c, GoPoint.get(x, y), axis))
+					n++;
+			}
+			return n;
+		}
+
+		private int countWins(Position position, GoColor c, GoPoint p) {
+			int n = 0;
+			for (int axis = 0; axis < 4; axis++)
+				n += countWins(position, c, p, axis);
+			return n;
+		}
+
+		/**
+		 * Get the candidate moves of the attacker.
+		 * If the defender has a four, only the block; otherwise the fours
+		 * and, in VCT, the threes of the attacker, fours first.
+		 */
+		private PointList getAttacks(Position position) {
+			PointList result = new PointList();
+			PointList defenderWins = getWins(position, m_defender, 2);
+			if (defenderWins.size() >= 2)
+				return result;
+			if (defenderWins.size() == 1) {
+				GoPoint p = defenderWins.get(0);
+				if (position.isLegal(m_attacker, p))
+					result.add(p);
+				return result;
+			}
+			PointList threes = new PointList();
+			for (int y = 0; y < m_size; y++)
+				for (int x = 0; x < m_size; x++) {
+					if (! position.isEmpty(x, y)
+							|| ! hasNeighbor(position, m_attacker, x, y))
+						continue;
+					GoPoint p = GoPoint.get(x, y);
+					if (isFour(position, m_attacker, p)) {
+						if (position.isLegal(m_attacker, p))
+							result.add(p);
+					} else if (m_vct && isThree(position, m_attacker, p)
+							&& position.isLegal(m_attacker, p))
+						threes.add(p);
+				}
+			result.addAllFromConst(threes);
+			return result;
+		}
+
+		/**
+		 * Get the replies of the defender to a three.
+		 * The points on the line of the three, after which the attacker
+		 * cannot make a straight four, and the fours of the defender.
+		 */
+		private PointList getDefenses(Position position, GoPoint anchor) {
+			PointList result = new PointList();
+			for (int y = 0; y < m_size; y++)
+				for (int x = 0; x < m_size; x++) {
+					GoPoint p = GoPoint.get(x, y);
+					if (position.isEmpty(x, y)
+							&& hasNeighbor(position, m_defender, x, y)
+							&& isFour(position, m_defender, p)
+							&& position.isLegal(m_defender, p))
+						result.add(p);
+				}
+			for (int axis = 0; axis < 4; axis++) {
+				int[] d = Direction.getDirection(axis);
+				for (int k = -4; k <= 4; k++) {
+					int x = anchor.getX() + k * d[0];
+					int y = anchor.getY() + k * d[1];
+					if (! position.isEmpty(x, y))
+						continue;
+					GoPoint p = GoPoint.get(x, y);
+					if (result.contains(p)
+							|| ! position.isLegal(m_defender, p))
+						continue;
+					position.play(Move.get(m_defender, p));
+					if (getStraightFour(position, anchor) == null)
+						result.add(p);
+					position.undo();
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Get the next move of the winning variation for the defender.
+		 * @return The move or null, if the defender cannot block a four
+		 * because the point is forbidden.
+		 */
+		private Move getDefense(Position position, GoPoint anchor) {
+			PointList wins = getWins(position, m_attacker, 1);
+			if (wins.size() == 1) {
+				GoPoint p = wins.get(0);
+				if (! position.isLegal(m_defender, p))
+					return null;
+				return Move.get(m_defender, p);
+			}
+			PointList defenses = getDefenses(position, anchor);
+			if (defenses.isEmpty())
+				// Several threats, block one of them
+				return Move.get(m_defender,
+						getStraightFour(position, anchor));
+			return Move.get(m_defender, defenses.get(0));
+		}
+
+		private long getKey(Position position, GoPoint anchor) {
+			return 31 * position.m_hash
+					+ (anchor == null ? 0 : anchor.getIndex() + 1);
+		}
+
+		private GoPoint getWin(Position position, GoColor c) {
+			PointList wins = getWins(position, c, 1);
+			return wins.isEmpty() ? null : wins.get(0);
+		}
+
+		/**
+		 * Get the empty points where a color makes five.
+		 * @param max The maximum number of points to find.
+		 */
+		private PointList getWins(Position position, GoColor c, int max) {
+			PointList result = new PointList();
+			for (int y = 0; y < m_size && result.size() < max; y++)
+				for (int x = 0; x < m_size && result.size() < max; x++) {
+					GoPoint p = GoPoint.get(x, y);
+					if (position.isEmpty(x, y) && position.isWin(c, p))
+						result.add(p);
+				}
+			return result;
+		}
+
+		/**
+		 * Check if a stone of a color is within a distance of two on any
+		 * line; other points cannot make a four or three.
+		 */
+		private boolean hasNeighbor(Position position, GoColor c, int x,
+				int y) {
+			for (int[] d : Direction.getDirections())
+				for (int k = 1; k <= 2; k++) {
+					int px = x + k * d[0];
+					int py = y + k * d[1];
+					if (px >= 0 && px < m_size && py >= 0 && py < m_size
+							&& position.getColor(px, py) == c)
+						return true;
+				}
+			return false;
+		}
+
+		/**
+		 * Find a move of the attacker that makes a straight four (or
+		 * another double win) on the lines through a point.
+		 * @return The move or null.
+		 */
+		private GoPoint getStraightFour(Position position, GoPoint anchor) {
+			for (int axis = 0; axis < 4; axis++) {
+				int[] d = Direction.getDirection(axis);
+				for (int k = -4; k <= 4; k++) {
+					int x = anchor.getX() + k * d[0];
+					int y = anchor.getY() + k * d[1];
+					if (! position.isEmpty(x, y))
+						continue;
+					GoPoint p = GoPoint.get(x, y);
+					position.play(Move.get(m_attacker, p));
+					boolean result = countWins(position, m_attacker, p) >= 2;
+					position.undo();
+					if (result && position.isLegal(m_attacker, p))
+						return p;
+				}
+			}
+			return null;
+		}
+
+		private boolean isAborted() {
+			return m_interrupted || (m_stopOnWin && m_stopped);
+		}
+
+		private boolean isFour(Position position, GoColor c, GoPoint p) {
+			position.play(Move.get(c, p));
+			boolean result = countWins(position, c, p) > 0;
+			position.undo();
+			return result;
+		}
+
+		/**
+		 * Check if a move makes a three, that is a move that can be
+		 * followed by a straight four on the same line.
+		 */
+		private boolean isThree(Position position, GoColor c, GoPoint p) {
+			boolean result = false;
+			position.play(Move.get(c, p));
+			for (int axis = 0; axis < 4 && ! result; axis++) {
+				int[] d = Direction.getDirection(axis);
+				for (int k = -3; k <= 3 && ! result; k++) {
+					int x = p.getX() + k * d[0];
+					int y = p.getY() + k * d[1];
+					if (k == 0 || ! position.isEmpty(x, y))
+						continue;
+					GoPoint q = GoPoint.get(x, y);
+					position.play(Move.get(c, q));
+					result = countWins(position, c, q, axis) >= 2;
+					position.undo();
+					if (result && ! position.isLegal(c, q))
+						result = false;
+				}
+			}
+			position.undo();
+			return result;
+		}
+	}
+}
@@ -241,6 +241,7 @@ public final class GtpClient
     {
         assert ! command.trim().equals("");
         assert ! command.trim().startsWith("#");
+        invalidateResponseCache(command);
         m_timeoutCallback = timeoutCallback;
         m_fullResponse = "";
         m_response = "";
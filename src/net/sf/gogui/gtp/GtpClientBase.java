@@ -4,6 +4,7 @@ package net.sf.gogui.gtp;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Locale;
 import net.sf.gogui.go.GoColor;
 import static net.sf.gogui.go.GoColor.BLACK;
@@ -20,6 +21,15 @@ import net.sf.gogui.util.StringUtil;
     commands. */
 public abstract class GtpClientBase
 {
+    /** Clear the cached responses of sendCached().
+        Needed only if the position or game of the program changes without
+        a command sent by this client. */
+    public void clearResponseCache()
+    {
+        m_positionCache.clear();
+        m_gameCache.clear();
+    }
+
     /** Close output connection.
         Should do nothing if the concrete class does not communicate through
         streams. */
@@ -298,6 +308,42 @@ public abstract class GtpClientBase
         @throws GtpError containing the response if the command fails. */
     public abstract String send(String command) throws GtpError;
 
+    /** Send a command and cache the response.
+        For query commands whose response depends only on the current
+        position or game of the program, like the gogui-rules commands of
+        game rulers, so that the command is sent at most once per position.
+        Any command not sent by sendCached() clears the cache (see
+        invalidateResponseCache()), because it could change the position
+        of the program; a play command keeps the responses that do not
+        depend on the position. Failed commands are not cached.
+        @param command The command.
+        @param untilClearBoard true, if the response does not change when a
+        move is played (e.g. the board size), false if it depends on the
+        position.
+        @return The response text of the successful response.
+        @throws GtpError containing the response if the command fails. */
+    public String sendCached(String command, boolean untilClearBoard)
+        throws GtpError
+    {
+        HashMap<String,String> cache =
+            (untilClearBoard ? m_gameCache : m_positionCache);
+        String response = cache.get(command);
+        if (response == null)
+        {
+            m_isSendingCached = true;
+            try
+            {
+                response = send(command);
+            }
+            finally
+            {
+                m_isSendingCached = false;
+            }
+            cache.put(command, response);
+        }
+        return response;
+    }
+
     /** Send comment.
         @param comment comment line (must start with '#'). */
     public abstract void sendComment(String comment);
@@ -309,6 +355,7 @@ public abstract class GtpClientBase
     public void sendBoardsize(int size) throws GtpError
     {
         String command = getCommandBoardsize(size);
+        clearResponseCache();
         if (command != null)
             send(command);
     }
@@ -318,6 +365,7 @@ public abstract class GtpClientBase
         @see GtpClientBase#getCommandClearBoard */
     public void sendClearBoard(int size) throws GtpError
     {
+        clearResponseCache();
         send(getCommandClearBoard(size));
     }
 
@@ -375,8 +423,32 @@ public abstract class GtpClientBase
         Should do nothing if the concrete class does not create a process. */
     public abstract void waitForExit();
 
+    /** Clear the cached responses of sendCached() before a command is
+        sent.
+        Must be called by the implementations of send() for each command.
+        Does nothing for the commands sent by sendCached(). A play command
+        clears only the responses that depend on the position.
+        @param command The command. */
+    protected void invalidateResponseCache(String command)
+    {
+        if (m_isSendingCached)
+            return;
+        m_positionCache.clear();
+        String name = command.trim();
+        int pos = name.indexOf(' ');
+        if (pos >= 0)
+            name = name.substring(0, pos);
+        if (! name.equals("play")
+            && ! (m_protocolVersion == 1
+                  && (name.equals("black") || name.equals("white"))))
+            m_gameCache.clear();
+    }
+
     private boolean m_isInterruptCommentSupported;
 
+    /** True while sendCached() sends a command. */
+    private boolean m_isSendingCached;
+
     protected String m_name;
 
     private String m_pid;
@@ -390,6 +462,15 @@ public abstract class GtpClientBase
 
     private String[] m_supportedCommands;
 
+    /** Responses of sendCached() for the current position. */
+    private final HashMap<String,String> m_positionCache =
+        new HashMap<String,String>();
+
+    /** Responses of sendCached() that stay valid until the next
+        clear_board or boardsize command. */
+    private final HashMap<String,String> m_gameCache =
+        new HashMap<String,String>();
+
     private void printInterrupted()
     {
         System.err.println("GtpClient: InterruptedException");
@@ -238,6 +238,8 @@ public class GtpEngine
             || response.charAt(response.length() - 1) != '\n')
             fullResponse.append('\n');
         m_out.println(fullResponse);
+        // Flush to avoid delays if the output is a pipe in the same process
+        m_out.flush();
         if (m_log != null)
             m_log.println(fullResponse);
     }
@@ -161,7 +161,10 @@ public final class GuiBoardUtil
         PointList stones = countScore.changeStatus(p);
         for (GoPoint stone : stones)
             guiBoard.setCrossHair(stone, countScore.isDead(stone));
-        computeScore(guiBoard, countScore, board);
+        // changeStatus() updates the score incrementally, only repaint the
+        // points that changed their owner
+        for (GoPoint point : countScore.getChangedPoints())
+            guiBoard.setTerritory(point, countScore.getColor(point));
     }
 
     public static void showBWBoard(GuiBoard guiBoard, String[][] board)
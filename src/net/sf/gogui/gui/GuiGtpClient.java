@@ -151,6 +151,7 @@ public class GuiGtpClient
     {
         assert SwingUtilities.isEventDispatchThread();
         assert ! m_commandInProgress;
+        invalidateResponseCache(command);
         synchronized (m_mutex)
         {
             m_command = command;
@@ -170,6 +171,7 @@ public class GuiGtpClient
     {
         assert SwingUtilities.isEventDispatchThread();
         assert ! m_commandInProgress;
+        invalidateResponseCache(command);
         TimeoutCallback timeoutCallback = new TimeoutCallback(command);
         return m_gtp.send(command, TIMEOUT, timeoutCallback);
     }
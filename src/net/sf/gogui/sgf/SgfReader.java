@@ -18,6 +18,7 @@ import java.util.TreeSet;
 import java.util.ArrayList;
 import java.util.Locale;
 import java.util.Set;
+import net.sf.gogui.game.CompactGameTree;
 import net.sf.gogui.game.GameInfo;
 import net.sf.gogui.game.GameTree;
 import net.sf.gogui.game.MarkType;
@@ -59,6 +60,25 @@ public final class SgfReader
                      long size)
         throws SgfError
     {
+        this(in, file, progressShow, size, false);
+    }
+
+    /** Read SGF file from stream into a game tree or a compact game tree.
+        The compact game tree needs much less memory for large files, but
+        is read-only.
+        @param in Stream to read from.
+        @param file File name if input stream is a FileInputStream to allow
+        reopening the stream after a charset change
+        @param progressShow Callback to show progress, can be null
+        @param size Size of stream if progressShow != null
+        @param compact Read into a CompactGameTree (see getCompactTree())
+        instead of a GameTree.
+        @throws SgfError If reading fails. */
+    public SgfReader(InputStream in, File file, ProgressShow progressShow,
+                     long size, boolean compact)
+        throws SgfError
+    {
+        m_compact = compact;
         m_file = file;
         m_progressShow = progressShow;
         m_size = size;
@@ -104,8 +124,17 @@ public final class SgfReader
         }
     }
 
+    /** Get compact game tree of loaded SGF file.
+        @return The game tree or null, if the reader was not constructed
+        for reading a compact tree. */
+    public CompactGameTree getCompactTree()
+    {
+        return m_compactTree;
+    }
+
     /** Get game tree of loaded SGF file.
-        @return The game tree. */
+        @return The game tree or null, if the reader was constructed for
+        reading a compact tree. */
     public GameTree getTree()
     {
         return m_tree;
@@ -133,9 +162,14 @@ public final class SgfReader
 
     private final boolean m_isFile;
 
+    private final boolean m_compact;
+
     /** Has current node inconsistent FF3 overtime settings properties. */
     private boolean m_ignoreOvertime;
 
+    /** Index of the node returned by readNext() in m_builder. */
+    private int m_index;
+
     private int m_lastPercent;
 
     private int m_boardSize;
@@ -154,6 +188,14 @@ public final class SgfReader
 
     private GameTree m_tree;
 
+    private CompactGameTree m_compactTree;
+
+    /** Builder for the compact tree while reading.
+        In compact mode, the nodes are added to the builder immediately
+        after reading instead of appending them to their father, so that
+        only the nodes on the current path are kept in memory. */
+    private CompactGameTree.Builder m_builder;
+
     private final ProgressShow m_progressShow;
 
     /** Contains strings with warnings. */
@@ -174,11 +216,11 @@ public final class SgfReader
     private final Map<String,ArrayList<String>> m_props =
         new TreeMap<String,ArrayList<String>>();
 
-    /** Apply some fixes for broken SGF files. */
-    private void applyFixes()
+    /** Apply some fixes for broken SGF files.
+        @param root The root node, which must have a game info. */
+    private void applyFixes(Node root)
     {
-        Node root = m_tree.getRoot();
-        GameInfo info = m_tree.getGameInfo(root);
+        GameInfo info = root.getGameInfo();
         if (root.hasSetup() && root.getPlayer() == null)
         {
             if (info.getHandicap() > 0)
@@ -189,9 +231,8 @@ public final class SgfReader
             {
                 boolean hasBlackChildMoves = false;
                 boolean hasWhiteChildMoves = false;
-                for (int i = 0; i < root.getNumberChildren(); ++i)
+                for (Move move : getChildMoves(root))
                 {
-                    Move move = root.getChild(i).getMove();
                     if (move == null)
                         continue;
                     if (move.getColor() == BLACK)
@@ -284,6 +325,22 @@ public final class SgfReader
         return property;
     }
 
+    /** Get the moves of the children of the root node.
+        The children are only appended to the root node if not reading
+        into a compact tree. */
+    private ArrayList<Move> getChildMoves(Node root)
+    {
+        ArrayList<Move> moves = new ArrayList<Move>();
+        if (m_builder == null)
+            for (int i = 0; i < root.getNumberChildren(); ++i)
+                moves.add(root.getChild(i).getMove());
+        else
+            for (int i = m_builder.getFirstChild(0); i >= 0;
+                 i = m_builder.getNextSibling(i))
+                moves.add(m_builder.getMove(i));
+        return moves;
+    }
+
     private GameInfo createGameInfo(Node node)
     {
         return node.createGameInfo();
@@ -670,11 +727,15 @@ public final class SgfReader
         @throw SgfError On invalid value */
     private GoPoint parsePoint(String s) throws SgfError
     {
-        s = s.trim().toLowerCase(Locale.ENGLISH);
+        s = s.trim();
+        int boardSize = getBoardSize();
+        // Upper case letters are only used for sizes larger than 26
+        if (boardSize <= 26)
+            s = s.toLowerCase(Locale.ENGLISH);
         if (s.equals(""))
             return null;
         if (s.length() > 2
-            || (s.length() == 2 && (s.charAt(1) < 'a' || s.charAt(1) > 'z')))
+            || (s.length() == 2 && SgfUtil.parseCoordinate(s.charAt(1)) < 0))
         {
             // Try human-readable encoding as used by SmartGo
             try
@@ -688,11 +749,10 @@ public final class SgfReader
         }
         else if (s.length() != 2)
             throwInvalidCoordinates(s);
-        int boardSize = getBoardSize();
         if (s.equals("tt") && boardSize <= 19)
             return null;
-        int x = s.charAt(0) - 'a';
-        int y = boardSize - (s.charAt(1) - 'a') - 1;
+        int x = SgfUtil.parseCoordinate(s.charAt(0));
+        int y = boardSize - SgfUtil.parseCoordinate(s.charAt(1)) - 1;
         if (x < 0 || x >= boardSize || y < 0 || y >= boardSize)
         {
             if (x == boardSize && y == -1)
@@ -761,7 +821,15 @@ public final class SgfReader
             m_preByoyomi = preByoyomi;
     }
 
-    private Node readNext(Node father, boolean isRoot)
+    /** Read the next node.
+        Sets m_index to the index of the returned node in m_builder, if
+        reading a compact tree.
+        @param father The father of the next node.
+        @param fatherIndex The index of the father in m_builder or -1 if
+        reading the root or not reading a compact tree.
+        @param isRoot True, if reading the root node.
+        @return The next node or null, if the sequence of nodes ended. */
+    private Node readNext(Node father, int fatherIndex, boolean isRoot)
         throws IOException, SgfError, SgfCharsetChanged
     {
         if (m_progressShow != null)
@@ -783,8 +851,13 @@ public final class SgfReader
         if (ttype == '(')
         {
             Node node = father;
+            int index = fatherIndex;
             while (node != null)
-                node = readNext(node, false);
+            {
+                node = readNext(node, index, false);
+                index = m_index;
+            }
+            m_index = fatherIndex;
             return father;
         }
         if (ttype == ')')
@@ -797,7 +870,7 @@ public final class SgfReader
         if (ttype != ';')
             throw getError("Next node expected");
         Node son = new Node();
-        if (father != null)
+        if (father != null && m_builder == null)
             father.append(son);
         m_ignoreOvertime = false;
         m_byoyomiMoves = -1;
@@ -807,6 +880,9 @@ public final class SgfReader
         while (readProp());
         handleProps(son, isRoot);
         setTimeSettings(son);
+        if (m_builder != null)
+            // The root node is added again after applying the fixes
+            m_index = m_builder.add(fatherIndex, son);
         return son;
     }
 
@@ -849,6 +925,8 @@ public final class SgfReader
         try
         {
             m_boardSize = -1;
+            if (m_compact)
+                m_builder = new CompactGameTree.Builder();
             if (m_progressShow != null)
             {
                 m_byteCountInputStream = new ByteCountInputStream(in);
@@ -872,14 +950,29 @@ public final class SgfReader
             m_reader = new BufferedReader(reader);
             m_tokenizer = new StreamTokenizer(m_reader);
             findRoot();
-            Node root = readNext(null, true);
+            Node root = readNext(null, -1, true);
             Node node = root;
+            int index = m_index;
             while (node != null)
-                node = readNext(node, false);
+            {
+                node = readNext(node, index, false);
+                index = m_index;
+            }
             checkEndOfFile();
             getBoardSize(); // Set to default value if still unknown
-            m_tree = new GameTree(m_boardSize, root);
-            applyFixes();
+            if (m_builder == null)
+            {
+                m_tree = new GameTree(m_boardSize, root);
+                applyFixes(root);
+            }
+            else
+            {
+                root.createGameInfo();
+                applyFixes(root);
+                m_builder.set(0, root);
+                m_compactTree = m_builder.create(m_boardSize);
+                m_builder = null;
+            }
         }
         catch (FileNotFoundException e)
         {
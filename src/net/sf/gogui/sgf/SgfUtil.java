@@ -5,6 +5,7 @@ package net.sf.gogui.sgf;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sf.gogui.game.TimeSettings;
+import net.sf.gogui.go.GoPoint;
 
 public final class SgfUtil
 {
@@ -42,6 +43,35 @@ public final class SgfUtil
         return result.toString();
     }
 
+    /** Format a point as SGF property value.
+        Coordinates are encoded with a to z for 0 to 25 and A to Z for 26 to
+        51 as in the SGF standard (FF[4]).
+        @param p The point or null for a pass move.
+        @param boardSize The board size.
+        @return The two letter point value or an empty string for a pass
+        move. */
+    public static String formatPoint(GoPoint p, int boardSize)
+    {
+        if (p == null)
+            return "";
+        char[] value = new char[2];
+        value[0] = getCoordinateChar(p.getX());
+        value[1] = getCoordinateChar(boardSize - p.getY() - 1);
+        return new String(value);
+    }
+
+    /** Parse a coordinate letter of an SGF point value.
+        @param c The letter (a to z or A to Z).
+        @return The coordinate (0 to 51) or -1, if c is not a letter. */
+    public static int parseCoordinate(char c)
+    {
+        if (c >= 'a' && c <= 'z')
+            return c - 'a';
+        if (c >= 'A' && c <= 'Z')
+            return c - 'A' + 26;
+        return -1;
+    }
+
     public static Overtime parseOvertime(String value)
     {
         value = value.trim();
@@ -141,6 +171,12 @@ public final class SgfUtil
     {
     }
 
+    private static char getCoordinateChar(int i)
+    {
+        assert i >= 0 && i < 52;
+        return (char)(i < 26 ? 'a' + i : 'A' + i - 26);
+    }
+
     private static Overtime parseOvertime(String value, String regex,
                                           boolean byoyomiMovesFirst,
                                           long timeUnitFactor)
@@ -136,11 +136,7 @@ public class SgfWriter
 
     private String getPoint(GoPoint p)
     {
-        if (p == null)
-            return "";
-        int x = 'a' + p.getX();
-        int y = 'a' + (m_size - p.getY() - 1);
-        return "" + (char)x + (char)y;
+        return SgfUtil.formatPoint(p, m_size);
     }
 
     private String getPointValue(GoPoint point)
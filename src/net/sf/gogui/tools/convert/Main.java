@@ -28,6 +28,7 @@ public final class Main
         {
             String options[] = {
                 "check",
+                "compact",
                 "config:",
                 "force",
                 "format:",
@@ -79,8 +80,9 @@ public final class Main
             }
             if (! in.exists())
                 throw new ErrorMessage("File \"" + in + "\" not found");
-            GameReader reader = new GameReader(in);
-            ConstGameTree tree = reader.getTree();
+            GameReader reader =
+                new GameReader(in, null, opt.contains("compact"));
+            ConstGameTree tree = reader.getConstTree();
             String warnings = reader.getWarnings();
             if (warnings != null)
             {
@@ -120,6 +122,7 @@ public final class Main
         out.print("Usage: gogui-convert infile outfile\n" +
                   "\n" +
                   "-check   only check reading a file\n" +
+                  "-compact read SGF into compact read-only tree\n" +
                   "-config  config file\n" +
                   "-force   overwrite existing files\n" +
                   "-format  output format (sgf,tex,xml)\n" +
@@ -0,0 +1,118 @@
+// BatchSolver.java
+
+package net.sf.gogui.tools.referee;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import net.sf.gogui.game.ConstNode;
+import net.sf.gogui.game.GameTree;
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.EMPTY;
+import static net.sf.gogui.go.GoColor.WHITE;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import net.sf.gogui.gomoku.ThreatSolver;
+import net.sf.gogui.sgf.SgfReader;
+import net.sf.gogui.util.ErrorMessage;
+
+/** Solve the final positions of Gomoku or Renju SGF files.
+    For each file, the main variation is replayed without captures and a
+    winning threat sequence for the side to move in the last position is
+    searched with a ThreatSolver. */
+public class BatchSolver
+{
+    public BatchSolver(ThreatSolver solver, boolean vct)
+    {
+        m_solver = solver;
+        m_vct = vct;
+    }
+
+    /** Get the position at the end of the main variation.
+        @param tree The game tree.
+        @return The board with the side to move set up as the player. */
+    public static Board getLastPosition(GameTree tree)
+    {
+        PointList black = new PointList();
+        PointList white = new PointList();
+        GoColor toMove = BLACK;
+        for (ConstNode node = tree.getRoot(); node != null;
+             node = node.getChildConst())
+        {
+            for (GoColor c : new GoColor[] { BLACK, WHITE, EMPTY })
+                for (GoPoint p : node.getSetup(c))
+                {
+                    black.remove(p);
+                    white.remove(p);
+                    if (c == BLACK)
+                        black.add(p);
+                    else if (c == WHITE)
+                        white.add(p);
+                }
+            Move move = node.getMove();
+            if (move != null)
+            {
+                GoPoint p = move.getPoint();
+                if (p != null && ! black.contains(p) && ! white.contains(p))
+                {
+                    if (move.getColor() == BLACK)
+                        black.add(p);
+                    else
+                        white.add(p);
+                }
+                toMove = move.getColor().otherColor();
+            }
+            if (node.getPlayer() != null)
+                toMove = node.getPlayer();
+        }
+        Board board = new Board(tree.getBoardSize());
+        board.setup(black, white, toMove);
+        return board;
+    }
+
+    /** Solve the last position of each file.
+        Prints a line with the file name and the winning variation or
+        "no win" for each file. */
+    public void solve(ArrayList<String> files, PrintStream out)
+        throws ErrorMessage
+    {
+        for (String name : files)
+        {
+            File file = new File(name);
+            InputStream in;
+            try
+            {
+                in = new FileInputStream(file);
+            }
+            catch (FileNotFoundException e)
+            {
+                throw new ErrorMessage(name + ": file not found");
+            }
+            SgfReader reader = new SgfReader(in, file, null, 0);
+            Board board = getLastPosition(reader.getTree());
+            ArrayList<Move> variation =
+                m_solver.solve(board, board.getToMove(), m_vct);
+            StringBuilder line = new StringBuilder(name);
+            line.append(':');
+            if (variation == null)
+                line.append(" no win");
+            else
+                for (Move move : variation)
+                {
+                    line.append(' ');
+                    line.append(move);
+                }
+            out.println(line);
+        }
+    }
+
+    private final boolean m_vct;
+
+    private final ThreatSolver m_solver;
+}
@@ -0,0 +1,111 @@
+// Main.java
+
+package net.sf.gogui.tools.referee;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import net.sf.gogui.go.GameRuler;
+import net.sf.gogui.go.GenericBoard;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.gomoku.GomokuRuler;
+import net.sf.gogui.gomoku.ThreatSolver;
+import net.sf.gogui.util.ErrorMessage;
+import net.sf.gogui.util.Options;
+import net.sf.gogui.util.StringUtil;
+import net.sf.gogui.version.Version;
+
+/** Referee main function. */
+public final class Main
+{
+    /** Referee main function. */
+    public static void main(String[] args)
+    {
+        try
+        {
+            String options[] = {
+                "config:",
+                "depth:",
+                "game:",
+                "help",
+                "log:",
+                "size:",
+                "threads:",
+                "vct",
+                "version"
+            };
+            Options opt = Options.parse(args, options);
+            if (opt.contains("help"))
+            {
+                String helpText =
+                    "Usage: gogui-referee [options] [file.sgf...]\n" +
+                    "\n" +
+                    "-config    config file\n" +
+                    "-depth n   maximum number of threats in VCT\n" +
+                    "-game name game (Gomoku, Renju)\n" +
+                    "-help      display this help and exit\n" +
+                    "-log file  log GTP stream to file\n" +
+                    "-size n    board size\n" +
+                    "-threads n number of threads of the threat solver\n" +
+                    "-vct       also search VCT when solving files\n" +
+                    "-version   print version and exit\n";
+                System.out.print(helpText);
+                return;
+            }
+            if (opt.contains("version"))
+            {
+                System.out.println("gogui-referee " + Version.get());
+                return;
+            }
+            String game = opt.get("game", "Gomoku");
+            GameRuler ruler = GenericBoard.loadGameRuler(game);
+            if (ruler == null)
+                throw new ErrorMessage("unknown game: " + game);
+            if (opt.contains("size"))
+                ruler.clearBoard(opt.getInteger("size", 0, 1,
+                                               GoPoint.MAX_SIZE));
+            ArrayList<String> arguments = opt.getArguments();
+            ThreatSolver solver = null;
+            if (ruler instanceof GomokuRuler)
+            {
+                solver = new ThreatSolver(((GomokuRuler)ruler).isRenju());
+                if (opt.contains("depth"))
+                    solver.setMaxDepthVct(opt.getInteger("depth", 0, 1));
+                if (opt.contains("threads"))
+                    solver.setThreads(opt.getInteger("threads", 0, 1));
+            }
+            if (! arguments.isEmpty())
+            {
+                if (solver == null)
+                    throw new ErrorMessage("cannot solve files of game "
+                                           + game);
+                BatchSolver batchSolver =
+                    new BatchSolver(solver, opt.contains("vct"));
+                batchSolver.solve(arguments, System.out);
+                solver.close();
+                return;
+            }
+            PrintStream log = null;
+            if (opt.contains("log"))
+            {
+                File file = new File(opt.get("log"));
+                log = new PrintStream(file);
+            }
+            Referee referee = new Referee(log, ruler, solver);
+            referee.mainLoop(System.in, System.out);
+            referee.close();
+            if (log != null)
+                log.close();
+        }
+        catch (Throwable t)
+        {
+            StringUtil.printException(t);
+            System.exit(1);
+        }
+    }
+
+    /** Make constructor unavailable; class is for namespace only. */
+    private Main()
+    {
+    }
+}
@@ -0,0 +1,346 @@
+// Referee.java
+
+package net.sf.gogui.tools.referee;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.ConstPointList;
+import net.sf.gogui.go.GameRuler;
+import net.sf.gogui.go.GenericBoard;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import net.sf.gogui.gomoku.GomokuRuler;
+import net.sf.gogui.gomoku.ThreatSolver;
+import net.sf.gogui.gtp.GtpCallback;
+import net.sf.gogui.gtp.GtpCommand;
+import net.sf.gogui.gtp.GtpEngine;
+import net.sf.gogui.gtp.GtpError;
+import net.sf.gogui.version.Version;
+
+/** GTP engine for a game ruler written in Java.
+    Makes a GameRuler available as a ruler program for GoGui (with the
+    gogui-rules commands) and as a referee for gogui-twogtp (with play,
+    undo and final_score). The ruler keeps its position incrementally, so
+    a command costs only the update of the ruler and not a replay of the
+    game. The engine does not generate moves.
+    For Gomoku and Renju, the engine also provides analyze commands that
+    search winning threat sequences (VCF and VCT) with a ThreatSolver. */
+public class Referee
+    extends GtpEngine
+{
+    public Referee(PrintStream log, GameRuler ruler)
+    {
+        this(log, ruler, ruler instanceof GomokuRuler ?
+             new ThreatSolver(((GomokuRuler)ruler).isRenju()) : null);
+    }
+
+    /** Constructor.
+        @param log Log stream or null.
+        @param ruler The ruler.
+        @param solver The threat solver for the analyze commands or null. */
+    public Referee(PrintStream log, GameRuler ruler, ThreatSolver solver)
+    {
+        super(log);
+        m_ruler = ruler;
+        m_solver = solver;
+        registerCommands();
+        setName("gogui-referee");
+        setVersion(Version.get());
+    }
+
+    /** Shut down the threads of the threat solver.
+        Should be called after the main loop has finished. */
+    public void close()
+    {
+        if (m_solver != null)
+            m_solver.close();
+    }
+
+    public void cmdBoard(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        appendBoard(cmd.getResponse());
+    }
+
+    public void cmdBoardsize(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkNuArg(1);
+        m_ruler.clearBoard(cmd.getIntArg(0, 1, GoPoint.MAX_SIZE));
+    }
+
+    public void cmdBoardSize(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        cmd.getResponse().append(m_ruler.getBoardSize());
+    }
+
+    public void cmdClearBoard(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        m_ruler.clearBoard(m_ruler.getBoardSize());
+    }
+
+    public void cmdFinalResult(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        cmd.setResponse(m_ruler.getFinalResult());
+    }
+
+    public void cmdFinalScore(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        if (! m_ruler.isGameOver())
+            throw new GtpError("game is not over");
+        cmd.setResponse(m_ruler.getFinalResult());
+    }
+
+    public void cmdGameId(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        cmd.setResponse(m_ruler.getGameId());
+    }
+
+    public void cmdGoGuiAnalyzeCommands(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        String response =
+            "var/VCF/gogui-referee-vcf\n" +
+            "plist/VCF Moves/gogui-referee-vcf_moves\n" +
+            "var/VCT/gogui-referee-vct\n" +
+            "plist/VCT Moves/gogui-referee-vct_moves\n";
+        cmd.setResponse(response);
+    }
+
+    public void cmdInterrupt(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+    }
+
+    public void cmdLegalMoves(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        appendLegalMoves(cmd.getResponse());
+    }
+
+    public void cmdPlay(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkNuArg(2);
+        GoColor c = cmd.getColorArg(0);
+        GoPoint p = cmd.getPointArg(1, m_ruler.getBoardSize());
+        m_ruler.play(Move.get(c, p));
+    }
+
+    /** Search a winning threat sequence for the side to move.
+        The response is the points of the variation, starting with a move
+        of the side to move, or empty if no win was found. */
+    public void cmdSolve(GtpCommand cmd, boolean vct) throws GtpError
+    {
+        cmd.checkArgNone();
+        if (m_ruler.isGameOver())
+            return;
+        ArrayList<Move> variation =
+            m_solver.solve(getBoard(), m_ruler.getSideToMove(), vct);
+        if (variation == null)
+            return;
+        StringBuilder response = cmd.getResponse();
+        for (int i = 0; i < variation.size(); ++i)
+        {
+            if (i > 0)
+                response.append(' ');
+            response.append(variation.get(i).getPoint());
+        }
+    }
+
+    /** Find all moves of the side to move that start a winning threat
+        sequence. */
+    public void cmdSolveMoves(GtpCommand cmd, boolean vct) throws GtpError
+    {
+        cmd.checkArgNone();
+        if (m_ruler.isGameOver())
+            return;
+        PointList moves = m_solver.getWinningMoves(getBoard(),
+                                                   m_ruler.getSideToMove(),
+                                                   vct);
+        cmd.setResponse(GoPoint.toString(moves));
+    }
+
+    public void cmdSideToMove(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        appendSideToMove(cmd.getResponse());
+    }
+
+    public void cmdState(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        StringBuilder response = cmd.getResponse();
+        response.append("side_to_move ");
+        appendSideToMove(response);
+        response.append("\nlegal_moves ");
+        appendLegalMoves(response);
+        response.append("\ngame_over ");
+        response.append(m_ruler.isGameOver());
+        response.append("\nboard\n");
+        appendBoard(response);
+    }
+
+    public void cmdUndo(GtpCommand cmd) throws GtpError
+    {
+        cmd.checkArgNone();
+        m_ruler.undo();
+    }
+
+    /** Get the ruler.
+        Allows to use the ruler in the same process as the engine, e.g. to
+        attach it to a board. */
+    public GameRuler getRuler()
+    {
+        return m_ruler;
+    }
+
+    /** Get the threat solver.
+        @return The solver or null, if the game is not Gomoku or Renju. */
+    public ThreatSolver getSolver()
+    {
+        return m_solver;
+    }
+
+    public void interruptCommand()
+    {
+        if (m_solver != null)
+            m_solver.interrupt();
+    }
+
+    private final GameRuler m_ruler;
+
+    private final ThreatSolver m_solver;
+
+    /** Append the board in the format of gogui-rules_board.
+        Rows from top to bottom, X for black, O for white, . for empty. */
+    private void appendBoard(StringBuilder response) throws GtpError
+    {
+        int size = m_ruler.getBoardSize();
+        for (int y = size - 1; y >= 0; --y)
+        {
+            for (int x = 0; x < size; ++x)
+            {
+                GoColor c = m_ruler.getColor(GoPoint.get(x, y));
+                if (x > 0)
+                    response.append(' ');
+                if (c == GoColor.BLACK)
+                    response.append('X');
+                else if (c == GoColor.WHITE)
+                    response.append('O');
+                else
+                    response.append('.');
+            }
+            if (y > 0)
+                response.append('\n');
+        }
+    }
+
+    /** Copy the position of the ruler to a board.
+        The stones are set up without captures, as in Gomoku. */
+    private Board getBoard() throws GtpError
+    {
+        int size = m_ruler.getBoardSize();
+        PointList black = new PointList();
+        PointList white = new PointList();
+        for (int y = 0; y < size; ++y)
+            for (int x = 0; x < size; ++x)
+            {
+                GoPoint p = GoPoint.get(x, y);
+                GoColor c = m_ruler.getColor(p);
+                if (c == GoColor.BLACK)
+                    black.add(p);
+                else if (c == GoColor.WHITE)
+                    white.add(p);
+            }
+        Board board = new Board(size);
+        board.setup(black, white, m_ruler.getSideToMove());
+        return board;
+    }
+
+    private void appendLegalMoves(StringBuilder response) throws GtpError
+    {
+        ConstPointList legalMoves = m_ruler.getLegalMoves();
+        int n = legalMoves.size();
+        for (int i = 0; i < n; ++i)
+        {
+            if (i > 0)
+                response.append(' ');
+            response.append(legalMoves.get(i));
+        }
+        if (m_ruler.isPassLegal())
+            response.append(n > 0 ? " pass" : "pass");
+    }
+
+    private void appendSideToMove(StringBuilder response) throws GtpError
+    {
+        GoColor c = m_ruler.getSideToMove();
+        response.append(c == GoColor.BLACK ? "black" : "white");
+    }
+
+    private void registerCommands()
+    {
+        register("boardsize", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdBoardsize(cmd); } });
+        register("clear_board", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdClearBoard(cmd); } });
+        register("final_score", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdFinalScore(cmd); } });
+        register("gogui-rules_board", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdBoard(cmd); } });
+        register("gogui-rules_board_size", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdBoardSize(cmd); } });
+        register("gogui-rules_final_result", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdFinalResult(cmd); } });
+        register("gogui-rules_game_id", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdGameId(cmd); } });
+        register("gogui-rules_legal_moves", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdLegalMoves(cmd); } });
+        register("gogui-rules_side_to_move", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdSideToMove(cmd); } });
+        register(GenericBoard.STATE_COMMAND, new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdState(cmd); } });
+        register("play", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdPlay(cmd); } });
+        register("undo", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdUndo(cmd); } });
+        if (m_solver == null)
+            return;
+        register("gogui-analyze_commands", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdGoGuiAnalyzeCommands(cmd); } });
+        register("gogui-interrupt", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdInterrupt(cmd); } });
+        register("gogui-referee-vcf", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdSolve(cmd, false); } });
+        register("gogui-referee-vcf_moves", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdSolveMoves(cmd, false); } });
+        register("gogui-referee-vct", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdSolve(cmd, true); } });
+        register("gogui-referee-vct_moves", new GtpCallback() {
+                public void run(GtpCommand cmd) throws GtpError {
+                    cmdSolveMoves(cmd, true); } });
+    }
+}
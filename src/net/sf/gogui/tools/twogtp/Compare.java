@@ -6,12 +6,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import net.sf.gogui.game.ConstNode;
 import net.sf.gogui.game.GameTree;
 import net.sf.gogui.go.Board;
+import net.sf.gogui.go.BoardConstants;
 import net.sf.gogui.go.BoardUtil;
+import net.sf.gogui.go.CanonicalKey;
 import net.sf.gogui.go.ConstBoard;
 import net.sf.gogui.go.GoColor;
 import static net.sf.gogui.go.GoColor.BLACK_WHITE_EMPTY;
@@ -67,7 +71,7 @@ public final class Compare
                                       boolean isAlternated)
     {
         String result = "-";
-        int size = board.getSize();
+        BoardConstants constants = BoardConstants.get(board.getSize());
         for (Map.Entry<Integer, ArrayList<Placement>> entry : games.entrySet())
         {
             int numberGame = entry.getKey();
@@ -89,8 +93,8 @@ public final class Compare
                 {
                     Placement move = moves.get(i);
                     Placement gameMove = gameMoves.get(i);
-                    GoPoint gameRotatedPoint =
-                        BoardUtil.rotate(rot, gameMove.m_point, size);
+                    GoPoint gameRotatedPoint = rotate(constants, rot,
+                                                      gameMove.m_point);
                     if (move.m_isSetup != gameMove.m_isSetup
                         || ! move.m_color.equals(gameMove.m_color)
                         || ! GoPoint.equals(move.m_point, gameRotatedPoint))
@@ -105,17 +109,87 @@ public final class Compare
         return result;
     }
 
+    /** Check if game already exists in game collection using an index of
+        canonical keys.
+        Identical games (also rotated ones) are found with a single lookup
+        of the canonical key of the game. The moves of all games are only
+        compared in all rotations if nearly identical games are requested.
+        @param index Game numbers of the games in the collection by
+        canonical key, see addToIndex().
+        @param findNearDuplicates Also search for nearly identical games if
+        no identical game exists.
+        @see #checkDuplicate(ConstBoard, ArrayList, Map, boolean,
+        boolean) */
+    public static String checkDuplicate(ConstBoard board,
+                                      ArrayList<Placement> moves,
+                                      Map<Integer, ArrayList<Placement>> games,
+                                      Map<Long, List<Integer>> index,
+                                      boolean useAlternate,
+                                      boolean isAlternated,
+                                      boolean findNearDuplicates)
+    {
+        int size = board.getSize();
+        List<Integer> candidates = index.get(getCanonicalKey(moves, size));
+        if (candidates != null)
+        {
+            BoardConstants constants = BoardConstants.get(size);
+            int first = -1;
+            for (int numberGame : candidates)
+            {
+                if ((first >= 0 && numberGame > first)
+                    || (useAlternate
+                        && ((numberGame % 2 != 0) != isAlternated)))
+                    continue;
+                ArrayList<Placement> gameMoves = games.get(numberGame);
+                if (gameMoves != null
+                    && isRotatedEqual(moves, gameMoves, constants))
+                    first = numberGame;
+            }
+            if (first >= 0)
+                return Integer.toString(first);
+        }
+        if (! findNearDuplicates)
+            return "-";
+        // Identical games were already excluded, the full comparison can
+        // only find nearly identical ones
+        return checkDuplicate(board, moves, games, useAlternate,
+                              isAlternated);
+    }
+
+    /** Add a game to an index of canonical keys.
+        @param index The index as used by checkDuplicate()
+        @param numberGame The game number
+        @param moves The placements of the game as returned by
+        getPlacements()
+        @param size The board size */
+    public static void addToIndex(Map<Long, List<Integer>> index,
+                                  int numberGame, ArrayList<Placement> moves,
+                                  int size)
+    {
+        Long key = Long.valueOf(getCanonicalKey(moves, size));
+        List<Integer> list = index.get(key);
+        if (list == null)
+        {
+            list = new ArrayList<Integer>(1);
+            index.put(key, list);
+        }
+        list.add(numberGame);
+    }
+
     /** Compare a set of SGF files.
         Prints the results to standard output, one line per game
         with the filename and the duplicate information as returned by
         Compare.checkDuplicate.
         @param filenames List of filenames
+        @param findNearDuplicates Also report nearly identical games
         @throws Exception If reading one of the files fails. */
-    public static void compare(ArrayList<String> filenames) throws Exception
+    public static void compare(ArrayList<String> filenames,
+                               boolean findNearDuplicates) throws Exception
     {
         Board board = null;
         Map<Integer, ArrayList<Placement>> games =
             new TreeMap<Integer, ArrayList<Placement>>();
+        Map<Long, List<Integer>> index = new HashMap<Long, List<Integer>>();
         for (int gameNumber = 0; gameNumber < filenames.size(); ++gameNumber)
         {
             String filename = filenames.get(gameNumber);
@@ -131,13 +205,30 @@ public final class Compare
                                     " does not match other games");
             ArrayList<Placement> moves = getPlacements(tree.getRoot());
             String duplicate =
-                checkDuplicate(board, moves, games, false, false);
+                checkDuplicate(board, moves, games, index, false, false,
+                               findNearDuplicates);
             System.out.println(Integer.toString(gameNumber) + " " +
                                filename + " " + duplicate);
             games.put(gameNumber, moves);
+            addToIndex(index, gameNumber, moves, size);
         }
     }
 
+    /** Get a key for a sequence of placements that is invariant under
+        rotating and mirroring the board.
+        Games that are identical up to a rotation have the same key.
+        @param moves The placements as returned by getPlacements()
+        @param size The board size
+        @return The canonical key.
+        @see CanonicalKey */
+    public static long getCanonicalKey(ArrayList<Placement> moves, int size)
+    {
+        CanonicalKey key = new CanonicalKey(size);
+        for (Placement move : moves)
+            key.append(move.m_color, move.m_point, move.m_isSetup);
+        return key.get();
+    }
+
     public static ArrayList<Placement> getPlacements(ConstNode node)
     {
         ArrayList<Placement> result = new ArrayList<Placement>(512);
@@ -162,4 +253,39 @@ public final class Compare
     private Compare()
     {
     }
+
+    private static boolean isRotatedEqual(ArrayList<Placement> moves,
+                                          ArrayList<Placement> gameMoves,
+                                          BoardConstants constants)
+    {
+        int moveNumber = moves.size();
+        if (gameMoves.size() != moveNumber)
+            return false;
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+        {
+            int i;
+            for (i = 0; i < moveNumber; ++i)
+            {
+                Placement move = moves.get(i);
+                Placement gameMove = gameMoves.get(i);
+                if (move.m_isSetup != gameMove.m_isSetup
+                    || ! move.m_color.equals(gameMove.m_color)
+                    || ! GoPoint.equals(move.m_point,
+                                        rotate(constants, rot,
+                                               gameMove.m_point)))
+                    break;
+            }
+            if (i == moveNumber)
+                return true;
+        }
+        return false;
+    }
+
+    private static GoPoint rotate(BoardConstants constants, int rotationMode,
+                                  GoPoint point)
+    {
+        if (point == null)
+            return null;
+        return constants.rotate(rotationMode, point);
+    }
 }
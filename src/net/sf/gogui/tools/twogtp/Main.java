@@ -35,6 +35,7 @@ public final class Main
                 "handicap:",
                 "komi:",
                 "maxmoves:",
+                "nearduplicates",
                 "observer:",
                 "openings:",
                 "referee:",
@@ -67,6 +68,7 @@ public final class Main
                    "-komi           komi\n" +
                    "-handicap       handicap\n" +
                    "-maxmoves       move limit\n" +
+                   "-nearduplicates also report nearly identical games\n" +
                    "-observer       command for observer program\n" +
                    "-openings       directory with opening sgf files\n" +
                    "-referee        command for referee program\n" +
@@ -81,10 +83,11 @@ public final class Main
                 System.out.print(helpText);
                 System.exit(0);
             }
+            boolean nearDuplicates = opt.contains("nearduplicates");
             boolean compare = opt.contains("compare");
             if (compare)
             {
-                Compare.compare(opt.getArguments());
+                Compare.compare(opt.getArguments(), nearDuplicates);
                 System.exit(0);
             }
             if (opt.contains("version"))
@@ -164,7 +167,7 @@ public final class Main
                         new ResultFile(force, blackProgram, whiteProgram,
                                        refereeProgram, numberGames, size,
                                        komi, sgfFile, openings, alternate,
-                                       useXml, numberThreads);
+                                       nearDuplicates, useXml, numberThreads);
                 if (i > 0)
                     verbose = false;
                 twoGtp[i] = new TwoGtp(blackProgram, whiteProgram,
@@ -13,6 +13,8 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import net.sf.gogui.game.ConstNode;
@@ -33,10 +35,12 @@ public class ResultFile
     public ResultFile(boolean force, Program black, Program white,
                       Program referee, int numberGames, int size, Komi komi,
                       String filePrefix, Openings openings, boolean alternate,
-                      boolean useXml, int numberThreads) throws ErrorMessage
+                      boolean nearDuplicates, boolean useXml,
+                      int numberThreads) throws ErrorMessage
     {
         m_filePrefix = filePrefix;
         m_alternate = alternate;
+        m_nearDuplicates = nearDuplicates;
         m_numberGames = numberGames;
         m_useXml = useXml;
         m_numberThreads = numberThreads;
@@ -85,7 +89,8 @@ public class ResultFile
             = Compare.getPlacements(game.getTree().getRootConst());
         String duplicate =
             Compare.checkDuplicate(game.getBoard(), moves, m_games,
-                                   m_alternate, alternated);
+                                   m_gameIndex, m_alternate, alternated,
+                                   m_nearDuplicates);
         NumberFormat format = StringUtil.getNumberFormat(1);
         m_table.startRow();
         m_table.set("GAME", Integer.toString(gameIndex));
@@ -139,6 +144,8 @@ public class ResultFile
                 new SgfWriter(out, game.getTree(),
                               "gogui-twogtp", Version.get());
             m_games.put(gameIndex, moves);
+            Compare.addToIndex(m_gameIndex, gameIndex, moves,
+                               game.getBoard().getSize());
         }
         catch (FileNotFoundException e)
         {
@@ -180,6 +187,8 @@ public class ResultFile
 
     private final boolean m_alternate;
 
+    private final boolean m_nearDuplicates;
+
     private final boolean m_useXml;
 
     private final TreeSet<Integer> m_gameExists = new TreeSet<Integer>();
@@ -203,6 +212,11 @@ public class ResultFile
     private final TreeMap<Integer, ArrayList<Compare.Placement>> m_games
         = new TreeMap<Integer, ArrayList<Compare.Placement>>();
 
+    /** Game numbers of the games in m_games by canonical key.
+        @see Compare#addToIndex */
+    private final HashMap<Long, List<Integer>> m_gameIndex
+        = new HashMap<Long, List<Integer>>();
+
     private void acquireLock() throws ErrorMessage
     {
         try
@@ -286,7 +300,11 @@ public class ResultFile
                 FileInputStream fileStream = new FileInputStream(file);
                 SgfReader reader = new SgfReader(fileStream, file, null, 0);
                 ConstNode root = reader.getTree().getRoot();
-                m_games.put(n, Compare.getPlacements(root));
+                ArrayList<Compare.Placement> moves =
+                    Compare.getPlacements(root);
+                m_games.put(n, moves);
+                Compare.addToIndex(m_gameIndex, n, moves,
+                                   reader.getTree().getBoardSize());
             }
             catch (SgfError e)
             {
@@ -79,11 +79,7 @@ public class XmlWriter
 
     private String getSgfPoint(GoPoint p)
     {
-        if (p == null)
-            return "";
-        int x = 'a' + p.getX();
-        int y = 'a' + (m_boardSize - p.getY() - 1);
-        return "" + (char)x + (char)y;
+        return SgfUtil.formatPoint(p, m_boardSize);
     }
 
     private void printElementWithParagraphs(String element, String value)
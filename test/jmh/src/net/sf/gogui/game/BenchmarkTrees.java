@@ -0,0 +1,48 @@
+// BenchmarkTrees.java
+
+package net.sf.gogui.game;
+
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.RandomGame;
+
+/** Create game trees for benchmarks. */
+public final class BenchmarkTrees
+{
+    /** Create a game tree with a main variation and side variations.
+        @param size The board size.
+        @param numberMoves The number of moves in the main variation.
+        @param variationInterval Add a side variation with a few moves
+        at every n'th node of the main variation; zero for no variations.
+        @return The game tree. */
+    public static GameTree create(int size, int numberMoves,
+                                  int variationInterval)
+    {
+        Move[] moves = RandomGame.create(size, numberMoves, 1);
+        GameTree tree = new GameTree(size, null, null, null, null);
+        Node node = tree.getRoot();
+        for (int i = 0; i < moves.length; ++i)
+        {
+            Node child = new Node(moves[i]);
+            node.append(child);
+            if (variationInterval > 0 && i % variationInterval == 0
+                && i + 4 < moves.length)
+            {
+                Node variation = node;
+                for (int j = 1; j < 4; ++j)
+                {
+                    Node variationChild = new Node(moves[i + j]);
+                    variation.append(variationChild);
+                    variation = variationChild;
+                }
+                variation.setComment("Variation " + i);
+            }
+            node = child;
+        }
+        return tree;
+    }
+
+    /** Make constructor unavailable; class is for namespace only. */
+    private BenchmarkTrees()
+    {
+    }
+}
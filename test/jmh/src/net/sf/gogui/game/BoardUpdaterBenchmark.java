@@ -0,0 +1,105 @@
+// BoardUpdaterBenchmark.java
+
+package net.sf.gogui.game;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.sf.gogui.go.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for BoardUpdater on long games. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardUpdaterBenchmark
+{
+    @Param({ "300", "1000" })
+    public int m_numberMoves;
+
+    @Setup
+    public void setup()
+    {
+        m_tree = BenchmarkTrees.create(19, m_numberMoves, 0);
+        m_last = NodeUtil.getLast(m_tree.getRootConst());
+        m_previous = m_last.getFatherConst();
+        m_board = new Board(19);
+        m_updater = new BoardUpdater();
+        m_cachedUpdater = new BoardUpdater(new PositionCache());
+        ArrayList<ConstNode> mainVariation = new ArrayList<ConstNode>();
+        for (ConstNode node = m_tree.getRootConst(); node != null;
+             node = node.getChildConst())
+            mainVariation.add(node);
+        Random random = new Random(1);
+        m_randomNodes = new ConstNode[256];
+        for (int i = 0; i < m_randomNodes.length; ++i)
+            m_randomNodes[i] =
+                mainVariation.get(random.nextInt(mainVariation.size()));
+    }
+
+    /** Update the board to the last node of the game. */
+    @Benchmark
+    public long updateLast()
+    {
+        m_updater.update(m_tree, m_last, m_board);
+        return m_board.getZobristHash();
+    }
+
+    /** Update the board alternating between the last two nodes, as when
+        stepping through a game. */
+    @Benchmark
+    public long updateStep()
+    {
+        m_updater.update(m_tree, m_previous, m_board);
+        m_updater.update(m_tree, m_last, m_board);
+        return m_board.getZobristHash();
+    }
+
+    /** Update the board to random nodes, as when clicking in the game
+        tree. */
+    @Benchmark
+    public long updateRandom()
+    {
+        m_index = (m_index + 1) % m_randomNodes.length;
+        m_updater.update(m_tree, m_randomNodes[m_index], m_board);
+        return m_board.getZobristHash();
+    }
+
+    /** Update the board to random nodes using a position cache. */
+    @Benchmark
+    public long updateRandomCached()
+    {
+        m_index = (m_index + 1) % m_randomNodes.length;
+        m_cachedUpdater.update(m_tree, m_randomNodes[m_index], m_board);
+        return m_board.getZobristHash();
+    }
+
+    private int m_index;
+
+    private ConstNode[] m_randomNodes;
+
+    private BoardUpdater m_cachedUpdater;
+
+    private ConstGameTree m_tree;
+
+    private ConstNode m_last;
+
+    private ConstNode m_previous;
+
+    private Board m_board;
+
+    private BoardUpdater m_updater;
+}
@@ -0,0 +1,77 @@
+// NodeUtilBenchmark.java
+
+package net.sf.gogui.game;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for navigating in game trees with NodeUtil. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NodeUtilBenchmark
+{
+    @Setup
+    public void setup()
+    {
+        m_tree = BenchmarkTrees.create(19, 500, 10);
+        m_root = m_tree.getRootConst();
+        m_last = NodeUtil.getLast(m_root);
+    }
+
+    /** Visit all nodes of the tree in depth-first order. */
+    @Benchmark
+    public int nextNode()
+    {
+        int n = 0;
+        ConstNode node = m_root;
+        while (node != null)
+        {
+            ++n;
+            node = NodeUtil.nextNode(node);
+        }
+        return n;
+    }
+
+    @Benchmark
+    public ConstNode findByMoveNumber()
+    {
+        return NodeUtil.findByMoveNumber(m_last, 250);
+    }
+
+    @Benchmark
+    public int getMoveNumber()
+    {
+        return NodeUtil.getMoveNumber(m_last) + NodeUtil.getDepth(m_last);
+    }
+
+    @Benchmark
+    public int subtreeSize()
+    {
+        return NodeUtil.subtreeSize(m_root);
+    }
+
+    @Benchmark
+    public String getVariationString()
+    {
+        return NodeUtil.getVariationString(m_last);
+    }
+
+    private ConstGameTree m_tree;
+
+    private ConstNode m_root;
+
+    private ConstNode m_last;
+}
@@ -0,0 +1,109 @@
+// BoardBenchmark.java
+
+package net.sf.gogui.go;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+
+/** Benchmarks for playing and undoing moves on a Board. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark
+{
+    @Param({ "9", "19" })
+    public int m_size;
+
+    @Setup
+    public void setup()
+    {
+        m_moves = RandomGame.create(m_size, 3 * m_size * m_size, 1);
+        m_board = new Board(m_size);
+        m_legal = new BitSet();
+        m_position = new Board(m_size);
+        for (int i = 0; i < m_moves.length / 2; ++i)
+            m_position.play(m_moves[i]);
+        m_koBoard = new Board(m_size);
+        // Ko shape in the lower left corner
+        PointList black = new PointList();
+        PointList white = new PointList();
+        black.add(GoPoint.get(0, 1));
+        black.add(GoPoint.get(1, 0));
+        white.add(GoPoint.get(1, 1));
+        white.add(GoPoint.get(2, 0));
+        m_koBoard.setup(black, white, WHITE);
+    }
+
+    /** Play a long random game with captures and undo all moves. */
+    @Benchmark
+    public long playUndoGame()
+    {
+        Board board = m_board;
+        for (int i = 0; i < m_moves.length; ++i)
+            board.play(m_moves[i]);
+        long hash = board.getZobristHash();
+        for (int i = 0; i < m_moves.length; ++i)
+            board.undo();
+        return hash;
+    }
+
+    /** Capture a single stone in a ko and undo the capture. */
+    @Benchmark
+    public int captureUndo()
+    {
+        Board board = m_koBoard;
+        board.play(WHITE, GoPoint.get(0, 0));
+        board.play(BLACK, GoPoint.get(1, 0));
+        int killed = board.getKilled().size();
+        board.undo();
+        board.undo();
+        return killed;
+    }
+
+    /** Check all points for suicide in a middle game position. */
+    @Benchmark
+    public int isSuicideAllPoints()
+    {
+        Board board = m_position;
+        GoColor c = board.getToMove();
+        int n = 0;
+        for (GoPoint p : board)
+            if (board.isSuicide(c, p))
+                ++n;
+        return n;
+    }
+
+    /** Compute the legal moves in a middle game position. */
+    @Benchmark
+    public int getLegalMoves()
+    {
+        m_position.getLegalMoves(m_legal);
+        return m_legal.cardinality();
+    }
+
+    private Move[] m_moves;
+
+    private Board m_board;
+
+    private Board m_position;
+
+    private Board m_koBoard;
+
+    private BitSet m_legal;
+}
@@ -0,0 +1,57 @@
+// RandomGame.java
+
+package net.sf.gogui.go;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/** Create reproducible random games for benchmarks.
+    The moves are legal, avoid filling own eyes and contain captures, so
+    that they exercise the same code paths as real games. */
+public final class RandomGame
+{
+    /** Create a random game.
+        @param size The board size.
+        @param numberMoves The maximum number of moves. The game can be
+        shorter if no more legal moves exist.
+        @param seed The random seed.
+        @return The moves of the game. */
+    public static Move[] create(int size, int numberMoves, long seed)
+    {
+        Random random = new Random(seed);
+        Board board = new Board(size);
+        ArrayList<Move> moves = new ArrayList<Move>(numberMoves);
+        PointList candidates = new PointList();
+        while (moves.size() < numberMoves)
+        {
+            GoColor c = board.getToMove();
+            candidates.clear();
+            for (GoPoint p : board)
+                if (board.getColor(p) == EMPTY && ! board.isKo(p)
+                    && ! board.isSuicide(c, p) && ! isEye(board, c, p))
+                    candidates.add(p);
+            if (candidates.isEmpty())
+                break;
+            GoPoint p = candidates.get(random.nextInt(candidates.size()));
+            Move move = Move.get(c, p);
+            board.play(move);
+            moves.add(move);
+        }
+        return moves.toArray(new Move[moves.size()]);
+    }
+
+    /** Make constructor unavailable; class is for namespace only. */
+    private RandomGame()
+    {
+    }
+
+    private static final GoColor EMPTY = GoColor.EMPTY;
+
+    private static boolean isEye(ConstBoard board, GoColor c, GoPoint p)
+    {
+        for (GoPoint adj : board.getAdjacent(p))
+            if (board.getColor(adj) != c)
+                return false;
+        return true;
+    }
+}
@@ -0,0 +1,41 @@
+// StartupBenchmark.java
+
+package net.sf.gogui.go;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import static net.sf.gogui.go.GoColor.BLACK;
+
+/** Benchmark for the first use of the go package in a fresh JVM.
+    Every fork measures a single call, so the time includes class loading
+    and the creation of the static tables for the board size. */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+@State(Scope.Benchmark)
+public class StartupBenchmark
+{
+    @Param({ "9", "19" })
+    public int m_size;
+
+    /** Create a board, parse a point and play a move. */
+    @Benchmark
+    public long firstBoard() throws InvalidPointException
+    {
+        Board board = new Board(m_size);
+        GoPoint p = GoPoint.parsePoint("C3", m_size);
+        board.play(BLACK, p);
+        return board.getZobristHash();
+    }
+}
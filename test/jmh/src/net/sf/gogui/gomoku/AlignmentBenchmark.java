@@ -0,0 +1,103 @@
+// AlignmentBenchmark.java
+
+package net.sf.gogui.gomoku;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Compare the scan of CheckAlignment with the run lengths of
+    AlignmentTable on a 15x15 board. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AlignmentBenchmark
+{
+    public static final int SIZE = 15;
+
+    @Setup
+    public void setup()
+    {
+        Random random = new Random(1);
+        PointList black = new PointList();
+        PointList white = new PointList();
+        m_table = new AlignmentTable(SIZE);
+        m_empty = new PointList();
+        for (GoPoint p : new Board(SIZE))
+        {
+            int r = random.nextInt(3);
+            if (r == 0)
+                m_empty.add(p);
+            else
+            {
+                GoColor c = (r == 1 ? GoColor.BLACK : GoColor.WHITE);
+                (r == 1 ? black : white).add(p);
+                m_table.play(Move.get(c, p));
+            }
+        }
+        m_board = new Board(SIZE);
+        m_board.setup(black, white, GoColor.BLACK);
+    }
+
+    /** Check all empty points for five in a row with CheckAlignment. */
+    @Benchmark
+    public int fiveScan()
+    {
+        int n = 0;
+        for (GoPoint p : m_empty)
+            if (CheckAlignment.areFiveAligned(m_board,
+                                              Move.get(GoColor.BLACK, p)))
+                ++n;
+        return n;
+    }
+
+    /** Check all empty points for five in a row with AlignmentTable. */
+    @Benchmark
+    public int fiveTable()
+    {
+        int n = 0;
+        for (GoPoint p : m_empty)
+            if (m_table.isFive(GoColor.BLACK, p))
+                ++n;
+        return n;
+    }
+
+    /** Play, check and undo a stone on all empty points with
+        AlignmentTable, including the cost of updating the run lengths. */
+    @Benchmark
+    public int playCheckUndoTable()
+    {
+        int n = 0;
+        for (GoPoint p : m_empty)
+        {
+            m_table.play(Move.get(GoColor.WHITE, p));
+            if (m_table.isOverline(GoColor.WHITE, p))
+                ++n;
+            m_table.undo();
+        }
+        return n;
+    }
+
+    private Board m_board;
+
+    private AlignmentTable m_table;
+
+    private PointList m_empty;
+}
@@ -0,0 +1,79 @@
+// ForbiddenRenjuMoveBenchmark.java
+
+package net.sf.gogui.gomoku;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmark for checking Renju forbidden moves on a 15x15 board. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ForbiddenRenjuMoveBenchmark
+{
+    public static final int SIZE = 15;
+
+    @Setup
+    public void setup()
+    {
+        // Stones of both colors in the center, like in the middle game
+        Random random = new Random(1);
+        m_forbidden = new ForbiddenRenjuMove(SIZE);
+        PointList stones = new PointList();
+        GoColor c = GoColor.BLACK;
+        for (int i = 0; i < 40; ++i)
+        {
+            GoPoint p = GoPoint.get(4 + random.nextInt(7),
+                                    4 + random.nextInt(7));
+            if (stones.contains(p))
+                continue;
+            stones.add(p);
+            m_forbidden.play(Move.get(c, p));
+            c = c.otherColor();
+        }
+        m_empty = new PointList();
+        for (GoPoint p : new Board(SIZE))
+            if (! stones.contains(p))
+                m_empty.add(p);
+    }
+
+    /** Check all empty points. */
+    @Benchmark
+    public int allPoints()
+    {
+        int n = 0;
+        for (GoPoint p : m_empty)
+            if (m_forbidden.isForbidden(p))
+                ++n;
+        return n;
+    }
+
+    /** Check a single move, as a referee does after each move. */
+    @Benchmark
+    public boolean singleMove()
+    {
+        return m_forbidden.isForbidden(m_empty.get(m_empty.size() / 2));
+    }
+
+    private ForbiddenRenjuMove m_forbidden;
+
+    private PointList m_empty;
+}
@@ -0,0 +1,89 @@
+// GtpClientBenchmark.java
+
+package net.sf.gogui.gtp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmark for a GTP command round trip.
+    The GtpClient is connected with piped streams to a GtpEngine running in
+    another thread of the same process, so that the benchmark measures the
+    protocol overhead of GtpClient and GtpEngine without process startup
+    and engine computation time. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GtpClientBenchmark
+{
+    @Setup
+    public void setup() throws IOException, GtpError
+    {
+        PipedInputStream gtpInput = new PipedInputStream();
+        final OutputStream out = new PipedOutputStream(gtpInput);
+        final PipedInputStream in = new PipedInputStream();
+        PipedOutputStream gtpOutput = new PipedOutputStream(in);
+        final GtpEngine engine = new GtpEngine(null);
+        m_thread = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        engine.mainLoop(in, out);
+                    }
+                    catch (IOException e)
+                    {
+                    }
+                }
+            };
+        m_thread.start();
+        m_gtp = new GtpClient(gtpInput, gtpOutput, false, null);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        try
+        {
+            m_gtp.send("quit");
+        }
+        catch (GtpError e)
+        {
+        }
+        m_gtp.close();
+        m_thread.join(1000);
+    }
+
+    @Benchmark
+    public String roundTrip() throws GtpError
+    {
+        return m_gtp.send("protocol_version");
+    }
+
+    @Benchmark
+    public String listCommands() throws GtpError
+    {
+        return m_gtp.send("list_commands");
+    }
+
+    private GtpClient m_gtp;
+
+    private Thread m_thread;
+}
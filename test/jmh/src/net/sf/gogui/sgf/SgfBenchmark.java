@@ -0,0 +1,71 @@
+// SgfBenchmark.java
+
+package net.sf.gogui.sgf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import net.sf.gogui.game.BenchmarkTrees;
+import net.sf.gogui.game.CompactGameTree;
+import net.sf.gogui.game.GameTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for reading and writing SGF files.
+    The files are created in memory from a random game with variations. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SgfBenchmark
+{
+    @Param({ "300", "1000" })
+    public int m_numberMoves;
+
+    @Setup
+    public void setup()
+    {
+        m_tree = BenchmarkTrees.create(19, m_numberMoves, 10);
+        m_sgf = write().toByteArray();
+    }
+
+    @Benchmark
+    public GameTree read() throws SgfError
+    {
+        SgfReader reader =
+            new SgfReader(new ByteArrayInputStream(m_sgf), null, null, 0);
+        return reader.getTree();
+    }
+
+    @Benchmark
+    public CompactGameTree readCompact() throws SgfError
+    {
+        SgfReader reader = new SgfReader(new ByteArrayInputStream(m_sgf),
+                                         null, null, 0, true);
+        return reader.getCompactTree();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write()
+    {
+        ByteArrayOutputStream out =
+            new ByteArrayOutputStream(m_sgf == null ? 0 : m_sgf.length);
+        new SgfWriter(out, m_tree, "GoGui", "benchmark");
+        return out;
+    }
+
+    private byte[] m_sgf;
+
+    private GameTree m_tree;
+}
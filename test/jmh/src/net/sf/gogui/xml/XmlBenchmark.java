@@ -0,0 +1,63 @@
+// XmlBenchmark.java
+
+package net.sf.gogui.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import net.sf.gogui.game.BenchmarkTrees;
+import net.sf.gogui.game.GameTree;
+import net.sf.gogui.util.ErrorMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for reading and writing Go XML files.
+    The files are created in memory from a random game with variations. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlBenchmark
+{
+    @Param({ "300", "1000" })
+    public int m_numberMoves;
+
+    @Setup
+    public void setup()
+    {
+        m_tree = BenchmarkTrees.create(19, m_numberMoves, 10);
+        m_xml = write().toByteArray();
+    }
+
+    @Benchmark
+    public GameTree read() throws ErrorMessage
+    {
+        XmlReader reader =
+            new XmlReader(new ByteArrayInputStream(m_xml), null, 0);
+        return reader.getTree();
+    }
+
+    @Benchmark
+    public ByteArrayOutputStream write()
+    {
+        ByteArrayOutputStream out =
+            new ByteArrayOutputStream(m_xml == null ? 0 : m_xml.length);
+        new XmlWriter(out, m_tree, "GoGui");
+        return out;
+    }
+
+    private byte[] m_xml;
+
+    private GameTree m_tree;
+}
@@ -2,7 +2,10 @@
 
 package net.sf.gogui.game;
 
+import java.util.ArrayList;
+import java.util.Random;
 import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
 import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
 import net.sf.gogui.go.GoPoint;
@@ -81,5 +84,152 @@ public final class BoardUpdaterTest
         assertEquals(BLACK, board.getColor(GoPoint.get(3, 3)));
     }
 
+    /** Compare incremental updates with full updates while navigating
+        randomly in a tree with variations, captures and setup nodes. */
+    public void testIncremental()
+    {
+        Random random = new Random(1);
+        GameTree tree = new GameTree(9, null, null, null, null);
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        nodes.add(tree.getRoot());
+        for (int i = 0; i < 600; ++i)
+        {
+            Node father = nodes.get(random.nextInt(nodes.size()));
+            Node node = new Node();
+            GoColor c = (random.nextBoolean() ? BLACK : WHITE);
+            GoPoint p = GoPoint.get(random.nextInt(9), random.nextInt(9));
+            int type = random.nextInt(20);
+            if (type == 0)
+                node.addStone(c, p);
+            else if (type == 1)
+                node.setPlayer(c);
+            else
+                node.setMove(Move.get(c, p));
+            father.append(node);
+            nodes.add(node);
+        }
+        Board board = new Board(9);
+        Board expected = new Board(9);
+        for (int i = 0; i < 2000; ++i)
+        {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            // Step mostly to the neighbors as when navigating in GoGui
+            if (i % 3 != 0)
+                node = (random.nextBoolean() || ! node.hasFather() ?
+                        node.getChild() : node.getFather());
+            if (node == null)
+                continue;
+            m_updater.update(tree, node, board);
+            new BoardUpdater().update(tree, node, expected);
+            assertEquals(expected.getZobristHash(), board.getZobristHash());
+            assertEquals(expected.getToMove(), board.getToMove());
+            assertEquals(expected.getKoPoint(), board.getKoPoint());
+            assertEquals(expected.getCaptured(BLACK),
+                         board.getCaptured(BLACK));
+            assertEquals(expected.getCaptured(WHITE),
+                         board.getCaptured(WHITE));
+            assertEquals(expected.getLastMove(), board.getLastMove());
+        }
+    }
+
+    /** Compare updates with a position cache with full updates for
+        random access in a tree with variations. */
+    public void testCache()
+    {
+        Random random = new Random(3);
+        GameTree tree = new GameTree(9, null, null, null, null);
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        nodes.add(tree.getRoot());
+        for (int i = 0; i < 1000; ++i)
+        {
+            // Mostly long variations
+            Node father = (random.nextInt(10) == 0 ?
+                           nodes.get(random.nextInt(nodes.size())) :
+                           nodes.get(nodes.size() - 1));
+            Node node = new Node();
+            GoColor c = (random.nextBoolean() ? BLACK : WHITE);
+            GoPoint p = GoPoint.get(random.nextInt(9), random.nextInt(9));
+            if (random.nextInt(50) == 0)
+                node.addStone(c, p);
+            else
+                node.setMove(Move.get(c, p));
+            father.append(node);
+            nodes.add(node);
+        }
+        PositionCache cache = new PositionCache(200000, 10);
+        m_updater = new BoardUpdater(cache);
+        Board board = new Board(9);
+        Board expected = new Board(9);
+        for (int i = 0; i < 1000; ++i)
+        {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            m_updater.update(tree, node, board);
+            new BoardUpdater().update(tree, node, expected);
+            assertEquals(expected.getZobristHash(), board.getZobristHash());
+            assertEquals(expected.getToMove(), board.getToMove());
+            assertEquals(expected.getKoPoint(), board.getKoPoint());
+            assertEquals(expected.getNumberMoves(), board.getNumberMoves());
+            assertEquals(expected.getCaptured(BLACK),
+                         board.getCaptured(BLACK));
+            assertEquals(expected.getLastMove(), board.getLastMove());
+            if (expected.getNumberMoves() > 0)
+                assertEquals(expected.getKilled(), board.getKilled());
+            assertEquals(expected.isRepetition(true),
+                         board.isRepetition(true));
+            assertTrue(cache.getMemory() <= cache.getMaxMemory());
+        }
+        assertTrue(cache.getNumberPositions() > 0);
+    }
+
+    /** Test that a modified board or node is updated correctly. */
+    public void testIncrementalModified()
+    {
+        GameTree tree = new GameTree();
+        Node root = tree.getRoot();
+        Node node1 = new Node(Move.get(BLACK, GoPoint.get(4, 4)));
+        root.append(node1);
+        Node node2 = new Node(Move.get(WHITE, GoPoint.get(3, 3)));
+        node1.append(node2);
+        Board board = new Board(19);
+        m_updater.update(tree, node2, board);
+        board.play(BLACK, GoPoint.get(5, 5));
+        m_updater.update(tree, node2, board);
+        assertEquals(2, board.getNumberMoves());
+        assertEquals(GoColor.EMPTY, board.getColor(GoPoint.get(5, 5)));
+        node2.setPlayer(WHITE);
+        m_updater.update(tree, node2, board);
+        assertEquals(BLACK, board.getToMove());
+        node2.addStone(BLACK, GoPoint.get(6, 6));
+        m_updater.update(tree, node2, board);
+        assertEquals(BLACK, board.getColor(GoPoint.get(6, 6)));
+        m_updater.update(tree, node1, board);
+        assertEquals(GoColor.EMPTY, board.getColor(GoPoint.get(6, 6)));
+        assertEquals(GoColor.EMPTY, board.getColor(GoPoint.get(3, 3)));
+    }
+
+    /** Test handicap stones stored as moves as in files from KGS. */
+    public void testIncrementalHandicapMoves()
+    {
+        GameTree tree = new GameTree();
+        Node root = tree.getRoot();
+        root.getGameInfo().setHandicap(2);
+        Node node1 = new Node(Move.get(BLACK, GoPoint.get(3, 3)));
+        root.append(node1);
+        Node node2 = new Node(Move.get(BLACK, GoPoint.get(15, 15)));
+        node1.append(node2);
+        Node node3 = new Node(Move.get(WHITE, GoPoint.get(15, 3)));
+        node2.append(node3);
+        Board board = new Board(19);
+        m_updater.update(tree, node3, board);
+        assertTrue(board.isSetupHandicap());
+        assertEquals(1, board.getNumberMoves());
+        m_updater.update(tree, node1, board);
+        assertFalse(board.isSetupHandicap());
+        assertEquals(1, board.getNumberMoves());
+        m_updater.update(tree, node3, board);
+        assertTrue(board.isSetupHandicap());
+        assertEquals(1, board.getNumberMoves());
+    }
+
     private BoardUpdater m_updater;
 }
@@ -0,0 +1,267 @@
+// CompactGameTreeTest.java
+
+package net.sf.gogui.game;
+
+import java.util.ArrayList;
+import java.util.Random;
+import net.sf.gogui.go.GoColor;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+import static net.sf.gogui.go.GoColor.BLACK_WHITE;
+import static net.sf.gogui.go.GoColor.BLACK_WHITE_EMPTY;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+
+public final class CompactGameTreeTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(CompactGameTreeTest.class);
+    }
+
+    public void testChildren()
+    {
+        Node root = new Node();
+        Node node = new Node(Move.get(BLACK, 3, 3));
+        Node child1 = new Node(Move.get(WHITE, 4, 4));
+        Node child2 = new Node(Move.getPass(WHITE));
+        Node child3 = new Node();
+        root.append(node);
+        node.append(child1);
+        node.append(child2);
+        node.append(child3);
+        CompactGameTree tree = create(new GameTree(9, root));
+        ConstNode compactRoot = tree.getRootConst();
+        assertNull(compactRoot.getFatherConst());
+        assertFalse(compactRoot.hasFather());
+        ConstNode compactNode = compactRoot.getChildConst();
+        assertSame(compactNode, compactRoot.getChildConst(0));
+        assertSame(compactRoot, compactNode.getFatherConst());
+        assertEquals(3, compactNode.getNumberChildren());
+        ConstNode compactChild1 = compactNode.getChildConst(0);
+        ConstNode compactChild2 = compactNode.getChildConst(1);
+        ConstNode compactChild3 = compactNode.getChildConst(2);
+        assertEquals(Move.get(WHITE, 4, 4), compactChild1.getMove());
+        assertEquals(Move.getPass(WHITE), compactChild2.getMove());
+        assertNull(compactChild3.getMove());
+        assertEquals(1, compactNode.getChildIndex(compactChild2));
+        assertEquals(-1, compactRoot.getChildIndex(compactChild2));
+        assertSame(compactChild2, compactNode.variationAfter(compactChild1));
+        assertNull(compactNode.variationAfter(compactChild3));
+        assertSame(compactChild2, compactNode.variationBefore(compactChild3));
+        assertNull(compactNode.variationBefore(compactChild1));
+        assertTrue(tree.hasVariations());
+        assertTrue(compactChild3.isEmpty());
+        assertFalse(compactChild2.isEmpty());
+        assertEquals(2, compactChild2.getDepth());
+        assertEquals(2, compactChild2.getMoveNumber());
+        assertEquals(1, compactChild3.getMoveNumber());
+        assertEquals(5, compactRoot.getSubtreeSize());
+        assertEquals(4, compactNode.getSubtreeSize());
+    }
+
+    /** Test that the game info of a subtree is found. */
+    public void testGameInfo()
+    {
+        Node root = new Node();
+        Node node = new Node(Move.get(BLACK, 3, 3));
+        Node child = new Node(Move.get(WHITE, 4, 4));
+        root.append(node);
+        node.append(child);
+        GameTree gameTree = new GameTree(19, root);
+        gameTree.getGameInfo(root).set(StringInfo.RULES, "Japanese");
+        node.createGameInfo().set(StringInfo.RULES, "Chinese");
+        CompactGameTree tree = create(gameTree);
+        ConstNode compactRoot = tree.getRootConst();
+        ConstNode compactNode = compactRoot.getChildConst();
+        ConstNode compactChild = compactNode.getChildConst();
+        assertEquals("Japanese",
+                     tree.getGameInfoConst(compactRoot).get(StringInfo.RULES));
+        assertEquals("Chinese",
+                     tree.getGameInfoConst(compactNode).get(StringInfo.RULES));
+        assertEquals("Chinese", tree.getGameInfoConst(compactChild)
+                     .get(StringInfo.RULES));
+        assertNull(compactChild.getGameInfoConst());
+        assertFalse(compactChild.isEmpty());
+    }
+
+    /** Compare a random tree with properties to its compact copy. */
+    public void testProperties()
+    {
+        Random random = new Random(1);
+        GameTree gameTree = new GameTree();
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        nodes.add(gameTree.getRoot());
+        for (int i = 0; i < 500; ++i)
+        {
+            Node father = nodes.get(random.nextInt(nodes.size()));
+            Node node = createRandomNode(random);
+            father.append(node);
+            nodes.add(node);
+        }
+        CompactGameTree tree = create(gameTree);
+        assertEquals(nodes.size(), tree.getNumberNodes());
+        assertEquals(gameTree.hasVariations(), tree.hasVariations());
+        compare(gameTree.getRoot(), tree.getRootConst());
+    }
+
+    public void testSet()
+    {
+        Node root = new Node();
+        Node node = new Node(Move.get(BLACK, 3, 3));
+        root.append(node);
+        CompactGameTree.Builder builder = new CompactGameTree.Builder();
+        assertEquals(0, builder.add(-1, root));
+        assertEquals(1, builder.add(0, node));
+        root.setPlayer(WHITE);
+        root.setComment("Comment");
+        builder.set(0, root);
+        assertEquals(1, builder.getFirstChild(0));
+        assertEquals(-1, builder.getNextSibling(1));
+        assertEquals(Move.get(BLACK, 3, 3), builder.getMove(1));
+        CompactGameTree tree = builder.create(19);
+        ConstNode compactRoot = tree.getRootConst();
+        assertEquals(WHITE, compactRoot.getPlayer());
+        assertEquals("Comment", compactRoot.getComment());
+        assertNotNull(tree.getGameInfoConst(compactRoot));
+    }
+
+    private static void compare(ConstNode node, ConstNode compactNode)
+    {
+        // Iterative, random trees can be deep
+        ArrayList<ConstNode> stack = new ArrayList<ConstNode>();
+        stack.add(node);
+        stack.add(compactNode);
+        while (! stack.isEmpty())
+        {
+            compactNode = stack.remove(stack.size() - 1);
+            node = stack.remove(stack.size() - 1);
+            compareNode(node, compactNode);
+            for (int i = 0; i < node.getNumberChildren(); ++i)
+            {
+                stack.add(node.getChildConst(i));
+                stack.add(compactNode.getChildConst(i));
+            }
+        }
+    }
+
+    private static void compareNode(ConstNode node, ConstNode compactNode)
+    {
+        assertEquals(node.getMove(), compactNode.getMove());
+        assertEquals(node.getComment(), compactNode.getComment());
+        assertEquals(node.hasComment(), compactNode.hasComment());
+        assertEquals(node.getNumberChildren(),
+                     compactNode.getNumberChildren());
+        assertEquals(node.getDepth(), compactNode.getDepth());
+        assertEquals(node.getMoveNumber(), compactNode.getMoveNumber());
+        assertEquals(node.getSubtreeSize(), compactNode.getSubtreeSize());
+        assertEquals(node.getPlayer(), compactNode.getPlayer());
+        assertEquals(node.getToMove(), compactNode.getToMove());
+        assertEquals(node.hasSetup(), compactNode.hasSetup());
+        assertEquals(node.isEmpty(), compactNode.isEmpty());
+        assertEquals(node.getLabelsUnmodifiable(),
+                     compactNode.getLabelsUnmodifiable());
+        assertEquals(Float.floatToIntBits(node.getValue()),
+                     Float.floatToIntBits(compactNode.getValue()));
+        for (GoColor c : BLACK_WHITE_EMPTY)
+            assertEquals(node.getSetup(c), compactNode.getSetup(c));
+        for (GoColor c : BLACK_WHITE)
+        {
+            assertEquals(node.getMovesLeft(c), compactNode.getMovesLeft(c));
+            assertEquals(Double.doubleToLongBits(node.getTimeLeft(c)),
+                         Double.doubleToLongBits(compactNode.getTimeLeft(c)));
+        }
+        for (MarkType type : MarkType.values())
+            assertEquals(node.getMarkedConst(type),
+                         compactNode.getMarkedConst(type));
+        ConstSgfProperties props = node.getSgfPropertiesConst();
+        ConstSgfProperties compactProps = compactNode.getSgfPropertiesConst();
+        if (props == null)
+            assertNull(compactProps);
+        else
+        {
+            assertEquals(props.getKeys(), compactProps.getKeys());
+            for (String key : props.getKeys())
+                for (int i = 0; i < props.getNumberValues(key); ++i)
+                    assertEquals(props.getValue(key, i),
+                                 compactProps.getValue(key, i));
+        }
+    }
+
+    private static CompactGameTree create(GameTree gameTree)
+    {
+        CompactGameTree.Builder builder = new CompactGameTree.Builder();
+        ArrayList<ConstNode> nodes = new ArrayList<ConstNode>();
+        ArrayList<Integer> fathers = new ArrayList<Integer>();
+        nodes.add(gameTree.getRoot());
+        fathers.add(-1);
+        for (int i = 0; i < nodes.size(); ++i)
+        {
+            ConstNode node = nodes.get(i);
+            assertEquals(i, builder.add(fathers.get(i), node));
+            for (int j = 0; j < node.getNumberChildren(); ++j)
+            {
+                nodes.add(node.getChildConst(j));
+                fathers.add(i);
+            }
+        }
+        return builder.create(gameTree.getBoardSize());
+    }
+
+    private static Node createRandomNode(Random random)
+    {
+        Node node = new Node();
+        if (random.nextInt(4) > 0)
+        {
+            GoColor c = (random.nextBoolean() ? BLACK : WHITE);
+            if (random.nextInt(10) == 0)
+                node.setMove(Move.getPass(c));
+            else
+                node.setMove(Move.get(c, getRandomPoint(random)));
+        }
+        if (random.nextInt(5) == 0)
+            node.setComment("Comment \u00e4 " + random.nextInt());
+        if (random.nextInt(10) == 0)
+        {
+            node.addStone(BLACK, getRandomPoint(random));
+            node.addStone(WHITE, getRandomPoint(random));
+            node.addStone(EMPTY, getRandomPoint(random));
+            node.setPlayer(random.nextBoolean() ? BLACK : WHITE);
+        }
+        if (random.nextInt(10) == 0)
+        {
+            MarkType[] types = MarkType.values();
+            node.addMarked(getRandomPoint(random),
+                           types[random.nextInt(types.length)]);
+            node.setLabel(getRandomPoint(random), "A");
+        }
+        if (random.nextInt(10) == 0)
+        {
+            node.setTimeLeft(BLACK, random.nextDouble() * 100);
+            node.setMovesLeft(WHITE, random.nextInt(25));
+        }
+        if (random.nextInt(10) == 0)
+            node.setValue(random.nextFloat());
+        if (random.nextInt(20) == 0)
+        {
+            node.addSgfProperty("XX", "foo");
+            ArrayList<String> values = new ArrayList<String>();
+            values.add("a");
+            values.add("b");
+            node.addSgfProperty("YY", values);
+        }
+        return node;
+    }
+
+    private static GoPoint getRandomPoint(Random random)
+    {
+        return GoPoint.get(random.nextInt(19), random.nextInt(19));
+    }
+}
@@ -5,8 +5,11 @@ package net.sf.gogui.game;
 import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
 import static net.sf.gogui.go.GoColor.EMPTY;
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.ConstBoard;
 import net.sf.gogui.go.GoPoint;
 import net.sf.gogui.go.Move;
+import net.sf.gogui.gomoku.GomokuRuler;
 
 public final class GameTest
     extends junit.framework.TestCase
@@ -34,6 +37,31 @@ public final class GameTest
         assertTrue(game.isModified());
     }
 
+    /** Test that the Go rules are not applied with a game ruler.
+        The moves would capture the white stone in the corner with the Go
+        rules. */
+    public static void testGameRuler()
+    {
+        Game game = new Game(15);
+        ((Board)game.getBoard()).attachGameRuler(new GomokuRuler());
+        game.play(Move.get(BLACK, 5, 5));
+        game.play(Move.get(WHITE, 0, 0));
+        game.play(Move.get(BLACK, 0, 1));
+        ConstNode node = game.getCurrentNode();
+        game.play(Move.get(WHITE, 7, 7));
+        game.play(Move.get(BLACK, 1, 0));
+        ConstBoard board = game.getBoard();
+        assertEquals(WHITE, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(0, board.getCaptured(BLACK));
+        assertEquals(0, board.getCaptured(WHITE));
+        assertTrue(board.getKilled().isEmpty());
+        assertEquals(WHITE, game.getToMove());
+        game.gotoNode(node, null);
+        assertEquals(WHITE, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(EMPTY, board.getColor(GoPoint.get(1, 0)));
+        assertEquals(WHITE, game.getToMove());
+    }
+
     public static void testSetLabel()
     {
         Game game = new Game(19);
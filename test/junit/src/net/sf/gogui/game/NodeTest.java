@@ -2,11 +2,14 @@
 
 package net.sf.gogui.game;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Random;
 import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
 import static net.sf.gogui.go.GoColor.EMPTY;
 import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
 
 public final class NodeTest
     extends junit.framework.TestCase
@@ -47,6 +50,101 @@ public final class NodeTest
         assertTrue(child2.getFather() == node);
     }
 
+    /** Test that depth and move number are updated when the tree is
+        changed. */
+    public void testDepthAndMoveNumber()
+    {
+        Node root = new Node();
+        Node node1 = new Node(Move.get(BLACK, GoPoint.get(0, 0)));
+        Node node2 = new Node();
+        Node node3 = new Node(Move.get(WHITE, GoPoint.get(1, 1)));
+        Node node4 = new Node(Move.get(WHITE, GoPoint.get(2, 2)));
+        assertEquals(0, root.getDepth());
+        assertEquals(0, root.getMoveNumber());
+        assertEquals(1, node1.getMoveNumber());
+        // Append subtree
+        node2.append(node3);
+        node2.append(node4);
+        assertEquals(1, node3.getDepth());
+        assertEquals(1, node4.getMoveNumber());
+        node1.append(node2);
+        root.append(node1);
+        assertEquals(1, node1.getDepth());
+        assertEquals(2, node2.getDepth());
+        assertEquals(3, node3.getDepth());
+        assertEquals(3, node4.getDepth());
+        assertEquals(1, node2.getMoveNumber());
+        assertEquals(2, node3.getMoveNumber());
+        assertEquals(2, node4.getMoveNumber());
+        // Change move
+        node2.setMove(Move.get(WHITE, null));
+        assertEquals(2, node2.getMoveNumber());
+        assertEquals(3, node3.getMoveNumber());
+        assertEquals(3, node4.getMoveNumber());
+        node1.setMove(null);
+        assertEquals(0, node1.getMoveNumber());
+        assertEquals(2, node4.getMoveNumber());
+        // Re-parent
+        node1.removeChild(node2);
+        assertEquals(0, node2.getDepth());
+        assertEquals(1, node2.getMoveNumber());
+        assertEquals(1, node3.getDepth());
+        assertEquals(2, node4.getMoveNumber());
+        root.append(node2);
+        assertEquals(1, node2.getDepth());
+        assertEquals(2, node4.getDepth());
+        assertEquals(2, node4.getMoveNumber());
+    }
+
+    /** Test that deep trees are updated without recursion. */
+    public void testDepthDeepTree()
+    {
+        Node root = new Node();
+        Node node = root;
+        for (int i = 0; i < 100000; ++i)
+        {
+            Node child = new Node(Move.get(BLACK, null));
+            node.append(child);
+            node = child;
+        }
+        Node newRoot = new Node(Move.get(WHITE, null));
+        newRoot.append(root);
+        assertEquals(100001, node.getDepth());
+        assertEquals(100001, node.getMoveNumber());
+    }
+
+    /** Compare subtree sizes with counting the nodes after random
+        changes of a tree. */
+    public void testSubtreeSize()
+    {
+        Random random = new Random(1);
+        Node root = new Node();
+        ArrayList<Node> nodes = new ArrayList<Node>();
+        nodes.add(root);
+        for (int i = 0; i < 500; ++i)
+        {
+            Node node = nodes.get(random.nextInt(nodes.size()));
+            int type = random.nextInt(10);
+            if (type == 0 && node.hasFather()
+                && node.isChildOf(node.getFather()))
+                node.getFather().removeChild(node);
+            else if (type == 1)
+                node.removeVariations();
+            else
+            {
+                Node child = new Node();
+                node.append(child);
+                nodes.add(child);
+            }
+            if (random.nextInt(5) == 0)
+            {
+                Node n = nodes.get(random.nextInt(nodes.size()));
+                assertEquals(countNodes(n), n.getSubtreeSize());
+            }
+        }
+        assertEquals(countNodes(root), root.getSubtreeSize());
+    }
+
     public void testIsChildOf()
     {
         Node father = new Node();
@@ -167,4 +265,12 @@ public final class NodeTest
         assertEquals(p8, it.next());
         assertEquals(p9, it.next());
     }
+
+    private static int countNodes(Node node)
+    {
+        int n = 1;
+        for (int i = 0; i < node.getNumberChildren(); ++i)
+            n += countNodes(node.getChild(i));
+        return n;
+    }
 }
@@ -0,0 +1,69 @@
+// PositionCacheTest.java
+
+package net.sf.gogui.game;
+
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.BoardSnapshot;
+import static net.sf.gogui.go.GoColor.BLACK;
+import net.sf.gogui.go.GoPoint;
+
+public final class PositionCacheTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(PositionCacheTest.class);
+    }
+
+    public void testGet()
+    {
+        GameTree tree = new GameTree();
+        Node node = tree.getRoot();
+        PositionCache cache = new PositionCache();
+        BoardSnapshot snapshot = new Board(19).getSnapshot();
+        assertNull(cache.get(tree, node, 0));
+        cache.put(tree, node, 0, snapshot);
+        assertSame(snapshot, cache.get(tree, node, 0));
+        assertNull(cache.get(tree, node, 2));
+        assertNull(cache.get(new GameTree(), node, 0));
+        assertEquals(1, cache.getNumberPositions());
+        assertTrue(cache.getMemory() > 0);
+        cache.clear();
+        assertNull(cache.get(tree, node, 0));
+        assertEquals(0, cache.getNumberPositions());
+        assertEquals(0, cache.getMemory());
+    }
+
+    /** Test that the least recently used positions are removed if the
+        memory limit is exceeded. */
+    public void testEviction()
+    {
+        GameTree tree = new GameTree();
+        Board board = new Board(19);
+        Node node1 = new Node();
+        Node node2 = new Node();
+        Node node3 = new Node();
+        PositionCache cache = new PositionCache();
+        cache.put(tree, node1, 0, board.getSnapshot());
+        long memory = cache.getMemory();
+        cache.setMaxMemory(2 * memory + 100);
+        board.play(BLACK, GoPoint.get(3, 3));
+        cache.put(tree, node2, 0, board.getSnapshot());
+        assertEquals(2, cache.getNumberPositions());
+        cache.get(tree, node1, 0);
+        board.undo();
+        cache.put(tree, node3, 0, board.getSnapshot());
+        assertEquals(2, cache.getNumberPositions());
+        assertNotNull(cache.get(tree, node1, 0));
+        assertNull(cache.get(tree, node2, 0));
+        assertNotNull(cache.get(tree, node3, 0));
+        cache.setMaxMemory(memory);
+        assertEquals(1, cache.getNumberPositions());
+        assertNotNull(cache.get(tree, node3, 0));
+    }
+}
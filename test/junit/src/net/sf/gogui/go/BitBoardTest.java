@@ -0,0 +1,115 @@
+// BitBoardTest.java
+
+package net.sf.gogui.go;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+public final class BitBoardTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(BitBoardTest.class);
+    }
+
+    public void testCopy()
+    {
+        Board board = createBoard();
+        BitBoard bitBoard = new BitBoard(board);
+        assertEquals(19, bitBoard.getSize());
+        for (GoPoint p : board)
+            assertEquals(board.getColor(p), bitBoard.getColor(p));
+        assertEquals(board.getToMove(), bitBoard.getToMove());
+        assertEquals(2, bitBoard.getCaptured(BLACK));
+        assertEquals(0, bitBoard.getCaptured(WHITE));
+        assertEquals(board.getZobristHash(), bitBoard.getZobristHash());
+        BitBoard copy = bitBoard.copy();
+        assertEquals(bitBoard, copy);
+        assertEquals(bitBoard.hashCode(), copy.hashCode());
+        Board target = new Board(9);
+        BoardUtil.copy(target, bitBoard);
+        assertEquals(19, target.getSize());
+        for (GoPoint p : board)
+            assertEquals(board.getColor(p), target.getColor(p));
+        assertEquals(board.getToMove(), target.getToMove());
+        BitBoard other = new BitBoard(9);
+        BoardUtil.copy(other, target);
+        assertTrue(other.equalsStones(bitBoard));
+    }
+
+    public void testEquals()
+    {
+        Board board = new Board(9);
+        BitBoard empty = new BitBoard(board);
+        assertEquals(new BitBoard(9), empty);
+        assertFalse(empty.equals(new BitBoard(13)));
+        board.play(BLACK, GoPoint.get(4, 4));
+        BitBoard bitBoard = new BitBoard(board);
+        assertFalse(bitBoard.equals(empty));
+        assertFalse(bitBoard.equalsStones(empty));
+        board.undo();
+        board.setup(new PointList(GoPoint.get(4, 4)), null, BLACK);
+        BitBoard setup = new BitBoard(board);
+        assertTrue(setup.equalsStones(bitBoard));
+        // Different color to move
+        assertFalse(setup.equals(bitBoard));
+    }
+
+    public void testGetLiberties()
+    {
+        Board board = createBoard();
+        BitBoard bitBoard = new BitBoard(board);
+        for (GoPoint p : board)
+        {
+            assertEquals(board.getLiberties(p), bitBoard.getLiberties(p));
+            assertEquals(board.getBlockSize(p), bitBoard.getBlockSize(p));
+        }
+        board.play(WHITE, GoPoint.get(0, 0));
+        bitBoard = new BitBoard(board);
+        for (GoPoint p : board)
+            for (GoColor c : GoColor.BLACK_WHITE)
+            {
+                assertEquals(board.isSuicide(c, p), bitBoard.isSuicide(c, p));
+                assertEquals(board.isCaptureOrSuicide(c, p),
+                             bitBoard.isCaptureOrSuicide(c, p));
+            }
+        assertTrue(bitBoard.isSuicide(BLACK, GoPoint.get(1, 0)));
+    }
+
+    public void testGetNumberStones()
+    {
+        Board board = createBoard();
+        BitBoard bitBoard = new BitBoard(board);
+        assertEquals(1, bitBoard.getNumberStones(BLACK));
+        assertEquals(3, bitBoard.getNumberStones(WHITE));
+        assertEquals(1, bitBoard.getSetup(BLACK).size());
+        assertTrue(bitBoard.getSetup(WHITE).contains(GoPoint.get(2, 0)));
+        assertEquals(EMPTY, bitBoard.getColor(GoPoint.get(0, 0)));
+    }
+
+    /** Board with captured stones.
+        <pre>
+        3 . . . .
+        2 O O @ .
+        1 . . O .
+          A B C D
+        </pre> */
+    private static Board createBoard()
+    {
+        Board board = new Board(19);
+        board.play(BLACK, GoPoint.get(0, 0));
+        board.play(WHITE, GoPoint.get(0, 1));
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(1, 1));
+        board.play(BLACK, GoPoint.get(2, 1));
+        board.play(WHITE, GoPoint.get(2, 0));
+        return board;
+    }
+}
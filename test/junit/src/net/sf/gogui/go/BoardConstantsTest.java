@@ -78,6 +78,42 @@ public final class BoardConstantsTest
         }
     }
 
+    /** Test that concurrent calls of get() return the same instance. */
+    public void testGetConcurrent() throws InterruptedException
+    {
+        final int size = 37;
+        final BoardConstants[] constants = new BoardConstants[4];
+        Thread[] threads = new Thread[constants.length];
+        for (int i = 0; i < threads.length; ++i)
+        {
+            final int index = i;
+            threads[i] = new Thread() {
+                    public void run()
+                    {
+                        constants[index] = BoardConstants.get(size);
+                    }
+                };
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        for (BoardConstants c : constants)
+            assertSame(BoardConstants.get(size), c);
+        assertEquals(size * size, constants[0].getPoints().size());
+    }
+
+    /** Test that the lazily created rotation table matches
+        BoardUtil.rotate. */
+    public void testRotate()
+    {
+        int size = 11;
+        BoardConstants constants = BoardConstants.get(size);
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+            for (GoPoint p : constants.getPoints())
+                assertSame(BoardUtil.computeRotation(rot, p, size),
+                           constants.rotate(rot, p));
+    }
+
     private static GoPoint parsePoint(String s)
     {
         int boardSize = GoPoint.MAX_SIZE;
@@ -0,0 +1,139 @@
+// BoardSnapshotTest.java
+
+package net.sf.gogui.go;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+public final class BoardSnapshotTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(BoardSnapshotTest.class);
+    }
+
+    /** Test that a snapshot does not change when the board changes. */
+    public void testCopyOnWrite()
+    {
+        Board board = new Board(19);
+        board.play(BLACK, GoPoint.get(0, 0));
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(0, 1));
+        board.play(WHITE, GoPoint.get(1, 1));
+        BoardSnapshot snapshot = board.getSnapshot();
+        assertSame(snapshot, board.getSnapshot());
+        board.play(WHITE, GoPoint.get(2, 0));
+        assertNotSame(snapshot, board.getSnapshot());
+        assertEquals(EMPTY, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(BLACK, snapshot.getColor(GoPoint.get(0, 0)));
+        assertEquals(EMPTY, snapshot.getColor(GoPoint.get(2, 0)));
+        assertEquals(4, snapshot.getNumberMoves());
+        assertEquals(Move.get(WHITE, 1, 1), snapshot.getLastMove());
+        assertEquals(BLACK, snapshot.getToMove());
+        assertEquals(0, snapshot.getCaptured(BLACK));
+        assertEquals(2, board.getCaptured(BLACK));
+        assertEquals(2, snapshot.getBlockSize(GoPoint.get(0, 0)));
+        assertEquals(1, snapshot.getLiberties(GoPoint.get(0, 0)));
+        board.undo();
+        assertEquals(BLACK, board.getColor(GoPoint.get(0, 0)));
+        board.clear();
+        assertEquals(BLACK, snapshot.getColor(GoPoint.get(1, 0)));
+        assertEquals(WHITE, snapshot.getColor(GoPoint.get(1, 1)));
+    }
+
+    /** Test that the moves and setup stones shared with the board do not
+        change when the board changes. */
+    public void testHistoryCopyOnWrite()
+    {
+        Board board = new Board(9);
+        PointList black = new PointList(GoPoint.get(4, 4));
+        board.setup(black, null, WHITE);
+        board.play(WHITE, GoPoint.get(0, 0));
+        board.play(BLACK, GoPoint.get(1, 1));
+        BoardSnapshot snapshot = board.getSnapshot();
+        board.undo();
+        board.play(BLACK, GoPoint.get(2, 2));
+        BoardSnapshot snapshot2 = board.getSnapshot();
+        assertSame(snapshot.getSetup(BLACK), snapshot2.getSetup(BLACK));
+        assertEquals(Move.get(BLACK, 1, 1), snapshot.getMove(1));
+        assertEquals(Move.get(BLACK, 2, 2), snapshot2.getMove(1));
+        Board restored = new Board(9);
+        restored.restore(snapshot);
+        restored.undo();
+        restored.play(BLACK, GoPoint.get(3, 3));
+        board.undo();
+        board.play(BLACK, GoPoint.get(5, 5));
+        board.play(WHITE, GoPoint.get(6, 6));
+        assertEquals(Move.get(BLACK, 1, 1), snapshot.getMove(1));
+        assertEquals(Move.get(BLACK, 2, 2), snapshot2.getMove(1));
+        assertEquals(Move.get(BLACK, 3, 3), restored.getMove(1));
+        assertEquals(2, snapshot2.getNumberMoves());
+        board.clear();
+        assertEquals(black, snapshot.getSetup(BLACK));
+        assertEquals(Move.get(WHITE, 0, 0), snapshot.getMove(0));
+    }
+
+    public void testKo()
+    {
+        Board board = new Board(19);
+        // 3 . . . .
+        // 2 @ O . .
+        // 1 . @ O .
+        //   A B C D
+        PointList black = new PointList();
+        PointList white = new PointList();
+        black.add(GoPoint.get(0, 1));
+        black.add(GoPoint.get(1, 0));
+        white.add(GoPoint.get(1, 1));
+        white.add(GoPoint.get(2, 0));
+        board.setup(black, white, BLACK);
+        board.play(WHITE, GoPoint.get(0, 0));
+        BoardSnapshot snapshot = board.getSnapshot();
+        assertTrue(snapshot.isKo(GoPoint.get(1, 0)));
+        assertEquals(new PointList(GoPoint.get(1, 0)), snapshot.getKilled());
+        assertTrue(snapshot.isSuperko(BLACK, GoPoint.get(1, 0), false));
+        assertEquals(2, snapshot.getSetup(BLACK).size());
+        board.play(BLACK, GoPoint.get(5, 5));
+        assertTrue(snapshot.isKo(GoPoint.get(1, 0)));
+        assertFalse(board.isKo(GoPoint.get(1, 0)));
+    }
+
+    /** Test reading a snapshot in another thread while the board is
+        modified. */
+    public void testOtherThread() throws Exception
+    {
+        final Board board = new Board(9);
+        board.play(BLACK, GoPoint.get(4, 4));
+        final BoardSnapshot snapshot = board.getSnapshot();
+        final boolean[] result = new boolean[1];
+        Thread thread = new Thread() {
+                public void run()
+                {
+                    boolean ok = true;
+                    for (int i = 0; i < 1000; ++i)
+                        for (GoPoint p : snapshot)
+                        {
+                            GoColor c = snapshot.getColor(p);
+                            if (c != (p == GoPoint.get(4, 4) ? BLACK : EMPTY))
+                                ok = false;
+                        }
+                    result[0] = ok;
+                }
+            };
+        thread.start();
+        for (int i = 0; i < 1000; ++i)
+        {
+            board.play(WHITE, GoPoint.get(i % 9, 0));
+            board.undo();
+        }
+        thread.join();
+        assertTrue(result[0]);
+    }
+}
@@ -5,6 +5,7 @@ package net.sf.gogui.go;
 import static net.sf.gogui.go.GoColor.BLACK;
 import static net.sf.gogui.go.GoColor.WHITE;
 import static net.sf.gogui.go.GoColor.EMPTY;
+import static net.sf.gogui.go.GoColor.BLACK_WHITE;
 
 public final class BoardTest
     extends junit.framework.TestCase
@@ -50,6 +51,27 @@ public final class BoardTest
         assertEquals(0, board.getCaptured(WHITE));
     }
 
+    /** Test a board larger than 25 and changing the size of a board. */
+    public void testLargeBoard()
+    {
+        Board board = new Board(9);
+        board.play(BLACK, GoPoint.get(4, 4));
+        board.init(40);
+        assertEquals(EMPTY, board.getColor(GoPoint.get(4, 4)));
+        board.play(BLACK, GoPoint.get(39, 39));
+        board.play(BLACK, GoPoint.get(38, 39));
+        board.play(WHITE, GoPoint.get(39, 38));
+        board.play(WHITE, GoPoint.get(38, 38));
+        board.play(WHITE, GoPoint.get(37, 39));
+        assertEquals(EMPTY, board.getColor(GoPoint.get(39, 39)));
+        assertEquals(2, board.getCaptured(BLACK));
+        assertEquals(3, board.getLiberties(GoPoint.get(37, 39)));
+        assertEquals(Zobrist.compute(board), board.getZobristHash());
+        assertEquals(40 * 40 - 3, board.getLegalMoves().cardinality());
+        board.init(9);
+        assertEquals(81, board.getLegalMoves().cardinality());
+    }
+
     public void testContains()
     {
         Board board = new Board(19);
@@ -63,6 +85,80 @@ public final class BoardTest
         assertFalse(board.contains(GoPoint.get(20, 20)));
     }
 
+    /** Test Board.getLiberties() and block membership queries. */
+    public void testGetLiberties()
+    {
+        Board board = new Board(19);
+        GoPoint a1 = GoPoint.get(0, 0);
+        GoPoint b1 = GoPoint.get(1, 0);
+        GoPoint c1 = GoPoint.get(2, 0);
+        assertEquals(0, board.getLiberties(a1));
+        assertNull(board.getAnchor(a1));
+        board.play(BLACK, a1);
+        assertEquals(2, board.getLiberties(a1));
+        board.play(BLACK, b1);
+        assertEquals(3, board.getLiberties(a1));
+        assertEquals(2, board.getBlockSize(a1));
+        assertEquals(board.getAnchor(a1), board.getAnchor(b1));
+        board.play(WHITE, c1);
+        assertEquals(2, board.getLiberties(a1));
+        assertEquals(2, board.getLiberties(c1));
+        board.play(WHITE, GoPoint.get(0, 1));
+        board.play(WHITE, GoPoint.get(1, 1));
+        GoPoint b2 = GoPoint.get(1, 1);
+        assertEquals(EMPTY, board.getColor(a1));
+        assertEquals(3, board.getLiberties(c1));
+        assertEquals(5, board.getLiberties(b2));
+        assertEquals(2, board.getBlockSize(b2));
+        board.undo();
+        assertEquals(BLACK, board.getColor(a1));
+        assertEquals(1, board.getLiberties(a1));
+        assertEquals(2, board.getLiberties(c1));
+        assertEquals(1, board.getBlockSize(c1));
+        board.undo(3);
+        assertEquals(2, board.getLiberties(a1));
+        assertEquals(1, board.getBlockSize(a1));
+    }
+
+    /** Compare incrementally tracked blocks with a flood fill over random
+        move sequences including captures, suicide and undo. */
+    public void testGetLibertiesRandom()
+    {
+        java.util.Random random = new java.util.Random(1);
+        Board board = new Board(7);
+        for (int i = 0; i < 2000; ++i)
+        {
+            if (board.getNumberMoves() > 0 && random.nextInt(4) == 0)
+                board.undo();
+            else
+            {
+                GoPoint p = GoPoint.get(random.nextInt(7), random.nextInt(7));
+                board.play(random.nextBoolean() ? BLACK : WHITE, p);
+            }
+            if (i % 500 == 0)
+                board.setup(null, new PointList(GoPoint.get(3, 3)), BLACK);
+            for (GoPoint p : board)
+            {
+                GoColor c = board.getColor(p);
+                if (c == EMPTY)
+                    continue;
+                PointList stones = new PointList();
+                board.getStones(p, c, stones);
+                PointList liberties = new PointList();
+                for (GoPoint stone : stones)
+                {
+                    assertEquals(board.getAnchor(p), board.getAnchor(stone));
+                    for (GoPoint adj : board.getAdjacent(stone))
+                        if (board.getColor(adj) == EMPTY
+                            && ! liberties.contains(adj))
+                            liberties.add(adj);
+                }
+                assertEquals(stones.size(), board.getBlockSize(p));
+                assertEquals(liberties.size(), board.getLiberties(p));
+            }
+        }
+    }
+
     /** Test Board.getKilled(). */
     public void testGetKilled()
     {
@@ -142,6 +238,120 @@ public final class BoardTest
         assertTrue(board.isKo(GoPoint.get(1, 0)));
     }
 
+    /** Test Board.isSuperko() and Board.isRepetition(). */
+    public void testIsSuperko()
+    {
+        Board board = new Board(19);
+        // 3 . . . .
+        // 2 @ O . .
+        // 1 . @ O .
+        //   A B C D
+        PointList black = new PointList();
+        PointList white = new PointList();
+        black.add(GoPoint.get(0, 1));
+        black.add(GoPoint.get(1, 0));
+        white.add(GoPoint.get(1, 1));
+        white.add(GoPoint.get(2, 0));
+        board.setup(black, white, BLACK);
+        assertFalse(board.isRepetition(false));
+        board.play(WHITE, GoPoint.get(0, 0));
+        assertFalse(board.isRepetition(false));
+        assertTrue(board.isSuperko(BLACK, GoPoint.get(1, 0), false));
+        // Position after recapture has White to move, initial position
+        // had Black to move
+        assertFalse(board.isSuperko(BLACK, GoPoint.get(1, 0), true));
+        assertFalse(board.isSuperko(BLACK, GoPoint.get(5, 5), false));
+        assertFalse(board.isSuperko(BLACK, null, false));
+        board.play(BLACK, GoPoint.get(1, 0));
+        assertTrue(board.isRepetition(false));
+        assertFalse(board.isRepetition(true));
+        board.play(WHITE, GoPoint.get(5, 5));
+        board.play(BLACK, GoPoint.get(6, 6));
+        assertFalse(board.isSuperko(WHITE, GoPoint.get(0, 0), false));
+    }
+
+    /** Test that Board.isSuperko() does not modify the board. */
+    public void testIsSuperkoUnmodified()
+    {
+        Board board = new Board(19);
+        board.play(BLACK, GoPoint.get(0, 1));
+        board.play(WHITE, GoPoint.get(1, 1));
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(2, 0));
+        board.play(WHITE, GoPoint.get(0, 0));
+        BoardSnapshot snapshot = board.getSnapshot();
+        long hash = board.getZobristHash();
+        assertTrue(board.isSuperko(BLACK, GoPoint.get(1, 0), false));
+        assertSame(snapshot, board.getSnapshot());
+        assertEquals(hash, board.getZobristHash());
+        assertEquals(5, board.getNumberMoves());
+    }
+
+    /** Compare Board.isSuperko() with playing the moves in random
+        positions. */
+    public void testIsSuperkoRandom()
+    {
+        java.util.Random random = new java.util.Random(1);
+        for (int n = 0; n < 20; ++n)
+        {
+            Board board = new Board(5);
+            for (int i = 0; i < 100; ++i)
+            {
+                GoColor c = (random.nextBoolean() ? BLACK : WHITE);
+                GoPoint p = GoPoint.get(random.nextInt(5), random.nextInt(5));
+                if (board.getColor(p) != EMPTY)
+                    continue;
+                for (boolean situational : new boolean[] { false, true })
+                {
+                    boolean isSuperko = board.isSuperko(c, p, situational);
+                    board.play(c, p);
+                    assertEquals(board.isRepetition(situational), isSuperko);
+                    board.undo();
+                }
+                board.play(c, p);
+            }
+        }
+    }
+
+    /** Compare Board.getLegalMoves(), isSuicide() and isCaptureOrSuicide()
+        with playing the moves in random positions. */
+    public void testGetLegalMoves()
+    {
+        java.util.Random random = new java.util.Random(2);
+        Board board = new Board(7);
+        java.util.BitSet legal = new java.util.BitSet();
+        for (int i = 0; i < 300; ++i)
+        {
+            GoPoint p = GoPoint.get(random.nextInt(7), random.nextInt(7));
+            if (board.getColor(p) == EMPTY)
+                board.play(board.getToMove(), p);
+            board.getLegalMoves(legal);
+            for (GoPoint point : board)
+            {
+                boolean isLegal = false;
+                for (GoColor c : GoColor.BLACK_WHITE)
+                {
+                    boolean isSuicide = false;
+                    boolean isCapture = false;
+                    if (board.getColor(point) == EMPTY)
+                    {
+                        board.play(c, point);
+                        isSuicide = (board.getSuicide().size() > 0);
+                        isCapture = (board.getKilled().size() > 0);
+                        board.undo();
+                    }
+                    assertEquals(isSuicide, board.isSuicide(c, point));
+                    assertEquals(isSuicide || isCapture,
+                                 board.isCaptureOrSuicide(c, point));
+                    if (c == board.getToMove())
+                        isLegal = (board.getColor(point) == EMPTY
+                                   && ! isSuicide && ! board.isKo(point));
+                }
+                assertEquals(isLegal, legal.get(point.getIndex()));
+            }
+        }
+    }
+
     public void testIsSuicide()
     {
         Board board = new Board(19);
@@ -168,6 +378,31 @@ public final class BoardTest
         assertNull(board.getLastMove());
     }
 
+    /** Test that play, undo and init do not allocate memory in steady
+        state.
+        Only runs on virtual machines that support measuring the allocated
+        memory per thread. */
+    public void testPlayUndoNoAllocation()
+    {
+        java.lang.management.ThreadMXBean bean =
+            java.lang.management.ManagementFactory.getThreadMXBean();
+        if (! (bean instanceof com.sun.management.ThreadMXBean))
+            return;
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean)bean;
+        if (! threadBean.isThreadAllocatedMemorySupported()
+            || ! threadBean.isThreadAllocatedMemoryEnabled())
+            return;
+        Board board = new Board(19);
+        long threadId = Thread.currentThread().getId();
+        playUndoCycles(board, 10000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId);
+        playUndoCycles(board, 10000);
+        allocated = threadBean.getThreadAllocatedBytes(threadId) - allocated;
+        // Allow for a small constant overhead of the measurement itself
+        assertTrue("allocated " + allocated + " bytes", allocated < 1000);
+    }
+
     /** Test that playing on a occupied field does not fail.
         Board.play spciefies that a play never fails.
         Also tests that the old stone is correctly restored. */
@@ -203,6 +438,26 @@ public final class BoardTest
         assertEquals(WHITE, board.getColor(GoPoint.get(0, 0)));
     }
 
+    /** Play and undo moves including captures, merges and suicide. */
+    private static void playUndoCycles(Board board, int n)
+    {
+        for (int i = 0; i < n; ++i)
+        {
+            board.init(19);
+            // 3 . . . .
+            // 2 O . . .
+            // 1 @ O . .
+            //   A B C D
+            board.play(BLACK, GoPoint.get(0, 0));
+            board.play(WHITE, GoPoint.get(1, 0));
+            board.play(BLACK, GoPoint.get(1, 1));
+            board.play(WHITE, GoPoint.get(0, 1));
+            board.play(BLACK, GoPoint.get(2, 0));
+            board.play(WHITE, GoPoint.get(0, 0));
+            board.undo(6);
+        }
+    }
+
     public void testSetupHandicap()
     {
         Board board = new Board(19);
@@ -226,6 +481,145 @@ public final class BoardTest
         assertEquals(BLACK, board.getToMove());
     }
 
+    /** Test that the Zobrist hash code is updated incrementally. */
+    public void testZobristHash()
+    {
+        Board board = new Board(19);
+        assertEquals(0L, board.getZobristHash());
+        board.play(BLACK, GoPoint.get(0, 0));
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(0, 1));
+        board.play(WHITE, GoPoint.get(1, 1));
+        long beforeCapture = board.getZobristHash();
+        assertEquals(Zobrist.compute(board), beforeCapture);
+        board.play(WHITE, GoPoint.get(2, 0));
+        assertEquals(Zobrist.compute(board), board.getZobristHash());
+        board.undo();
+        assertEquals(beforeCapture, board.getZobristHash());
+        // Same position reached by a different move order
+        Board other = new Board(19);
+        other.play(WHITE, GoPoint.get(1, 1));
+        other.play(BLACK, GoPoint.get(1, 0));
+        other.play(WHITE, GoPoint.get(0, 1));
+        other.play(BLACK, GoPoint.get(0, 0));
+        assertEquals(beforeCapture, other.getZobristHash());
+        board.clear();
+        assertEquals(0L, board.getZobristHash());
+        board.init(9);
+        assertEquals(0L, board.getZobristHash());
+    }
+
+    /** Test that the canonical hash code is the same if it is first
+        requested after moves and undo or tracked from the start. */
+    public void testCanonicalHash()
+    {
+        Board board = new Board(9);
+        board.play(BLACK, GoPoint.get(2, 3));
+        board.play(WHITE, GoPoint.get(4, 4));
+        board.play(BLACK, GoPoint.get(6, 6));
+        board.undo();
+        long hash = board.getCanonicalHash();
+        Board tracked = new Board(9);
+        tracked.getCanonicalHash();
+        tracked.play(BLACK, GoPoint.get(2, 3));
+        tracked.play(WHITE, GoPoint.get(4, 4));
+        assertEquals(hash, tracked.getCanonicalHash());
+        // Mirrored position
+        Board mirrored = new Board(9);
+        mirrored.play(BLACK, GoPoint.get(3, 2));
+        mirrored.play(WHITE, GoPoint.get(4, 4));
+        assertEquals(hash, mirrored.getCanonicalHash());
+        board.init(13);
+        assertEquals(new CanonicalKey(13).get(), board.getCanonicalHash());
+    }
+
+    /** Test restoring a snapshot and undoing the restored moves. */
+    public void testRestore()
+    {
+        Board board = new Board(9);
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(0, 0));
+        board.play(BLACK, GoPoint.get(0, 1));
+        BoardSnapshot snapshot = board.getSnapshot();
+        Board restored = new Board(9);
+        restored.play(WHITE, GoPoint.get(5, 5));
+        restored.restore(snapshot);
+        assertEquals(board.getZobristHash(), restored.getZobristHash());
+        assertEquals(3, restored.getNumberMoves());
+        assertEquals(1, restored.getCaptured(WHITE));
+        assertEquals(board.getKilled(), restored.getKilled());
+        assertEquals(WHITE, restored.getToMove());
+        assertFalse(restored.isRepetition(false));
+        restored.play(WHITE, GoPoint.get(4, 4));
+        restored.undo();
+        assertEquals(board.getZobristHash(), restored.getZobristHash());
+        restored.undo();
+        board.undo();
+        assertEquals(board.getZobristHash(), restored.getZobristHash());
+        assertEquals(BLACK, restored.getToMove());
+        assertEquals(WHITE, restored.getColor(GoPoint.get(0, 0)));
+        assertEquals(0, restored.getCaptured(WHITE));
+        // The snapshot is not changed by modifying the restored board
+        assertEquals(BLACK, snapshot.getColor(GoPoint.get(0, 1)));
+        assertEquals(EMPTY, snapshot.getColor(GoPoint.get(0, 0)));
+    }
+
+    /** Test that undoing restored moves restores the color to move
+        exactly and that the queries do not modify a restored board. */
+    public void testRestoreToMove()
+    {
+        Board board = new Board(9);
+        board.play(BLACK, GoPoint.get(2, 2));
+        board.play(WHITE, null);
+        board.setToMove(WHITE);
+        board.play(WHITE, GoPoint.get(3, 3));
+        board.play(WHITE, GoPoint.get(4, 4));
+        board.play(BLACK, GoPoint.get(5, 5));
+        BoardSnapshot snapshot = board.getSnapshot();
+        Board restored = new Board(9);
+        restored.restore(snapshot);
+        assertFalse(restored.isRepetition(true));
+        assertFalse(restored.isSuperko(WHITE, GoPoint.get(6, 6), true));
+        assertSame(snapshot, restored.getSnapshot());
+        assertEquals(snapshot.getZobristHash(), restored.getZobristHash());
+        assertFalse(snapshot.isRepetition(true));
+        while (board.getNumberMoves() > 0)
+        {
+            board.undo();
+            restored.undo();
+            assertEquals(board.getToMove(), restored.getToMove());
+            assertEquals(board.getZobristHash(), restored.getZobristHash());
+        }
+    }
+
+    /** Test superko after restoring a snapshot.
+        The repeated position was reached before the restored moves. */
+    public void testRestoreSuperko()
+    {
+        Board board = new Board(9);
+        // Ko at (1,0) / (2,0)
+        board.play(BLACK, GoPoint.get(1, 0));
+        board.play(WHITE, GoPoint.get(2, 0));
+        board.play(BLACK, GoPoint.get(0, 1));
+        board.play(WHITE, GoPoint.get(3, 1));
+        board.play(BLACK, GoPoint.get(1, 2));
+        board.play(WHITE, GoPoint.get(2, 2));
+        board.play(BLACK, GoPoint.get(2, 1));
+        board.play(WHITE, GoPoint.get(1, 1));
+        Board restored = new Board(9);
+        restored.restore(board.getSnapshot());
+        for (GoPoint p : board)
+            for (GoColor c : BLACK_WHITE)
+            {
+                assertEquals(board.isSuperko(c, p, false),
+                             restored.isSuperko(c, p, false));
+                assertEquals(board.isSuperko(c, p, true),
+                             restored.isSuperko(c, p, true));
+            }
+        assertTrue(restored.isSuperko(BLACK, GoPoint.get(2, 1), false));
+        assertEquals(8, restored.getNumberMoves());
+    }
+
     public void testUndo()
     {
         Board board = new Board(19);
@@ -0,0 +1,90 @@
+// CanonicalKeyTest.java
+
+package net.sf.gogui.go;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+
+public final class CanonicalKeyTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(CanonicalKeyTest.class);
+    }
+
+    /** Test that all rotations of a position have the same canonical hash
+        in Board, BitBoard and BoardSnapshot. */
+    public void testPosition()
+    {
+        int size = 9;
+        Board board = new Board(size);
+        board.play(BLACK, GoPoint.get(2, 3));
+        board.play(WHITE, GoPoint.get(6, 1));
+        board.play(BLACK, GoPoint.get(0, 8));
+        long hash = board.getCanonicalHash();
+        assertEquals(hash, new BitBoard(board).getCanonicalHash());
+        assertEquals(hash, board.getSnapshot().getCanonicalHash());
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+        {
+            Board rotated = new Board(size);
+            rotated.play(BLACK, BoardUtil.rotate(rot, GoPoint.get(2, 3), size));
+            rotated.play(WHITE, BoardUtil.rotate(rot, GoPoint.get(6, 1), size));
+            rotated.play(BLACK, BoardUtil.rotate(rot, GoPoint.get(0, 8), size));
+            assertEquals(hash, rotated.getCanonicalHash());
+        }
+        board.undo();
+        assertFalse(hash == board.getCanonicalHash());
+        board.play(BLACK, GoPoint.get(0, 8));
+        assertEquals(hash, board.getCanonicalHash());
+        board.clear();
+        assertEquals(new Board(size).getCanonicalHash(),
+                     board.getCanonicalHash());
+    }
+
+    /** Test that the rotation tables agree with BoardUtil.rotate(). */
+    public void testRotate()
+    {
+        int size = 7;
+        BoardConstants constants = BoardConstants.get(size);
+        for (GoPoint p : constants.getPoints())
+            for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+                assertSame(BoardUtil.computeRotation(rot, p, size),
+                           constants.rotate(rot, p));
+    }
+
+    /** Test that sequence keys depend on the order of the moves. */
+    public void testSequence()
+    {
+        int size = 19;
+        GoPoint p1 = GoPoint.get(3, 3);
+        GoPoint p2 = GoPoint.get(15, 2);
+        CanonicalKey key = new CanonicalKey(size);
+        key.append(BLACK, p1, false);
+        key.append(WHITE, p2, false);
+        key.append(BLACK, null, false);
+        for (int rot = 0; rot < BoardUtil.NUMBER_ROTATIONS; ++rot)
+        {
+            CanonicalKey rotated = new CanonicalKey(size);
+            rotated.append(BLACK, BoardUtil.rotate(rot, p1, size), false);
+            rotated.append(WHITE, BoardUtil.rotate(rot, p2, size), false);
+            rotated.append(BLACK, null, false);
+            assertEquals(key.get(), rotated.get());
+        }
+        CanonicalKey swapped = new CanonicalKey(size);
+        swapped.append(WHITE, p2, false);
+        swapped.append(BLACK, p1, false);
+        swapped.append(BLACK, null, false);
+        assertFalse(key.get() == swapped.get());
+        CanonicalKey setup = new CanonicalKey(size);
+        setup.append(BLACK, p1, true);
+        setup.append(WHITE, p2, false);
+        setup.append(BLACK, null, false);
+        assertFalse(key.get() == setup.get());
+    }
+}
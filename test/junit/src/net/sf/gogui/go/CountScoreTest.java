@@ -0,0 +1,114 @@
+// CountScoreTest.java
+
+package net.sf.gogui.go;
+
+import java.util.Random;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+public final class CountScoreTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(CountScoreTest.class);
+    }
+
+    /** Test changing the status of a dead group.
+        <pre>
+        3 . . . O .
+        2 O O O @ O
+        1 . . O @ .
+          A B C D E
+        </pre> */
+    public void testChangeStatus()
+    {
+        Board board = new Board(5);
+        PointList black = new PointList();
+        PointList white = new PointList();
+        black.add(GoPoint.get(3, 0));
+        black.add(GoPoint.get(3, 1));
+        white.add(GoPoint.get(0, 1));
+        white.add(GoPoint.get(1, 1));
+        white.add(GoPoint.get(2, 1));
+        white.add(GoPoint.get(2, 0));
+        white.add(GoPoint.get(3, 2));
+        white.add(GoPoint.get(4, 1));
+        board.setup(black, white, BLACK);
+        CountScore countScore = new CountScore();
+        countScore.begin(board, null);
+        assertEquals(EMPTY, countScore.getColor(GoPoint.get(4, 0)));
+        assertEquals(WHITE, countScore.getColor(GoPoint.get(0, 0)));
+        PointList stones = countScore.changeStatus(GoPoint.get(3, 0));
+        assertEquals(2, stones.size());
+        assertTrue(countScore.isDead(GoPoint.get(3, 1)));
+        ConstPointList changed = countScore.getChangedPoints();
+        assertEquals(3, changed.size());
+        assertTrue(changed.contains(GoPoint.get(3, 0)));
+        assertTrue(changed.contains(GoPoint.get(3, 1)));
+        assertTrue(changed.contains(GoPoint.get(4, 0)));
+        assertEquals(WHITE, countScore.getColor(GoPoint.get(3, 1)));
+        assertEquals(WHITE, countScore.getColor(GoPoint.get(4, 0)));
+        countScore.changeStatus(GoPoint.get(3, 1));
+        assertFalse(countScore.isDead(GoPoint.get(3, 0)));
+        assertEquals(BLACK, countScore.getColor(GoPoint.get(3, 0)));
+        assertEquals(EMPTY, countScore.getColor(GoPoint.get(4, 0)));
+        assertEquals(3, countScore.getChangedPoints().size());
+    }
+
+    /** Compare the incremental update with compute() in random
+        positions. */
+    public void testIncremental()
+    {
+        Random random = new Random(3);
+        for (int n = 0; n < 20; ++n)
+        {
+            Board board = new Board(9);
+            for (int i = 0; i < 60; ++i)
+            {
+                GoPoint p = GoPoint.get(random.nextInt(9), random.nextInt(9));
+                if (board.getColor(p) == EMPTY
+                    && ! board.isSuicide(board.getToMove(), p))
+                    board.play(board.getToMove(), p);
+            }
+            CountScore countScore = new CountScore();
+            countScore.begin(board, null);
+            for (int i = 0; i < 20; ++i)
+            {
+                GoPoint p = GoPoint.get(random.nextInt(9), random.nextInt(9));
+                if (board.getColor(p) == EMPTY)
+                    continue;
+                GoColor[] old = getScore(board, countScore);
+                countScore.changeStatus(p);
+                PointList dead = new PointList();
+                for (GoPoint q : board)
+                    if (countScore.isDead(q))
+                        dead.add(q);
+                CountScore expected = new CountScore();
+                expected.begin(board, dead);
+                ConstPointList changed = countScore.getChangedPoints();
+                for (GoPoint q : board)
+                {
+                    assertEquals(expected.getColor(q),
+                                 countScore.getColor(q));
+                    assertEquals(old[q.getIndex()] != countScore.getColor(q),
+                                 changed.contains(q));
+                }
+            }
+        }
+    }
+
+    private static GoColor[] getScore(ConstBoard board, CountScore countScore)
+    {
+        GoColor[] result = new GoColor[GoPoint.NUMBER_INDEXES];
+        for (GoPoint p : board)
+            result[p.getIndex()] = countScore.getColor(p);
+        return result;
+    }
+}
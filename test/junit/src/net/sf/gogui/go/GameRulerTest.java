@@ -0,0 +1,242 @@
+// GameRulerTest.java
+
+package net.sf.gogui.go;
+
+import java.util.ArrayList;
+
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+
+public final class GameRulerTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(GameRulerTest.class);
+    }
+
+    /** Test attaching an in-process ruler to a board. */
+    public void testAttach() throws Exception
+    {
+        Board board = new Board(3);
+        board.play(BLACK, GoPoint.get(1, 1));
+        TestRuler ruler = new TestRuler();
+        board.attachGameRuler(ruler);
+        assertSame(ruler, board.getGameRuler());
+        assertEquals(3, ruler.getBoardSize());
+        assertEquals(1, ruler.m_moves.size());
+        assertEquals(BLACK, board.getColor(GoPoint.get(1, 1)));
+        GenericBoard.sendPlay(ruler, board, Move.get(WHITE, 0, 0));
+        assertEquals(WHITE, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(BLACK, board.getToMove());
+        assertTrue(GenericBoard.isLegalMove(ruler, Move.get(BLACK, 2, 2)));
+        assertFalse(GenericBoard.isLegalMove(ruler, Move.get(BLACK, 0, 0)));
+        assertFalse(GenericBoard.isLegalMove(ruler, Move.get(WHITE, 2, 2)));
+        assertFalse(GenericBoard.isLegalMove(ruler, Move.getPass(BLACK)));
+        assertFalse(GenericBoard.isPassLegal(ruler));
+        board.detachGameRuler();
+        assertFalse(board.isGameRulerAttached());
+    }
+
+    /** Test that copyRulerBoardState() copies the ruler position. */
+    public void testCopyRulerBoardState() throws Exception
+    {
+        Board board = new Board(3);
+        TestRuler ruler = new TestRuler();
+        ruler.clearBoard(3);
+        ruler.play(Move.get(BLACK, 0, 0));
+        ruler.play(Move.get(WHITE, 1, 0));
+        board.play(BLACK, GoPoint.get(2, 2));
+        GenericBoard.copyRulerBoardState(ruler, board);
+        assertEquals(BLACK, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(WHITE, board.getColor(GoPoint.get(1, 0)));
+        assertEquals(EMPTY, board.getColor(GoPoint.get(2, 2)));
+        ruler.undo();
+        GenericBoard.copyRulerBoardState(ruler, board);
+        assertEquals(EMPTY, board.getColor(GoPoint.get(1, 0)));
+        assertEquals(WHITE, ruler.getSideToMove());
+    }
+
+    public void testGameOver() throws Exception
+    {
+        Board board = new Board(2);
+        TestRuler ruler = new TestRuler();
+        board.attachGameRuler(ruler);
+        GenericBoard.sendPlay(ruler, board, Move.get(BLACK, 0, 0));
+        GenericBoard.sendPlay(ruler, board, Move.get(WHITE, 0, 1));
+        GenericBoard.sendPlay(ruler, board, Move.get(BLACK, 1, 0));
+        assertFalse(ruler.isGameOver());
+        GenericBoard.sendPlay(ruler, board, Move.get(WHITE, 1, 1));
+        assertTrue(ruler.isGameOver());
+        assertEquals(0, ruler.getLegalMoves().size());
+    }
+
+    /** Test that initWithGameRuler() does not apply the Go rules and
+        sends only the moves that differ to the ruler. */
+    public void testInitWithGameRuler() throws Exception
+    {
+        Board board = new Board(3);
+        TestRuler ruler = new TestRuler();
+        board.attachGameRuler(ruler);
+        ArrayList<Move> moves = new ArrayList<Move>();
+        moves.add(Move.get(WHITE, 0, 0));
+        moves.add(Move.get(BLACK, 0, 1));
+        moves.add(Move.get(WHITE, 2, 2));
+        // Would capture the white stone with the Go rules
+        moves.add(Move.get(BLACK, 1, 0));
+        ruler.m_numberCommands = 0;
+        board.initWithGameRuler(3, moves);
+        assertEquals(4, ruler.m_numberCommands);
+        assertSame(ruler, board.getGameRuler());
+        assertEquals(WHITE, board.getColor(GoPoint.get(0, 0)));
+        assertEquals(0, board.getCaptured(BLACK));
+        assertEquals(0, board.getCaptured(WHITE));
+        assertTrue(board.getKilled().isEmpty());
+        assertEquals(4, board.getNumberMoves());
+        assertEquals(BLACK, board.getToMove());
+        ruler.m_numberCommands = 0;
+        moves.remove(3);
+        board.initWithGameRuler(3, moves);
+        assertEquals(1, ruler.m_numberCommands);
+        assertEquals(EMPTY, board.getColor(GoPoint.get(1, 0)));
+        assertEquals(3, board.getNumberMoves());
+        assertEquals(WHITE, board.getToMove());
+    }
+
+    /** Test that only the moves that differ are sent to an attached
+        ruler. */
+    public void testSynchronize() throws Exception
+    {
+        Board board = new Board(5);
+        TestRuler ruler = new TestRuler();
+        board.attachGameRuler(ruler);
+        ArrayList<Move> moves = new ArrayList<Move>();
+        for (int i = 0; i < 10; ++i)
+            moves.add(0, Move.get(i % 2 == 0 ? BLACK : WHITE, i % 5, i / 5));
+        ruler.m_numberCommands = 0;
+        GenericBoard.playFromBeginning(ruler, moves, board);
+        assertEquals(10, ruler.m_numberCommands);
+        assertEquals(10, ruler.m_moves.size());
+        // Go back two moves
+        ruler.m_numberCommands = 0;
+        moves.remove(0);
+        moves.remove(0);
+        GenericBoard.playFromBeginning(ruler, moves, board);
+        assertEquals(2, ruler.m_numberCommands);
+        assertEquals(8, ruler.m_moves.size());
+        assertEquals(EMPTY, board.getColor(GoPoint.get(4, 1)));
+        // Play a move through the board and switch to a variation
+        ruler.m_numberCommands = 0;
+        GenericBoard.sendPlay(ruler, board, Move.get(BLACK, 3, 3));
+        moves.add(0, Move.get(BLACK, 4, 4));
+        GenericBoard.playFromBeginning(ruler, moves, board);
+        assertEquals(3, ruler.m_numberCommands);
+        assertEquals(EMPTY, board.getColor(GoPoint.get(3, 3)));
+        assertEquals(BLACK, board.getColor(GoPoint.get(4, 4)));
+        // Clearing needs less commands than undoing all moves
+        ruler.m_numberCommands = 0;
+        board.clear();
+        assertEquals(1, ruler.m_numberCommands);
+        assertTrue(ruler.m_moves.isEmpty());
+        // Attaching the same ruler again sends only the new moves
+        board.detachGameRuler();
+        board.play(BLACK, GoPoint.get(2, 2));
+        ruler.m_numberCommands = 0;
+        board.attachGameRuler(ruler);
+        assertEquals(1, ruler.m_numberCommands);
+        assertEquals(BLACK, ruler.getColor(GoPoint.get(2, 2)));
+        // A ruler that is attached for the first time is cleared
+        TestRuler otherRuler = new TestRuler();
+        otherRuler.m_size = 5;
+        otherRuler.m_moves.add(Move.get(BLACK, 0, 0));
+        board.attachGameRuler(otherRuler);
+        assertEquals(1, otherRuler.m_moves.size());
+        assertEquals(EMPTY, otherRuler.getColor(GoPoint.get(0, 0)));
+        assertEquals(BLACK, otherRuler.getColor(GoPoint.get(2, 2)));
+    }
+
+    /** Simple ruler: stones are placed on empty points and never
+        captured, the game is over when the board is full. */
+    private static final class TestRuler
+        implements GameRuler
+    {
+        public void clearBoard(int size)
+        {
+            ++m_numberCommands;
+            m_size = size;
+            m_moves.clear();
+        }
+
+        public int getBoardSize()
+        {
+            return m_size;
+        }
+
+        public GoColor getColor(GoPoint p)
+        {
+            for (Move move : m_moves)
+                if (move.getPoint() == p)
+                    return move.getColor();
+            return EMPTY;
+        }
+
+        public String getFinalResult()
+        {
+            return "";
+        }
+
+        public String getGameId()
+        {
+            return "Test";
+        }
+
+        public ConstPointList getLegalMoves()
+        {
+            PointList result = new PointList();
+            for (GoPoint p : BoardConstants.get(m_size).getPoints())
+                if (getColor(p) == EMPTY)
+                    result.add(p);
+            return result;
+        }
+
+        public GoColor getSideToMove()
+        {
+            return (m_moves.size() % 2 == 0 ? BLACK : WHITE);
+        }
+
+        public boolean isGameOver()
+        {
+            return m_moves.size() == m_size * m_size;
+        }
+
+        public boolean isPassLegal()
+        {
+            return false;
+        }
+
+        public void play(Move move)
+        {
+            ++m_numberCommands;
+            m_moves.add(move);
+        }
+
+        public void undo()
+        {
+            ++m_numberCommands;
+            m_moves.remove(m_moves.size() - 1);
+        }
+
+        private int m_size;
+
+        /** Number of calls to clearBoard(), play() and undo(). */
+        private int m_numberCommands;
+
+        private final ArrayList<Move> m_moves = new ArrayList<Move>();
+    }
+}
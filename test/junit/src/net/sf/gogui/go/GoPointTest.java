@@ -36,6 +36,25 @@ public final class GoPointTest
         checkPoint(getPoint(19, 5).right(19), 19, 5);
     }
 
+    /** Test that the indices of the points of a board are smaller than
+        GoPoint.getNumberIndexes() for all sizes. */
+    public void testIndex()
+    {
+        for (int size = 1; size <= GoPoint.MAX_SIZE; ++size)
+        {
+            boolean[] used = new boolean[GoPoint.getNumberIndexes(size)];
+            for (int x = 0; x < size; ++x)
+                for (int y = 0; y < size; ++y)
+                {
+                    GoPoint p = getPoint(x, y);
+                    int index = p.getIndex();
+                    assertFalse(used[index]);
+                    used[index] = true;
+                    assertSame(p, GoPoint.fromIndex(index));
+                }
+        }
+    }
+
     public void testIsOnBoard()
     {
         assertTrue(getPoint(0, 0).isOnBoard(9));
@@ -64,6 +83,12 @@ public final class GoPointTest
         checkPoint(points.get(0), 16, 14);
         assertNull(points.get(1));
         checkPoint(points.get(2), 18, 18);
+        checkPoint(GoPoint.parsePoint("Z1", 52), 24, 0);
+        checkPoint(GoPoint.parsePoint("AA30", 52), 25, 29);
+        checkPoint(GoPoint.parsePoint("bb52", 52), 51, 51);
+        checkInvalid("AA1", 25);
+        checkInvalid("AI1", 52);
+        checkInvalid("AAA1", 52);
     }
 
     public void testToString()
@@ -74,7 +99,10 @@ public final class GoPointTest
         assertEquals(getPoint(8, 4).toString(), "J5");
         assertEquals(getPoint(18, 18).toString(), "T19");
         assertEquals(getPoint(9, 20).toString(), "K21");
-        assertEquals(getPoint(9, 20).toString(), "K21");
+        assertEquals(getPoint(24, 24).toString(), "Z25");
+        assertEquals(getPoint(25, 0).toString(), "AA1");
+        assertEquals(getPoint(33, 40).toString(), "AJ41");
+        assertEquals(getPoint(51, 51).toString(), "BB52");
         assertEquals(GoPoint.toString((PointList)null), "(null)");
         PointList v = new PointList();
         assertEquals(GoPoint.toString(v), "");
@@ -90,6 +118,7 @@ public final class GoPointTest
     {
         checkPoint(getPoint(5, 5), 5, 5);
         checkPoint(getPoint(23, 23), 23, 23);
+        checkPoint(getPoint(50, 3), 50, 3);
     }
 
     private static GoPoint getPoint(int x, int y)
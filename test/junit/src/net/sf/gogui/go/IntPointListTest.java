@@ -0,0 +1,98 @@
+// IntPointListTest.java
+
+package net.sf.gogui.go;
+
+import java.util.Iterator;
+
+public final class IntPointListTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(IntPointListTest.class);
+    }
+
+    public void testConvert()
+    {
+        PointList list = new PointList();
+        list.add(GoPoint.get(0, 0));
+        list.add(GoPoint.get(18, 18));
+        list.add(GoPoint.get(3, 15));
+        IntPointList intList = new IntPointList(list);
+        assertEquals(list, intList);
+        assertEquals(intList, list);
+        assertEquals(list.hashCode(), intList.hashCode());
+        assertEquals(list, new PointList(intList));
+        PointList other = new PointList(GoPoint.get(1, 1));
+        other.addAllFromConst(intList);
+        assertEquals(4, other.size());
+        assertEquals(GoPoint.get(3, 15), other.get(3));
+        assertTrue(intList.contains(GoPoint.get(18, 18)));
+        assertFalse(intList.contains(GoPoint.get(1, 1)));
+        assertFalse(intList.contains(null));
+    }
+
+    public void testIndex()
+    {
+        IntPointList list = new IntPointList(1);
+        for (int i = 0; i < 10; ++i)
+            list.addIndex(GoPoint.get(i, i).getIndex());
+        assertEquals(10, list.size());
+        assertEquals(GoPoint.get(2, 2).getIndex(), list.getIndex(2));
+        assertTrue(list.containsIndex(GoPoint.get(9, 9).getIndex()));
+        assertEquals(GoPoint.get(9, 9).getIndex(), list.popIndex());
+        assertEquals(GoPoint.get(8, 8), list.pop());
+        assertEquals(8, list.size());
+        list.clear();
+        assertTrue(list.isEmpty());
+        try
+        {
+            list.getIndex(0);
+            fail();
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+        }
+    }
+
+    public void testIterate()
+    {
+        IntPointList list = new IntPointList();
+        GoPoint p1 = GoPoint.get(1, 1);
+        GoPoint p2 = GoPoint.get(2, 2);
+        list.add(p1);
+        list.add(p2);
+        Iterator<GoPoint> it = list.iterator();
+        assertTrue(it.hasNext());
+        assertSame(p1, it.next());
+        assertTrue(it.hasNext());
+        assertSame(p2, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    public void testMarker()
+    {
+        Marker marker = new Marker(9);
+        IntPointList list = new IntPointList();
+        list.add(GoPoint.get(1, 2));
+        list.add(GoPoint.get(3, 4));
+        marker.set(list);
+        assertTrue(marker.getIndex(GoPoint.get(3, 4).getIndex()));
+        marker.clear(list);
+        assertTrue(marker.isCleared());
+    }
+
+    public void testToString()
+    {
+        IntPointList list = new IntPointList();
+        assertEquals("", list.toString());
+        list.add(GoPoint.get(0, 0));
+        list.add(GoPoint.get(1, 1));
+        assertEquals("A1 B2", list.toString());
+    }
+}
@@ -0,0 +1,99 @@
+package net.sf.gogui.gomoku;
+
+import java.util.Random;
+
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+
+public class AlignmentTableTest extends junit.framework.TestCase
+{
+	public static void main(String args[])
+	{
+		junit.textui.TestRunner.run(suite());
+	}
+
+	public static junit.framework.Test suite()
+	{
+		return new junit.framework.TestSuite(AlignmentTableTest.class);
+	}
+
+	public void testAligned() {
+		AlignmentTable t = new AlignmentTable(19);
+		t.play(Move.get(GoColor.WHITE, 5, 10));
+		t.play(Move.get(GoColor.WHITE, 6, 10));
+		t.play(Move.get(GoColor.WHITE, 7, 10));
+		assertTrue(t.isOpenFour(GoColor.WHITE, GoPoint.get(8, 10)));
+		assertTrue(t.isOpenFour(GoColor.WHITE, GoPoint.get(4, 10)));
+		assertFalse(t.isOpenFour(GoColor.WHITE, GoPoint.get(9, 10)));
+		t.play(Move.get(GoColor.WHITE, 8, 10));
+		GoPoint p = GoPoint.get(9, 10);
+		assertTrue(t.isFive(GoColor.WHITE, p));
+		assertFalse(t.isFive(GoColor.BLACK, p));
+		assertFalse(t.isOverline(GoColor.WHITE, p));
+		assertFalse(t.isOpenFour(GoColor.WHITE, GoPoint.get(4, 10)));
+		t.play(Move.get(GoColor.WHITE, 10, 10));
+		assertTrue(t.isOverline(GoColor.WHITE, p));
+		t.undo();
+		t.undo();
+		t.play(Move.get(GoColor.BLACK, 4, 10));
+		assertFalse(t.isOpenFour(GoColor.WHITE, GoPoint.get(8, 10)));
+		assertEquals(4, t.getAligned(GoColor.WHITE, GoPoint.get(8, 10), 0));
+		assertEquals(1, t.getAligned(GoColor.WHITE, GoPoint.get(8, 10), 1));
+		assertEquals(2, t.getAligned(GoColor.BLACK, GoPoint.get(3, 10), 0));
+	}
+
+	public void testBorder() {
+		AlignmentTable t = new AlignmentTable(19);
+		t.play(Move.get(GoColor.WHITE, 3, 2));
+		t.play(Move.get(GoColor.WHITE, 3, 1));
+		t.play(Move.get(GoColor.WHITE, 3, 0));
+		assertTrue(t.isAligned(GoColor.WHITE, GoPoint.get(3, 2), 3));
+		assertFalse(t.isOpenFour(GoColor.WHITE, GoPoint.get(3, 3)));
+		assertFalse(t.isAtLeastAligned(GoColor.WHITE, GoPoint.get(3, 0), 5));
+	}
+
+	/**
+	 * Compare with CheckAlignment on random positions after play and undo.
+	 */
+	public void testRandom() {
+		Random random = new Random(1);
+		int size = 15;
+		for (int n = 0; n < 20; n++) {
+			AlignmentTable t = new AlignmentTable(size);
+			PointList black = new PointList();
+			PointList white = new PointList();
+			PointList moves = new PointList();
+			for (GoPoint p : new Board(size)) {
+				int r = random.nextInt(3);
+				if (r == 0)
+					continue;
+				GoColor c = (r == 1 ? GoColor.BLACK : GoColor.WHITE);
+				t.play(Move.get(c, p));
+				moves.add(p);
+			}
+			int numberUndo = random.nextInt(moves.size());
+			for (int i = 0; i < numberUndo; i++) {
+				t.undo();
+				moves.pop();
+			}
+			for (GoPoint p : moves)
+				(t.getColor(p) == GoColor.BLACK ? black : white).add(p);
+			Board b = new Board(size);
+			b.setup(black, white, GoColor.BLACK);
+			AlignmentTable copy = new AlignmentTable(size);
+			copy.set(b);
+			for (GoPoint p : b)
+				for (GoColor c : GoColor.BLACK_WHITE) {
+					Move move = Move.get(c, p);
+					for (int k = 1; k <= 7; k++) {
+						boolean aligned = CheckAlignment.areNAligned(b, move, k);
+						assertEquals(aligned, t.isAligned(c, p, k));
+						assertEquals(aligned, copy.isAligned(c, p, k));
+					}
+				}
+		}
+	}
+}
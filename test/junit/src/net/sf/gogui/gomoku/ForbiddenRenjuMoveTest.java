@@ -5,8 +5,9 @@ import junit.framework.TestSuite;
 import net.sf.gogui.go.Board;
 import net.sf.gogui.go.GoColor;
 import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
 
-public class ForbiddenRenjuMoveTest{
+public class ForbiddenRenjuMoveTest extends junit.framework.TestCase{
 	
 
 	public static Test suite() {
@@ -22,7 +23,7 @@ public class ForbiddenRenjuMoveTest{
 	    b.play(GoColor.BLACK, GoPoint.get(1, 1));
 	    b.play(GoColor.BLACK, GoPoint.get(2, 2));
 	    b.play(GoColor.BLACK, GoPoint.get(4, 4));
-	  //  RenjuPattern.
+	    assertFalse(ForbiddenRenjuMove.isForbidden(b, GoPoint.get(3, 3)));
 	}
 	public void testIsFork() {
 		Board b = new Board(12);
@@ -33,6 +34,116 @@ public class ForbiddenRenjuMoveTest{
 		b.play(GoColor.BLACK, GoPoint.get(8, 1));
 		b.play(GoColor.BLACK, GoPoint.get(9, 1));
 		b.play(GoColor.WHITE, GoPoint.get(10, 1));
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(12);
+		f.set(b);
+		assertTrue(f.isFork(GoPoint.get(5, 1)));
+		assertTrue(f.isForbidden(GoPoint.get(5, 1)));
+		assertFalse(f.isFork(GoPoint.get(4, 1)));
 	}
 
-}
\ No newline at end of file
+	public void testDoubleThree() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 7, 5);
+		play(f, GoColor.BLACK, 7, 6);
+		assertTrue(f.isForbidden(GoPoint.get(7, 7)));
+		// Three that cannot become a straight four
+		play(f, GoColor.WHITE, 4, 7);
+		assertFalse(f.isForbidden(GoPoint.get(7, 7)));
+		f.undo();
+		assertTrue(f.isForbidden(GoPoint.get(7, 7)));
+		// Split three
+		f.clear();
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 7, 5);
+		play(f, GoColor.BLACK, 7, 4);
+		assertTrue(f.isForbidden(GoPoint.get(7, 7)));
+	}
+
+	public void testDoubleFour() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.WHITE, 3, 7);
+		play(f, GoColor.BLACK, 7, 4);
+		play(f, GoColor.BLACK, 7, 5);
+		play(f, GoColor.BLACK, 7, 6);
+		play(f, GoColor.WHITE, 7, 3);
+		assertTrue(f.isForbidden(GoPoint.get(7, 7)));
+		// Two fours on the same line
+		f.clear();
+		play(f, GoColor.BLACK, 2, 7);
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 8, 7);
+		assertTrue(f.isForbidden(GoPoint.get(5, 7)));
+		assertTrue(f.isFork(GoPoint.get(5, 7)));
+	}
+
+	public void testFiveBeatsForbidden() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 3, 7);
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 7, 3);
+		play(f, GoColor.BLACK, 7, 4);
+		play(f, GoColor.BLACK, 7, 5);
+		assertTrue(f.isFive(GoPoint.get(7, 7)));
+		assertFalse(f.isForbidden(GoPoint.get(7, 7)));
+		assertTrue(f.isFork(GoPoint.get(7, 7)));
+	}
+
+	public void testFourThree() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 7, 5);
+		play(f, GoColor.BLACK, 7, 6);
+		assertFalse(f.isForbidden(GoPoint.get(7, 7)));
+	}
+
+	/**
+	 * Three that is not counted, because the points that make a straight
+	 * four are double fours.
+	 */
+	public void testFalseThree() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 6, 7);
+		play(f, GoColor.BLACK, 7, 5);
+		play(f, GoColor.BLACK, 7, 6);
+		play(f, GoColor.BLACK, 8, 4);
+		play(f, GoColor.BLACK, 8, 5);
+		play(f, GoColor.BLACK, 8, 6);
+		assertTrue(f.isForbidden(GoPoint.get(7, 7)));
+		play(f, GoColor.BLACK, 4, 4);
+		play(f, GoColor.BLACK, 4, 5);
+		play(f, GoColor.BLACK, 4, 6);
+		assertFalse(f.isForbidden(GoPoint.get(7, 7)));
+	}
+
+	public void testOverline() {
+		ForbiddenRenjuMove f = new ForbiddenRenjuMove(15);
+		play(f, GoColor.BLACK, 3, 7);
+		play(f, GoColor.BLACK, 4, 7);
+		play(f, GoColor.BLACK, 5, 7);
+		play(f, GoColor.BLACK, 7, 7);
+		play(f, GoColor.BLACK, 8, 7);
+		assertFalse(f.isFive(GoPoint.get(6, 7)));
+		assertTrue(f.isForbidden(GoPoint.get(6, 7)));
+		// Overline at the border
+		f.clear();
+		for (int y = 0; y < 5; y++)
+			play(f, GoColor.BLACK, 14, y);
+		assertTrue(f.isForbidden(GoPoint.get(14, 5)));
+	}
+
+	private static void play(ForbiddenRenjuMove f, GoColor c, int x, int y) {
+		f.play(Move.get(c, x, y));
+	}
+}
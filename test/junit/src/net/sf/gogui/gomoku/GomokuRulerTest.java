@@ -0,0 +1,132 @@
+package net.sf.gogui.gomoku;
+
+import net.sf.gogui.go.ConstPointList;
+import net.sf.gogui.go.GameRuler;
+import net.sf.gogui.go.GenericBoard;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.gtp.GtpError;
+
+public class GomokuRulerTest extends junit.framework.TestCase
+{
+	public static void main(String args[])
+	{
+		junit.textui.TestRunner.run(suite());
+	}
+
+	public static junit.framework.Test suite()
+	{
+		return new junit.framework.TestSuite(GomokuRulerTest.class);
+	}
+
+	public void testFive() throws GtpError {
+		GomokuRuler ruler = new GomokuRuler();
+		assertEquals(15, ruler.getBoardSize());
+		assertEquals(GoColor.BLACK, ruler.getSideToMove());
+		assertEquals(225, ruler.getLegalMoves().size());
+		for (int i = 0; i < 4; i++) {
+			ruler.play(Move.get(GoColor.BLACK, i, 0));
+			ruler.play(Move.get(GoColor.WHITE, i, 5));
+		}
+		assertFalse(ruler.isGameOver());
+		assertEquals("", ruler.getFinalResult());
+		ruler.play(Move.get(GoColor.BLACK, 4, 0));
+		assertTrue(ruler.isGameOver());
+		assertEquals(GoColor.BLACK, ruler.getWinner());
+		assertEquals("B+", ruler.getFinalResult());
+		assertEquals(0, ruler.getLegalMoves().size());
+		assertIllegal(ruler, Move.get(GoColor.WHITE, 4, 5));
+		ruler.undo();
+		assertFalse(ruler.isGameOver());
+		assertEquals(GoColor.BLACK, ruler.getSideToMove());
+		assertEquals(217, ruler.getLegalMoves().size());
+	}
+
+	public void testIllegal() throws GtpError {
+		GomokuRuler ruler = new GomokuRuler();
+		assertFalse(ruler.isPassLegal());
+		assertIllegal(ruler, Move.getPass(GoColor.BLACK));
+		assertIllegal(ruler, Move.get(GoColor.WHITE, 7, 7));
+		ruler.play(Move.get(GoColor.BLACK, 7, 7));
+		assertIllegal(ruler, Move.get(GoColor.WHITE, 7, 7));
+		assertIllegal(ruler, Move.get(GoColor.WHITE, 15, 7));
+		assertEquals(1, ruler.getNumberMoves());
+		ruler.undo();
+		try {
+			ruler.undo();
+			fail();
+		} catch (GtpError e) {
+		}
+	}
+
+	public void testLoad() throws GtpError {
+		GameRuler ruler = GenericBoard.loadGameRuler("Renju");
+		assertTrue(ruler instanceof RenjuRuler);
+		assertTrue(((GomokuRuler)ruler).isRenju());
+		ruler = GenericBoard.loadGameRuler("Gomoku");
+		assertFalse(((GomokuRuler)ruler).isRenju());
+	}
+
+	public void testOverline() throws GtpError {
+		GomokuRuler gomoku = new GomokuRuler();
+		GomokuRuler renju = new RenjuRuler();
+		playOverline(gomoku, GoColor.BLACK);
+		assertEquals(GoColor.BLACK, gomoku.getWinner());
+		playOverline(renju, GoColor.BLACK);
+		assertNull(renju.getWinner());
+		assertIllegal(renju, Move.get(GoColor.BLACK, 3, 0));
+		renju.clearBoard(15);
+		renju.play(Move.get(GoColor.BLACK, 7, 7));
+		playOverline(renju, GoColor.WHITE);
+		assertEquals(GoColor.WHITE, renju.getWinner());
+		assertEquals("W+", renju.getFinalResult());
+	}
+
+	public void testRenjuDoubleThree() throws GtpError {
+		GomokuRuler ruler = new RenjuRuler();
+		ruler.play(Move.get(GoColor.BLACK, 5, 7));
+		ruler.play(Move.get(GoColor.WHITE, 0, 0));
+		ruler.play(Move.get(GoColor.BLACK, 6, 7));
+		ruler.play(Move.get(GoColor.WHITE, 14, 0));
+		ruler.play(Move.get(GoColor.BLACK, 7, 5));
+		ruler.play(Move.get(GoColor.WHITE, 0, 14));
+		ruler.play(Move.get(GoColor.BLACK, 7, 6));
+		ruler.play(Move.get(GoColor.WHITE, 14, 14));
+		GoPoint p = GoPoint.get(7, 7);
+		ConstPointList legalMoves = ruler.getLegalMoves();
+		assertFalse(legalMoves.contains(p));
+		assertTrue(legalMoves.contains(GoPoint.get(8, 8)));
+		assertIllegal(ruler, Move.get(GoColor.BLACK, p));
+		ruler.play(Move.get(GoColor.BLACK, 0, 7));
+		// White may play the point
+		assertTrue(ruler.getLegalMoves().contains(p));
+		assertTrue(ruler.isLegal(Move.get(GoColor.WHITE, p)));
+	}
+
+	private static void assertIllegal(GomokuRuler ruler, Move move) {
+		assertFalse(ruler.isLegal(move));
+		try {
+			ruler.play(move);
+			fail();
+		} catch (GtpError e) {
+		}
+	}
+
+	/**
+	 * Play six stones of a color in a row with the stone in the middle
+	 * last, the other color plays on the bottom row.
+	 */
+	private static void playOverline(GomokuRuler ruler, GoColor c)
+			throws GtpError {
+		int[] order = { 0, 1, 2, 4, 5, 3 };
+		for (int i = 0; i < order.length; i++) {
+			if (ruler.getSideToMove() != c)
+				ruler.play(Move.get(c.otherColor(), 2 * i, 14));
+			if (i == order.length - 1
+					&& ! ruler.isLegal(Move.get(c, order[i], 0)))
+				return;
+			ruler.play(Move.get(c, order[i], 0));
+		}
+	}
+}
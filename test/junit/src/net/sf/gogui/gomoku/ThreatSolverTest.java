@@ -0,0 +1,145 @@
+package net.sf.gogui.gomoku;
+
+import java.util.ArrayList;
+
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.go.PointList;
+import net.sf.gogui.gtp.GtpError;
+
+public class ThreatSolverTest extends junit.framework.TestCase
+{
+	public static void main(String args[])
+	{
+		junit.textui.TestRunner.run(suite());
+	}
+
+	public static junit.framework.Test suite()
+	{
+		return new junit.framework.TestSuite(ThreatSolverTest.class);
+	}
+
+	public void testDoubleFour() throws GtpError {
+		Board board = setup(new int[] { 7, 7, 8, 7, 9, 7, 10, 8, 10, 9, 10, 10 },
+				new int[] { 6, 7, 10, 11 }, GoColor.BLACK);
+		ThreatSolver solver = new ThreatSolver(false);
+		ArrayList<Move> variation = solver.solve(board, GoColor.BLACK, false);
+		assertNotNull(variation);
+		assertEquals(3, variation.size());
+		assertEquals(GoPoint.get(10, 7), variation.get(0).getPoint());
+		checkVariation(board, variation, false);
+		// White cannot win
+		assertNull(solver.solve(board, GoColor.WHITE, true));
+	}
+
+	public void testFive() {
+		Board board = setup(new int[] { 3, 3, 4, 3, 5, 3, 6, 3 },
+				new int[] { 2, 3 }, GoColor.BLACK);
+		ArrayList<Move> variation =
+				new ThreatSolver(false).solve(board, GoColor.BLACK, false);
+		assertEquals(1, variation.size());
+		assertEquals(Move.get(GoColor.BLACK, 7, 3), variation.get(0));
+	}
+
+	public void testVcf() throws GtpError {
+		// G1 is a double four
+		Board board = setup(new int[] { 2, 0, 3, 0, 4, 0, 5, 2, 5, 3, 4, 2,
+						3, 3, 2, 4 },
+				new int[] { 1, 0, 1, 5, 10, 10, 12, 12, 10, 12, 12, 10 },
+				GoColor.BLACK);
+		ThreatSolver solver = new ThreatSolver(false);
+		ArrayList<Move> variation = solver.solve(board, GoColor.BLACK, false);
+		assertNotNull(variation);
+		assertEquals(3, variation.size());
+		assertEquals(GoPoint.get(6, 0), variation.get(0).getPoint());
+		checkVariation(board, variation, false);
+		// Without G1, F1 and F2 give a longer sequence
+		board.setPoints(new PointList(GoPoint.get(6, 0)), GoColor.WHITE);
+		variation = solver.solve(board, GoColor.BLACK, false);
+		if (variation != null)
+			checkVariation(board, variation, false);
+	}
+
+	public void testVct() throws GtpError {
+		Board board = setup(new int[] { 6, 7, 7, 7, 8, 8, 8, 9 },
+				new int[] { 0, 0, 14, 14, 0, 14, 14, 0 }, GoColor.BLACK);
+		ThreatSolver solver = new ThreatSolver(false);
+		assertNull(solver.solve(board, GoColor.BLACK, false));
+		ArrayList<Move> variation = solver.solve(board, GoColor.BLACK, true);
+		assertNotNull(variation);
+		checkVariation(board, variation, false);
+		PointList winningMoves =
+				solver.getWinningMoves(board, GoColor.BLACK, true);
+		assertTrue(winningMoves.contains(GoPoint.get(8, 7)));
+		// The double three is forbidden in Renju
+		ThreatSolver renjuSolver = new ThreatSolver(true);
+		assertFalse(renjuSolver.getWinningMoves(board, GoColor.BLACK, true)
+				.contains(GoPoint.get(8, 7)));
+		ArrayList<Move> renjuVariation =
+				renjuSolver.solve(board, GoColor.BLACK, true);
+		if (renjuVariation != null)
+			checkVariation(board, renjuVariation, true);
+	}
+
+	public void testThreads() {
+		Board board = setup(new int[] { 6, 7, 7, 7, 8, 8, 8, 9, 5, 5 },
+				new int[] { 7, 8, 9, 7, 6, 6, 9, 9, 4, 4 }, GoColor.BLACK);
+		ThreatSolver solver = new ThreatSolver(false);
+		solver.setThreads(1);
+		PointList sequential =
+				solver.getWinningMoves(board, GoColor.BLACK, true);
+		solver.setThreads(4);
+		PointList parallel =
+				solver.getWinningMoves(board, GoColor.BLACK, true);
+		assertEquals(sequential.size(), parallel.size());
+		for (GoPoint p : sequential)
+			assertTrue(parallel.contains(p));
+		// A closed solver can still be used
+		solver.close();
+		assertEquals(sequential.size(),
+				solver.getWinningMoves(board, GoColor.BLACK, true).size());
+		solver.close();
+	}
+
+	/**
+	 * Replay a variation and check that it is legal, that the defender
+	 * moves are forced or stop the threats and that it ends with a win.
+	 */
+	private static void checkVariation(Board board, ArrayList<Move> variation,
+			boolean isRenju) throws GtpError {
+		GomokuRuler ruler = new GomokuRuler(isRenju);
+		ruler.clearBoard(board.getSize());
+		ForbiddenRenjuMove position = new ForbiddenRenjuMove(board.getSize());
+		position.set(board);
+		AlignmentTable alignment = new AlignmentTable(board.getSize());
+		alignment.set(board);
+		GoColor attacker = variation.get(0).getColor();
+		for (int i = 0; i < variation.size(); i++) {
+			Move move = variation.get(i);
+			GoPoint p = move.getPoint();
+			assertEquals(i % 2 == 0 ? attacker : attacker.otherColor(),
+					move.getColor());
+			assertEquals(GoColor.EMPTY, alignment.getColor(p));
+			if (isRenju && move.getColor() == GoColor.BLACK)
+				assertFalse(position.isForbidden(p));
+			if (i == variation.size() - 1)
+				assertTrue(alignment.isAtLeastAligned(attacker, p, 5));
+			alignment.play(move);
+			position.play(move);
+		}
+	}
+
+	private static Board setup(int[] black, int[] white, GoColor toMove) {
+		PointList blackList = new PointList();
+		for (int i = 0; i < black.length; i += 2)
+			blackList.add(GoPoint.get(black[i], black[i + 1]));
+		PointList whiteList = new PointList();
+		for (int i = 0; i < white.length; i += 2)
+			whiteList.add(GoPoint.get(white[i], white[i + 1]));
+		Board board = new Board(15);
+		board.setup(blackList, whiteList, toMove);
+		return board;
+	}
+}
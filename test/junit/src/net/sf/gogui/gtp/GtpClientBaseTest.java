@@ -0,0 +1,174 @@
+// GtpClientBaseTest.java
+
+package net.sf.gogui.gtp;
+
+import net.sf.gogui.go.Board;
+import net.sf.gogui.go.GenericBoard;
+import static net.sf.gogui.go.GoColor.BLACK;
+import static net.sf.gogui.go.GoColor.WHITE;
+import static net.sf.gogui.go.GoColor.EMPTY;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.GtpGameRuler;
+import net.sf.gogui.go.Move;
+
+public final class GtpClientBaseTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(GtpClientBaseTest.class);
+    }
+
+    public void setUp() throws GtpError
+    {
+        m_expect = new GtpExpectEngine(null);
+        m_gtp = new GtpEngineClient(m_expect);
+        m_expect.expect("list_commands",
+                        "gogui-rules_legal_moves\n" +
+                        "gogui-rules_side_to_move\n" +
+                        "gogui-rules_board_size");
+        m_gtp.querySupportedCommands();
+        assertTrue(m_expect.isExpectQueueEmpty());
+    }
+
+    /** Test that game ruler queries in GenericBoard are sent only once per
+        position. */
+    public void testGenericBoard() throws GtpError
+    {
+        m_expect.expect("gogui-rules_legal_moves", "A1 B1 pass");
+        m_expect.expect("gogui-rules_side_to_move", "black");
+        assertFalse(GenericBoard.isGameOver(m_gtp));
+        assertTrue(GenericBoard.isPassLegal(m_gtp));
+        assertTrue(GenericBoard.isLegalMove(m_gtp, Move.get(BLACK, 0, 0)));
+        assertFalse(GenericBoard.isLegalMove(m_gtp, Move.get(WHITE, 0, 0)));
+        assertTrue(m_expect.isExpectQueueEmpty());
+        m_expect.expect("play B A1", "");
+        m_expect.expect("gogui-rules_side_to_move", "white");
+        m_expect.expect("gogui-rules_legal_moves", "B1");
+        m_gtp.sendPlay(Move.get(BLACK, GoPoint.get(0, 0)));
+        assertEquals(WHITE, GenericBoard.getSideToMove(m_gtp, null));
+        assertFalse(GenericBoard.isPassLegal(m_gtp));
+        assertTrue(GenericBoard.isLegalMove(m_gtp, Move.get(WHITE, 1, 0)));
+        assertTrue(m_expect.isExpectQueueEmpty());
+    }
+
+    /** Test that GenericBoard uses the combined state command if the ruler
+        supports it. */
+    public void testGenericBoardState() throws GtpError
+    {
+        m_expect.expect("list_commands",
+                        "gogui-rules_legal_moves\n" +
+                        "gogui-rules_side_to_move\n" +
+                        "gogui-rules_board\n" +
+                        "gogui-rules_board_size\n" +
+                        "gogui-rules_state");
+        m_gtp.querySupportedCommands();
+        m_expect.expect("play B A2", "");
+        m_expect.expect("gogui-rules_state",
+                        "side_to_move white\n" +
+                        "legal_moves A1 A3 B1 B2 B3 C1 C2 C3\n" +
+                        "game_over false\n" +
+                        "board\n" +
+                        ". . .\n" +
+                        "X . .\n" +
+                        ". . .");
+        m_expect.expect("gogui-rules_board_size", "3");
+        Board board = new Board(3);
+        GenericBoard.sendPlay(m_gtp, board, Move.get(BLACK, 0, 1));
+        assertEquals(BLACK, board.getColor(GoPoint.get(0, 1)));
+        assertEquals(WHITE, board.getToMove());
+        assertFalse(GenericBoard.isGameOver(m_gtp));
+        assertFalse(GenericBoard.isPassLegal(m_gtp));
+        assertTrue(GenericBoard.isLegalMove(m_gtp, Move.get(WHITE, 2, 2)));
+        assertTrue(m_expect.isExpectQueueEmpty());
+    }
+
+    /** Test the GameRuler adapter for a ruler program. */
+    public void testGtpGameRuler() throws GtpError
+    {
+        m_expect.expect("list_commands",
+                        "gogui-rules_legal_moves\n" +
+                        "gogui-rules_side_to_move\n" +
+                        "gogui-rules_board\n" +
+                        "gogui-rules_board_size\n" +
+                        "undo");
+        m_gtp.querySupportedCommands();
+        GtpGameRuler ruler = new GtpGameRuler(m_gtp);
+        m_expect.expect("gogui-rules_legal_moves", "A1 A10 pass");
+        m_expect.expect("gogui-rules_board", ". .\nX O");
+        m_expect.expect("gogui-rules_board_size", "2");
+        m_expect.expect("gogui-rules_side_to_move", "b");
+        assertEquals(2, ruler.getLegalMoves().size());
+        assertTrue(ruler.getLegalMoves().contains(GoPoint.get(0, 9)));
+        assertFalse(ruler.getLegalMoves().contains(GoPoint.get(0, 1)));
+        assertTrue(ruler.isPassLegal());
+        assertEquals(BLACK, ruler.getColor(GoPoint.get(0, 0)));
+        assertEquals(WHITE, ruler.getColor(GoPoint.get(1, 0)));
+        assertEquals(EMPTY, ruler.getColor(GoPoint.get(1, 1)));
+        assertEquals(BLACK, ruler.getSideToMove());
+        assertTrue(m_expect.isExpectQueueEmpty());
+        m_expect.expect("undo", "");
+        m_expect.expect("gogui-rules_side_to_move", "w");
+        ruler.undo();
+        assertEquals(WHITE, ruler.getSideToMove());
+        assertTrue(m_expect.isExpectQueueEmpty());
+    }
+
+    public void testGetStateField()
+    {
+        String state = "side_to_move black\nlegal_moves\ngame_over true\n"
+            + "board\nX O\n. .";
+        assertEquals("black", GenericBoard.getStateField(state, "side_to_move"));
+        assertEquals("", GenericBoard.getStateField(state, "legal_moves"));
+        assertEquals("true", GenericBoard.getStateField(state, "game_over"));
+        assertEquals("X O\n. .", GenericBoard.getStateField(state, "board"));
+        assertNull(GenericBoard.getStateField(state, "foo"));
+    }
+
+    public void testSendCached() throws GtpError
+    {
+        m_expect.expect("gogui-rules_board_size", "9");
+        m_expect.expect("gogui-rules_legal_moves", "A1");
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertEquals("A1", m_gtp.sendCached("gogui-rules_legal_moves", false));
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertEquals("A1", m_gtp.sendCached("gogui-rules_legal_moves", false));
+        assertTrue(m_expect.isExpectQueueEmpty());
+        // Playing a move clears only the position cache
+        m_expect.expect("play B A1", "");
+        m_expect.expect("gogui-rules_legal_moves", "");
+        m_gtp.sendPlay(Move.get(BLACK, GoPoint.get(0, 0)));
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertEquals("", m_gtp.sendCached("gogui-rules_legal_moves", false));
+        assertTrue(m_expect.isExpectQueueEmpty());
+        m_expect.expect("clear_board", "");
+        m_expect.expect("gogui-rules_board_size", "9");
+        m_gtp.sendClearBoard(9);
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertTrue(m_expect.isExpectQueueEmpty());
+        m_gtp.clearResponseCache();
+        m_expect.expect("gogui-rules_board_size", "9");
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertTrue(m_expect.isExpectQueueEmpty());
+        // Other commands sent with send() clear both caches
+        m_expect.expect("gogui-rules_legal_moves", "A1");
+        m_expect.expect("undo", "");
+        m_expect.expect("gogui-rules_legal_moves", "A1 B1");
+        m_expect.expect("gogui-rules_board_size", "9");
+        assertEquals("A1", m_gtp.sendCached("gogui-rules_legal_moves", false));
+        m_gtp.send("undo");
+        assertEquals("A1 B1",
+                     m_gtp.sendCached("gogui-rules_legal_moves", false));
+        assertEquals("9", m_gtp.sendCached("gogui-rules_board_size", true));
+        assertTrue(m_expect.isExpectQueueEmpty());
+    }
+
+    private GtpExpectEngine m_expect;
+
+    private GtpEngineClient m_gtp;
+}
@@ -20,6 +20,7 @@ public final class GtpEngineClient
 
     public String send(String command) throws GtpError
     {
+        invalidateResponseCache(command);
         GtpCommand cmd = new GtpCommand(command);
         m_engine.handleCommand(cmd);
         return cmd.getResponse().toString();
@@ -3,11 +3,13 @@
 package net.sf.gogui.sgf;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
+import net.sf.gogui.game.CompactGameTree;
 import net.sf.gogui.game.ConstGameInfo;
 import net.sf.gogui.game.ConstGameTree;
 import net.sf.gogui.game.ConstNode;
@@ -39,6 +41,27 @@ public final class SgfReaderTest
         return new junit.framework.TestSuite(SgfReaderTest.class);
     }
 
+    /** Test reading into a compact tree.
+        Checks that writing the compact tree gives the same SGF as writing
+        the normal tree. */
+    public void testCompact() throws Exception
+    {
+        SgfReader reader = getReader("ff4_ex.1.sgf");
+        InputStream in = getClass().getResourceAsStream("ff4_ex.1.sgf");
+        SgfReader compactReader = new SgfReader(in, null, null, 0, true);
+        assertNull(compactReader.getTree());
+        CompactGameTree tree = compactReader.getCompactTree();
+        checkFF4Example(tree);
+        assertEquals(write(reader.getTree()), write(tree));
+        reader = getReaderString("(;AB[aa]AW[bb];W[cc])");
+        in = new ByteArrayInputStream("(;AB[aa]AW[bb];W[cc])".getBytes());
+        compactReader = new SgfReader(in, null, null, 0, true);
+        tree = compactReader.getCompactTree();
+        // Player was set by SgfReader.applyFixes()
+        assertEquals(WHITE, tree.getRootConst().getPlayer());
+        assertEquals(write(reader.getTree()), write(tree));
+    }
+
     public void testDuplicateProperty() throws Exception
     {
         readSgfFileString("(;C[foo]C[bar])", false, true);
@@ -124,6 +147,18 @@ public final class SgfReaderTest
         assertEquals(13, tree.getBoardSize());
     }
 
+    /** Test points with upper case letters on boards larger than 26. */
+    public void testLargeBoard() throws Exception
+    {
+        ConstGameTree tree =
+            readSgfFileString("(;FF[4]SZ[40];B[aA];W[Nn])");
+        assertEquals(40, tree.getBoardSize());
+        ConstNode node = tree.getRootConst().getChildConst();
+        assertEquals(Move.get(BLACK, 0, 13), node.getMove());
+        node = node.getChildConst();
+        assertEquals(Move.get(WHITE, 39, 26), node.getMove());
+    }
+
     public void testSizeAfterPoints() throws Exception
     {
         readSgfFile("size-after-valid-points.sgf", false, false);
@@ -191,9 +226,13 @@ public final class SgfReaderTest
 
     public void checkFF4Example(SgfReader reader) throws Exception
     {
-        GameTree tree = reader.getTree();
+        checkFF4Example(reader.getTree());
+    }
+
+    public void checkFF4Example(ConstGameTree tree) throws Exception
+    {
         assertEquals(tree.getBoardSize(), 19);
-        ConstNode root = tree.getRoot();
+        ConstNode root = tree.getRootConst();
         assertEquals(NodeUtil.subtreeSize(root), 54);
         assertEquals(root.getNumberChildren(), 5);
         ConstNode node;
@@ -374,6 +413,13 @@ public final class SgfReaderTest
         return reader.getTree();
     }
 
+    private static String write(ConstGameTree tree)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SgfWriter(out, tree, "GoGui", "1.0");
+        return out.toString();
+    }
+
     private ConstGameTree readSgfFileString(String name) throws Exception
     {
         return readSgfFileString(name, false, false);
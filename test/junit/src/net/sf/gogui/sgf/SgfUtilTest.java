@@ -2,6 +2,8 @@
 
 package net.sf.gogui.sgf;
 
+import net.sf.gogui.go.GoPoint;
+
 public final class SgfUtilTest
     extends junit.framework.TestCase
 {
@@ -15,6 +17,16 @@ public final class SgfUtilTest
         return new junit.framework.TestSuite(SgfUtilTest.class);
     }
 
+    public void testFormatPoint()
+    {
+        assertEquals("", SgfUtil.formatPoint(null, 19));
+        assertEquals("as", SgfUtil.formatPoint(GoPoint.get(0, 0), 19));
+        assertEquals("aA", SgfUtil.formatPoint(GoPoint.get(0, 13), 40));
+        assertEquals("Nn", SgfUtil.formatPoint(GoPoint.get(39, 26), 40));
+        assertEquals(39, SgfUtil.parseCoordinate('N'));
+        assertEquals(-1, SgfUtil.parseCoordinate('1'));
+    }
+
     public void testParseTime() throws Exception
     {
         assertEquals(13L * 3600L * 1000L, SgfUtil.parseTime("13h"));
@@ -0,0 +1,142 @@
+// RefereeTest.java
+
+package net.sf.gogui.tools.referee;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import net.sf.gogui.go.GameRuler;
+import net.sf.gogui.go.GoColor;
+import net.sf.gogui.go.GoPoint;
+import net.sf.gogui.go.GtpGameRuler;
+import net.sf.gogui.go.Move;
+import net.sf.gogui.gomoku.GomokuRuler;
+import net.sf.gogui.gomoku.RenjuRuler;
+import net.sf.gogui.gtp.GtpEngineClient;
+import net.sf.gogui.gtp.GtpError;
+
+public final class RefereeTest
+    extends junit.framework.TestCase
+{
+    public static void main(String args[])
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static junit.framework.Test suite()
+    {
+        return new junit.framework.TestSuite(RefereeTest.class);
+    }
+
+    public void testCommands() throws GtpError
+    {
+        GtpEngineClient gtp = new GtpEngineClient(new Referee(null,
+                                                  new GomokuRuler()));
+        assertEquals("Gomoku", gtp.send("gogui-rules_game_id"));
+        gtp.send("boardsize 5");
+        assertEquals("5", gtp.send("gogui-rules_board_size"));
+        gtp.send("play b a1");
+        assertEquals("white", gtp.send("gogui-rules_side_to_move"));
+        assertEquals(". . . . .\n" +
+                     ". . . . .\n" +
+                     ". . . . .\n" +
+                     ". . . . .\n" +
+                     "X . . . .", gtp.send("gogui-rules_board"));
+        try
+        {
+            gtp.send("play w a1");
+            fail();
+        }
+        catch (GtpError e)
+        {
+        }
+        try
+        {
+            gtp.send("final_score");
+            fail();
+        }
+        catch (GtpError e)
+        {
+        }
+        assertEquals("", gtp.send("gogui-rules_final_result"));
+        for (int i = 1; i < 5; ++i)
+        {
+            gtp.send("play w " + GoPoint.get(i, 4));
+            gtp.send("play b " + GoPoint.get(0, i));
+        }
+        assertEquals("B+", gtp.send("final_score"));
+        assertEquals("side_to_move white\n" +
+                     "legal_moves \n" +
+                     "game_over true\n" +
+                     "board\n" +
+                     "X O O O O\n" +
+                     "X . . . .\n" +
+                     "X . . . .\n" +
+                     "X . . . .\n" +
+                     "X . . . .", gtp.send("gogui-rules_state"));
+        gtp.send("undo");
+        gtp.send("clear_board");
+        assertEquals("5", gtp.send("gogui-rules_board_size"));
+        assertEquals("black", gtp.send("gogui-rules_side_to_move"));
+    }
+
+    /** Compare a ruler in the same process with the same ruler used with
+        GTP in random games. */
+    public void testGtpGameRuler() throws GtpError
+    {
+        GtpEngineClient gtp = new GtpEngineClient(new Referee(null,
+                                                  new RenjuRuler()));
+        gtp.querySupportedCommands();
+        GameRuler gtpRuler = new GtpGameRuler(gtp);
+        GameRuler ruler = new RenjuRuler();
+        Random random = new Random(2);
+        for (int game = 0; game < 5; ++game)
+        {
+            ruler.clearBoard(9);
+            gtpRuler.clearBoard(9);
+            while (true)
+            {
+                assertEquals(ruler.getSideToMove(), gtpRuler.getSideToMove());
+                assertEquals(ruler.isGameOver(), gtpRuler.isGameOver());
+                assertEquals(ruler.getLegalMoves(),
+                             gtpRuler.getLegalMoves());
+                for (GoPoint p : ruler.getLegalMoves())
+                    assertEquals(ruler.getColor(p), gtpRuler.getColor(p));
+                if (ruler.isGameOver())
+                    break;
+                int n = ruler.getLegalMoves().size();
+                GoPoint p = ruler.getLegalMoves().get(random.nextInt(n));
+                Move move = Move.get(ruler.getSideToMove(), p);
+                ruler.play(move);
+                gtpRuler.play(move);
+            }
+            assertEquals(ruler.getFinalResult(), gtpRuler.getFinalResult());
+        }
+    }
+
+    public void testSolve() throws GtpError
+    {
+        GtpEngineClient gtp = new GtpEngineClient(new Referee(null,
+                                                  new GomokuRuler()));
+        assertTrue(gtp.send("gogui-analyze_commands")
+                   .contains("var/VCF/gogui-referee-vcf"));
+        gtp.send("play b f8");
+        gtp.send("play w a1");
+        gtp.send("play b g8");
+        gtp.send("play w a15");
+        gtp.send("play b h8");
+        gtp.send("play w p1");
+        List<String> moves =
+            Arrays.asList(gtp.send("gogui-referee-vcf_moves").split(" "));
+        assertEquals(2, moves.size());
+        assertTrue(moves.contains("E8"));
+        assertTrue(moves.contains("J8"));
+        String[] variation = gtp.send("gogui-referee-vcf").split(" ");
+        assertEquals(3, variation.length);
+        assertTrue(moves.contains(variation[0]));
+        // White has no threats
+        gtp.send("undo");
+        assertEquals("", gtp.send("gogui-referee-vct"));
+        assertEquals("", gtp.send("gogui-referee-vct_moves"));
+    }
+}